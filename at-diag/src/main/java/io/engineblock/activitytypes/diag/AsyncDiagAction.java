@@ -21,6 +21,7 @@ import io.engineblock.activityapi.core.ops.fluent.opfacets.CompletedOp;
 import io.engineblock.activityapi.core.ops.fluent.opfacets.StartedOp;
 import io.engineblock.activityapi.core.ops.fluent.opfacets.TrackedOp;
 import io.engineblock.activityapi.cyclelog.buffers.op_output.StrideOutputConsumer;
+import io.engineblock.activityapi.cyclelog.buffers.op_output.StrideSequencer;
 import io.engineblock.activityapi.ratelimits.RateLimiter;
 import io.engineblock.activityimpl.ActivityDef;
 import io.engineblock.activityimpl.ParameterMap;
@@ -28,15 +29,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.locks.LockSupport;
 import java.util.function.LongFunction;
 import java.util.function.LongToIntFunction;
 import java.util.function.LongUnaryOperator;
 import java.util.stream.Collectors;
 
-public class AsyncDiagAction extends BaseAsyncAction<DiagOpData, DiagActivity> implements Thread.UncaughtExceptionHandler, StrideOutputConsumer<DiagOpData> {
+public class AsyncDiagAction extends BaseAsyncAction<DiagOpData, DiagActivity> implements StrideOutputConsumer<DiagOpData> {
 
     private final static Logger logger = LoggerFactory.getLogger(AsyncDiagAction.class);
 
@@ -53,10 +51,8 @@ public class AsyncDiagAction extends BaseAsyncAction<DiagOpData, DiagActivity> i
     private LongToIntFunction resultFunc;
     private LongUnaryOperator delayFunc;
 
-
-//    private PriorityBlockingQueue<StartedOp<DiagOpData>> asyncOps;
-    private LinkedBlockingDeque<StartedOp<DiagOpData>> opQueue;
-    private OpFinisher finisher;
+    private DiagCompleter completer;
+    private StrideSequencer strideSequencer;
     private boolean enableOutputProcessing;
 
 
@@ -118,10 +114,8 @@ public class AsyncDiagAction extends BaseAsyncAction<DiagOpData, DiagActivity> i
 
     @Override
     public void init() {
-
-//        this.asyncOps = new PriorityBlockingQueue<>(1, Comparator.comparingLong(o -> o.getData().getSimulatedDelayNanos()));
-        this.opQueue = new LinkedBlockingDeque<StartedOp<DiagOpData>>();
-        this.finisher = new OpFinisher(activity.getAlias()+"_finisher_" + slot, opQueue, this);
+        this.completer = activity.getCompleter();
+        this.strideSequencer = activity.getStrideSequencer();
     }
 
     @Override
@@ -154,7 +148,7 @@ public class AsyncDiagAction extends BaseAsyncAction<DiagOpData, DiagActivity> i
         opc.getData().log("starting at " + System.nanoTime());
         opc.getData().setSimulatedDelayNanos(delayFunc.applyAsLong(opc.getCycle()));
         StartedOp<DiagOpData> started = opc.start();
-        opQueue.add(started);
+        completer.submit(slot, started, this);
     }
 
     private int backendExecuteOp(StartedOp<DiagOpData> opc) {
@@ -201,66 +195,29 @@ public class AsyncDiagAction extends BaseAsyncAction<DiagOpData, DiagActivity> i
 
     }
 
-    @Override
-    public void uncaughtException(Thread t, Throwable e) {
-        logger.error("Error on finisher thread: " +t.getName() + ", error: " + e.getMessage());
-        requestStop();
-    }
-
-
-    private static class OpFinisher implements Runnable {
-        final BlockingQueue<StartedOp<DiagOpData>> queue;
-        private final AsyncDiagAction action;
-        AsyncDiagAction mainContext;
-        private volatile boolean running = true;
-        private Thread thread;
-        private String name;
-
-        public OpFinisher(String name, BlockingQueue<StartedOp<DiagOpData>> queue, AsyncDiagAction action) {
-            this.queue = queue;
-            this.action=action;
-            this.name = name;
-
-            thread = new Thread(this);
-            thread.setName(name);
-            thread.setUncaughtExceptionHandler(action);
-            thread.start();
-        }
-
-        public void requestStop() {
-            running=false;
+    /**
+     * Complete an op when its simulated delay is up. This is called by the completion thread
+     * of this action's slot.
+     *
+     * @param opc The started op
+     */
+    void completeOp(StartedOp<DiagOpData> opc) {
+        int result = backendExecuteOp(opc);
+        if (result == 0) {
+            opc.succeed(result);
+        } else {
+            opc.fail(result);
         }
+    }
 
-        @Override
-        public void run() {
-            logger.debug("stopping finisher thread for diagnostic action " + name);
-            while (running) {
-                StartedOp<DiagOpData> opc;
-                try {
-                    opc=queue.take();
-
-                    DiagOpData op = opc.getData();
-                    long now = System.nanoTime();
-                    long simulatedCompletionTime = opc.getStartedAtNanos() + op.getSimulatedDelayNanos();
-
-                    long nanodelay = Math.max(0L,simulatedCompletionTime-now);
-                    if (nanodelay>=1000) { // It's not worth calling this for very small values
-                        LockSupport.parkNanos(nanodelay);
-                    }
-
-                    int result = action.backendExecuteOp(opc);
-                    if (result==0) {
-                        opc.succeed(result);
-                    } else {
-                        opc.fail(result);
-                    }
-                } catch (InterruptedException ignored) {
-                }
-
-            }
-            logger.debug("stopping finisher thread for diagnostic action " + name);
-
-        }
+    /**
+     * Stop this action when an op could not be completed. The op is failed, so that the
+     * activity does not wait on it while stopping.
+     */
+    void onCompletionError(StartedOp<DiagOpData> opc, Throwable e) {
+        logger.error("Error on completion thread: " + Thread.currentThread().getName() + ", cycle " + opc.getCycle() + ", error: " + e.getMessage());
+        requestStop();
+        opc.fail(1);
     }
 
     @Override
@@ -270,7 +227,7 @@ public class AsyncDiagAction extends BaseAsyncAction<DiagOpData, DiagActivity> i
             long start = completedOps.get(0).getCycle();
             long endPlus = completedOps.get(completedOps.size()-1).getCycle()+1;
             String diagLog = completedOps.get(0).getData().getDiagLog().stream().collect(Collectors.joining("\n"));
-            activity.getSequenceBlocker().awaitAndRun(start, endPlus, () -> logger.info(" => " + start + " -> " + endPlus + ": " + diagLog));
+            strideSequencer.submit(start, endPlus, () -> logger.info(" => " + start + " -> " + endPlus + ": " + diagLog));
         }
     }
 
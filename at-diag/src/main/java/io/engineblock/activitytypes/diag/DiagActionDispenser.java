@@ -39,4 +39,9 @@ public class DiagActionDispenser implements ActionDispenser {
             return new DiagAction(slot, activity.getActivityDef(), activity);
         }
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
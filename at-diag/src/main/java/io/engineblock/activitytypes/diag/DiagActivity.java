@@ -18,6 +18,9 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
 import io.engineblock.activityapi.core.Activity;
 import io.engineblock.activityapi.core.ActivityDefObserver;
+import io.engineblock.activityapi.core.ops.fluent.AdaptiveConcurrency;
+import io.engineblock.activityapi.core.ops.fluent.AsyncSpec;
+import io.engineblock.activityapi.cyclelog.buffers.op_output.StrideSequencer;
 import io.engineblock.activityapi.ratelimits.RateLimiter;
 import io.engineblock.activityapi.ratelimits.RateLimiters;
 import io.engineblock.activityapi.ratelimits.RateSpec;
@@ -39,7 +42,8 @@ public class DiagActivity extends SimpleActivity implements Activity, ActivityDe
 
     private LongToIntFunction resultFunc = new ResultFunc_Modulo128();
     private LongUnaryOperator delayFunc = new DelayFunc_NoDelay();
-    private SequenceBlocker sequenceBlocker;
+    private volatile StrideSequencer strideSequencer;
+    private DiagCompleter completer;
 
 
     public DiagActivity(ActivityDef activityDef) {
@@ -58,6 +62,13 @@ public class DiagActivity extends SimpleActivity implements Activity, ActivityDe
         //onActivityDefUpdate(activityDef);
         if (isAsync()) {
             pendingOpsCounter = ActivityMetrics.counter(this.activityDef, "pending_ops");
+            int completers = activityDef.getParams().getOptionalInteger("completers")
+                    .orElse(Math.max(1, Math.min(activityDef.getThreads(), Runtime.getRuntime().availableProcessors() / 2)));
+            completer = new DiagCompleter(getAlias(), completers);
+            registerAutoCloseable(completer);
+            long stride = activityDef.getParams().getOptionalLong("stride").orElse(1L);
+            int capacity = Math.max(64, activityDef.getThreads() * 16);
+            strideSequencer = new StrideSequencer(activityDef.getStartCycle(), stride, capacity, true);
         }
     }
 
@@ -120,18 +131,30 @@ public class DiagActivity extends SimpleActivity implements Activity, ActivityDe
 
 
     public boolean isAsync() {
-        return activityDef.getParams().getOptionalInteger("async").isPresent();
+        return activityDef.getParams().getOptionalString("async").isPresent();
     }
 
     public long getMaxAsync() {
-        return activityDef.getParams().getOptionalInteger("async").orElse(1);
+        AdaptiveConcurrency concurrency = getAdaptiveConcurrencyOrNull();
+        if (concurrency != null) {
+            return concurrency.getLimit();
+        }
+        return AsyncSpec.forActivity(activityDef).map(AsyncSpec::getOps).orElse(1);
     }
 
-    public synchronized SequenceBlocker getSequenceBlocker() {
-        if (sequenceBlocker==null) {
-            sequenceBlocker = new SequenceBlocker(getActivityDef().getStartCycle(), true);
-        }
-        return sequenceBlocker;
+    /**
+     * @return the completer which finishes the ops of async actions, or null if this activity is not async
+     */
+    public DiagCompleter getCompleter() {
+        return completer;
+    }
+
+    /**
+     * @return the sequencer which logs the strides of async actions in cycle order, or null if this
+     * activity is not async
+     */
+    public StrideSequencer getStrideSequencer() {
+        return strideSequencer;
     }
 
 
@@ -0,0 +1,194 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+package io.engineblock.activitytypes.diag;
+
+import io.engineblock.activityapi.core.ops.fluent.opfacets.StartedOp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * <p>Completes the ops of async diag actions when their simulated delays are up, in the order
+ * of their completion times, not the order in which they were started. This makes the delays of
+ * the delayfunc what is actually measured, as it would be with a real async driver.</p>
+ *
+ * <p>An activity has a fixed number of completion threads, set by the <em>completers</em> parameter.
+ * The ops of each slot always go to the same completion thread, so an action is only ever called
+ * from one completion thread. Each thread keeps its pending ops in a heap ordered by completion time,
+ * and parks until the first of them is due. Ops are handed to it through a lock-free queue, and it is
+ * only woken early when an op is due before the one it is waiting for.</p>
+ */
+public class DiagCompleter implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(DiagCompleter.class);
+
+    /**
+     * Ops which are due within this many nanoseconds are completed without parking.
+     */
+    public final static long SPIN_NANOS = 1000L;
+
+    private final CompletionThread[] threads;
+
+    public DiagCompleter(String name, int threadCount) {
+        if (threadCount < 1) {
+            throw new RuntimeException("There must be at least one completion thread, not " + threadCount);
+        }
+        this.threads = new CompletionThread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new CompletionThread(name + "_completer_" + i);
+            threads[i].thread.start();
+        }
+        logger.debug("started " + threadCount + " completion threads for " + name);
+    }
+
+    /**
+     * Complete an op when its simulated delay is up.
+     *
+     * @param slot   The slot of the action which started the op
+     * @param op     The started op
+     * @param action The action which completes the op
+     */
+    public void submit(int slot, StartedOp<DiagOpData> op, AsyncDiagAction action) {
+        long completeAt = op.getStartedAtNanos() + op.getData().getSimulatedDelayNanos();
+        submit(slot, completeAt, () -> action.completeOp(op), e -> action.onCompletionError(op, e));
+    }
+
+    /**
+     * Run a completion at a given time.
+     *
+     * @param slot       The slot, which selects the completion thread
+     * @param completeAt The time to run the completion at, in {@link System#nanoTime()} terms
+     * @param completion The completion to run
+     * @param onError    What to do if the completion throws an exception
+     */
+    void submit(int slot, long completeAt, Runnable completion, Consumer<Exception> onError) {
+        threads[slot % threads.length].submit(new PendingOp(completeAt, completion, onError));
+    }
+
+    public int getThreadCount() {
+        return threads.length;
+    }
+
+    @Override
+    public void close() {
+        for (CompletionThread thread : threads) {
+            thread.stop();
+        }
+    }
+
+    private static class PendingOp {
+        private final long completeAt;
+        private final Runnable completion;
+        private final Consumer<Exception> onError;
+        private long sequence;
+
+        private PendingOp(long completeAt, Runnable completion, Consumer<Exception> onError) {
+            this.completeAt = completeAt;
+            this.completion = completion;
+            this.onError = onError;
+        }
+    }
+
+    private static class CompletionThread implements Runnable {
+        private final static int AWAKE = 0;
+        private final static int WAITING = 1;
+        private final static int IDLE = 2;
+
+        private final Thread thread;
+        private final Queue<PendingOp> submitted = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<PendingOp> pending = new PriorityQueue<>(CompletionThread::compare);
+        private long sequence;
+        private volatile int state = AWAKE;
+        private volatile long wakeAt;
+        private volatile boolean running = true;
+
+        private CompletionThread(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        private void submit(PendingOp pendingOp) {
+            submitted.add(pendingOp);
+            int state = this.state;
+            if (state == IDLE || (state == WAITING && pendingOp.completeAt - wakeAt < 0L)) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                PendingOp pendingOp;
+                while ((pendingOp = submitted.poll()) != null) {
+                    pendingOp.sequence = sequence++;
+                    pending.add(pendingOp);
+                }
+
+                long now = System.nanoTime();
+                while (!pending.isEmpty() && pending.peek().completeAt - now <= SPIN_NANOS) {
+                    complete(pending.poll());
+                    now = System.nanoTime();
+                }
+
+                PendingOp next = pending.peek();
+                if (next != null) {
+                    wakeAt = next.completeAt;
+                    state = WAITING;
+                } else {
+                    state = IDLE;
+                }
+                if (submitted.isEmpty() && running) {
+                    if (next != null) {
+                        LockSupport.parkNanos(this, next.completeAt - System.nanoTime());
+                    } else {
+                        LockSupport.park(this);
+                    }
+                }
+                state = AWAKE;
+            }
+            logger.debug("stopping completion thread " + thread.getName());
+        }
+
+        /**
+         * Order by completion time, allowing for nanoTime overflow, then by submission order.
+         */
+        private static int compare(PendingOp a, PendingOp b) {
+            long diff = a.completeAt - b.completeAt;
+            if (diff != 0L) {
+                return diff < 0L ? -1 : 1;
+            }
+            return Long.compare(a.sequence, b.sequence);
+        }
+
+        private void complete(PendingOp pendingOp) {
+            try {
+                pendingOp.completion.run();
+            } catch (Exception e) {
+                pendingOp.onError.accept(e);
+            }
+        }
+    }
+}
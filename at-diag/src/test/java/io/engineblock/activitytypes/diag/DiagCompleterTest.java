@@ -0,0 +1,85 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activitytypes.diag;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DiagCompleterTest {
+
+    @Test
+    public void testCompletesInDeadlineOrder() throws Exception {
+        DiagCompleter completer = new DiagCompleter("test", 1);
+        List<Long> completed = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(4);
+        long now = System.nanoTime();
+        long[] delaysMillis = {200L, 50L, 150L, 0L};
+        for (long delayMillis : delaysMillis) {
+            completer.submit(0, now + TimeUnit.MILLISECONDS.toNanos(delayMillis), () -> {
+                completed.add(delayMillis);
+                latch.countDown();
+            }, e -> {});
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed).containsExactly(0L, 50L, 150L, 200L);
+        completer.close();
+    }
+
+    @Test
+    public void testEqualDeadlinesKeepSubmitOrder() throws Exception {
+        DiagCompleter completer = new DiagCompleter("test", 1);
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        long completeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20L);
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            completer.submit(0, completeAt, () -> {
+                completed.add(index);
+                latch.countDown();
+            }, e -> {});
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 100; i++) {
+            assertThat(completed.get(i)).isEqualTo(i);
+        }
+        completer.close();
+    }
+
+    @Test
+    public void testErrorsAreHandled() throws Exception {
+        DiagCompleter completer = new DiagCompleter("test", 2);
+        List<Exception> errors = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        completer.submit(1, System.nanoTime(), () -> {
+            throw new RuntimeException("diag error");
+        }, e -> {
+            errors.add(e);
+            latch.countDown();
+        });
+        completer.submit(1, System.nanoTime(), latch::countDown, e -> {});
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(errors).hasSize(1);
+        completer.close();
+    }
+}
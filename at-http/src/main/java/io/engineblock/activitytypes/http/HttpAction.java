@@ -1,5 +1,6 @@
 package io.engineblock.activitytypes.http;
 
+import activityconfig.CompiledTemplate;
 import activityconfig.yaml.StmtDef;
 import activityconfig.yaml.StmtsBlock;
 import activityconfig.yaml.StmtsDoc;
@@ -11,7 +12,6 @@ import io.engineblock.activityapi.core.SyncAction;
 import io.engineblock.activityapi.planning.OpSequence;
 import io.engineblock.activityimpl.ActivityDef;
 import io.virtdata.core.ContextualBindingsTemplate;
-import io.virtdata.templates.StringBindings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,7 +28,7 @@ public class HttpAction implements SyncAction {
     private int maxTries = 1;
     private boolean showstmts;
 
-    private OpSequence<StringBindings> sequencer;
+    private OpSequence<CompiledTemplate> sequencer;
 
 
     public HttpAction(ActivityDef activityDef, int slot, HttpActivity httpActivity) {
@@ -43,24 +43,25 @@ public class HttpAction implements SyncAction {
 
     @Override
     public int runCycle(long cycleValue) {
-        StringBindings stringBindings;
         String statement = null;
         InputStream result = null;
 
         try (Timer.Context bindTime = httpActivity.bindTimer.time()) {
-            stringBindings = sequencer.get(cycleValue);
-            statement = stringBindings.bind(cycleValue);
+            CompiledTemplate template = sequencer.get(cycleValue);
+            StringBuilder rendered = template.render(cycleValue);
 
-            String[] splitStatement = statement.split("\\?");
             String path, query;
 
             String host = httpActivity.getHosts()[(int) cycleValue % httpActivity.getHosts().length];
 
-            path = splitStatement[0];
-            query = "";
-
-            if (splitStatement.length >= 2) {
-                query = splitStatement[1];
+            int queryStart = rendered.indexOf("?");
+            if (queryStart < 0) {
+                path = rendered.toString();
+                query = "";
+            } else {
+                int queryEnd = rendered.indexOf("?", queryStart + 1);
+                path = rendered.substring(0, queryStart);
+                query = rendered.substring(queryStart + 1, queryEnd < 0 ? rendered.length() : queryEnd);
             }
 
             URI uri = new URI(
@@ -1,6 +1,6 @@
 package io.engineblock.activitytypes.http;
 
-import activityconfig.ParsedStmt;
+import activityconfig.CompiledTemplate;
 import activityconfig.StatementsLoader;
 import activityconfig.yaml.StmtDef;
 import activityconfig.yaml.StmtsDocList;
@@ -15,14 +15,10 @@ import io.engineblock.activityapi.planning.SequencerType;
 import io.engineblock.activityimpl.ActivityDef;
 import io.engineblock.activityimpl.SimpleActivity;
 import io.engineblock.metrics.ActivityMetrics;
-import io.virtdata.core.BindingsTemplate;
-import io.virtdata.templates.StringBindings;
-import io.virtdata.templates.StringBindingsTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.function.Function;
 
 public class HttpActivity extends SimpleActivity implements Activity, ActivityDefObserver {
     private final static Logger logger = LoggerFactory.getLogger(HttpActivity.class);
@@ -49,7 +45,7 @@ public class HttpActivity extends SimpleActivity implements Activity, ActivityDe
     private String[] hosts;
     private int port;
 
-    private OpSequence<StringBindings> opSequence;
+    private OpSequence<CompiledTemplate> opSequence;
 
     public HttpActivity(ActivityDef activityDef) {
         super(activityDef);
@@ -90,31 +86,26 @@ public class HttpActivity extends SimpleActivity implements Activity, ActivityDe
         onActivityDefUpdate(activityDef);
     }
 
-    private OpSequence<StringBindings> initOpSequencer() {
+    private OpSequence<CompiledTemplate> initOpSequencer() {
         SequencerType sequencerType = SequencerType.valueOf(
                 getParams().getOptionalString("seq").orElse("bucket")
         );
-        SequencePlanner<StringBindings> sequencer = new SequencePlanner<>(sequencerType);
+        SequencePlanner<CompiledTemplate> sequencer = new SequencePlanner<>(sequencerType);
 
         String tagfilter = activityDef.getParams().getOptionalString("tags").orElse("");
         List<StmtDef> stmts = stmtsDocList.getStmts(tagfilter);
 
         if (stmts.size() > 0) {
             for (StmtDef stmt : stmts) {
-                ParsedStmt parsed = stmt.getParsed().orError();
-                BindingsTemplate bt = new BindingsTemplate(parsed.getBindPoints());
-                String statement = parsed.getPositionalStatement(Function.identity());
-                Objects.requireNonNull(statement);
-
-                StringBindingsTemplate sbt = new StringBindingsTemplate(stmt.getStmt(), bt);
-                StringBindings sb = sbt.resolve();
-                sequencer.addOp(sb,Long.valueOf(stmt.getParams().getOrDefault("ratio","1")));
+                CompiledTemplate template = CompiledTemplate.compile(stmt.getParsed().orError());
+                registerAutoCloseable(template);
+                sequencer.addOp(template,Long.valueOf(stmt.getParams().getOrDefault("ratio","1")));
             }
         } else {
             logger.error("Unable to create an HTTP statement if no bindings or statements are defined.");
         }
 //
-        OpSequence<StringBindings> opSequence = sequencer.resolve();
+        OpSequence<CompiledTemplate> opSequence = sequencer.resolve();
         return opSequence;
     }
 
@@ -139,7 +130,7 @@ public class HttpActivity extends SimpleActivity implements Activity, ActivityDe
         return port;
     }
 
-    public OpSequence<StringBindings> getOpSequence() {
+    public OpSequence<CompiledTemplate> getOpSequence() {
         return opSequence;
     }
 }
\ No newline at end of file
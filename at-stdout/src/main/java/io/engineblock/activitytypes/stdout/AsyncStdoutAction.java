@@ -1,12 +1,13 @@
 package io.engineblock.activitytypes.stdout;
 
+import activityconfig.CompiledTemplate;
 import com.codahale.metrics.Timer;
 import io.engineblock.activityapi.core.BaseAsyncAction;
 import io.engineblock.activityapi.core.ops.fluent.opfacets.StartedOp;
 import io.engineblock.activityapi.core.ops.fluent.opfacets.TrackedOp;
 import io.engineblock.activityapi.planning.OpSequence;
+import io.engineblock.activityapi.retries.OpRetries;
 import io.engineblock.activityimpl.ActivityDef;
-import io.virtdata.templates.StringBindings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,7 +17,7 @@ import java.util.function.LongFunction;
 public class AsyncStdoutAction extends BaseAsyncAction<StdoutOpContext, StdoutActivity> {
     private final static Logger logger = LoggerFactory.getLogger(AsyncStdoutAction.class);
 
-    private OpSequence<StringBindings> sequencer;
+    private OpSequence<CompiledTemplate> sequencer;
 
     public AsyncStdoutAction(int slot, StdoutActivity activity) {
         super(activity, slot);
@@ -32,8 +33,8 @@ public class AsyncStdoutAction extends BaseAsyncAction<StdoutOpContext, StdoutAc
 
         StdoutOpContext opc = new StdoutOpContext();
         try (Timer.Context bindTime = activity.bindTimer.time()) {
-            opc.stringBindings = sequencer.get(cycle);
-            opc.statement = opc.stringBindings.bind(cycle);
+            opc.template = sequencer.get(cycle);
+            opc.statement = opc.template.bind(cycle);
             if (activity.getShowstmts()) {
                 logger.info("STMT(cycle=" + cycle + "):\n" + opc.statement);
             }
@@ -43,17 +44,31 @@ public class AsyncStdoutAction extends BaseAsyncAction<StdoutOpContext, StdoutAc
 
     @Override
     public void startOpCycle(TrackedOp<StdoutOpContext> opc) {
-        StartedOp<StdoutOpContext> started = opc.start();
-        int result=0;
+        write(opc.start());
+    }
+
+    /**
+     * Write the statement of an op. With the retry parameter, a failed write is retried later by
+     * {@link OpRetries}, instead of by waiting in this thread. When a write fails for good, the op
+     * is failed and the error is thrown, which stops the activity whether it happens in a motor
+     * thread or in a retry.
+     */
+    private void write(StartedOp<StdoutOpContext> started) {
+        OpRetries retries = activity.getRetriesOrNull();
         try (Timer.Context executeTime = activity.executeTimer.time()) {
-            activity.write(opc.getData().statement);
+            if (retries == null) {
+                activity.write(started.getData().statement);
+            } else {
+                activity.writeOnce(started.getData().statement);
+            }
         } catch (Exception e) {
-            result=1;
-            started.fail(result);
+            if (retries != null && retries.retry(started, this::write)) {
+                return;
+            }
+            started.fail(1);
             throw new RuntimeException("Error writing output:" + e, e);
-        } finally {
-            started.succeed(result);
         }
+        started.succeed(0);
     }
 
     @Override
@@ -17,10 +17,10 @@
 
 package io.engineblock.activitytypes.stdout;
 
+import activityconfig.CompiledTemplate;
 import com.codahale.metrics.Timer;
 import io.engineblock.activityapi.core.SyncAction;
 import io.engineblock.activityapi.planning.OpSequence;
-import io.virtdata.templates.StringBindings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,7 +32,7 @@ public class StdoutAction implements SyncAction {
     private StdoutActivity activity;
     private int maxTries = 10;
     private boolean showstmts;
-    private OpSequence<StringBindings> sequencer;
+    private OpSequence<CompiledTemplate> sequencer;
 
     public StdoutAction(int slot, StdoutActivity activity) {
         this.slot = slot;
@@ -46,11 +46,10 @@ public class StdoutAction implements SyncAction {
 
     @Override
     public int runCycle(long cycleValue) {
-        StringBindings stringBindings;
-        String statement = null;
+        StringBuilder statement;
         try (Timer.Context bindTime = activity.bindTimer.time()) {
-            stringBindings = sequencer.get(cycleValue);
-            statement = stringBindings.bind(cycleValue);
+            CompiledTemplate template = sequencer.get(cycleValue);
+            statement = template.render(cycleValue);
             showstmts = activity.getShowstmts();
             if (showstmts) {
                 logger.info("STMT(cycle=" + cycleValue + "):\n" + statement);
@@ -17,7 +17,7 @@
 
 package io.engineblock.activitytypes.stdout;
 
-import activityconfig.ParsedStmt;
+import activityconfig.CompiledTemplate;
 import activityconfig.StatementsLoader;
 import activityconfig.yaml.StmtDef;
 import activityconfig.yaml.StmtsDocList;
@@ -33,20 +33,16 @@ import io.engineblock.activityimpl.SimpleActivity;
 import io.engineblock.metrics.ActivityMetrics;
 import io.engineblock.metrics.ExceptionMeterMetrics;
 import io.engineblock.util.StrInterpolater;
-import io.virtdata.core.BindingsTemplate;
-import io.virtdata.templates.StringBindings;
-import io.virtdata.templates.StringBindingsTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
 
 @SuppressWarnings("Duplicates")
 public class StdoutActivity extends SimpleActivity implements ActivityDefObserver {
@@ -62,12 +58,13 @@ public class StdoutActivity extends SimpleActivity implements ActivityDefObserve
     private ExceptionMeterMetrics exceptionMeterMetrics;
     private int retry_delay = 0;
     private int retries;
+    private char[] writeBuffer = new char[256];
 
-    public OpSequence<StringBindings> getOpSequence() {
+    public OpSequence<CompiledTemplate> getOpSequence() {
         return opSequence;
     }
 
-    private OpSequence<StringBindings> opSequence;
+    private OpSequence<CompiledTemplate> opSequence;
 
     public StdoutActivity(ActivityDef activityDef) {
         super(activityDef);
@@ -124,12 +121,11 @@ public class StdoutActivity extends SimpleActivity implements ActivityDefObserve
         return pw;
     }
 
-    private OpSequence<StringBindings> initOpSequencer() {
-        //List<StringBindingsTemplate> stringBindingsTemplates = new ArrayList<>();
+    private OpSequence<CompiledTemplate> initOpSequencer() {
         SequencerType sequencerType = SequencerType.valueOf(
                 getParams().getOptionalString("seq").orElse("bucket")
         );
-        SequencePlanner<StringBindings> sequencer = new SequencePlanner<>(sequencerType);
+        SequencePlanner<CompiledTemplate> sequencer = new SequencePlanner<>(sequencerType);
 
         String tagfilter = activityDef.getParams().getOptionalString("tags").orElse("");
         List<StmtDef> stmts = stmtsDocList.getStmts(tagfilter);
@@ -139,30 +135,20 @@ public class StdoutActivity extends SimpleActivity implements ActivityDefObserve
         if ((stmts.size()==0 && stmtsDocList.getDocBindings().size() > 0) || format!=null) {
             logger.info("Creating stdout statement template from bindings, since none is otherwise defined.");
             String generatedStmt = genStatementTemplate(stmtsDocList.getDocBindings().keySet());
-            BindingsTemplate bt = new BindingsTemplate();
-            stmtsDocList.getDocBindings().forEach(bt::addFieldBinding);
-            StringBindingsTemplate sbt = new StringBindingsTemplate(generatedStmt, bt);
-            StringBindings sb = sbt.resolve();
-            sequencer.addOp(sb,1L);
+            CompiledTemplate template = CompiledTemplate.compile(generatedStmt, stmtsDocList.getDocBindings());
+            registerAutoCloseable(template);
+            sequencer.addOp(template,1L);
         } else if (stmts.size() > 0) {
             for (StmtDef stmt : stmts) {
-                ParsedStmt parsed = stmt.getParsed().orError();
-                BindingsTemplate bt = new BindingsTemplate(parsed.getBindPoints());
-                String statement = parsed.getPositionalStatement(Function.identity());
-                Objects.requireNonNull(statement);
-                if (!statement.endsWith("\n") && getParams().getOptionalBoolean("newline").orElse(true)) {
-                    statement = statement+"\n";
-                }
-
-                StringBindingsTemplate sbt = new StringBindingsTemplate(stmt.getStmt(), bt);
-                StringBindings sb = sbt.resolve();
-                sequencer.addOp(sb,Long.valueOf(stmt.getParams().getOrDefault("ratio","1")));
+                CompiledTemplate template = CompiledTemplate.compile(stmt.getParsed().orError());
+                registerAutoCloseable(template);
+                sequencer.addOp(template,Long.valueOf(stmt.getParams().getOrDefault("ratio","1")));
             }
         } else {
             logger.error("Unable to create a stdout statement if you have no active statements or bindings configured.");
         }
 
-        OpSequence<StringBindings> opSequence = sequencer.resolve();
+        OpSequence<CompiledTemplate> opSequence = sequencer.resolve();
         return opSequence;
     }
 
@@ -185,21 +171,26 @@ public class StdoutActivity extends SimpleActivity implements ActivityDefObserve
         this.retries = params.getOptionalInteger("retries").orElse(3);
     }
 
-    public synchronized void write(String statement) {
+    public void write(String statement) {
+        write((CharSequence) statement);
+    }
+
+    /**
+     * Write a statement, such as one rendered by a {@link CompiledTemplate}, trying again after
+     * retry_delay if it fails, up to the number of retries. Only the writes themselves hold the
+     * lock on this activity, so other threads are not held up while one waits to retry.
+     * @param statement the statement to write
+     */
+    public void write(CharSequence statement) {
         int tries = 0;
-        Exception e = null;
         while (tries < retries) {
             tries++;
-            if (pw == null) {
-                pw = createPrintWriter();
-            }
             try {
-                pw.write(statement);
-                pw.flush();
+                writeOnce(statement);
                 return;
             } catch (Exception error) {
                 logger.warn("Error during write:" + error, error);
-                if (retry_delay > 0) {
+                if (retry_delay > 0 && tries < retries) {
                     try {
                         Thread.sleep(retry_delay);
                     } catch (InterruptedException ignored) {
@@ -210,6 +201,32 @@ public class StdoutActivity extends SimpleActivity implements ActivityDefObserve
         throw new RuntimeException("Retries exhausted: " + tries + "/" + retries);
     }
 
+    /**
+     * Write a statement once, without retrying. The characters are copied into a buffer which is
+     * reused for each write, so no string is made for the statement.
+     * @param statement the statement to write
+     */
+    public synchronized void writeOnce(CharSequence statement) {
+        int length = statement.length();
+        if (writeBuffer.length < length) {
+            writeBuffer = new char[Math.max(length, writeBuffer.length * 2)];
+        }
+        if (statement instanceof StringBuilder) {
+            ((StringBuilder) statement).getChars(0, length, writeBuffer, 0);
+        } else {
+            statement.toString().getChars(0, length, writeBuffer, 0);
+        }
+        if (pw == null) {
+            pw = createPrintWriter();
+        }
+        try {
+            pw.write(writeBuffer, 0, length);
+            pw.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public Boolean getShowstmts() {
         return showstmts;
     }
@@ -35,15 +35,18 @@ import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 
 public class TCPServerActivity extends StdoutActivity {
 
     private final static Logger logger = LoggerFactory.getLogger(TCPServerActivity.class);
     private final ServerSocketFactory socketFactory;
-    private BlockingQueue<String> queue = new LinkedBlockingQueue<>(10);
+    // Statements are copied into chunks which go back to the free list once they are written,
+    // so that writing a cycle does not allocate
+    private BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(10);
+    private BlockingQueue<Chunk> freeChunks = new ArrayBlockingQueue<>(32);
     private ServerSocket listenerSocket;
     private List<Shutdown> managedShutdown = new ArrayList<>();
 
@@ -74,16 +77,10 @@ public class TCPServerActivity extends StdoutActivity {
     }
 
     @Override
-    public synchronized void write(String statement) {
-        while (true) {
-            try {
-                queue.put(statement);
-                return;
-            } catch (InterruptedException ignored) {
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
+    public synchronized void writeOnce(CharSequence statement) {
+        Chunk chunk = Chunk.take(freeChunks);
+        chunk.set(statement);
+        Chunk.put(queue, chunk);
     }
 
     @Override
@@ -99,7 +96,7 @@ public class TCPServerActivity extends StdoutActivity {
                 if (socketFactory instanceof SSLServerSocketFactory) {
                     logger.info("SSL enabled on server socket " + listenerSocket);
                 }
-                SocketAcceptor socketAcceptor = new SocketAcceptor(queue, listenerSocket);
+                SocketAcceptor socketAcceptor = new SocketAcceptor(queue, freeChunks, listenerSocket);
                 managedShutdown.add(socketAcceptor);
                 Thread acceptorThread = new Thread(socketAcceptor);
                 acceptorThread.setDaemon(true);
@@ -110,7 +107,7 @@ public class TCPServerActivity extends StdoutActivity {
             }
         }
 
-        QueueWriterAdapter queueWriterAdapter = new QueueWriterAdapter(this.queue);
+        QueueWriterAdapter queueWriterAdapter = new QueueWriterAdapter(this.queue, this.freeChunks);
         logger.info("initialized queue writer:" + queueWriterAdapter);
         return queueWriterAdapter;
 
@@ -120,15 +117,62 @@ public class TCPServerActivity extends StdoutActivity {
         void shutdown();
     }
 
+    /**
+     * The characters of one statement, on their way to a socket.
+     */
+    public static class Chunk {
+        private char[] chars = new char[256];
+        private int length;
+
+        private static Chunk take(BlockingQueue<Chunk> freeChunks) {
+            Chunk chunk = freeChunks.poll();
+            return chunk != null ? chunk : new Chunk();
+        }
+
+        private static void put(BlockingQueue<Chunk> queue, Chunk chunk) {
+            while (true) {
+                try {
+                    queue.put(chunk);
+                    return;
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+
+        private void set(CharSequence statement) {
+            length = statement.length();
+            ensureCapacity();
+            if (statement instanceof StringBuilder) {
+                ((StringBuilder) statement).getChars(0, length, chars, 0);
+            } else {
+                statement.toString().getChars(0, length, chars, 0);
+            }
+        }
+
+        private void set(char[] cbuf, int off, int len) {
+            length = len;
+            ensureCapacity();
+            System.arraycopy(cbuf, off, chars, 0, len);
+        }
+
+        private void ensureCapacity() {
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+        }
+    }
+
     public static class SocketWriter implements Runnable, Shutdown {
-        private final BlockingQueue<String> sourceQueue;
+        private final BlockingQueue<Chunk> sourceQueue;
+        private final BlockingQueue<Chunk> freeChunks;
         private final OutputStream outputStream;
         private final OutputStreamWriter writer;
         private boolean running = true;
 
 
-        public SocketWriter(BlockingQueue<String> sourceQueue, Socket connectedSocket) {
+        public SocketWriter(BlockingQueue<Chunk> sourceQueue, BlockingQueue<Chunk> freeChunks, Socket connectedSocket) {
             this.sourceQueue = sourceQueue;
+            this.freeChunks = freeChunks;
             try {
                 outputStream = connectedSocket.getOutputStream();
                 this.writer = new OutputStreamWriter(outputStream);
@@ -148,9 +192,10 @@ public class TCPServerActivity extends StdoutActivity {
                 while (true) {
                     while (!sourceQueue.isEmpty() || running) {
                         try {
-                            String data = sourceQueue.take();
-                            writer.write(data);
+                            Chunk chunk = sourceQueue.take();
+                            writer.write(chunk.chars, 0, chunk.length);
                             writer.flush();
+                            freeChunks.offer(chunk);
                         } catch (Exception e) {
                             throw new RuntimeException(e);
                         }
@@ -169,23 +214,19 @@ public class TCPServerActivity extends StdoutActivity {
     }
 
     public static class QueueWriterAdapter extends Writer {
-        private BlockingQueue<String> queue;
+        private BlockingQueue<Chunk> queue;
+        private final BlockingQueue<Chunk> freeChunks;
 
-        public QueueWriterAdapter(BlockingQueue<String> queue) {
+        public QueueWriterAdapter(BlockingQueue<Chunk> queue, BlockingQueue<Chunk> freeChunks) {
             this.queue = queue;
+            this.freeChunks = freeChunks;
         }
 
         @Override
         public synchronized void write( char[] cbuf, int off, int len) {
-            while (true) {
-                try {
-                    queue.put(new String(cbuf, off, len));
-                    return;
-                } catch (InterruptedException ignored) {
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
+            Chunk chunk = Chunk.take(freeChunks);
+            chunk.set(cbuf, off, len);
+            Chunk.put(queue, chunk);
         }
 
         @Override
@@ -201,12 +242,14 @@ public class TCPServerActivity extends StdoutActivity {
     }
 
     public class SocketAcceptor implements Runnable, Shutdown {
-        private final BlockingQueue<String> queue;
+        private final BlockingQueue<Chunk> queue;
+        private final BlockingQueue<Chunk> freeChunks;
         private final ServerSocket serverSocket;
         private boolean running = true;
 
-        public SocketAcceptor(BlockingQueue<String> queue, ServerSocket serverSocket) {
+        public SocketAcceptor(BlockingQueue<Chunk> queue, BlockingQueue<Chunk> freeChunks, ServerSocket serverSocket) {
             this.queue = queue;
+            this.freeChunks = freeChunks;
             this.serverSocket = serverSocket;
         }
 
@@ -222,7 +265,7 @@ public class TCPServerActivity extends StdoutActivity {
                     serverSocket.setReuseAddress(true);
                     try {
                         Socket connectedSocket = serverSocket.accept();
-                        SocketWriter writer = new SocketWriter(queue, connectedSocket);
+                        SocketWriter writer = new SocketWriter(queue, freeChunks, connectedSocket);
                         TCPServerActivity.this.managedShutdown.add(writer);
                         Thread writerThread = new Thread(writer);
                         writerThread.setName("SocketWriter/" + connectedSocket);
@@ -0,0 +1,259 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package activityconfig;
+
+import io.engineblock.util.Unit;
+import io.virtdata.api.DataMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A cache of precomputed values for an expensive binding. A binding is cached when its spec in
+ * the YAML bindings section is prefixed with <em>cache(size):</em>, as in:</p>
+ * <pre>
+ * bindings:
+ *   blob: "cache(100K): HashedLineToString('data/lorem.txt')"
+ * </pre>
+ *
+ * <p>A cached binding gives the value of its inner spec for the cycle modulo the cache size, so
+ * there are only that many distinct values. The value for a cycle is always the same, whether
+ * or not it has been computed yet, so cycle log replays reproduce the same ops.</p>
+ *
+ * <p>Values are rendered to text and stored off-heap in direct buffers, in chunks of
+ * {@link #CHUNK_SIZE} values. They are computed by a background thread as soon as the cache is
+ * made, which is when the statement is compiled, ahead of the motors. Until a value has been
+ * stored, it is computed inline from the inner spec.</p>
+ *
+ * <p>Caches are shared by all templates which use the same spec, since their values only depend
+ * on the spec. Each template which gets a cache from {@link #forSpec(String, Function)} holds a
+ * reference to it, and must {@link #release()} it when it is closed. When the last reference is
+ * released, the cache stops filling and drops its buffers.</p>
+ */
+public class BindingCache implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(BindingCache.class);
+
+    private final static Pattern cacheSpecPattern =
+            Pattern.compile("^\\s*cache\\((?<size>[^)]+)\\)\\s*:\\s*(?<spec>.+)$", Pattern.DOTALL);
+    private final static Map<String, BindingCache> caches = new HashMap<>();
+
+    final static int CHUNK_BITS = 12;
+    public final static int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private final static int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final String spec;
+    private final int size;
+    private final DataMapper<?> mapper;
+    private final CharBuffer[] chunks;
+    private final int[][] offsets;
+    private volatile int filled = 0;
+    private volatile boolean closed = false;
+    private int references = 0;
+
+    BindingCache(String spec, int size, DataMapper<?> mapper) {
+        if (size < 1) {
+            throw new RuntimeException("A binding cache must have a size of at least 1, not " + size + ", in " + spec);
+        }
+        this.spec = spec;
+        this.size = size;
+        this.mapper = mapper;
+        int chunkCount = (int) (((long) size + CHUNK_MASK) >>> CHUNK_BITS);
+        this.chunks = new CharBuffer[chunkCount];
+        this.offsets = new int[chunkCount][];
+    }
+
+    /**
+     * @param bindspec A binding spec
+     * @return true if the spec asks for a cached binding
+     */
+    public static boolean isCached(String bindspec) {
+        return cacheSpecPattern.matcher(bindspec).matches();
+    }
+
+    /**
+     * Get the cache for a cached binding spec, making and starting to fill it if needed.
+     * The caller holds a reference to the cache until it calls {@link #release()}.
+     *
+     * @param bindspec   A binding spec, which may ask for a cached binding
+     * @param mapperFunc The function which resolves the inner binding spec
+     * @return a BindingCache, or empty if the spec does not ask for one
+     */
+    public static Optional<BindingCache> forSpec(String bindspec, Function<String, DataMapper<?>> mapperFunc) {
+        Matcher matcher = cacheSpecPattern.matcher(bindspec);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        String sizeSpec = matcher.group("size").trim();
+        String innerSpec = matcher.group("spec").trim();
+        synchronized (caches) {
+            BindingCache cache = caches.get(bindspec);
+            if (cache == null) {
+                long size = Unit.longCountFor(sizeSpec).orElseThrow(
+                        () -> new RuntimeException("Unable to parse cache size '" + sizeSpec + "' in binding '" + bindspec + "'"));
+                if (size > Integer.MAX_VALUE - 8) {
+                    throw new RuntimeException("A binding cache may hold at most " + (Integer.MAX_VALUE - 8)
+                            + " values, not " + size + ", in binding '" + bindspec + "'");
+                }
+                cache = new BindingCache(innerSpec, (int) size, mapperFunc.apply(innerSpec));
+                caches.put(bindspec, cache);
+                cache.startFilling();
+            }
+            cache.references++;
+            return Optional.of(cache);
+        }
+    }
+
+    /**
+     * Release a reference which was taken by {@link #forSpec(String, Function)}. The cache is
+     * closed when its last reference is released.
+     */
+    public void release() {
+        synchronized (caches) {
+            if (--references > 0) {
+                return;
+            }
+            caches.values().remove(this);
+        }
+        close();
+    }
+
+    /**
+     * Append the value for a cycle to a builder. Stored values are copied from the off-heap
+     * buffer without making a string.
+     *
+     * @param cycle  The cycle, which is not negative
+     * @param buffer The builder to append to
+     */
+    public void appendTo(long cycle, StringBuilder buffer) {
+        int index = (int) (cycle % size);
+        if (index < filled) {
+            CharBuffer chunk = chunks[index >>> CHUNK_BITS];
+            int[] chunkOffsets = offsets[index >>> CHUNK_BITS];
+            // a closed cache drops its chunks, after which values are computed inline
+            if (chunk != null && chunkOffsets != null) {
+                int slot = index & CHUNK_MASK;
+                buffer.append(chunk, chunkOffsets[slot], chunkOffsets[slot + 1]);
+                return;
+            }
+        }
+        buffer.append(mapper.get(index));
+    }
+
+    /**
+     * @param cycle The cycle, which is not negative
+     * @return the value for the cycle, as text
+     */
+    public String get(long cycle) {
+        StringBuilder buffer = new StringBuilder();
+        appendTo(cycle, buffer);
+        return buffer.toString();
+    }
+
+    private void startFilling() {
+        Thread filler = new Thread(this::fill);
+        filler.setName("bindcache-" + spec);
+        filler.setDaemon(true);
+        filler.start();
+    }
+
+    /**
+     * Compute and store all values, in order, publishing each chunk as it is done.
+     * This stops early if the cache is closed.
+     */
+    void fill() {
+        long started = System.nanoTime();
+        StringBuilder text = new StringBuilder();
+        try {
+            for (int chunk = 0; chunk < chunks.length; chunk++) {
+                int first = chunk << CHUNK_BITS;
+                int count = Math.min(CHUNK_SIZE, size - first);
+                int[] chunkOffsets = new int[count + 1];
+                text.setLength(0);
+                for (int slot = 0; slot < count; slot++) {
+                    if (closed) {
+                        logger.debug("stopped filling closed binding cache for '" + spec + "'");
+                        return;
+                    }
+                    chunkOffsets[slot] = text.length();
+                    text.append(mapper.get(first + slot));
+                }
+                chunkOffsets[count] = text.length();
+                CharBuffer chars = ByteBuffer.allocateDirect(Math.max(1, text.length()) * 2).asCharBuffer();
+                chars.put(text.toString());
+                chars.flip();
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    chunks[chunk] = chars;
+                    offsets[chunk] = chunkOffsets;
+                    filled = first + count;
+                }
+            }
+            logger.info("filled binding cache of " + size + " values for '" + spec + "' in "
+                    + (System.nanoTime() - started) / 1_000_000L + "ms");
+        } catch (Exception e) {
+            logger.error("error while filling binding cache for '" + spec + "', values will be computed inline: " + e, e);
+        }
+    }
+
+    /**
+     * Stop filling this cache and drop its buffers, so that their off-heap memory can be reclaimed.
+     * Values are still available afterwards, computed inline. Shared caches should be released
+     * with {@link #release()} instead.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        filled = 0;
+        Arrays.fill(chunks, null);
+        Arrays.fill(offsets, null);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of values which have been stored so far
+     */
+    public int getFilled() {
+        return filled;
+    }
+
+    @Override
+    public String toString() {
+        return "BindingCache{" + spec + ", size=" + size + ", filled=" + filled + "}";
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package activityconfig;
+
+import io.virtdata.api.DataMapper;
+import io.virtdata.core.VirtData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A statement template which is parsed once into literal segments and binding slots, so that
+ * it can be rendered for each cycle without parsing it again, and without building intermediate
+ * strings. Each slot has its own data mapper, which is resolved when the template is compiled.
+ * Bindings which ask for a {@link BindingCache} are served from the cache instead, and the
+ * template holds a reference to each such cache until it is closed.</p>
+ *
+ * <p>Only the <pre>{anchor}</pre> form is a binding slot in rendered output, as with the string
+ * bindings which this replaces. Text like <pre>?name</pre> is left as is, so that drivers which
+ * render URLs or other text with question marks see them unchanged.</p>
+ *
+ * <p>{@link #render(long)} renders into a builder which is reused by each thread. The builder is
+ * only valid until the next call to render on the same thread, so callers which keep the result,
+ * or hand it to another thread, should use {@link #bind(long)} instead.</p>
+ */
+public class CompiledTemplate implements AutoCloseable {
+
+    private final static Pattern anchorPattern = Pattern.compile("\\{([a-zA-Z0-9\\-_.]+)}");
+    private final static ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String template;
+    private final String[] literals;
+    private final String[] anchors;
+    private final Slot[] slots;
+    private final List<BindingCache> caches = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * Compile a template with a mapper function for the binding specs. This is separate from the
+     * public forms so that templates can be tested without resolving real bindings.
+     */
+    CompiledTemplate(String template, Map<String, String> bindings, Function<String, DataMapper<?>> mapperFunc) {
+        this.template = template;
+        List<String> literals = new ArrayList<>();
+        List<String> anchors = new ArrayList<>();
+        Matcher matcher = anchorPattern.matcher(template);
+        int literalStart = 0;
+        while (matcher.find()) {
+            literals.add(template.substring(literalStart, matcher.start()));
+            anchors.add(matcher.group(1));
+            literalStart = matcher.end();
+        }
+        literals.add(template.substring(literalStart));
+
+        Map<String, Slot> slotsByAnchor = new HashMap<>();
+        this.slots = new Slot[anchors.size()];
+        try {
+            for (int i = 0; i < anchors.size(); i++) {
+                String anchor = anchors.get(i);
+                String bindspec = bindings.get(anchor);
+                if (bindspec == null) {
+                    throw new RuntimeException("Unable to find a binding for {" + anchor + "} in template '" + template
+                            + "', the defined bindings are " + bindings.keySet());
+                }
+                slots[i] = slotsByAnchor.computeIfAbsent(anchor, a -> slotFor(bindspec, mapperFunc, caches));
+            }
+        } catch (RuntimeException e) {
+            caches.forEach(BindingCache::release);
+            throw e;
+        }
+        this.literals = literals.toArray(new String[0]);
+        this.anchors = anchors.toArray(new String[0]);
+    }
+
+    private static Slot slotFor(String bindspec, Function<String, DataMapper<?>> mapperFunc, List<BindingCache> caches) {
+        Optional<BindingCache> cache = BindingCache.forSpec(bindspec, mapperFunc);
+        if (cache.isPresent()) {
+            caches.add(cache.get());
+            return cache.get()::appendTo;
+        }
+        DataMapper<?> mapper = mapperFunc.apply(bindspec);
+        return (cycle, buffer) -> buffer.append(mapper.get(cycle));
+    }
+
+    /**
+     * @param template A statement template, with bindings in <pre>{anchor}</pre> form
+     * @param bindings The binding specs, by anchor name
+     * @return a CompiledTemplate
+     */
+    public static CompiledTemplate compile(String template, Map<String, String> bindings) {
+        return new CompiledTemplate(template, bindings, VirtData::getMapper);
+    }
+
+    /**
+     * @param parsed A parsed statement, with its bindings
+     * @return a CompiledTemplate
+     */
+    public static CompiledTemplate compile(ParsedStmt parsed) {
+        return compile(parsed.getStmt(), parsed.getBindings());
+    }
+
+    /**
+     * Render this template for a cycle into the builder of the current thread.
+     * @param cycle The cycle to render the bindings for
+     * @return the builder of the current thread, which holds only the rendered template
+     */
+    public StringBuilder render(long cycle) {
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        renderTo(cycle, buffer);
+        return buffer;
+    }
+
+    /**
+     * Append this template, rendered for a cycle, to a builder.
+     * @param cycle The cycle to render the bindings for
+     * @param buffer The builder to append to
+     */
+    public void renderTo(long cycle, StringBuilder buffer) {
+        buffer.append(literals[0]);
+        for (int slot = 0; slot < slots.length; slot++) {
+            slots[slot].appendTo(cycle, buffer);
+            buffer.append(literals[slot + 1]);
+        }
+    }
+
+    /**
+     * @param cycle The cycle to render the bindings for
+     * @return the rendered template, as a new string
+     */
+    public String bind(long cycle) {
+        return render(cycle).toString();
+    }
+
+    /**
+     * @return the anchor names of the binding slots, in order, including repeats
+     */
+    public List<String> getAnchors() {
+        return Arrays.asList(anchors);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Release the binding caches of this template. Activities which compile templates should
+     * register them with {@link io.engineblock.activityapi.core.Activity#registerAutoCloseable(AutoCloseable)},
+     * so that caches live only as long as the activities which use them.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        caches.forEach(BindingCache::release);
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledTemplate{" + template + ", slots=" + Arrays.toString(anchors) + "}";
+    }
+
+    private interface Slot {
+        void appendTo(long cycle, StringBuilder buffer);
+    }
+}
@@ -17,27 +17,23 @@
 
 package activityconfig;
 
-import activityconfig.rawyaml.RawStmtsDocList;
-import activityconfig.rawyaml.RawYamlStatementLoader;
 import activityconfig.yaml.StmtsDocList;
 import org.slf4j.Logger;
 
 import java.util.function.Function;
 
+/**
+ * Loads workloads, through the {@link WorkloadCache}, so that activities which use the same
+ * workload share it.
+ */
 public class StatementsLoader {
 
     public static StmtsDocList load(Logger logger, String path, String... searchPaths) {
-        RawYamlStatementLoader loader = new RawYamlStatementLoader();
-        RawStmtsDocList rawDocList = loader.load(logger, path, searchPaths);
-        StmtsDocList layered = new StmtsDocList(rawDocList);
-        return layered;
+        return WorkloadCache.load(logger, path, null, searchPaths);
     }
 
     public static StmtsDocList load(Logger logger, String path, Function<String, String> transformer, String... searchPaths) {
-        RawYamlStatementLoader loader = new RawYamlStatementLoader(transformer);
-        RawStmtsDocList rawDocList = loader.load(logger, path, searchPaths);
-        StmtsDocList layered = new StmtsDocList(rawDocList);
-        return layered;
+        return WorkloadCache.load(logger, path, transformer, searchPaths);
     }
 
 }
@@ -0,0 +1,147 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package activityconfig;
+
+import activityconfig.rawyaml.RawStmtsDocList;
+import activityconfig.rawyaml.RawYamlStatementLoader;
+import activityconfig.yaml.StmtsDocList;
+import io.engineblock.util.EngineBlockFiles;
+import io.engineblock.util.StrInterpolater;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * <p>Keeps loaded workloads, so that activities which use the same YAML do not each read, interpolate
+ * and parse it again. Workloads are keyed by their path, the hash of their content, and the values of
+ * the template parameters which the content refers to. This means that a changed file is loaded
+ * again, and that activities with different values for the same template parameters get their own
+ * workloads, while any other differences in their params do not matter.</p>
+ *
+ * <p>The parameter values are found by recording the lookups which a {@link StrInterpolater} makes
+ * when the workload is first loaded. Other kinds of transformers can not be keyed this way, so
+ * workloads which use them are not cached.</p>
+ *
+ * <p>The cached {@link StmtsDocList} is shared, and builds its statements lazily, once.</p>
+ */
+public class WorkloadCache {
+
+    private final static Map<String, List<Entry>> workloads = new ConcurrentHashMap<>();
+    private final static Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Load a workload, or get it from the cache.
+     *
+     * @param logger      The logger of the caller
+     * @param path        The path of the workload
+     * @param transformer An optional transformer for the workload text, or null
+     * @param searchPaths The paths to search for the workload
+     * @return a StmtsDocList
+     */
+    public static StmtsDocList load(Logger logger, String path, Function<String, String> transformer, String... searchPaths) {
+        if (transformer != null && !(transformer instanceof StrInterpolater)) {
+            RawYamlStatementLoader loader = new RawYamlStatementLoader(transformer);
+            return new StmtsDocList(loader.load(logger, path, searchPaths));
+        }
+        StrInterpolater interpolater = (StrInterpolater) transformer;
+
+        byte[] content = readContent(path, searchPaths);
+        String key = path + Arrays.toString(searchPaths) + ":" + hash(content) + (interpolater == null ? ":raw" : "");
+
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            List<Entry> entries = workloads.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+            for (Entry entry : entries) {
+                if (interpolater == null || interpolater.resolvesTo(entry.lookups)) {
+                    if (logger != null) logger.debug("using cached workload for " + path);
+                    return entry.stmtsDocList;
+                }
+            }
+
+            long started = System.nanoTime();
+            Map<String, String> lookups = new HashMap<>();
+            RawYamlStatementLoader loader = (interpolater == null)
+                    ? new RawYamlStatementLoader()
+                    : new RawYamlStatementLoader(text -> interpolater.apply(text, lookups));
+            RawStmtsDocList rawStmtsDocList = loader.loadString(
+                    logger, RawYamlStatementLoader.readLines(new ByteArrayInputStream(content)));
+            StmtsDocList stmtsDocList = new StmtsDocList(rawStmtsDocList);
+            entries.add(new Entry(lookups, stmtsDocList));
+            if (logger != null) logger.debug("loaded workload " + path + " in "
+                    + (System.nanoTime() - started) / 1_000_000L + "ms, with template values " + lookups);
+            return stmtsDocList;
+        }
+    }
+
+    /**
+     * Forget all cached workloads.
+     */
+    public static void clear() {
+        workloads.clear();
+        locks.clear();
+    }
+
+    /**
+     * @return the number of cached workloads
+     */
+    public static int size() {
+        return workloads.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static byte[] readContent(String path, String... searchPaths) {
+        try (InputStream stream = EngineBlockFiles.findRequiredStreamOrFile(path, "yaml", searchPaths)) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while reading YAML from search paths:"
+                    + Arrays.toString(searchPaths) + ":" + e.getMessage(), e);
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class Entry {
+        private final Map<String, String> lookups;
+        private final StmtsDocList stmtsDocList;
+
+        private Entry(Map<String, String> lookups, StmtsDocList stmtsDocList) {
+            this.lookups = lookups;
+            this.stmtsDocList = stmtsDocList;
+        }
+    }
+}
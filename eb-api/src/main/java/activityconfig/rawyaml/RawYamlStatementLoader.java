@@ -25,6 +25,7 @@ import org.yaml.snakeyaml.TypeDescription;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
@@ -56,8 +57,8 @@ public class RawYamlStatementLoader {
 
     protected String loadRawFile(Logger logger, String fromPath, String... searchPaths) {
         InputStream stream = EngineBlockFiles.findRequiredStreamOrFile(fromPath, "yaml", searchPaths);
-        try (BufferedReader buffer = new BufferedReader(new InputStreamReader(stream))) {
-            return buffer.lines().collect(Collectors.joining("\n"));
+        try {
+            return readLines(stream);
         } catch (Exception e) {
             throw new RuntimeException(
                     "Error while reading YAML from search paths:" + Arrays.toString(searchPaths) + ":" + e.getMessage(), e
@@ -65,6 +66,19 @@ public class RawYamlStatementLoader {
         }
     }
 
+    /**
+     * Read YAML text from a stream, with each line ending as a single newline.
+     * @param stream The stream to read, which is closed
+     * @return the YAML text
+     */
+    public static String readLines(InputStream stream) {
+        try (BufferedReader buffer = new BufferedReader(new InputStreamReader(stream))) {
+            return buffer.lines().collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new RuntimeException("Error while reading YAML:" + e.getMessage(), e);
+        }
+    }
+
     protected String applyTransforms(Logger logger, String data) {
         for (Function<String, String> xform : stringTransformers) {
             try {
@@ -119,7 +133,7 @@ public class RawYamlStatementLoader {
     }
 
 
-    protected RawStmtsDocList loadString(Logger logger, String rawYaml) {
+    public RawStmtsDocList loadString(Logger logger, String rawYaml) {
         String data = applyTransforms(logger, rawYaml);
         return parseYaml(logger, data);
     }
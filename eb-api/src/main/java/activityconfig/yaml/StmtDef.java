@@ -28,6 +28,7 @@ public class StmtDef implements Tagged {
 
     private final RawStmtDef rawStmtDef;
     private StmtsBlock block;
+    private volatile ParsedStmt parsed;
 
     public StmtDef(StmtsBlock block, RawStmtDef rawStmtDef) {
         this.block = block;
@@ -61,10 +62,16 @@ public class StmtDef implements Tagged {
 
     /**
      * Parse the statement for anchors and return a richer view of the StmtDef which
-     * is simpler to use for most statement configuration needs.
-     * @return a new {@link ParsedStmt}
+     * is simpler to use for most statement configuration needs. The statement is parsed
+     * when this is first called, and the result is kept.
+     * @return a {@link ParsedStmt}
      */
     public ParsedStmt getParsed() {
-        return new ParsedStmt(this);
+        ParsedStmt parsedStmt = parsed;
+        if (parsedStmt == null) {
+            parsedStmt = new ParsedStmt(this);
+            parsed = parsedStmt;
+        }
+        return parsedStmt;
     }
 }
@@ -23,6 +23,7 @@ import activityconfig.rawyaml.RawStmtsBlock;
 import io.engineblock.util.Tagged;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@ public class StmtsBlock implements Tagged, Iterable<StmtDef> {
     private final RawStmtsBlock rawStmtsBlock;
     private StmtsDoc rawStmtsDoc;
     private int blockIdx;
+    private volatile List<StmtDef> stmtDefs;
 
 
     public StmtsBlock(RawStmtsBlock rawStmtsBlock, StmtsDoc rawStmtsDoc, int blockIdx) {
@@ -43,7 +45,9 @@ public class StmtsBlock implements Tagged, Iterable<StmtDef> {
     }
 
     public List<StmtDef> getStmts() {
-        
+        if (stmtDefs != null) {
+            return stmtDefs;
+        }
         List<StmtDef> rawStmtDefs = new ArrayList<>();
         List<RawStmtDef> statements = rawStmtsBlock.getRawStmtDefs();
 
@@ -52,7 +56,8 @@ public class StmtsBlock implements Tagged, Iterable<StmtDef> {
                     new StmtDef(this,statements.get(i))
             );
         }
-        return rawStmtDefs;
+        stmtDefs = Collections.unmodifiableList(rawStmtDefs);
+        return stmtDefs;
     }
 
     public String getName() {
@@ -22,6 +22,7 @@ import activityconfig.rawyaml.RawStmtsDoc;
 import io.engineblock.util.Tagged;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@ import java.util.stream.Collectors;
 public class StmtsDoc implements Tagged, Iterable<StmtsBlock> {
 
     private RawStmtsDoc rawStmtsDoc;
+    private volatile List<StmtsBlock> blocks;
 
     public StmtsDoc(RawStmtsDoc rawStmtsDoc) {
         this.rawStmtsDoc = rawStmtsDoc;
@@ -44,6 +46,9 @@ public class StmtsDoc implements Tagged, Iterable<StmtsBlock> {
      * from the parent doc
      */
     public List<StmtsBlock> getBlocks() {
+        if (this.blocks != null) {
+            return this.blocks;
+        }
         List<StmtsBlock> blocks = new ArrayList<>();
 
         int blockIdx = 0;
@@ -54,7 +59,8 @@ public class StmtsDoc implements Tagged, Iterable<StmtsBlock> {
             blocks.add(compositeBlock);
         }
 
-        return blocks;
+        this.blocks = Collections.unmodifiableList(blocks);
+        return this.blocks;
     }
 
     /**
@@ -19,14 +19,27 @@ package activityconfig.yaml;
 
 import activityconfig.rawyaml.RawStmtsDocList;
 import io.engineblock.util.TagFilter;
+import io.engineblock.util.TagIndex;
 
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * The statement docs of a workload, with all inherited values resolved. The docs, blocks and
+ * statements are each built once, when first needed, and kept, as are the statements which
+ * match each tag filter. Tag filters are resolved with a {@link TagIndex} of all statements.
+ * This allows one StmtsDocList to be shared by all activities which load the same workload,
+ * as with {@link activityconfig.WorkloadCache}. Since it is shared, callers should not change
+ * the lists which it returns.
+ */
 public class StmtsDocList implements Iterable<StmtsDoc> {
 
     private RawStmtsDocList rawStmtsDocList;
+    private volatile List<StmtsDoc> stmtsDocs;
+    private volatile TagIndex<StmtDef> stmtIndex;
+    private final Map<String, List<StmtDef>> stmtsByFilter = new ConcurrentHashMap<>();
 
     public StmtsDocList(RawStmtsDocList rawStmtsDocList) {
         this.rawStmtsDocList = rawStmtsDocList;
@@ -40,9 +53,14 @@ public class StmtsDocList implements Iterable<StmtsDoc> {
     }
 
     public List<StmtsDoc> getStmtDocs() {
-        return rawStmtsDocList.getStmtsDocs().stream()
-                .map(StmtsDoc::new)
-                .collect(Collectors.toList());
+        List<StmtsDoc> docs = stmtsDocs;
+        if (docs == null) {
+            docs = Collections.unmodifiableList(rawStmtsDocList.getStmtsDocs().stream()
+                    .map(StmtsDoc::new)
+                    .collect(Collectors.toList()));
+            stmtsDocs = docs;
+        }
+        return docs;
     }
 
     public List<StmtDef> getStmts() {
@@ -55,13 +73,19 @@ public class StmtsDocList implements Iterable<StmtsDoc> {
      * @param tagFilterSpec a comma-separated tag filter spec
      */
     public List<StmtDef> getStmts(String tagFilterSpec) {
-        TagFilter ts = new TagFilter(tagFilterSpec);
+        return stmtsByFilter.computeIfAbsent(tagFilterSpec, spec ->
+                Collections.unmodifiableList(getStmtIndex().select(new TagFilter(spec))));
+    }
 
-        List<StmtDef> stmts = getStmtDocs().stream()
-                .flatMap(d -> d.getStmts().stream())
-                .filter(ts::matchesTagged)
-                .collect(Collectors.toList());
-        return stmts;
+    private TagIndex<StmtDef> getStmtIndex() {
+        TagIndex<StmtDef> index = stmtIndex;
+        if (index == null) {
+            index = new TagIndex<>(getStmtDocs().stream()
+                    .flatMap(d -> d.getStmts().stream())
+                    .collect(Collectors.toList()));
+            stmtIndex = index;
+        }
+        return index;
     }
 
 
@@ -31,4 +31,15 @@ public interface ActionDispenser {
      * @return A new or cached Action for the specified slot.
      */
     Action getAction(int slot);
+
+    /**
+     * Declare whether {@link #getAction(int)} may be called concurrently for different slots.
+     * Dispensers which build a new, independent action for each slot should return true, so that
+     * activities with many threads can build their motors in parallel.
+     *
+     * @return true if actions may be resolved from multiple threads at once
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
@@ -21,10 +21,13 @@ import com.codahale.metrics.Timer;
 import io.engineblock.activityapi.cyclelog.filters.IntPredicateDispenser;
 import io.engineblock.activityapi.input.InputDispenser;
 import io.engineblock.activityapi.output.OutputDispenser;
+import io.engineblock.activityapi.core.ops.fluent.AdaptiveConcurrency;
 import io.engineblock.activityapi.ratelimits.RateLimiter;
+import io.engineblock.activityapi.retries.OpRetries;
 import io.engineblock.activityimpl.ActivityDef;
 import io.engineblock.activityimpl.ParameterMap;
 import io.engineblock.activityimpl.SimpleActivity;
+import io.engineblock.metrics.SlotMetrics;
 
 import java.util.function.Supplier;
 
@@ -181,4 +184,42 @@ public interface Activity extends Comparable<Activity>, ActivityDefObserver {
      * @return A new or existing instrumentation object for this activity.
      */
     ActivityInstrumentation getInstrumentation();
+
+    /**
+     * Get the controller for the number of ops in flight, if this activity
+     * uses an adaptive async spec, like <em>async=auto:p99&lt;20ms</em>.
+     *
+     * @return An {@link AdaptiveConcurrency} controller, or null if the async limit is fixed
+     */
+    default AdaptiveConcurrency getAdaptiveConcurrencyOrNull() {
+        return null;
+    }
+
+    /**
+     * Get the warmup of this activity, if it has a warmup parameter, like <em>warmup=30s</em>.
+     *
+     * @return A {@link Warmup}, or null if results include the whole run
+     */
+    default Warmup getWarmupOrNull() {
+        return null;
+    }
+
+    /**
+     * Get the retries of this activity, if it has a retry parameter, like <em>retry=3</em>.
+     *
+     * @return An {@link OpRetries}, or null if failed ops are not retried
+     */
+    default OpRetries getRetriesOrNull() {
+        return null;
+    }
+
+    /**
+     * Get the per-slot breakdown of this activity, if it has <em>slotmetrics=true</em>.
+     *
+     * @return A table with one row per motor slot, or null if slot metrics are not enabled
+     */
+    default String getSlotBreakdown() {
+        SlotMetrics slotMetrics = getInstrumentation().getSlotMetricsOrNull();
+        return slotMetrics == null ? null : slotMetrics.getBreakdown();
+    }
 }
@@ -18,7 +18,9 @@
 package io.engineblock.activityapi.core;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
+import io.engineblock.metrics.SlotMetrics;
 
 /**
  * All the accessors of the metrics that will be used for each activity instance.
@@ -89,4 +91,21 @@ public interface ActivityInstrumentation {
     Counter getOrCreatePendingOpCounter();
 
     Counter getOrCreateOpTrackerBlockedCounter();
+
+    /**
+     * The tries histogram tracks how many times each op was tried before it was completed.
+     * @return A new or existing Histogram
+     */
+    Histogram getOrCreateTriesHistogram();
+
+    /**
+     * The retries counter tracks how many times ops were tried again after a failed try.
+     * @return A new or existing Counter
+     */
+    Counter getOrCreateRetriesCounter();
+
+    /**
+     * @return the per-slot metrics for this activity, or null if they are not enabled
+     */
+    SlotMetrics getSlotMetricsOrNull();
 }
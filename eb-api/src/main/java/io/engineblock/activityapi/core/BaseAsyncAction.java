@@ -46,7 +46,7 @@ public abstract class BaseAsyncAction<D, A extends Activity> implements AsyncAct
     @Override
     public void onActivityDefUpdate(ActivityDef activityDef) {
         ParameterMap params = activityDef.getParams();
-        params.getOptionalInteger("async").orElseThrow(
+        params.getOptionalString("async").orElseThrow(
                 () -> new RuntimeException("the async parameter is required to activate async actions"));
     }
 
@@ -18,14 +18,17 @@
 package io.engineblock.activityapi.core;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
 import io.engineblock.activityimpl.ActivityDef;
 import io.engineblock.activityimpl.ParameterMap;
 import io.engineblock.metrics.ActivityMetrics;
+import io.engineblock.metrics.SlotMetrics;
 
 public class CoreActivityInstrumentation implements ActivityInstrumentation {
 
     private static final String STRICTMETRICNAMES = "strictmetricnames";
+    private static final String SLOTMETRICS = "slotmetrics";
 
     private static final String WAIT_TIME = ".waittime";
     private static final String SERVICE_TIME = ".servicetime";
@@ -36,6 +39,7 @@ public class CoreActivityInstrumentation implements ActivityInstrumentation {
     private final ParameterMap params;
     private final String svcTimeSuffix;
     private final boolean strictNaming;
+    private volatile SlotMetrics slotMetrics;
 
     public CoreActivityInstrumentation(Activity activity) {
         this.activity = activity;
@@ -47,19 +51,19 @@ public class CoreActivityInstrumentation implements ActivityInstrumentation {
 
 
     @Override
-    public synchronized Timer getOrCreateInputTimer() {
+    public Timer getOrCreateInputTimer() {
         String metricName = "read_input";
         return ActivityMetrics.timer(def, metricName);
     }
 
 
     @Override
-    public synchronized Timer getOrCreateStridesServiceTimer() {
+    public Timer getOrCreateStridesServiceTimer() {
         return ActivityMetrics.timer(def, "strides" + SERVICE_TIME);
     }
 
     @Override
-    public synchronized Timer getStridesResponseTimerOrNull() {
+    public Timer getStridesResponseTimerOrNull() {
         if (activity.getStrideLimiter()==null) {
             return null;
         }
@@ -68,12 +72,12 @@ public class CoreActivityInstrumentation implements ActivityInstrumentation {
 
 
     @Override
-    public synchronized Timer getOrCreateCyclesServiceTimer() {
+    public Timer getOrCreateCyclesServiceTimer() {
         return ActivityMetrics.timer(def, "cycles" + svcTimeSuffix);
     }
 
     @Override
-    public synchronized Timer getCyclesResponseTimerOrNull() {
+    public Timer getCyclesResponseTimerOrNull() {
         if (activity.getCycleLimiter()==null) {
             return null;
         }
@@ -83,11 +87,11 @@ public class CoreActivityInstrumentation implements ActivityInstrumentation {
 
 
     @Override
-    public synchronized Timer getOrCreatePhasesServiceTimer() {
+    public Timer getOrCreatePhasesServiceTimer() {
         return ActivityMetrics.timer(def, "phases" + SERVICE_TIME);
     }
     @Override
-    public synchronized Timer getPhasesResponseTimerOrNull() {
+    public Timer getPhasesResponseTimerOrNull() {
         if (activity.getPhaseLimiter()==null) {
             return null;
         }
@@ -95,15 +99,37 @@ public class CoreActivityInstrumentation implements ActivityInstrumentation {
     }
 
     @Override
-    public synchronized Counter getOrCreatePendingOpCounter() {
+    public Counter getOrCreatePendingOpCounter() {
         String metricName = "pending_ops";
         return ActivityMetrics.counter(def, metricName);
     }
 
     @Override
-    public synchronized Counter getOrCreateOpTrackerBlockedCounter() {
+    public Counter getOrCreateOpTrackerBlockedCounter() {
         String metricName = "optracker_blocked";
         return ActivityMetrics.counter(def, metricName);
     }
 
+    @Override
+    public Histogram getOrCreateTriesHistogram() {
+        return ActivityMetrics.histogram(def, "tries");
+    }
+
+    @Override
+    public Counter getOrCreateRetriesCounter() {
+        return ActivityMetrics.counter(def, "retries");
+    }
+
+    @Override
+    public SlotMetrics getSlotMetricsOrNull() {
+        if (slotMetrics == null && params.getOptionalBoolean(SLOTMETRICS).orElse(false)) {
+            synchronized (this) {
+                if (slotMetrics == null) {
+                    slotMetrics = SlotMetrics.forActivity(def);
+                }
+            }
+        }
+        return slotMetrics;
+    }
+
 }
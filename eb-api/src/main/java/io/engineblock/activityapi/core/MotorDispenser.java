@@ -35,4 +35,14 @@ public interface MotorDispenser<T> {
      * @return A new or cached Motor for the specified slot.
      */
     Motor<T> getMotor(ActivityDef activityDef, int slot);
+
+    /**
+     * Declare whether {@link #getMotor(ActivityDef, int)} may be called concurrently for different slots.
+     * When true, the activity executor may create many motors in parallel.
+     *
+     * @return true if motors may be resolved from multiple threads at once
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
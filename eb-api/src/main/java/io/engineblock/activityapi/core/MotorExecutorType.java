@@ -0,0 +1,53 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityapi.core;
+
+import io.engineblock.util.Named;
+import io.engineblock.util.SimpleServiceLoader;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A strategy for running the motors of an activity. Each motor is submitted to the executor
+ * service as a long-running task. The strategy is selected by name with the <em>executor</em>
+ * activity parameter.
+ */
+public interface MotorExecutorType extends Named {
+
+    String DEFAULT = "platform";
+
+    SimpleServiceLoader<MotorExecutorType> FINDER =
+            new SimpleServiceLoader<>(MotorExecutorType.class);
+
+    /**
+     * @return true if this strategy can be used in the current JVM and platform
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Create an executor service which will run the motors of one activity.
+     *
+     * @param activity         The activity which owns the motors
+     * @param exceptionHandler The handler for exceptions which escape a motor
+     * @return an ExecutorService for the motors
+     */
+    ExecutorService getExecutorService(Activity activity, Thread.UncaughtExceptionHandler exceptionHandler);
+}
@@ -0,0 +1,33 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityapi.core;
+
+/**
+ * Observes the run state transitions of a motor slot. Listeners are called on the thread
+ * which made the transition, so they should return quickly.
+ */
+public interface SlotStateListener {
+
+    /**
+     * @param slotId The slot which changed state
+     * @param from   The previous state of the slot
+     * @param to     The new state of the slot
+     */
+    void onSlotStateChange(long slotId, RunState from, RunState to);
+}
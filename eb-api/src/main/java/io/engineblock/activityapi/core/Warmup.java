@@ -0,0 +1,277 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityapi.core;
+
+import com.codahale.metrics.Timer;
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.metrics.ActivityMetrics;
+import io.engineblock.metrics.HdrDeltaHistogramProvider;
+import io.engineblock.metrics.HistogramHub;
+import io.engineblock.metrics.WarmupBaseline;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * <p>Finds the end of the warmup of an activity, as set by the warmup parameter. See {@link WarmupSpec}.</p>
+ *
+ * <p>The warmup is checked on each {@link HistogramHub} tick, so the boundary is found within one tick
+ * of when it is reached. For the auto form, each tick takes the interval of the cycle service time and
+ * checks it with a {@link SteadyState} detector, along with the time the JIT compiler spent in the same
+ * interval.</p>
+ *
+ * <p>At the boundary, a {@link WarmupBaseline} of all activity metrics is captured, and the listeners
+ * are called. Nothing is reset, so interval data such as histogram logs and cycle logs still include
+ * the warmup.</p>
+ */
+public class Warmup implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(Warmup.class);
+
+    /**
+     * The fewest ops in an interval for its service time to be judged in auto mode.
+     */
+    public final static long MIN_SAMPLES = 100L;
+
+    /**
+     * The largest share of an interval which the JIT compiler may spend for the interval to be stable.
+     */
+    public final static double JIT_QUIET_FRACTION = 0.02D;
+
+    private final Activity activity;
+    private final ActivityDef activityDef;
+    private final CompilationMXBean compiler;
+    private final List<Consumer<WarmupBaseline>> listeners = new CopyOnWriteArrayList<>();
+    private final Runnable tickListener = this::tick;
+
+    private volatile WarmupSpec spec;
+    private volatile WarmupBaseline baseline;
+    private SteadyState steadyState;
+    private boolean started;
+    private long startedAtMillis;
+    private long lastTickNanos;
+    private long lastCompileMillis;
+    private Histogram lastCumulative;
+
+    public Warmup(Activity activity, WarmupSpec spec) {
+        this.activity = activity;
+        this.activityDef = activity.getActivityDef();
+        this.spec = spec;
+        this.steadyState = new SteadyState(spec);
+        CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+        this.compiler = (compilationMXBean != null && compilationMXBean.isCompilationTimeMonitoringSupported())
+                ? compilationMXBean : null;
+    }
+
+    /**
+     * Apply a changed warmup spec. This has no effect once the warmup is complete.
+     * @param spec a {@link WarmupSpec}
+     */
+    public synchronized void apply(WarmupSpec spec) {
+        if (baseline != null) {
+            logger.warn("warmup of " + activityDef.getAlias() + " is already complete, ignoring warmup=" + spec);
+            return;
+        }
+        this.spec = spec;
+        this.steadyState = new SteadyState(spec);
+    }
+
+    /**
+     * Start watching for the end of the warmup. This is called when the activity is started.
+     */
+    public synchronized void start() {
+        if (started || baseline != null) {
+            return;
+        }
+        started = true;
+        startedAtMillis = System.currentTimeMillis();
+        lastTickNanos = System.nanoTime();
+        lastCompileMillis = compileMillis();
+        HistogramHub.getInstance().addTickListener(tickListener);
+        activity.registerAutoCloseable(this);
+        logger.debug("started warmup of " + activityDef.getAlias() + " with warmup=" + spec);
+    }
+
+    /**
+     * Call a listener with the baseline when the warmup is complete. If it is already complete,
+     * the listener is called immediately.
+     * @param listener the listener to call
+     */
+    public void onComplete(Consumer<WarmupBaseline> listener) {
+        listeners.add(listener);
+        WarmupBaseline completed = baseline;
+        if (completed != null && listeners.remove(listener)) {
+            listener.accept(completed);
+        }
+    }
+
+    public boolean isComplete() {
+        return baseline != null;
+    }
+
+    /**
+     * @return the metrics at the warmup boundary, or null if the warmup is not complete
+     */
+    public WarmupBaseline getBaselineOrNull() {
+        return baseline;
+    }
+
+    public WarmupSpec getSpec() {
+        return spec;
+    }
+
+    private synchronized void tick() {
+        if (baseline != null || !started) {
+            return;
+        }
+        try {
+            Timer cycles = activity.getInstrumentation().getOrCreateCyclesServiceTimer();
+            switch (spec.getMode()) {
+                case cycles:
+                    if (cycles.getCount() >= spec.getCycles()) {
+                        complete("after " + cycles.getCount() + " cycles");
+                    }
+                    break;
+                case duration:
+                    if (System.currentTimeMillis() - startedAtMillis >= spec.getMillis()) {
+                        complete("after " + spec.getMillis() + "ms");
+                    }
+                    break;
+                case auto:
+                    if (observe(cycles)) {
+                        complete("at steady state");
+                    } else if (System.currentTimeMillis() - startedAtMillis >= spec.getMillis()) {
+                        logger.warn("steady state of " + activityDef.getAlias() + " was not found within "
+                                + spec.getMillis() + "ms, ending warmup anyway");
+                        complete("at the max warmup time");
+                    }
+                    break;
+            }
+        } catch (Exception e) {
+            logger.warn("error while checking warmup of " + activityDef.getAlias() + ": " + e);
+        }
+    }
+
+    private boolean observe(Timer cycles) {
+        if (!(cycles instanceof HdrDeltaHistogramProvider)) {
+            return false;
+        }
+        Histogram cumulative = ((HdrDeltaHistogramProvider) cycles).getDeltaReservoir().getCumulativeHistogram();
+        Histogram interval = cumulative.copy();
+        if (lastCumulative != null) {
+            interval.subtract(lastCumulative);
+        }
+        lastCumulative = cumulative;
+
+        long now = System.nanoTime();
+        long intervalMillis = Math.max(1L, (now - lastTickNanos) / 1_000_000L);
+        lastTickNanos = now;
+        long compiled = compileMillis();
+        long compileDelta = (compiled >= 0L && lastCompileMillis >= 0L) ? compiled - lastCompileMillis : -1L;
+        lastCompileMillis = compiled;
+
+        long count = interval.getTotalCount();
+        return steadyState.observe(
+                count,
+                count > 0 ? interval.getValueAtPercentile(50.0D) : 0L,
+                count > 0 ? interval.getValueAtPercentile(99.0D) : 0L,
+                compileDelta,
+                intervalMillis);
+    }
+
+    private long compileMillis() {
+        return compiler != null ? compiler.getTotalCompilationTime() : -1L;
+    }
+
+    private void complete(String reason) {
+        baseline = WarmupBaseline.capture(
+                activityDef.getAlias(), ActivityMetrics.getMetricRegistry(activityDef.getMetricsScope()));
+        HistogramHub.getInstance().removeTickListener(tickListener);
+        logger.info("warmup of " + activityDef.getAlias() + " is complete " + reason
+                + ", results from here on exclude the warmup");
+        for (Consumer<WarmupBaseline> listener : listeners) {
+            if (listeners.remove(listener)) {
+                listener.accept(baseline);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        HistogramHub.getInstance().removeTickListener(tickListener);
+        started = false;
+    }
+
+    @Override
+    public String toString() {
+        return "Warmup{" + activityDef.getAlias() + " spec=" + spec + " complete=" + isComplete() + "}";
+    }
+
+    /**
+     * Decides when a series of service time intervals has reached a steady state. An interval is stable
+     * when its p50 and p99 are both within the tolerance of the previous interval, and the JIT compiler
+     * was mostly quiet during it. Steady state is reached after the given number of stable intervals in
+     * a row. Intervals with fewer than {@link #MIN_SAMPLES} ops are not judged.
+     */
+    static class SteadyState {
+        private final double tolerance;
+        private final int checks;
+        private long lastP50;
+        private long lastP99;
+        private int streak;
+
+        SteadyState(WarmupSpec spec) {
+            this.tolerance = spec.getTolerance();
+            this.checks = spec.getChecks();
+        }
+
+        /**
+         * @param count          The number of ops in the interval
+         * @param p50            The median service time of the interval
+         * @param p99            The p99 service time of the interval
+         * @param compileMillis  The time the JIT compiler spent in the interval, or -1 if unknown
+         * @param intervalMillis The length of the interval
+         * @return true if steady state has been reached
+         */
+        boolean observe(long count, long p50, long p99, long compileMillis, long intervalMillis) {
+            if (count < MIN_SAMPLES) {
+                return streak >= checks;
+            }
+            boolean jitQuiet = compileMillis < 0L || compileMillis <= (JIT_QUIET_FRACTION * intervalMillis);
+            boolean stable = lastP50 > 0L && within(p50, lastP50) && within(p99, lastP99) && jitQuiet;
+            lastP50 = p50;
+            lastP99 = p99;
+            streak = stable ? streak + 1 : 0;
+            return streak >= checks;
+        }
+
+        private boolean within(long value, long previous) {
+            return Math.abs(value - previous) <= (tolerance * previous);
+        }
+
+        int getStreak() {
+            return streak;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityapi.core;
+
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.util.Unit;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <H2>Warmup Specifications</H2>
+ *
+ * <P>A warmup spec is the parsed form of the <em>warmup</em> activity parameter, which sets how much
+ * of the start of an activity is excluded from its reported results. It may be in one of these forms:</P>
+ *
+ * <UL>
+ * <LI>&lt;cycles&gt; - the first cycles, like 100000 or 100K</LI>
+ * <LI>&lt;duration&gt; - the first part of the run, with a time unit, like 30s, 500ms or 2minutes</LI>
+ * <LI>auto - until the cycle service time is stable and the JIT compiler is quiet</LI>
+ * </UL>
+ *
+ * <P>Since M is the suffix for millions of cycles, use <em>minutes</em> for durations in minutes.</P>
+ *
+ * <P>The auto form may also have any of these options, separated by commas:</P>
+ * <UL>
+ * <LI>tolerance=&lt;percent&gt; - how much the p50 and p99 service time may change between intervals,
+ * default 10%</LI>
+ * <LI>checks=&lt;intervals&gt; - how many stable intervals in a row are needed, default 5</LI>
+ * <LI>max=&lt;duration&gt; - the longest warmup, after which steady state is assumed, default 5minutes</LI>
+ * </UL>
+ *
+ * For example:
+ * <UL>
+ * <LI>warmup=1M - exclude the first million cycles</LI>
+ * <LI>warmup=30s - exclude the first 30 seconds</LI>
+ * <LI>warmup='auto:tolerance=5%,checks=10,max=2minutes'</LI>
+ * </UL>
+ */
+public class WarmupSpec {
+
+    public enum Mode {
+        cycles,
+        duration,
+        auto
+    }
+
+    public final static double DEFAULT_TOLERANCE = 0.1D;
+    public final static int DEFAULT_CHECKS = 5;
+    public final static long DEFAULT_MAX_MILLIS = 300_000L;
+
+    private final static Pattern UNIT_PATTERN = Pattern.compile("[0-9.]+\\s*(?<unit>[a-zA-Zµ]+)");
+
+    private final String spec;
+    private final Mode mode;
+    private final long cycles;
+    private final long millis;
+    private final double tolerance;
+    private final int checks;
+
+    public WarmupSpec(String spec) {
+        this.spec = spec.trim();
+
+        if (this.spec.equals("auto") || this.spec.startsWith("auto:")) {
+            this.mode = Mode.auto;
+            this.cycles = 0L;
+            double tolerance = DEFAULT_TOLERANCE;
+            int checks = DEFAULT_CHECKS;
+            long max = DEFAULT_MAX_MILLIS;
+            String[] parts = this.spec.equals("auto") ? new String[0] : this.spec.substring("auto:".length()).split(",");
+            for (String part : parts) {
+                part = part.trim();
+                if (part.startsWith("tolerance=")) {
+                    String value = part.substring("tolerance=".length());
+                    tolerance = value.endsWith("%")
+                            ? Double.parseDouble(value.substring(0, value.length() - 1)) / 100.0D
+                            : Double.parseDouble(value);
+                } else if (part.startsWith("checks=")) {
+                    checks = Integer.parseInt(part.substring("checks=".length()));
+                } else if (part.startsWith("max=")) {
+                    String duration = part.substring("max=".length());
+                    max = Unit.msFor(duration).orElseThrow(
+                            () -> new RuntimeException("Unable to parse max '" + duration + "' in warmup spec '" + spec + "'"));
+                } else {
+                    throw new RuntimeException("Unknown option '" + part + "' in warmup spec '" + spec + "'");
+                }
+            }
+            if (tolerance <= 0.0D || checks < 1 || max <= 0L) {
+                throw new RuntimeException("The options of warmup spec '" + spec + "' must satisfy tolerance > 0, checks >= 1 and max > 0");
+            }
+            this.tolerance = tolerance;
+            this.checks = checks;
+            this.millis = max;
+            return;
+        }
+
+        this.tolerance = 0.0D;
+        this.checks = 0;
+        if (isDuration(this.spec)) {
+            this.mode = Mode.duration;
+            this.cycles = 0L;
+            this.millis = Unit.msFor(this.spec).orElseThrow(
+                    () -> new RuntimeException("Unable to parse duration in warmup spec '" + spec + "'"));
+        } else {
+            this.mode = Mode.cycles;
+            this.millis = 0L;
+            this.cycles = Unit.longCountFor(this.spec).orElseThrow(
+                    () -> new RuntimeException("Unable to parse warmup spec '" + spec + "', it must be a number of cycles, a duration, or auto"));
+        }
+        if (cycles < 0L || millis < 0L) {
+            throw new RuntimeException("The warmup spec '" + spec + "' must not be negative");
+        }
+    }
+
+    /**
+     * A spec is a duration if it has a unit which is a time unit, but not a count unit.
+     */
+    private static boolean isDuration(String spec) {
+        Matcher matcher = UNIT_PATTERN.matcher(spec);
+        if (!matcher.matches()) {
+            return false;
+        }
+        String unit = matcher.group("unit");
+        return Unit.Count.valueOfSuffix(unit) == null && Unit.Duration.valueOfSuffix(unit) != null;
+    }
+
+    /**
+     * @param activityDef an {@link ActivityDef}
+     * @return the warmup spec of the activity, if the warmup parameter was given
+     */
+    public static Optional<WarmupSpec> forActivity(ActivityDef activityDef) {
+        return activityDef.getParams().getOptionalString("warmup").map(WarmupSpec::new);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the number of warmup cycles, or 0 if the warmup is not a cycle count
+     */
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return the warmup duration, or the longest warmup for the auto form
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return how much the service time may change between intervals, as a fraction like 0.1
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getChecks() {
+        return checks;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return spec.equals(((WarmupSpec) o).spec);
+    }
+
+    @Override
+    public int hashCode() {
+        return spec.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityapi.core.ops.fluent;
+
+import com.codahale.metrics.Counter;
+import io.engineblock.activityapi.core.Activity;
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.metrics.ActivityMetrics;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A closed-loop controller for the number of ops in flight of an async activity. It is used when
+ * the async parameter is adaptive, as in <em>async=auto:p99&lt;20ms</em>. See {@link AsyncSpec}.</p>
+ *
+ * <p>Op trackers record the service time of each completed op here. At each interval, the controller
+ * takes the service time percentile of that interval and adjusts the total limit with AIMD:</p>
+ * <ul>
+ * <li>If the percentile is over the latency target, the limit is cut by {@link #BACKOFF}.</li>
+ * <li>If it is under the target and the limit was reached by some slot, the limit is raised. Until
+ * the first cut, the limit grows by half of itself each interval. After that, it grows by one op
+ * per thread.</li>
+ * <li>Otherwise, the limit is left as is, since more ops in flight would not be used.</li>
+ * </ul>
+ *
+ * <p>The total limit is split across the op trackers of all slots, in the same way as a fixed
+ * async value. The limit, the observed latency and throughput, and the number of increases and
+ * decreases are available as <em>async.*</em> metrics.</p>
+ */
+public class AdaptiveConcurrency implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(AdaptiveConcurrency.class);
+
+    public final static double BACKOFF = 0.9D;
+
+    private final Activity activity;
+    private final ActivityDef activityDef;
+    private final Recorder recorder = new Recorder(3);
+    private final Map<Long, OpTrackerImpl<?>> trackers = new ConcurrentHashMap<>();
+    private final Counter increases;
+    private final Counter decreases;
+
+    private volatile AsyncSpec spec;
+    private volatile int limit;
+    private volatile boolean saturated;
+    private volatile long observedNanos;
+    private volatile double observedOpsPerSec;
+    private boolean slowStart = true;
+    private Histogram intervalHistogram;
+    private long lastTickNanos;
+    private ScheduledExecutorService scheduler;
+
+    public AdaptiveConcurrency(Activity activity, AsyncSpec spec) {
+        if (!spec.isAdaptive()) {
+            throw new RuntimeException("AdaptiveConcurrency requires an adaptive async spec, not '" + spec + "'");
+        }
+        this.activity = activity;
+        this.activityDef = activity.getActivityDef();
+        this.spec = spec;
+        this.limit = getMinOps(spec);
+
+        ActivityMetrics.gauge(activityDef, "async.limit", () -> limit);
+        ActivityMetrics.gauge(activityDef, "async.latency", () -> observedNanos);
+        ActivityMetrics.gauge(activityDef, "async.throughput", () -> observedOpsPerSec);
+        this.increases = ActivityMetrics.counter(activityDef, "async.increases");
+        this.decreases = ActivityMetrics.counter(activityDef, "async.decreases");
+    }
+
+    /**
+     * Apply a changed async spec. The current limit is kept if it is still within bounds.
+     * @param spec an adaptive {@link AsyncSpec}
+     */
+    public synchronized void apply(AsyncSpec spec) {
+        AsyncSpec previous = this.spec;
+        this.spec = spec;
+        limit = Math.max(getMinOps(spec), Math.min(spec.getMaxOps(), limit));
+        if (scheduler != null && previous.getIntervalMillis() != spec.getIntervalMillis()) {
+            scheduler.shutdown();
+            scheduler = null;
+            start();
+        }
+        distribute();
+    }
+
+    /**
+     * Add the op tracker of a slot to those which are controlled. A tracker which was registered
+     * for the same slot before is replaced.
+     */
+    public void register(long slot, OpTrackerImpl<?> tracker) {
+        trackers.put(slot, tracker);
+        start();
+    }
+
+    public void unregister(long slot, OpTrackerImpl<?> tracker) {
+        trackers.remove(slot, tracker);
+    }
+
+    public void recordServiceTime(long nanos) {
+        if (nanos >= 0L) {
+            recorder.recordValue(nanos);
+        }
+    }
+
+    /**
+     * Signal that a slot has reached its limit, so more ops in flight would be used.
+     */
+    public void markSaturated() {
+        if (!saturated) {
+            saturated = true;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param slot The slot of an op tracker
+     * @return the share of the total limit for that slot
+     */
+    public int getMaxPendingOps(long slot) {
+        return shareFor(limit, activityDef.getThreads(), slot);
+    }
+
+    static int shareFor(int total, int threads, long slot) {
+        int share = (total / threads) + (slot < (total % threads) ? 1 : 0);
+        return Math.max(1, share);
+    }
+
+    /**
+     * Decide the next total limit, given what was observed in the last interval.
+     *
+     * @param limit         The current total limit
+     * @param observedNanos The service time percentile of the last interval
+     * @param saturated     Whether any slot reached its limit during the last interval
+     * @param slowStart     Whether the limit has never been cut
+     * @param spec          The async spec
+     * @param threads       The number of threads in the activity
+     * @return the next total limit
+     */
+    static int nextLimit(int limit, long observedNanos, boolean saturated, boolean slowStart, AsyncSpec spec, int threads) {
+        int min = Math.min(spec.getMinOps(threads), spec.getMaxOps());
+        if (observedNanos > spec.getTargetNanos()) {
+            int cut = Math.min(limit - 1, (int) (limit * BACKOFF));
+            return Math.max(min, cut);
+        }
+        if (!saturated) {
+            return limit;
+        }
+        int step = slowStart ? Math.max(1, limit / 2) : Math.max(1, threads);
+        return (int) Math.min((long) spec.getMaxOps(), (long) limit + step);
+    }
+
+    private int getMinOps(AsyncSpec spec) {
+        return Math.min(spec.getMinOps(activityDef.getThreads()), spec.getMaxOps());
+    }
+
+    private synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "async-" + activityDef.getAlias());
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastTickNanos = System.nanoTime();
+        long interval = spec.getIntervalMillis();
+        scheduler.scheduleAtFixedRate(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+        activity.registerAutoCloseable(this);
+        logger.debug("started adaptive concurrency for " + activityDef.getAlias() + " with " + spec + ", limit=" + limit);
+    }
+
+    private synchronized void tick() {
+        try {
+            intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+            long now = System.nanoTime();
+            long count = intervalHistogram.getTotalCount();
+            observedOpsPerSec = (count * 1_000_000_000.0D) / Math.max(1L, now - lastTickNanos);
+            lastTickNanos = now;
+
+            boolean wasSaturated = saturated;
+            saturated = false;
+            if (count == 0) {
+                return;
+            }
+            observedNanos = intervalHistogram.getValueAtPercentile(spec.getPercentile() * 100.0D);
+
+            int next = nextLimit(limit, observedNanos, wasSaturated, slowStart, spec, activityDef.getThreads());
+            if (next < limit) {
+                slowStart = false;
+                decreases.inc();
+            } else if (next > limit) {
+                increases.inc();
+            }
+            if (next != limit) {
+                logger.debug("async limit for " + activityDef.getAlias() + " " + limit + " -> " + next
+                        + " (p" + (spec.getPercentile() * 100.0D) + "=" + observedNanos + "ns, "
+                        + String.format("%.1f", observedOpsPerSec) + " ops/s)");
+                limit = next;
+                distribute();
+            }
+        } catch (Exception e) {
+            logger.warn("error while adjusting async limit for " + activityDef.getAlias() + ": " + e);
+        }
+    }
+
+    private void distribute() {
+        trackers.forEach((slot, tracker) -> tracker.setMaxPendingOps(getMaxPendingOps(slot)));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrency{" + activityDef.getAlias() + " spec=" + spec + " limit=" + limit
+                + " latency=" + observedNanos + "ns throughput=" + observedOpsPerSec + "}";
+    }
+}
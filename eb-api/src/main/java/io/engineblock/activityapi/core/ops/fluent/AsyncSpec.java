@@ -0,0 +1,207 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityapi.core.ops.fluent;
+
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.util.Unit;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <H2>Async Specifications</H2>
+ *
+ * <P>An async spec is the parsed form of the <em>async</em> activity parameter, which sets how many
+ * operations may be in flight for an activity. It may be in one of these forms:</P>
+ *
+ * <UL>
+ * <LI>&lt;ops&gt; - a fixed number of ops in flight, shared evenly across all threads</LI>
+ * <LI>auto - adjust the ops in flight continuously, against the default latency target</LI>
+ * <LI>auto:p&lt;percentile&gt;&lt;&lt;latency&gt; - adjust the ops in flight continuously, keeping the
+ * given service time percentile under the latency target</LI>
+ * </UL>
+ *
+ * <P>The adaptive forms may also have any of these options, separated by commas:</P>
+ * <UL>
+ * <LI>min=&lt;ops&gt; - the fewest ops in flight, default 1 per thread</LI>
+ * <LI>max=&lt;ops&gt; - the most ops in flight, default 10000</LI>
+ * <LI>interval=&lt;duration&gt; - how often the limit is adjusted, default 1s</LI>
+ * </UL>
+ *
+ * For example:
+ * <UL>
+ * <LI>async=200 - allow 200 ops in flight</LI>
+ * <LI>async=auto:p99&lt;20ms - find the most ops in flight which keep the p99 service time under 20ms</LI>
+ * <LI>async='auto:p999&lt;50ms,max=5000,interval=500ms'</LI>
+ * </UL>
+ */
+public class AsyncSpec {
+
+    public final static String DEFAULT_TARGET = "p99<100ms";
+    public final static int DEFAULT_MAX_OPS = 10000;
+    public final static long DEFAULT_INTERVAL_MS = 1000L;
+
+    private final static Pattern TARGET_PATTERN = Pattern.compile("p(?<percentile>\\d+(\\.\\d+)?)\\s*<\\s*(?<latency>.+)");
+
+    private final String spec;
+    private final boolean adaptive;
+    private final int ops;
+    private final double percentile;
+    private final long targetNanos;
+    private final int minOps;
+    private final int maxOps;
+    private final long intervalMillis;
+
+    public AsyncSpec(String spec) {
+        this.spec = spec.trim();
+        if (this.spec.matches("\\d+")) {
+            this.adaptive = false;
+            this.ops = Integer.parseInt(this.spec);
+            this.percentile = 0.0D;
+            this.targetNanos = 0L;
+            this.minOps = ops;
+            this.maxOps = ops;
+            this.intervalMillis = 0L;
+            return;
+        }
+        if (!this.spec.equals("auto") && !this.spec.startsWith("auto:")) {
+            throw new RuntimeException("Unable to parse async spec '" + spec + "', it must be a number of ops, or auto[:p<percentile><<latency>]");
+        }
+
+        this.adaptive = true;
+        this.ops = 0;
+        String[] parts = this.spec.equals("auto") ? new String[0] : this.spec.substring("auto:".length()).split(",");
+
+        String target = DEFAULT_TARGET;
+        int min = 0;
+        int max = DEFAULT_MAX_OPS;
+        long interval = DEFAULT_INTERVAL_MS;
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].trim();
+            if (i == 0 && part.startsWith("p")) {
+                target = part;
+            } else if (part.startsWith("min=")) {
+                min = Integer.parseInt(part.substring("min=".length()));
+            } else if (part.startsWith("max=")) {
+                max = Integer.parseInt(part.substring("max=".length()));
+            } else if (part.startsWith("interval=")) {
+                String duration = part.substring("interval=".length());
+                interval = Unit.msFor(duration).orElseThrow(
+                        () -> new RuntimeException("Unable to parse interval '" + duration + "' in async spec '" + spec + "'"));
+            } else {
+                throw new RuntimeException("Unknown option '" + part + "' in async spec '" + spec + "'");
+            }
+        }
+
+        Matcher matcher = TARGET_PATTERN.matcher(target);
+        if (!matcher.matches()) {
+            throw new RuntimeException("Unable to parse latency target '" + target + "' in async spec '" + spec + "', it must be like p99<20ms");
+        }
+        String digits = matcher.group("percentile");
+        this.percentile = percentileFor(digits);
+        String latency = matcher.group("latency");
+        this.targetNanos = Unit.nanosecondsFor(latency).orElseThrow(
+                () -> new RuntimeException("Unable to parse latency '" + latency + "' in async spec '" + spec + "'"));
+        if (max < 1 || (min > max)) {
+            throw new RuntimeException("The min and max ops for async spec '" + spec + "' must satisfy 1 <= max and min <= max");
+        }
+        this.minOps = min;
+        this.maxOps = max;
+        this.intervalMillis = interval;
+    }
+
+    /**
+     * @param activityDef an {@link ActivityDef}
+     * @return the async spec of the activity, if the async parameter was given
+     */
+    public static Optional<AsyncSpec> forActivity(ActivityDef activityDef) {
+        return activityDef.getParams().getOptionalString("async").map(AsyncSpec::new);
+    }
+
+    /**
+     * Percentiles are written without the decimal point, as in p99 or p999, so the digits are read
+     * as the fraction after it. A decimal point may also be used, as in p99.9.
+     */
+    private static double percentileFor(String digits) {
+        if (digits.contains(".")) {
+            return new BigDecimal(digits).movePointLeft(2).doubleValue();
+        }
+        if (digits.length() == 1) {
+            return Double.parseDouble(digits) / 10.0D;
+        }
+        return Double.parseDouble("0." + digits);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return the fixed number of ops in flight, or 0 for adaptive specs
+     */
+    public int getOps() {
+        return ops;
+    }
+
+    /**
+     * @return the service time percentile which is controlled, as a fraction like 0.99
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public long getTargetNanos() {
+        return targetNanos;
+    }
+
+    /**
+     * @param threads the number of threads in the activity
+     * @return the fewest ops in flight, which is at least one per thread
+     */
+    public int getMinOps(int threads) {
+        return Math.max(minOps, threads);
+    }
+
+    public int getMaxOps() {
+        return maxOps;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return spec.equals(((AsyncSpec) o).spec);
+    }
+
+    @Override
+    public int hashCode() {
+        return spec.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -1,11 +1,14 @@
 package io.engineblock.activityapi.core.ops.fluent;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
 import io.engineblock.activityapi.core.Activity;
 import io.engineblock.activityapi.core.ActivityDefObserver;
 import io.engineblock.activityapi.core.ops.fluent.opfacets.*;
+import io.engineblock.activityapi.retries.OpRetries;
 import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.metrics.SlotMetrics;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -23,8 +26,14 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
     private final Timer cycleServiceTimer;
     private final Timer cycleResponseTimer;
     private final Counter pendingOpsCounter;
-
-    private int maxPendingOps =1;
+    private final Histogram triesHistogram;
+    private final Counter retriesCounter;
+    private final SlotMetrics.Slot slotMetrics;
+    private final Activity activity;
+    private volatile AdaptiveConcurrency concurrency;
+    private volatile OpRetries retries;
+
+    private volatile int maxPendingOps =1;
     private LongFunction<D> cycleOpFunction;
 
 
@@ -33,8 +42,14 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
         this.label = "tracker-" + slot + "_" + activity.getAlias();
 
         this.pendingOpsCounter = activity.getInstrumentation().getOrCreatePendingOpCounter();
+        this.triesHistogram = activity.getInstrumentation().getOrCreateTriesHistogram();
+        this.retriesCounter = activity.getInstrumentation().getOrCreateRetriesCounter();
         this.cycleServiceTimer = activity.getInstrumentation().getOrCreateCyclesServiceTimer();
         this.cycleResponseTimer = activity.getInstrumentation().getCyclesResponseTimerOrNull();
+        SlotMetrics activitySlotMetrics = activity.getInstrumentation().getSlotMetricsOrNull();
+        this.slotMetrics = activitySlotMetrics != null ? activitySlotMetrics.forSlot(slot) : null;
+        this.activity = activity;
+        onActivityDefUpdate(activity.getActivityDef());
     }
 
     // for testing
@@ -44,12 +59,30 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
         this.cycleResponseTimer = cycleResponseTimer;
         this.cycleServiceTimer = cycleServiceTimer;
         this.pendingOpsCounter = pendingOpsCounter;
+        this.triesHistogram = null;
+        this.retriesCounter = null;
+        this.slotMetrics = null;
+        this.activity = null;
     }
 
     @Override
     public void onOpStarted(StartedOp<D> op) {
-        pendingOps.incrementAndGet();
+        int pending = pendingOps.incrementAndGet();
         pendingOpsCounter.inc();
+        if (slotMetrics != null) {
+            slotMetrics.setPendingOps(pending);
+        }
+        OpRetries retries = this.retries;
+        if (retries != null) {
+            retries.countTry();
+        }
+    }
+
+    @Override
+    public void onOpRetry(StartedOp<D> op) {
+        if (retriesCounter != null) {
+            retriesCounter.inc();
+        }
     }
 
     @Override
@@ -58,7 +91,16 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
         int pending = this.pendingOps.decrementAndGet();
 
         cycleServiceTimer.update(op.getServiceTimeNanos(), TimeUnit.NANOSECONDS);
+        if (triesHistogram != null) { triesHistogram.update(op.getTries()); }
         if (cycleResponseTimer !=null) { cycleResponseTimer.update(op.getResponseTimeNanos(), TimeUnit.NANOSECONDS); }
+        if (slotMetrics != null) {
+            slotMetrics.setPendingOps(pending);
+            slotMetrics.addCycle(op.getServiceTimeNanos(), op.getResponseTimeNanos() - op.getServiceTimeNanos());
+        }
+        AdaptiveConcurrency concurrency = this.concurrency;
+        if (concurrency != null) {
+            concurrency.recordServiceTime(op.getServiceTimeNanos());
+        }
 
         if (pending< maxPendingOps) {
             synchronized (this) {
@@ -71,6 +113,9 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
     public void onOpSkipped(SkippedOp<D> op) {
         pendingOpsCounter.dec();
         int pending = this.pendingOps.decrementAndGet();
+        if (slotMetrics != null) {
+            slotMetrics.setPendingOps(pending);
+        }
 
         if (pending< maxPendingOps) {
             synchronized (this) {
@@ -88,7 +133,16 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
         int pending = this.pendingOps.decrementAndGet();
 
         cycleServiceTimer.update(op.getServiceTimeNanos(), TimeUnit.NANOSECONDS);
+        if (triesHistogram != null) { triesHistogram.update(op.getTries()); }
         if (cycleResponseTimer !=null) { cycleResponseTimer.update(op.getResponseTimeNanos(), TimeUnit.NANOSECONDS); }
+        if (slotMetrics != null) {
+            slotMetrics.setPendingOps(pending);
+            slotMetrics.addCycle(op.getServiceTimeNanos(), op.getResponseTimeNanos() - op.getServiceTimeNanos());
+        }
+        AdaptiveConcurrency concurrency = this.concurrency;
+        if (concurrency != null) {
+            concurrency.recordServiceTime(op.getServiceTimeNanos());
+        }
 
         if (pending< maxPendingOps) {
             synchronized (this) {
@@ -107,7 +161,14 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
 
     @Override
     public boolean isFull() {
-        return this.pendingOps.intValue()>=maxPendingOps;
+        boolean full = this.pendingOps.intValue()>=maxPendingOps;
+        if (full) {
+            AdaptiveConcurrency concurrency = this.concurrency;
+            if (concurrency != null) {
+                concurrency.markSaturated();
+            }
+        }
+        return full;
     }
 
     @Override
@@ -153,12 +214,29 @@ public class OpTrackerImpl<D> implements OpTracker<D>, ActivityDefObserver {
 
     @Override
     public void onActivityDefUpdate(ActivityDef activityDef) {
-        this.maxPendingOps=getMaxPendingOpsForThisThread(activityDef);
+        AdaptiveConcurrency newConcurrency = (activity != null) ? activity.getAdaptiveConcurrencyOrNull() : null;
+        if (newConcurrency != concurrency) {
+            if (concurrency != null) {
+                concurrency.unregister(slot, this);
+            }
+            if (newConcurrency != null) {
+                newConcurrency.register(slot, this);
+            }
+            concurrency = newConcurrency;
+        }
+        retries = (activity != null) ? activity.getRetriesOrNull() : null;
+        if (concurrency != null) {
+            setMaxPendingOps(concurrency.getMaxPendingOps(slot));
+        } else {
+            setMaxPendingOps(getMaxPendingOpsForThisThread(activityDef));
+        }
     }
 
     private int getMaxPendingOpsForThisThread(ActivityDef def) {
-        int maxTotalOpsInFlight = def.getParams().getOptionalInteger("async").orElse(1);
         int threads = def.getThreads();
+        int maxTotalOpsInFlight = AsyncSpec.forActivity(def)
+                .map(spec -> spec.isAdaptive() ? spec.getMinOps(threads) : spec.getOps())
+                .orElse(1);
         return (maxTotalOpsInFlight / threads) + (slot < (maxTotalOpsInFlight % threads) ? 1 : 0);
     }
 
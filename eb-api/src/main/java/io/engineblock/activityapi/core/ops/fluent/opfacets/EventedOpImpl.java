@@ -48,6 +48,14 @@ public class EventedOpImpl<D> extends OpImpl<D> {
         return this;
     }
 
+    @Override
+    public StartedOp<D> retry() {
+        super.retry();
+        opTracker.onOpRetry(this);
+        strideTracker.onOpRetry(this);
+        return this;
+    }
+
     @Override
     public FailedOp<D> fail(int status) {
         super.fail(status);
@@ -22,4 +22,12 @@ public interface OpEvents<D> {
     void onOpSuccess(SucceededOp<D> op);
     void onOpSkipped(SkippedOp<D> op);
     void onOpFailure(FailedOp<D> op);
+
+    /**
+     * Called when an op is tried again, after its previous try failed. The op is still
+     * pending, and will be completed later with a success or a failure.
+     * @param op The op which is being retried
+     */
+    default void onOpRetry(StartedOp<D> op) {
+    }
 }
@@ -79,4 +79,9 @@ public interface StartedOp<D> extends Payload<D>, CycleReadable {
      */
     public long getCurrentResponseTimeNanos();
 
+    /**
+     * @return the number of times this op has been tried so far, including the current try
+     */
+    public int getTries();
+
 }
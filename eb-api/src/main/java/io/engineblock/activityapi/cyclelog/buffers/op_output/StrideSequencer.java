@@ -0,0 +1,250 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.cyclelog.buffers.op_output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Runs tasks for contiguous cycle ranges in cycle order, without blocking the threads which submit
+ * them. This is for processing stride output in order from a {@link StrideOutputConsumer}, when strides
+ * complete out of order.</p>
+ *
+ * <p>A task which arrives before its turn is parked in a ring buffer, at the slot for its stride.
+ * Whichever thread submits the task which is next in order runs it, and then every parked task which
+ * follows it without a gap. A thread never waits for its turn. Tasks which are too far ahead for the
+ * ring buffer are parked in an overflow map instead.</p>
+ *
+ * <p>Tasks are run by one thread at a time, so they do not need to be thread safe with respect to each
+ * other. If a task throws an exception, it is logged. If errors are fatal, no further tasks are run,
+ * and submitting more tasks throws an exception.</p>
+ */
+public class StrideSequencer {
+    private final static Logger logger = LoggerFactory.getLogger(StrideSequencer.class);
+
+    private final long origin;
+    private final long stride;
+    private final int mask;
+    private final long window;
+    private final boolean errorsAreFatal;
+    private final AtomicReferenceArray<Entry> ring;
+    private final ConcurrentSkipListMap<Long, Entry> overflow = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicLong pending = new AtomicLong(0L);
+    private volatile long next;
+    private volatile Exception fatalError;
+
+    /**
+     * @param start          The first cycle, which is the start of the first task to run
+     * @param stride         The size of each cycle range, except perhaps the last
+     * @param capacity       How many strides ahead of the next one can be parked in the ring buffer,
+     *                       which is rounded up to a power of two
+     * @param errorsAreFatal Whether to stop running tasks after one throws an exception
+     */
+    public StrideSequencer(long start, long stride, int capacity, boolean errorsAreFatal) {
+        if (stride < 1L) {
+            throw new RuntimeException("The stride of a StrideSequencer must be at least 1, not " + stride);
+        }
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new RuntimeException("The capacity of a StrideSequencer must be from 1 to 2^30, not " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.origin = start;
+        this.stride = stride;
+        this.mask = size - 1;
+        this.window = stride * size;
+        this.errorsAreFatal = errorsAreFatal;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.next = start;
+    }
+
+    /**
+     * Run a task when all tasks for the cycles before it have been run. If it is next in order, the task
+     * is run by the calling thread, along with any parked tasks which are then ready. Otherwise, it is
+     * parked and this returns immediately.
+     *
+     * @param startAt The first cycle of the task
+     * @param endPlus The cycle after the last cycle of the task, which is the start of the next task
+     * @param task    The task to run
+     */
+    public void submit(long startAt, long endPlus, Runnable task) {
+        if (fatalError != null) {
+            throw new RuntimeException("There was previously a fatal error, not allowing new tasks. Error="
+                    + fatalError.getMessage());
+        }
+        if (endPlus <= startAt) {
+            throw new RuntimeException("Invalid cycle range [" + startAt + "," + endPlus + ") for a StrideSequencer");
+        }
+        if (startAt < next) {
+            throw new RuntimeException("Cycle range [" + startAt + "," + endPlus + ") was submitted after cycle "
+                    + next + " was reached, it is either a duplicate or out of range");
+        }
+
+        Entry entry = new Entry(startAt, endPlus, task);
+        pending.incrementAndGet();
+        int slot = slotFor(startAt);
+        boolean parked;
+        if (startAt - next < window && ring.compareAndSet(slot, null, entry)) {
+            parked = !overflow.containsKey(startAt);
+        } else {
+            Entry occupant = ring.get(slot);
+            parked = (occupant == null || occupant.start != startAt) && overflow.putIfAbsent(startAt, entry) == null;
+        }
+        // The range may also have been passed while this was being parked, since next is advanced
+        // before a slot is cleared. Unless a drainer has claimed this entry, it is a duplicate then,
+        // and it would never be run.
+        if ((!parked || startAt < next) && entry.claim()) {
+            remove(entry);
+            pending.decrementAndGet();
+            throw new RuntimeException("Cycle range starting at " + startAt + " was submitted twice");
+        }
+        drain();
+    }
+
+    private int slotFor(long cycle) {
+        return (int) (Math.floorDiv(cycle - origin, stride) & mask);
+    }
+
+    private Entry peek(long cycle) {
+        // overflow first, since a duplicate may briefly sit in the ring while the original overflowed
+        if (!overflow.isEmpty()) {
+            Entry entry = overflow.get(cycle);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Entry entry = ring.get(slotFor(cycle));
+        return entry != null && entry.start == cycle ? entry : null;
+    }
+
+    private void remove(Entry entry) {
+        if (!ring.compareAndSet(slotFor(entry.start), entry, null)) {
+            overflow.remove(entry.start, entry);
+        }
+    }
+
+    /**
+     * Run all ready tasks, unless another thread is already doing so. After letting go, check again,
+     * since a task which became ready in the meantime may have been missed by both threads.
+     * Each task is claimed, and the next cycle is advanced, before the task is removed and run, so
+     * that {@link #submit} can tell when a range it parked has already been passed.
+     */
+    private void drain() {
+        while (fatalError == null && peek(next) != null) {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                Entry entry;
+                while (fatalError == null && (entry = peek(next)) != null) {
+                    if (!entry.claim()) {
+                        // claimed as a duplicate by its submitter, which removes it
+                        remove(entry);
+                        continue;
+                    }
+                    next = entry.endPlus;
+                    remove(entry);
+                    try {
+                        entry.task.run();
+                    } catch (Exception e) {
+                        logger.error("Task for cycles [" + entry.start + "," + entry.endPlus
+                                + ") errored in StrideSequencer: " + e.getMessage(), e);
+                        if (errorsAreFatal) {
+                            fatalError = e;
+                        }
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * @return the first cycle of the next task to run
+     */
+    public long getNext() {
+        return next;
+    }
+
+    /**
+     * @return the number of tasks which were submitted and have not been run yet
+     */
+    public long getPending() {
+        return pending.get();
+    }
+
+    /**
+     * @return the error which stopped this sequencer, or null
+     */
+    public Exception getFatalError() {
+        return fatalError;
+    }
+
+    /**
+     * Wait until all submitted tasks have been run, for when an activity is being stopped.
+     *
+     * @param timeoutMillis How long to wait
+     * @return true if all tasks were run
+     */
+    public boolean awaitCompletion(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (pending.get() > 0 && fatalError == null) {
+            if (System.nanoTime() - deadline >= 0L) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1L));
+        }
+        return pending.get() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "StrideSequencer{next=" + next + ", pending=" + pending.get() + ", stride=" + stride
+                + ", capacity=" + ring.length() + (fatalError != null ? ", failed" : "") + "}";
+    }
+
+    private final static class Entry {
+        private final long start;
+        private final long endPlus;
+        private final Runnable task;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private Entry(long start, long endPlus, Runnable task) {
+            this.start = start;
+            this.endPlus = endPlus;
+            this.task = task;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
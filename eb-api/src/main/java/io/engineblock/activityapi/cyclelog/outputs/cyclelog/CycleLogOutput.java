@@ -25,6 +25,7 @@ import io.engineblock.activityapi.cyclelog.buffers.results_rle.CycleResultsRLEBu
 import io.engineblock.activityapi.cyclelog.buffers.results_rle.CycleSpanResults;
 import io.engineblock.activityapi.cyclelog.inputs.cyclelog.CanFilterResultValue;
 import io.engineblock.activityapi.output.Output;
+import io.engineblock.metrics.jfr.CycleLogFlushEvent;
 import io.engineblock.util.SimpleConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -117,7 +118,10 @@ public class CycleLogOutput implements Output, CanFilterResultValue {
     }
 
     private void flush() {
+        CycleLogFlushEvent flushEvent = new CycleLogFlushEvent();
+        flushEvent.begin();
         ByteBuffer nextFileExtent = targetBuffer.toByteBuffer();
+        int extentBytes = nextFileExtent.remaining();
         logger.debug("RLE result extent is " + nextFileExtent.remaining() + " bytes ("
                 + (nextFileExtent.remaining() / CycleResultsRLEBufferTarget.BYTES)
                 + ") tuples");
@@ -129,6 +133,12 @@ public class CycleLogOutput implements Output, CanFilterResultValue {
         logger.trace("extent appended");
         logger.trace("mbb position now at " + mbb.position());
 
+        if (flushEvent.shouldCommit()) {
+            flushEvent.file = outputFile.getPath();
+            flushEvent.bytes = extentBytes;
+            flushEvent.fileSize = mbb.capacity();
+            flushEvent.commit();
+        }
     }
 
     @Override
@@ -36,6 +36,33 @@ public class CycleErrorHandlers {
         };
     }
 
+    /**
+     * Log errors with a {@link RateLimitedErrorLogger}, so that each class of error is logged
+     * at most once per interval.
+     * @param result The result to return for each error
+     * @param intervalMillis The least time between logged errors of the same class
+     * @param <T> The type of error
+     * @param <R> The type of result
+     * @return a CycleErrorHandler
+     */
+    public static <T extends Throwable, R> CycleErrorHandler<T, R> log(R result, long intervalMillis) {
+        RateLimitedErrorLogger errorLogger = new RateLimitedErrorLogger(logger, intervalMillis);
+        return (cycle, error, errMsg) -> {
+            errorLogger.log(cycle, error, errMsg);
+            return result;
+        };
+    }
+
+    /**
+     * Return the result code for each error, ignoring the error message.
+     * @param codes The result codes for each class of error
+     * @param <T> The type of error
+     * @return a CycleErrorHandler
+     */
+    public static <T extends Throwable> CycleErrorHandler<T, Integer> code(ExceptionResultCodes codes) {
+        return (cycle, error, errMsg) -> codes.codeFor(error);
+    }
+
     public static <T extends Throwable, R> CycleErrorHandler<T, R> store(
             List<CycleErrorHandler.Triple> list,
             R result) {
@@ -0,0 +1,106 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.errorhandling;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Maps errors to result codes, as recorded for each cycle in the cycle log. This lets an action
+ * report the kind of error which occurred without building an error message, which is important
+ * when errors are frequent.</p>
+ *
+ * <p>As with {@link HashedErrorHandler}, a code set for an error class applies to its subclasses
+ * which have no code of their own. Errors with no code at all get the default code. The code for
+ * each reported error class is resolved once and kept until the codes are changed.</p>
+ *
+ * <p>Since results are stored as single bytes, codes must be between 0 and 127.</p>
+ */
+public class ExceptionResultCodes {
+
+    public final static int MAX_CODE = 127;
+
+    private final Map<Class<? extends Throwable>, Integer> codes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Integer> resolved = new ConcurrentHashMap<>();
+    private volatile int defaultCode;
+
+    /**
+     * @param defaultCode The code for errors which have no other code
+     */
+    public ExceptionResultCodes(int defaultCode) {
+        this.defaultCode = checkCode(defaultCode);
+    }
+
+    /**
+     * Set the result code for the given error classes, and any subclasses of them which
+     * do not have their own code.
+     *
+     * @param code         The result code
+     * @param errorClasses The error classes
+     * @return this, for method chaining
+     */
+    @java.lang.SafeVarargs
+    public final synchronized ExceptionResultCodes setCode(int code, Class<? extends Throwable>... errorClasses) {
+        checkCode(code);
+        for (Class<? extends Throwable> errorClass : errorClasses) {
+            codes.put(errorClass, code);
+        }
+        resolved.clear();
+        return this;
+    }
+
+    public synchronized ExceptionResultCodes setDefaultCode(int defaultCode) {
+        this.defaultCode = checkCode(defaultCode);
+        resolved.clear();
+        return this;
+    }
+
+    /**
+     * @param error An error
+     * @return the result code for the class of the error
+     */
+    public int codeFor(Throwable error) {
+        Integer code = resolved.get(error.getClass());
+        if (code == null) {
+            code = resolved.computeIfAbsent(error.getClass(), this::resolve);
+        }
+        return code;
+    }
+
+    private Integer resolve(Class<?> errorClass) {
+        while (errorClass != null && Throwable.class.isAssignableFrom(errorClass)) {
+            Integer code = codes.get(errorClass);
+            if (code != null) {
+                return code;
+            }
+            errorClass = errorClass.getSuperclass();
+        }
+        return defaultCode;
+    }
+
+    public int getDefaultCode() {
+        return defaultCode;
+    }
+
+    private static int checkCode(int code) {
+        if (code < 0 || code > MAX_CODE) {
+            throw new RuntimeException("Result codes must be between 0 and " + MAX_CODE + ", not " + code);
+        }
+        return code;
+    }
+}
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -55,6 +56,12 @@ import java.util.stream.Collectors;
  * single Throwable types and thus throw an exception if more than one is matched.
  * Patterns that contain non-word characters allow for bulk management.
  *
+ * <H2>Resolution</H2>
+ * The handler for each reported error class is resolved once, and kept until the handlers
+ * are changed, so that reporting an error does not walk the class hierarchy each time.
+ * Along with it, a count of reported errors is kept for each error class, which can be read
+ * with {@link #getErrorCounts()}.
+ *
  * @param <T> The subtype bound of exception to allow exception handlers for.
  * @param <R> The result type that will be produced by these error handlers.
  */
@@ -69,6 +76,8 @@ public class HashedErrorHandler<T extends Throwable, R> implements CycleErrorHan
     private Map<Class<? extends T>, CycleErrorHandler<T, R>> handlers = new ConcurrentHashMap<>();
     private Set<Class<? extends T>> validClasses = new HashSet<>();
     private CycleErrorHandler<T, R> defaultHandler = DEFAULT_defaultHandler;
+    private final Map<Class<?>, ErrorClassEntry<T, R>> errorClasses = new ConcurrentHashMap<>();
+    private volatile int version;
 
     /**
      * Set a group name for a set of classes. If the classes in the
@@ -104,6 +113,7 @@ public class HashedErrorHandler<T extends Throwable, R> implements CycleErrorHan
             logger.debug("handling " + errorClass.getSimpleName() + " with " + errorHandler);
             handlers.put(errorClass, errorHandler);
         }
+        version++;
     }
 
     /**
@@ -149,6 +159,7 @@ public class HashedErrorHandler<T extends Throwable, R> implements CycleErrorHan
      */
     public final synchronized void resetAllClassHandlers() {
         handlers.clear();
+        version++;
     }
 
     /**
@@ -181,9 +192,10 @@ public class HashedErrorHandler<T extends Throwable, R> implements CycleErrorHan
      * @param errorHandler The error handler to be called as a last resort.
      * @return this HashedErrorHandler, for method chaining
      */
-    public HashedErrorHandler<T, R> setDefaultHandler(CycleErrorHandler<T, R> errorHandler) {
+    public synchronized HashedErrorHandler<T, R> setDefaultHandler(CycleErrorHandler<T, R> errorHandler) {
         Objects.requireNonNull(errorHandler);
         defaultHandler = errorHandler;
+        version++;
         return this;
     }
 
@@ -197,8 +209,9 @@ public class HashedErrorHandler<T extends Throwable, R> implements CycleErrorHan
      * @param upperBound The Throwable subtype which is the lowest subtype to onAfterOpStop
      * @return this, for method chaining.
      */
-    public HashedErrorHandler<T, R> setUpperBound(Class<? extends T> upperBound) {
+    public synchronized HashedErrorHandler<T, R> setUpperBound(Class<? extends T> upperBound) {
         this.upperBound = upperBound;
+        version++;
         return this;
     }
 
@@ -255,7 +268,25 @@ public class HashedErrorHandler<T extends Throwable, R> implements CycleErrorHan
      */
     @Override
     public R handleError(long cycle, T throwable, String errMsg) {
-        Class<?> errorClass = throwable.getClass();
+        ErrorClassEntry<T, R> entry = errorClasses.get(throwable.getClass());
+        if (entry == null) {
+            entry = errorClasses.computeIfAbsent(throwable.getClass(), c -> new ErrorClassEntry<>());
+        }
+        entry.count.increment();
+        return handlerFor(entry, throwable.getClass()).handleError(cycle, throwable, errMsg);
+    }
+
+    private CycleErrorHandler<T, R> handlerFor(ErrorClassEntry<T, R> entry, Class<?> errorClass) {
+        ResolvedHandler<T, R> resolved = entry.resolved;
+        int currentVersion = version;
+        if (resolved == null || resolved.version != currentVersion) {
+            resolved = new ResolvedHandler<>(resolve(errorClass), currentVersion);
+            entry.resolved = resolved;
+        }
+        return resolved.handler;
+    }
+
+    private CycleErrorHandler<T, R> resolve(Class<?> errorClass) {
         CycleErrorHandler<T, R> errorHandler = null;
         while (errorHandler == null) {
             errorHandler = handlers.get(errorClass);
@@ -264,12 +295,35 @@ public class HashedErrorHandler<T extends Throwable, R> implements CycleErrorHan
                 break;
             }
         }
-        errorHandler = (errorHandler == null) ? defaultHandler : errorHandler;
-        return errorHandler.handleError(cycle, throwable, errMsg);
+        return (errorHandler == null) ? defaultHandler : errorHandler;
+    }
+
+    /**
+     * @return the number of errors which have been reported to this handler, by error class
+     */
+    public Map<Class<?>, Long> getErrorCounts() {
+        Map<Class<?>, Long> counts = new HashMap<>();
+        errorClasses.forEach((errorClass, entry) -> counts.put(errorClass, entry.count.sum()));
+        return counts;
     }
 
     public List<String> getGroupNames() {
         return new ArrayList<String>(this.errorGroups.keySet());
     }
 
+    private static class ErrorClassEntry<T extends Throwable, R> {
+        private final LongAdder count = new LongAdder();
+        private volatile ResolvedHandler<T, R> resolved;
+    }
+
+    private static class ResolvedHandler<T extends Throwable, R> {
+        private final CycleErrorHandler<T, R> handler;
+        private final int version;
+
+        private ResolvedHandler(CycleErrorHandler<T, R> handler, int version) {
+            this.handler = handler;
+            this.version = version;
+        }
+    }
+
 }
@@ -0,0 +1,106 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.errorhandling;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Logs cycle errors without letting the logging itself become the bottleneck when errors are
+ * frequent. Errors are grouped by their class. The first error of each class is logged with its
+ * stack trace. After that, at most one error of each class is logged per interval, as a single
+ * line, with the number of errors of the same class which were not logged since the last one.
+ * Errors which are not logged cost only a counter increment.</p>
+ *
+ * <p>Counts of errors which were not logged yet can be reported with {@link #flush()}, as when
+ * an activity is stopped.</p>
+ */
+public class RateLimitedErrorLogger {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final Map<Class<?>, ErrorClassLog> errorClasses = new ConcurrentHashMap<>();
+
+    /**
+     * @param logger         The logger to log errors to
+     * @param intervalMillis The least time between logged errors of the same class
+     */
+    public RateLimitedErrorLogger(Logger logger, long intervalMillis) {
+        this.logger = logger;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Log an error, unless another error of the same class was logged within the interval.
+     *
+     * @param cycle  The cycle in which the error occurred
+     * @param error  The error
+     * @param errMsg A message explaining the error
+     * @return true if the error was logged
+     */
+    public boolean log(long cycle, Throwable error, String errMsg) {
+        ErrorClassLog errorClassLog = errorClasses.get(error.getClass());
+        if (errorClassLog == null) {
+            errorClassLog = errorClasses.computeIfAbsent(error.getClass(), c -> new ErrorClassLog());
+        }
+        long now = System.nanoTime();
+        long nextLogAt = errorClassLog.nextLogAt.get();
+        if ((nextLogAt != 0L && now - nextLogAt < 0L)
+                || !errorClassLog.nextLogAt.compareAndSet(nextLogAt, now + intervalNanos)) {
+            errorClassLog.suppressed.increment();
+            return false;
+        }
+        if (nextLogAt == 0L) {
+            logger.error("in cycle " + cycle + ": " + errMsg, error);
+        } else {
+            long suppressed = errorClassLog.suppressed.sumThenReset();
+            logger.error("in cycle " + cycle + ": " + error.getClass().getSimpleName() + ": " + errMsg
+                    + (suppressed > 0L ? " (" + suppressed + " more like this since the last one)" : ""));
+        }
+        return true;
+    }
+
+    /**
+     * Log the number of errors of each class which were not logged since the last logged one.
+     */
+    public void flush() {
+        errorClasses.forEach((errorClass, errorClassLog) -> {
+            long suppressed = errorClassLog.suppressed.sumThenReset();
+            if (suppressed > 0L) {
+                logger.error(suppressed + " more errors of type " + errorClass.getSimpleName()
+                        + " since the last one logged");
+            }
+        });
+    }
+
+    /**
+     * @return the number of errors which were not logged yet, for all error classes
+     */
+    public long getSuppressed() {
+        return errorClasses.values().stream().mapToLong(e -> e.suppressed.sum()).sum();
+    }
+
+    private static class ErrorClassLog {
+        private final AtomicLong nextLogAt = new AtomicLong(0L);
+        private final LongAdder suppressed = new LongAdder();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.planning;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The common parts of the {@link OpSequence} forms which are made by {@link SequencePlanner}.
+ * Each form keeps its ops in a plain array, and maps a position within the sequence to the
+ * index of an op. Every form repeats after its period, which divides the sequence length.
+ *
+ * @param <T> The type of element which is sequenced
+ */
+public abstract class AbstractOpSequence<T> implements OpSequence<T> {
+
+    private final SequencerType type;
+    private final List<T> ops;
+    protected final T[] opArray;
+    protected final long length;
+
+    @SuppressWarnings("unchecked")
+    AbstractOpSequence(SequencerType type, List<T> ops, long length) {
+        this.type = type;
+        this.ops = ops;
+        this.opArray = (T[]) ops.toArray();
+        this.length = length;
+    }
+
+    /**
+     * @param position a position within the sequence, from 0 up to the length
+     * @return the index of the op at that position
+     */
+    abstract int indexAt(long position);
+
+    abstract <U> AbstractOpSequence<U> withOps(List<U> ops);
+
+    @Override
+    public List<T> getOps() {
+        return ops;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public int[] getSequence() {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("A sequence of length " + length + " is too long to expand into an array.");
+        }
+        int[] sequence = new int[(int) length];
+        for (int position = 0; position < sequence.length; position++) {
+            sequence[position] = indexAt(position);
+        }
+        return sequence;
+    }
+
+    public SequencerType getSequencerType() {
+        return type;
+    }
+
+    @Override
+    public <U> OpSequence<U> transform(Function<T, U> func) {
+        return withOps(ops.stream().map(func).collect(Collectors.toList()));
+    }
+
+    /**
+     * @param starts ascending start positions, the first of which is 0
+     * @param position a position, which is at least 0
+     * @return the index of the last start which is not after the position
+     */
+    static int floorIndex(long[] starts, long position) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{type=" + type + ", ops=" + ops.size() + ", length=" + length + "}";
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.planning;
+
+import java.util.List;
+
+/**
+ * An {@link OpSequence} which is fully expanded into an array of op indexes. This is the
+ * fastest form, and is used for any sequence which is not very long. When the number of
+ * indexes is a power of two, the position is found with a mask rather than a remainder.
+ *
+ * @param <T> The type of element which is sequenced
+ */
+abstract class ArrayOpSequence<T> extends AbstractOpSequence<T> {
+
+    protected final int[] seq;
+
+    private ArrayOpSequence(SequencerType type, List<T> ops, int[] seq, long length) {
+        super(type, ops, length);
+        this.seq = seq;
+    }
+
+    /**
+     * @param type   The sequencer type which made the indexes
+     * @param ops    The ops which are sequenced
+     * @param seq    The op indexes of one period of the sequence
+     * @param length The length of the whole sequence, which is a multiple of the period
+     * @param <T>    The type of element which is sequenced
+     * @return an ArrayOpSequence
+     */
+    static <T> ArrayOpSequence<T> of(SequencerType type, List<T> ops, int[] seq, long length) {
+        if (seq.length > 0 && (seq.length & (seq.length - 1)) == 0) {
+            return new Masked<>(type, ops, seq, length);
+        }
+        return new Modulo<>(type, ops, seq, length);
+    }
+
+    static <T> ArrayOpSequence<T> of(SequencerType type, List<T> ops, int[] seq) {
+        return of(type, ops, seq, seq.length);
+    }
+
+    @Override
+    int indexAt(long position) {
+        return seq[(int) (position % seq.length)];
+    }
+
+    @Override
+    <U> AbstractOpSequence<U> withOps(List<U> ops) {
+        return of(getSequencerType(), ops, seq, length);
+    }
+
+    private final static class Masked<T> extends ArrayOpSequence<T> {
+        private final long mask;
+
+        private Masked(SequencerType type, List<T> ops, int[] seq, long length) {
+            super(type, ops, seq, length);
+            this.mask = seq.length - 1;
+        }
+
+        @Override
+        public T get(long selector) {
+            return opArray[seq[(int) (selector & mask)]];
+        }
+    }
+
+    private final static class Modulo<T> extends ArrayOpSequence<T> {
+        private Modulo(SequencerType type, List<T> ops, int[] seq, long length) {
+            super(type, ops, seq, length);
+        }
+
+        @Override
+        public T get(long selector) {
+            return opArray[seq[(int) (selector % seq.length)]];
+        }
+    }
+}
@@ -17,11 +17,8 @@
 
 package io.engineblock.activityapi.planning;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.function.ToLongFunction;
-import java.util.stream.Collectors;
 
 /**
  * <h2>Introduction</h2>
@@ -57,64 +54,53 @@ import java.util.stream.Collectors;
  */
 public class BucketSequencer<T> implements ElementSequencer<T> {
 
-    private List<T> elems;
-    private ToLongFunction<T> ratioFunc;
-
     @Override
     public int[] seqIndexByRatioFunc(List<T> elems, ToLongFunction<T> ratioFunc) {
-
-        List<Long> ratios = new ArrayList<>();
-        for (int i = 0; i< elems.size(); i++) {
-            T elem = elems.get(i);
-            ratios.add(ratioFunc.applyAsLong(elem));
-        }
-        return seqIndexesByRatios(elems,ratios);
+        return sequence(elems.stream().mapToLong(ratioFunc).toArray());
     }
 
     @Override
     public int[] seqIndexesByRatios(List<T> elems, List<Long> ratios) {
-        List<OpBucket<T>> buckets = new ArrayList<>();
-        List<Integer> sequence = new ArrayList<>();
-
         if (elems.size()!=ratios.size()) {
             throw new RuntimeException("Elements and Ratios must be pair-wise.");
         }
+        return sequence(ratios.stream().mapToLong(Long::longValue).toArray());
+    }
 
-        for (int i = 0; i < elems.size(); i++) {
-            T elem = elems.get(i);
-            long ratio = ratios.get(i);
-            buckets.add(new OpBucket<>(elem,i,ratio));
-        }
-
-        while(!buckets.isEmpty()) {
-            buckets.forEach(b -> sequence.add(b.dispenseRank()));
-            buckets = buckets.stream().filter(b -> b.count>0).collect(Collectors.toCollection(LinkedList::new));
+    /**
+     * Every bucket gives at least one element, in the first round, even when its ratio is zero.
+     * @param ratios The ratio of each element
+     * @return the number of elements each bucket gives
+     */
+    static long[] counts(long[] ratios) {
+        long[] counts = new long[ratios.length];
+        for (int i = 0; i < ratios.length; i++) {
+            counts[i] = Math.max(1L, ratios[i]);
         }
-        return sequence.stream().mapToInt(i -> (int)i).toArray();
-
+        return counts;
     }
 
-    private final static class OpBucket<T> {
-
-        private final int rank;
-        private T elem;
-        private long count;
-
-        OpBucket(T elem, int rank, long ratio) {
-            this.elem = elem;
-            this.rank = rank;
-            this.count = ratio;
+    static int[] sequence(long[] ratios) {
+        long[] counts = counts(ratios);
+        long total = 0L;
+        long maxCount = 0L;
+        for (long count : counts) {
+            total = Math.addExact(total, count);
+            maxCount = Math.max(maxCount, count);
         }
-
-        public boolean isEmpty() {
-            return (count==0);
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("A bucket sequence of length " + total + " is too long to expand into an array.");
         }
-
-        int dispenseRank() {
-            count--;
-            return rank;
+        int[] sequence = new int[(int) total];
+        int position = 0;
+        for (long round = 0; round < maxCount; round++) {
+            for (int index = 0; index < counts.length; index++) {
+                if (counts[index] > round) {
+                    sequence[position++] = index;
+                }
+            }
         }
+        return sequence;
     }
 
-
 }
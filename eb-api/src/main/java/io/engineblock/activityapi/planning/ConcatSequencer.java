@@ -17,7 +17,6 @@
 
 package io.engineblock.activityapi.planning;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.function.ToLongFunction;
 
@@ -31,28 +30,29 @@ public class ConcatSequencer<T> implements ElementSequencer<T> {
 
     @Override
     public int[] seqIndexByRatioFunc(List<T> elems, ToLongFunction<T> ratioFunc) {
-
-        List<Integer> sequence = new ArrayList<>();
-
-        for (int elemIndex = 0; elemIndex < elems.size(); elemIndex++) {
-            long runLength = ratioFunc.applyAsLong(elems.get(elemIndex));
-            for (int i = 0; i < runLength; i++) {
-                sequence.add(i);
-            }
-        }
-        return sequence.stream().mapToInt(i -> (int)i).toArray();
+        return sequence(elems.stream().mapToLong(ratioFunc).toArray());
     }
 
     @Override
     public int[] seqIndexesByRatios(List<T> elems, List<Long> ratios) {
-        List<Integer> sequence = new ArrayList<>();
+        return sequence(ratios.stream().mapToLong(Long::longValue).toArray());
+    }
 
-        for (int elemIndex = 0; elemIndex < elems.size(); elemIndex++) {
-            long runLength = ratios.get(elemIndex);
-            for (int i = 0; i< runLength; i++) {
-                sequence.add(elemIndex);
+    static int[] sequence(long[] ratios) {
+        long total = 0L;
+        for (long ratio : ratios) {
+            total = Math.addExact(total, Math.max(0L, ratio));
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("A concat sequence of length " + total + " is too long to expand into an array.");
+        }
+        int[] sequence = new int[(int) total];
+        int position = 0;
+        for (int elemIndex = 0; elemIndex < ratios.length; elemIndex++) {
+            for (long i = 0; i < ratios[elemIndex]; i++) {
+                sequence[position++] = elemIndex;
             }
         }
-        return sequence.stream().mapToInt(i -> (int)i).toArray();
+        return sequence;
     }
 }
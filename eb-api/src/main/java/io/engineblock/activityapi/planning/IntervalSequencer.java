@@ -17,9 +17,8 @@
 
 package io.engineblock.activityapi.planning;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.function.IntConsumer;
 import java.util.function.ToLongFunction;
 
 /**
@@ -67,70 +66,127 @@ import java.util.function.ToLongFunction;
  */
 public class IntervalSequencer<T> implements ElementSequencer<T> {
 
-    private List<T> elems;
-    private ToLongFunction<T> ratioFunc;
-
     @Override
     public int[] seqIndexByRatioFunc(List<T> elements, ToLongFunction<T> ratioFunc) {
-
-        List<Long> ratios = new ArrayList<>();
-        for (int i = 0; i < elements.size(); i++) {
-            T elem = elements.get(i);
-            ratios.add(ratioFunc.applyAsLong(elem));
-        }
-        return seqIndexesByRatios(elements, ratios);
+        return sequence(elements.stream().mapToLong(ratioFunc).toArray());
     }
 
     @Override
     public int[] seqIndexesByRatios(List<T> elems, List<Long> ratios) {
-        List<IntervalSequencer.OpSlot<T>> ops = new ArrayList<>();
+        return sequence(ratios.stream().mapToLong(Long::longValue).toArray());
+    }
 
-        for (int i = 0; i < elems.size(); i++) {
-            T elem = elems.get(i);
-            long freq = ratios.get(i);
-            for (int p = 0; p < freq; p++) {
-                double pos = (double) p / (double) freq;
-                ops.add(new IntervalSequencer.OpSlot<>(elem, pos, i));
-            }
+    static int[] sequence(long[] ratios) {
+        long total = 0L;
+        for (long ratio : ratios) {
+            total = Math.addExact(total, Math.max(0L, ratio));
         }
-
-        ops.sort(new IntervalSequencer.OpComparator());
-
-        return ops.stream().mapToInt(IntervalSequencer.OpSlot::getElementRank).toArray();
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("An interval sequence of length " + total + " is too long to expand into an array.");
+        }
+        int[] sequence = new int[(int) total];
+        int[] position = new int[1];
+        sequence(ratios, index -> sequence[position[0]++] = index);
+        return sequence;
     }
 
-    private final static class OpSlot<T> {
-
-        private T elem;
-        private double position;
-        private int rank;
-
-        public OpSlot(T elem, double position, int rank) {
-            this.elem = elem;
-            this.position = position;
-            this.rank = rank;
+    /**
+     * Give the op index of each slot in order, without holding all the slots at once. The slots of
+     * each element are already in order, so they are merged with a heap of the next slot of each
+     * element, which is ordered by position and then by rank.
+     *
+     * @param ratios The ratio of each element
+     * @param sink   The consumer of the op indexes, in sequence order
+     */
+    static void sequence(long[] ratios, IntConsumer sink) {
+        long[] slots = new long[ratios.length];
+        int[] heap = new int[ratios.length];
+        int size = 0;
+        for (int rank = 0; rank < ratios.length; rank++) {
+            if (ratios[rank] > 0) {
+                heap[size++] = rank;
+                siftUp(heap, size - 1, slots, ratios);
+            }
         }
-
-        public T getElement() {
-            return elem;
+        while (size > 0) {
+            int rank = heap[0];
+            sink.accept(rank);
+            if (++slots[rank] == ratios[rank]) {
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, size, slots, ratios);
         }
+    }
 
-        public int getElementRank() {
-            return rank;
+    /**
+     * Reduce all ratios by their greatest common divisor. The sequence of the reduced ratios,
+     * repeated that many times, is the same as the sequence of the original ratios.
+     *
+     * @param ratios The ratio of each element
+     * @return the common divisor, or 1 if there is none
+     */
+    static long commonDivisor(long[] ratios) {
+        long divisor = 0L;
+        for (long ratio : ratios) {
+            if (ratio > 0) {
+                long a = divisor;
+                long b = ratio;
+                while (b != 0) {
+                    long t = a % b;
+                    a = b;
+                    b = t;
+                }
+                divisor = a;
+            }
         }
+        return Math.max(1L, divisor);
     }
 
+    private static boolean before(int rank1, int rank2, long[] slots, long[] ratios) {
+        int timeOrder = Double.compare(
+                (double) slots[rank1] / (double) ratios[rank1],
+                (double) slots[rank2] / (double) ratios[rank2]);
+        if (timeOrder != 0) {
+            return timeOrder < 0;
+        }
+        return rank1 < rank2;
+    }
 
-    private final static class OpComparator implements Comparator<OpSlot> {
+    private static void siftUp(int[] heap, int at, long[] slots, long[] ratios) {
+        while (at > 0) {
+            int parent = (at - 1) / 2;
+            if (!before(heap[at], heap[parent], slots, ratios)) {
+                return;
+            }
+            swap(heap, at, parent);
+            at = parent;
+        }
+    }
 
-        @Override
-        public int compare(OpSlot o1, OpSlot o2) {
-            int timeOrder = Double.compare(o1.position, o2.position);
-            if (timeOrder != 0) {
-                return timeOrder;
+    private static void siftDown(int[] heap, int size, long[] slots, long[] ratios) {
+        int at = 0;
+        while (true) {
+            int first = at;
+            int left = 2 * at + 1;
+            int right = left + 1;
+            if (left < size && before(heap[left], heap[first], slots, ratios)) {
+                first = left;
+            }
+            if (right < size && before(heap[right], heap[first], slots, ratios)) {
+                first = right;
             }
-            return Integer.compare(o1.rank, o2.rank);
+            if (first == at) {
+                return;
+            }
+            swap(heap, at, first);
+            at = first;
         }
     }
 
+    private static void swap(int[] heap, int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
 }
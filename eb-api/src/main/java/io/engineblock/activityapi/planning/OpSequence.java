@@ -29,8 +29,7 @@ public interface OpSequence<T> {
 
     /**
      * Get the next operation for the given long value. This is simply
-     * the offset indicated by the offset sequence array at a modulo
-     * position.
+     * the op at the position of the selector modulo the sequence length.
      *
      * @param selector the long value that determines the next op
      * @return An op of type T
@@ -45,10 +44,18 @@ public interface OpSequence<T> {
 
     /**
      * Get the integer sequence that is used to index into the operations.
+     * Long sequences are not kept in this form, so this may build a large array.
+     * Use {@link #getLength()} when only the length is needed.
      * @return an offset pointer array in int[] form
      */
     int[] getSequence();
 
+    /**
+     * Get the number of positions in the sequence before it repeats.
+     * @return the sequence length
+     */
+    long getLength();
+
     /**
      * Map this OpSequence to another type of OpSequence.
      * @param func The transformation function from this to another type
@@ -0,0 +1,88 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.planning;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An {@link OpSequence} for the bucket sequencer, which is kept as a table of rounds rather than
+ * being expanded. In each round, every bucket which is not yet empty gives one op, in order.
+ * The buckets drop out of the rotation as they are emptied, so the rounds fall into at most one
+ * segment for each distinct ratio, where each round in a segment has the same ops. The segment
+ * for a position is found by binary search, and the op within it by a remainder.
+ *
+ * @param <T> The type of element which is sequenced
+ */
+class RoundOpSequence<T> extends AbstractOpSequence<T> {
+
+    private final long[] starts;
+    private final int[][] rounds;
+
+    private RoundOpSequence(SequencerType type, List<T> ops, long[] starts, int[][] rounds, long length) {
+        super(type, ops, length);
+        this.starts = starts;
+        this.rounds = rounds;
+    }
+
+    /**
+     * @param type   The sequencer type
+     * @param ops    The ops which are sequenced
+     * @param counts The number of ops in each bucket, each at least one
+     * @param <T>    The type of element which is sequenced
+     * @return a RoundOpSequence
+     */
+    static <T> RoundOpSequence<T> forCounts(SequencerType type, List<T> ops, long[] counts) {
+        long[] levels = Arrays.stream(counts).distinct().sorted().toArray();
+        long[] starts = new long[levels.length];
+        int[][] rounds = new int[levels.length][];
+        long position = 0L;
+        long previousLevel = 0L;
+        for (int segment = 0; segment < levels.length; segment++) {
+            long level = levels[segment];
+            int[] round = new int[(int) Arrays.stream(counts).filter(c -> c >= level).count()];
+            for (int index = 0, slot = 0; index < counts.length; index++) {
+                if (counts[index] >= level) {
+                    round[slot++] = index;
+                }
+            }
+            starts[segment] = position;
+            rounds[segment] = round;
+            position = Math.addExact(position, Math.multiplyExact(level - previousLevel, (long) round.length));
+            previousLevel = level;
+        }
+        return new RoundOpSequence<>(type, ops, starts, rounds, position);
+    }
+
+    @Override
+    public T get(long selector) {
+        return opArray[indexAt(selector % length)];
+    }
+
+    @Override
+    int indexAt(long position) {
+        int segment = floorIndex(starts, position);
+        int[] round = rounds[segment];
+        return round[(int) ((position - starts[segment]) % round.length)];
+    }
+
+    @Override
+    <U> AbstractOpSequence<U> withOps(List<U> ops) {
+        return new RoundOpSequence<>(getSequencerType(), ops, starts, rounds, length);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.planning;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * An {@link OpSequence} which is kept as a table of runs, where each run is a number of the same op
+ * in a row. The run for a position is found by binary search over the run start positions. This is
+ * used for long sequences with few runs, such as concatenated ops, or interval plans with very
+ * uneven ratios like 1:999999.
+ *
+ * @param <T> The type of element which is sequenced
+ */
+class RunOpSequence<T> extends AbstractOpSequence<T> {
+
+    private final long[] starts;
+    private final int[] indexes;
+    private final long period;
+
+    private RunOpSequence(SequencerType type, List<T> ops, long[] starts, int[] indexes, long period, long length) {
+        super(type, ops, length);
+        this.starts = starts;
+        this.indexes = indexes;
+        this.period = period;
+    }
+
+    @Override
+    public T get(long selector) {
+        return opArray[indexes[floorIndex(starts, selector % period)]];
+    }
+
+    @Override
+    int indexAt(long position) {
+        return indexes[floorIndex(starts, position % period)];
+    }
+
+    @Override
+    <U> AbstractOpSequence<U> withOps(List<U> ops) {
+        return new RunOpSequence<>(getSequencerType(), ops, starts, indexes, period, length);
+    }
+
+    int getRunCount() {
+        return starts.length;
+    }
+
+    /**
+     * Collects a sequence of op indexes into runs, giving up if there are more than the given
+     * number of runs.
+     */
+    static class Builder implements IntConsumer {
+        private final int maxRuns;
+        private long[] starts = new long[16];
+        private int[] indexes = new int[16];
+        private int runs = 0;
+        private long position = 0L;
+        private boolean overflowed = false;
+
+        Builder(int maxRuns) {
+            this.maxRuns = maxRuns;
+        }
+
+        @Override
+        public void accept(int index) {
+            add(index, 1L);
+        }
+
+        void add(int index, long runLength) {
+            if (runLength <= 0L || overflowed) {
+                return;
+            }
+            if (runs == 0 || indexes[runs - 1] != index) {
+                if (runs == maxRuns) {
+                    overflowed = true;
+                    return;
+                }
+                if (runs == starts.length) {
+                    starts = Arrays.copyOf(starts, runs * 2);
+                    indexes = Arrays.copyOf(indexes, runs * 2);
+                }
+                starts[runs] = position;
+                indexes[runs] = index;
+                runs++;
+            }
+            position = Math.addExact(position, runLength);
+        }
+
+        /**
+         * @return a RunOpSequence, or null if there were too many runs
+         */
+        <T> RunOpSequence<T> build(SequencerType type, List<T> ops, long length) {
+            if (overflowed || runs == 0) {
+                return null;
+            }
+            return new RunOpSequence<>(type, ops,
+                    Arrays.copyOf(starts, runs), Arrays.copyOf(indexes, runs), position, length);
+        }
+    }
+}
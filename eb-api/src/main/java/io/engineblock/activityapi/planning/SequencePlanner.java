@@ -22,19 +22,37 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
 import java.util.function.ToLongFunction;
-import java.util.stream.Collectors;
 
+/**
+ * Plans the order of a set of ops according to their ratios, with one of the {@link SequencerType}s.
+ * Plans which are not very long are expanded into an array of op indexes. Longer plans, as from
+ * ratios like 1:999999, are kept in a compact form which is looked up by binary search over a small
+ * table, so that they do not cost much time or memory to build. Both forms give exactly the same
+ * order of ops.
+ *
+ * @param <T> The type of element which is sequenced
+ */
 public class SequencePlanner<T> {
     private final static Logger logger = LoggerFactory.getLogger(SequencePlanner.class);
+
+    /**
+     * The longest plan, or period of a plan, which is expanded into an array.
+     */
+    public final static int EXPANSION_LIMIT = 1 << 16;
+
     private SequencerType sequencerType;
+    private final int expansionLimit;
     private List<T> elements = new ArrayList<>();
     private List<Long> ratios = new ArrayList<>();
-    private int[] elementIndex;
 
     public SequencePlanner(SequencerType sequencerType) {
+        this(sequencerType, EXPANSION_LIMIT);
+    }
+
+    SequencePlanner(SequencerType sequencerType, int expansionLimit) {
         this.sequencerType = sequencerType;
+        this.expansionLimit = expansionLimit;
     }
 
     public void addOp(T elem, ToLongFunction<T> ratioFunc) {
@@ -48,60 +66,76 @@ public class SequencePlanner<T> {
     }
 
     public OpSequence<T> resolve() {
+        long[] ratios = this.ratios.stream().mapToLong(Long::longValue).toArray();
+        AbstractOpSequence<T> sequence;
         switch (sequencerType) {
             case bucket:
                 logger.trace("sequencing elements by simple round-robin");
-                this.elementIndex = new BucketSequencer<T>().seqIndexesByRatios(elements, ratios);
+                sequence = resolveBucket(ratios);
                 break;
             case interval:
                 logger.trace("sequencing elements by interval and position");
-                this.elementIndex = new IntervalSequencer<T>().seqIndexesByRatios(elements, ratios);
+                sequence = resolveInterval(ratios);
                 break;
             case concat:
                 logger.trace("sequencing elements by concatenation");
-                this.elementIndex = new ConcatSequencer<T>().seqIndexesByRatios(elements, ratios);
+                sequence = resolveConcat(ratios);
+                break;
+            default:
+                throw new RuntimeException("Unknown sequencer type: " + sequencerType);
         }
-        this.elements = elements;
-        return new Sequence<>(sequencerType, elements, elementIndex);
+        logger.debug("resolved sequence: " + sequence);
+        return sequence;
     }
 
-    public static class Sequence<T> implements OpSequence<T> {
-        private final SequencerType type;
-        private final List<T> elems;
-        private final int[] seq;
-
-        Sequence(SequencerType type, List<T> elems, int[] seq) {
-            this.type = type;
-            this.elems = elems;
-            this.seq = seq;
+    private AbstractOpSequence<T> resolveBucket(long[] ratios) {
+        long[] counts = BucketSequencer.counts(ratios);
+        if (sum(counts) <= expansionLimit) {
+            return ArrayOpSequence.of(sequencerType, elements, BucketSequencer.sequence(ratios));
         }
+        return RoundOpSequence.forCounts(sequencerType, elements, counts);
+    }
 
-        @Override
-        public T get(long selector) {
-            int index = (int) (selector % seq.length);
-            index = seq[index];
-            return elems.get(index);
+    private AbstractOpSequence<T> resolveConcat(long[] ratios) {
+        if (sum(ratios) <= expansionLimit) {
+            return ArrayOpSequence.of(sequencerType, elements, ConcatSequencer.sequence(ratios));
         }
-
-        @Override
-        public List<T> getOps() {
-            return elems;
+        RunOpSequence.Builder runs = new RunOpSequence.Builder(ratios.length);
+        for (int index = 0; index < ratios.length; index++) {
+            runs.add(index, ratios[index]);
         }
+        return runs.build(sequencerType, elements, sum(ratios));
+    }
 
-        @Override
-        public int[] getSequence() {
-            return seq;
+    /**
+     * Interval plans repeat with the ratios reduced by their common divisor, so only one period
+     * is planned. A long period is kept as runs if it has few of them, otherwise it is expanded.
+     */
+    private AbstractOpSequence<T> resolveInterval(long[] ratios) {
+        long length = sum(ratios);
+        long divisor = IntervalSequencer.commonDivisor(ratios);
+        long[] reduced = new long[ratios.length];
+        for (int index = 0; index < ratios.length; index++) {
+            reduced[index] = ratios[index] > 0 ? ratios[index] / divisor : 0L;
         }
-
-        public SequencerType getSequencerType() {
-            return type;
+        long period = sum(reduced);
+        if (period > expansionLimit) {
+            RunOpSequence.Builder runs = new RunOpSequence.Builder((int) Math.min(Integer.MAX_VALUE, period / 4));
+            IntervalSequencer.sequence(reduced, runs);
+            RunOpSequence<T> sequence = runs.build(sequencerType, elements, length);
+            if (sequence != null) {
+                return sequence;
+            }
         }
+        return ArrayOpSequence.of(sequencerType, elements, IntervalSequencer.sequence(reduced), length);
+    }
 
-        @Override
-        public <U> Sequence<U> transform(Function<T,U> func) {
-            return new Sequence<U>(type, elems.stream().map(func).collect(Collectors.toList()), seq);
+    private static long sum(long[] values) {
+        long sum = 0L;
+        for (long value : values) {
+            sum = Math.addExact(sum, Math.max(0L, value));
         }
-
+        return sum;
     }
 
 }
@@ -21,6 +21,7 @@ import com.codahale.metrics.Timer;
 import io.engineblock.activityapi.sysperf.SysPerf;
 import io.engineblock.activityapi.sysperf.SysPerfData;
 import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.activityimpl.CpuPlacement;
 import io.engineblock.metrics.ActivityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,7 @@ public class TokenFiller implements Runnable {
     private Thread thread;
     private volatile long lastRefillAt;
     private Timer timer;
+    private final CpuPlacement placement;
 
     /**
      * A token filler adds tokens to a {@link TokenPool} at some rate.
@@ -56,6 +58,8 @@ public class TokenFiller implements Runnable {
         this.tokenPool= new TokenPool(rateSpec);
         this.tokenPool.refill(rateSpec.getNanosPerOp());
         this.timer = ActivityMetrics.timer(def, "tokenfiller");
+        // only read the cpu topology when the activity is bound to cpus
+        this.placement = CpuPlacement.isRequested(def) ? CpuPlacement.forActivity(def) : null;
     }
 
     public TokenFiller apply(RateSpec rateSpec) {
@@ -74,6 +78,9 @@ public class TokenFiller implements Runnable {
 
     @Override
     public void run() {
+        if (placement != null) {
+            placement.bindCurrentThread();
+        }
         lastRefillAt = System.nanoTime();
         while (running) {
             long nextRefillTime = lastRefillAt + interval;
@@ -17,6 +17,7 @@
 
 package io.engineblock.activityapi.ratelimits;
 
+import io.engineblock.metrics.jfr.RateLimiterWaitEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -123,6 +124,7 @@ public class TokenPool {
      * @return the total number of tokens untaken, including wait tokens
      */
     public synchronized long blockAndTake() {
+        RateLimiterWaitEvent waitEvent = beginWaitEvent(nanosPerOp);
         while (activePool < nanosPerOp) {
             blocks++;
             //System.out.println(ANSI_BrightRed +  "waiting for " + amt + "/" + activePool + " of max " + maxActivePool + ANSI_Reset);
@@ -136,11 +138,14 @@ public class TokenPool {
         }
         //System.out.println(ANSI_BrightYellow + "taking " + amt + "/" + activePool + ANSI_Reset);
 
+        commitWaitEvent(waitEvent);
+
         activePool -= nanosPerOp;
         return waitingPool + activePool;
     }
 
     public synchronized long blockAndTake(long tokens) {
+        RateLimiterWaitEvent waitEvent = beginWaitEvent(tokens);
         while (activePool < tokens) {
             //System.out.println(ANSI_BrightRed +  "waiting for " + amt + "/" + activePool + " of max " + maxActivePool + ANSI_Reset);
             try {
@@ -153,10 +158,37 @@ public class TokenPool {
         }
         //System.out.println(ANSI_BrightYellow + "taking " + amt + "/" + activePool + ANSI_Reset);
 
+        commitWaitEvent(waitEvent);
+
         activePool -= tokens;
         return waitingPool + activePool;
     }
 
+    /**
+     * Begin a JFR wait event, only if the caller is about to block.
+     */
+    private RateLimiterWaitEvent beginWaitEvent(long tokens) {
+        if (activePool >= tokens) {
+            return null;
+        }
+        RateLimiterWaitEvent event = new RateLimiterWaitEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.rate = (rateSpec != null) ? rateSpec.getRate() : 0.0d;
+        event.tokensNeeded = tokens;
+        event.activePool = activePool;
+        event.waitingPool = waitingPool;
+        event.begin();
+        return event;
+    }
+
+    private void commitWaitEvent(RateLimiterWaitEvent event) {
+        if (event != null) {
+            event.commit();
+        }
+    }
+
     public long getWaitTime() {
         return activePool + waitingPool;
     }
@@ -0,0 +1,200 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.retries;
+
+import com.codahale.metrics.Counter;
+import io.engineblock.activityapi.core.Activity;
+import io.engineblock.activityapi.core.ops.fluent.opfacets.StartedOp;
+import io.engineblock.metrics.ActivityMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <p>Retries failed ops of an activity, as set by the retry parameter. See {@link RetrySpec}.</p>
+ *
+ * <p>Async actions call {@link #retry(StartedOp, Consumer)} when an op fails. If the op may be
+ * tried again, it is scheduled on the shared {@link TimerWheel}. After its backoff delay, the wheel
+ * only hands it to a small executor of this activity, where it is marked with {@link StartedOp#retry()}
+ * and handed back to the action to be resubmitted. Resubmitting may block, as with a synchronous
+ * write, without holding up the wheel or other activities. The op stays pending in the meantime,
+ * so it still counts against the async limit, but no motor thread waits for it. If it may not be
+ * tried again, the action fails the op as usual.</p>
+ *
+ * <p>An error which is thrown while resubmitting an op is passed to the activity controller, so it
+ * stops the activity just as an error in a motor thread would.</p>
+ *
+ * <p>Sync actions can use {@link #delayNanos(int)} to find how long to back off before a retry, or
+ * whether to retry at all.</p>
+ *
+ * <p>Retries are limited by the tries of the spec and by the activity {@link RetryBudget}. Retries
+ * which are denied by the budget are counted in the <em>retries_denied</em> counter.</p>
+ */
+public class OpRetries implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(OpRetries.class);
+
+    private final String alias;
+    private final TimerWheel timerWheel;
+    private final Counter deniedCounter;
+    private final ExecutorService resubmitter;
+    private final Consumer<Throwable> errorHandler;
+    private volatile RetrySpec spec;
+    private volatile RetryBudget budget;
+
+    public OpRetries(Activity activity, RetrySpec spec) {
+        this(activity.getAlias(), spec, TimerWheel.getInstance(),
+                ActivityMetrics.counter(activity.getActivityDef(), "retries_denied"),
+                Math.max(1, activity.getActivityDef().getThreads()),
+                error -> onResubmitError(activity, error));
+        activity.registerAutoCloseable(this);
+    }
+
+    // for testing
+    OpRetries(String alias, RetrySpec spec, TimerWheel timerWheel, Counter deniedCounter,
+              int resubmitThreads, Consumer<Throwable> errorHandler) {
+        this.alias = alias;
+        this.timerWheel = timerWheel;
+        this.deniedCounter = deniedCounter;
+        this.errorHandler = errorHandler;
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        ThreadPoolExecutor resubmitter = new ThreadPoolExecutor(
+                resubmitThreads, resubmitThreads, 10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "retries-" + alias + "-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        resubmitter.allowCoreThreadTimeOut(true);
+        this.resubmitter = resubmitter;
+        apply(spec);
+    }
+
+    private static void onResubmitError(Activity activity, Throwable error) {
+        if (activity.getActivityController() != null) {
+            activity.getActivityController().stopActivityWithErrorAsync(error);
+        } else {
+            logger.error("error while retrying an op of " + activity.getAlias() + ": " + error, error);
+        }
+    }
+
+    /**
+     * Apply a changed retry spec. The retry budget starts over.
+     * @param spec a {@link RetrySpec}
+     */
+    public void apply(RetrySpec spec) {
+        this.budget = new RetryBudget(spec.getBudget());
+        this.spec = spec;
+        logger.debug("retries of " + alias + " set to retry=" + spec);
+    }
+
+    /**
+     * Count the first try of an op toward the retry budget.
+     */
+    public void countTry() {
+        budget.deposit();
+    }
+
+    /**
+     * Schedule a failed op to be tried again, if it may be.
+     *
+     * @param op       The op which failed, and which has not been failed yet
+     * @param resubmit What to do with the op, once it is marked as retried
+     * @param <D>      The payload type of the op
+     * @return true if the op was scheduled, or false if the op should be failed
+     */
+    public <D> boolean retry(StartedOp<D> op, Consumer<StartedOp<D>> resubmit) {
+        long delayNanos = delayNanos(op.getTries());
+        if (delayNanos < 0L) {
+            return false;
+        }
+        timerWheel.schedule(delayNanos, () -> handOff(op, resubmit));
+        return true;
+    }
+
+    /**
+     * Called on the wheel thread, so this must not block.
+     */
+    private <D> void handOff(StartedOp<D> op, Consumer<StartedOp<D>> resubmit) {
+        try {
+            resubmitter.execute(() -> {
+                try {
+                    resubmit.accept(op.retry());
+                } catch (Throwable t) {
+                    errorHandler.accept(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("failing an op of " + alias + " which was due for a retry after retries were closed");
+            op.fail(-1);
+        }
+    }
+
+    /**
+     * Find the delay before the next try of an op. When this returns a delay, the retry is taken
+     * from the retry budget.
+     *
+     * @param tries The number of times the op has been tried so far
+     * @return the delay in nanoseconds, or -1 if the op should not be tried again
+     */
+    public long delayNanos(int tries) {
+        RetrySpec spec = this.spec;
+        if (tries >= spec.getMaxTries()) {
+            return -1L;
+        }
+        if (!budget.withdraw()) {
+            deniedCounter.inc();
+            return -1L;
+        }
+        int doublings = Math.max(0, tries - 1);
+        long nominal = (doublings >= Long.numberOfLeadingZeros(spec.getBaseNanos()) - 1)
+                ? spec.getMaxNanos()
+                : Math.min(spec.getMaxNanos(), spec.getBaseNanos() << doublings);
+        long half = nominal / 2L;
+        return half + (half > 0L ? ThreadLocalRandom.current().nextLong(nominal - half + 1L) : nominal - half);
+    }
+
+    /**
+     * Stop resubmitting ops. Ops which are already due are still resubmitted, and ops which come
+     * due later are failed.
+     */
+    @Override
+    public void close() {
+        resubmitter.shutdown();
+    }
+
+    public RetrySpec getSpec() {
+        return spec;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public String toString() {
+        return "OpRetries{" + alias + " retry=" + spec + "}";
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.retries;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Limits retries to a share of all tries, so that when a target fails, the retries do not add
+ * to its load without bound. Each first try adds the budget ratio to a balance, and each retry takes
+ * one from it. A retry is only allowed when the balance has at least one.</p>
+ *
+ * <p>The balance starts with {@link #MIN_RETRIES}, so that an activity which has only just started
+ * can still retry, and it can hold at most {@link #MAX_RETRIES}, so that a long run of successes does
+ * not allow a long burst of retries later. The balance is kept in thousandths of a retry.</p>
+ */
+public class RetryBudget {
+
+    public final static long MIN_RETRIES = 10L;
+    public final static long MAX_RETRIES = 1000L;
+
+    private final static long UNIT = 1000L;
+
+    private final long deposit;
+    private final boolean unlimited;
+    private final AtomicLong balance = new AtomicLong(MIN_RETRIES * UNIT);
+
+    /**
+     * @param ratio the most retries as a fraction of all tries, or infinity for no limit
+     */
+    public RetryBudget(double ratio) {
+        this.unlimited = Double.isInfinite(ratio);
+        this.deposit = unlimited ? 0L : Math.round(ratio * UNIT);
+    }
+
+    /**
+     * Add to the balance for a first try.
+     */
+    public void deposit() {
+        if (unlimited || deposit == 0L) {
+            return;
+        }
+        long current = balance.get();
+        if (current < MAX_RETRIES * UNIT) {
+            balance.accumulateAndGet(deposit, (b, d) -> Math.min(MAX_RETRIES * UNIT, b + d));
+        }
+    }
+
+    /**
+     * Take one retry from the balance, if it has one.
+     * @return true if the retry is allowed
+     */
+    public boolean withdraw() {
+        if (unlimited) {
+            return true;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+
+    /**
+     * @return the number of retries which are allowed now
+     */
+    public long getRetries() {
+        return unlimited ? Long.MAX_VALUE : balance.get() / UNIT;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.retries;
+
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.util.Unit;
+
+import java.util.Optional;
+
+/**
+ * <H2>Retry Specifications</H2>
+ *
+ * <P>A retry spec is the parsed form of the <em>retry</em> activity parameter, which sets how failed
+ * operations are tried again by actions which support {@link OpRetries}. It is the most times an
+ * operation may be tried in all, including the first try, optionally followed by any of these options,
+ * separated by commas:</P>
+ *
+ * <UL>
+ * <LI>base=&lt;duration&gt; - the delay before the first retry, which doubles for each retry after it,
+ * default 10ms</LI>
+ * <LI>max=&lt;duration&gt; - the longest delay before any retry, default 1s</LI>
+ * <LI>budget=&lt;percent&gt; - the most retries, as a share of all tries, so that a failing target
+ * is not flooded with retries, default 20%. Use budget=none for no limit.</LI>
+ * </UL>
+ *
+ * <P>Each delay is jittered, somewhere between half of the nominal delay and all of it.</P>
+ *
+ * For example:
+ * <UL>
+ * <LI>retry=3 - try each op up to 3 times, with the default delays</LI>
+ * <LI>retry='5:base=50ms,max=2s,budget=10%'</LI>
+ * </UL>
+ */
+public class RetrySpec {
+
+    public final static long DEFAULT_BASE_NANOS = 10_000_000L;
+    public final static long DEFAULT_MAX_NANOS = 1_000_000_000L;
+    public final static double DEFAULT_BUDGET = 0.2D;
+
+    private final String spec;
+    private final int maxTries;
+    private final long baseNanos;
+    private final long maxNanos;
+    private final double budget;
+
+    public RetrySpec(String spec) {
+        this.spec = spec.trim();
+        String[] triesAndOptions = this.spec.split(":", 2);
+        if (!triesAndOptions[0].trim().matches("\\d+")) {
+            throw new RuntimeException("Unable to parse retry spec '" + spec + "', it must start with the most tries, as in 3 or 3:base=10ms");
+        }
+        int tries = Integer.parseInt(triesAndOptions[0].trim());
+        long base = DEFAULT_BASE_NANOS;
+        long max = DEFAULT_MAX_NANOS;
+        double budget = DEFAULT_BUDGET;
+        String[] parts = triesAndOptions.length > 1 ? triesAndOptions[1].split(",") : new String[0];
+        for (String part : parts) {
+            part = part.trim();
+            if (part.startsWith("base=")) {
+                String duration = part.substring("base=".length());
+                base = Unit.nanosecondsFor(duration).orElseThrow(
+                        () -> new RuntimeException("Unable to parse base '" + duration + "' in retry spec '" + spec + "'"));
+            } else if (part.startsWith("max=")) {
+                String duration = part.substring("max=".length());
+                max = Unit.nanosecondsFor(duration).orElseThrow(
+                        () -> new RuntimeException("Unable to parse max '" + duration + "' in retry spec '" + spec + "'"));
+            } else if (part.startsWith("budget=")) {
+                String value = part.substring("budget=".length());
+                if (value.equals("none")) {
+                    budget = Double.POSITIVE_INFINITY;
+                } else {
+                    budget = value.endsWith("%")
+                            ? Double.parseDouble(value.substring(0, value.length() - 1)) / 100.0D
+                            : Double.parseDouble(value);
+                }
+            } else {
+                throw new RuntimeException("Unknown option '" + part + "' in retry spec '" + spec + "'");
+            }
+        }
+        if (tries < 1 || base < 0L || max < base || budget < 0.0D) {
+            throw new RuntimeException("The retry spec '" + spec + "' must satisfy tries >= 1, 0 <= base <= max and budget >= 0");
+        }
+        this.maxTries = tries;
+        this.baseNanos = base;
+        this.maxNanos = max;
+        this.budget = budget;
+    }
+
+    /**
+     * @param activityDef an {@link ActivityDef}
+     * @return the retry spec of the activity, if the retry parameter was given
+     */
+    public static Optional<RetrySpec> forActivity(ActivityDef activityDef) {
+        return activityDef.getParams().getOptionalString("retry").map(RetrySpec::new);
+    }
+
+    /**
+     * @return the most tries of an op, including the first one
+     */
+    public int getMaxTries() {
+        return maxTries;
+    }
+
+    public long getBaseNanos() {
+        return baseNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return the most retries as a fraction of all tries, like 0.2, or infinity for no limit
+     */
+    public double getBudget() {
+        return budget;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return spec.equals(((RetrySpec) o).spec);
+    }
+
+    @Override
+    public int hashCode() {
+        return spec.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
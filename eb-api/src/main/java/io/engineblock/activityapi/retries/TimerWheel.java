@@ -0,0 +1,156 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.retries;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Runs tasks after a delay, without a thread or a scheduled future for each task. Tasks are kept
+ * in a ring of buckets, one for each tick of the wheel. A single daemon thread advances the wheel
+ * once per tick, and runs the tasks in the bucket of that tick which are due. A task with a delay
+ * longer than one turn of the wheel waits for as many turns as it needs.</p>
+ *
+ * <p>Scheduling a task only adds it to a concurrent queue, which the wheel thread drains on each tick,
+ * so callers are never blocked. Tasks are run on the wheel thread, at most one tick late, so they
+ * should only hand work off, as when an op is resubmitted to an async driver.</p>
+ *
+ * <p>One wheel with 1ms ticks is shared by all activities, through {@link #getInstance()}.</p>
+ */
+public class TimerWheel {
+    private final static Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+
+    public final static long DEFAULT_TICK_NANOS = 1_000_000L;
+    public final static int DEFAULT_BUCKETS = 512;
+
+    private static TimerWheel instance;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Timeout>[] buckets;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final long startedAtNanos;
+    private long tick;
+    private volatile Thread thread;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickNanos, int buckets) {
+        if (tickNanos <= 0L || Integer.bitCount(buckets) != 1) {
+            throw new RuntimeException("A timer wheel must have a tick > 0 and a number of buckets which is a power of 2");
+        }
+        this.tickNanos = tickNanos;
+        this.mask = buckets - 1;
+        this.buckets = new Queue[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new ArrayDeque<>();
+        }
+        this.startedAtNanos = System.nanoTime();
+    }
+
+    public synchronized static TimerWheel getInstance() {
+        if (instance == null) {
+            instance = new TimerWheel(DEFAULT_TICK_NANOS, DEFAULT_BUCKETS);
+        }
+        return instance;
+    }
+
+    /**
+     * Run a task after a delay.
+     * @param delayNanos The least time before the task is run
+     * @param task       The task to run
+     */
+    public void schedule(long delayNanos, Runnable task) {
+        scheduled.add(new Timeout(System.nanoTime() + Math.max(0L, delayNanos), task));
+        if (thread == null) {
+            start();
+        }
+    }
+
+    private synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this::run, "timerwheel");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long tickAtNanos = startedAtNanos + (tick + 1) * tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = tickAtNanos - System.nanoTime()) > 0L) {
+                LockSupport.parkNanos(sleepNanos);
+            }
+            addScheduled();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void addScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            long dueTick = Math.max(tick, (timeout.deadlineNanos - startedAtNanos + tickNanos - 1) / tickNanos - 1);
+            timeout.rounds = (dueTick - tick) / buckets.length;
+            buckets[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        for (int remaining = bucket.size(); remaining > 0; remaining--) {
+            Timeout timeout = bucket.poll();
+            if (timeout.rounds > 0L) {
+                timeout.rounds--;
+                bucket.add(timeout);
+                continue;
+            }
+            try {
+                timeout.task.run();
+            } catch (Exception e) {
+                logger.error("error in timer wheel task " + timeout.task + ": " + e, e);
+            }
+        }
+    }
+
+    /**
+     * @return about how many tasks have not been run yet, as this is read while the wheel is turning
+     */
+    public int getPending() {
+        int pending = scheduled.size();
+        for (Queue<Timeout> bucket : buckets) {
+            pending += bucket.size();
+        }
+        return pending;
+    }
+
+    private static class Timeout {
+        private final long deadlineNanos;
+        private final Runnable task;
+        private long rounds;
+
+        private Timeout(long deadlineNanos, Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+    }
+}
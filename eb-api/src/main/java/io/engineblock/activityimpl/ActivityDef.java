@@ -57,6 +57,7 @@ public class ActivityDef {
     };
     // parameter map has its own internal atomic map
     private ParameterMap parameterMap;
+    private volatile String metricsScope = "";
 
     public ActivityDef(ParameterMap parameterMap) {
         this.parameterMap = parameterMap;
@@ -182,6 +183,23 @@ public class ActivityDef {
         return parameterMap;
     }
 
+    /**
+     * @return the namespace for the metrics of this activity, or an empty string for the shared namespace
+     */
+    public String getMetricsScope() {
+        return metricsScope;
+    }
+
+    /**
+     * Put the metrics of this activity into their own registry, so that activities with the same alias
+     * in concurrent scenarios do not share metrics. This must be set before the activity is created.
+     *
+     * @param metricsScope the namespace for the metrics of this activity
+     */
+    public void setMetricsScope(String metricsScope) {
+        this.metricsScope = metricsScope;
+    }
+
     public AtomicLong getChangeCounter() {
         return parameterMap.getChangeCounter();
     }
@@ -0,0 +1,132 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityimpl;
+
+import io.engineblock.util.Unit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * <p>One share of the work of an activity, when the activity is run by several worker processes
+ * at once. Each worker is given its own partition, in <em>index/count</em> form, with indexes
+ * starting at 0.</p>
+ *
+ * <p>A partition narrows the cycle range of each activity to a contiguous share of it, and divides
+ * the cycle rate and stride rate by the number of workers. Together, the workers cover the original
+ * cycle range exactly once, at the original total rate. If a stride is given, the shares are aligned
+ * to it, so that no stride is split between workers.</p>
+ */
+public class ActivityPartition {
+    private final static Logger logger = LoggerFactory.getLogger(ActivityPartition.class);
+
+    private final static String[] RATE_PARAMS = {"cyclerate", "targetrate", "striderate"};
+
+    private final int index;
+    private final int count;
+
+    public ActivityPartition(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new RuntimeException("A partition must have 0 <= index < count, not " + index + "/" + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param spec A partition in <em>index/count</em> form, like 0/4
+     * @return an ActivityPartition
+     */
+    public static ActivityPartition parse(String spec) {
+        String[] parts = spec.trim().split("/");
+        if (parts.length != 2) {
+            throw new RuntimeException("Unable to parse partition '" + spec + "', it must be like index/count, as in 0/4");
+        }
+        return new ActivityPartition(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    }
+
+    /**
+     * Narrow an activity definition to this partition.
+     * @param activityDef an {@link ActivityDef}, which is modified
+     */
+    public void apply(ActivityDef activityDef) {
+        ParameterMap params = activityDef.getParams();
+        if (params.getOptionalString("cycles").isPresent()) {
+            long stride = params.getOptionalLong("stride").orElse(1L);
+            long[] range = rangeFor(activityDef.getStartCycle(), activityDef.getEndCycle(), stride, index, count);
+            activityDef.setCycles(range[0] + ".." + range[1]);
+        } else {
+            logger.warn("activity " + activityDef.getAlias() + " has no cycles parameter, so each worker will run all of its cycles");
+        }
+        for (String rateParam : RATE_PARAMS) {
+            Optional<String> rate = params.getOptionalString(rateParam);
+            rate.ifPresent(spec -> params.set(rateParam, divideRate(spec, count)));
+        }
+        logger.info("partition " + this + " of activity " + activityDef.getAlias() + ": " + activityDef.getCycleSummary());
+    }
+
+    /**
+     * Find the share of a cycle range for a partition. Shares differ in size by at most one stride.
+     *
+     * @param start The first cycle of the whole range
+     * @param end   The end of the whole range, exclusive
+     * @param stride The stride, which each share is a multiple of, except for the last
+     * @param index The partition index
+     * @param count The number of partitions
+     * @return the start and the end of the share
+     */
+    static long[] rangeFor(long start, long end, long stride, int index, int count) {
+        stride = Math.max(1L, stride);
+        long strides = (end - start) / stride;
+        long base = strides / count;
+        long extra = strides % count;
+        long shareStart = start + stride * (index * base + Math.min(index, extra));
+        long shareEnd = start + stride * ((index + 1) * base + Math.min(index + 1, extra));
+        if (index == count - 1) {
+            shareEnd = end;
+        }
+        return new long[]{shareStart, shareEnd};
+    }
+
+    /**
+     * Divide the rate of a rate spec, like <em>5000,1.1,restart</em>, leaving the other fields as they are.
+     */
+    static String divideRate(String spec, int count) {
+        int fieldEnd = spec.contains(",") ? spec.indexOf(",") : spec.length();
+        String rateField = spec.substring(0, fieldEnd);
+        double rate = Unit.doubleCountFor(rateField).orElseThrow(
+                () -> new RuntimeException("Unable to parse rate '" + rateField + "' in '" + spec + "'"));
+        return String.format(Locale.ROOT, "%.3f", rate / count) + spec.substring(fieldEnd);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityimpl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds threads to sets of CPUs. The JVM has no API for this, so it is done for the
+ * current thread by finding its native thread id in <em>/proc/thread-self</em> and
+ * then calling <em>taskset</em>. This only works on Linux with util-linux installed.
+ */
+public class CpuAffinity {
+    private final static Logger logger = LoggerFactory.getLogger(CpuAffinity.class);
+
+    private final static Path THREAD_SELF = Paths.get("/proc/thread-self");
+    private static Boolean supported;
+
+    /**
+     * @return true if threads can be pinned on this system
+     */
+    public static synchronized boolean isSupported() {
+        if (supported == null) {
+            supported = Files.isSymbolicLink(THREAD_SELF) && findTaskset() != null;
+            if (!supported) {
+                logger.info("CPU affinity is not supported here, since /proc/thread-self or taskset is not available");
+            }
+        }
+        return supported;
+    }
+
+    /**
+     * Bind the calling thread to the given CPUs.
+     *
+     * @param cpuList A cpu list in the format taskset accepts, like <em>0,4</em> or <em>0-3</em>
+     * @return true if the thread was bound
+     */
+    public static boolean pinCurrentThread(String cpuList) {
+        if (!isSupported()) {
+            return false;
+        }
+        try {
+            String tid = Files.readSymbolicLink(THREAD_SELF).getFileName().toString();
+            Process taskset = new ProcessBuilder(findTaskset(), "-p", "-c", cpuList, tid)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!taskset.waitFor(10, TimeUnit.SECONDS)) {
+                taskset.destroy();
+                logger.warn("Timed out while binding thread " + Thread.currentThread().getName() + " to cpus " + cpuList);
+                return false;
+            }
+            if (taskset.exitValue() != 0) {
+                logger.warn("Unable to bind thread " + Thread.currentThread().getName() + " to cpus " + cpuList
+                        + ", taskset exited with " + taskset.exitValue());
+                return false;
+            }
+            logger.debug("bound thread " + Thread.currentThread().getName() + " (tid " + tid + ") to cpus " + cpuList);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.warn("Unable to bind thread " + Thread.currentThread().getName() + " to cpus " + cpuList + ": " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Parse a cpu list in the kernel format, like <em>0-3,8,10-11</em>.
+     *
+     * @param cpuList The cpu list
+     * @return a sorted set of cpu numbers
+     */
+    public static SortedSet<Integer> parseCpuList(String cpuList) {
+        SortedSet<Integer> cpus = new TreeSet<>();
+        for (String range : cpuList.trim().split(",")) {
+            range = range.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            try {
+                String[] bounds = range.split("-");
+                if (bounds.length == 1) {
+                    cpus.add(Integer.valueOf(bounds[0].trim()));
+                } else if (bounds.length == 2) {
+                    int from = Integer.parseInt(bounds[0].trim());
+                    int to = Integer.parseInt(bounds[1].trim());
+                    if (from > to) {
+                        throw new RuntimeException("Invalid cpu range '" + range + "' in cpu list '" + cpuList + "'");
+                    }
+                    for (int cpu = from; cpu <= to; cpu++) {
+                        cpus.add(cpu);
+                    }
+                } else {
+                    throw new RuntimeException("Invalid cpu range '" + range + "' in cpu list '" + cpuList + "'");
+                }
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid cpu range '" + range + "' in cpu list '" + cpuList + "'", e);
+            }
+        }
+        return cpus;
+    }
+
+    /**
+     * Format cpu numbers as a cpu list in the kernel format, folding consecutive cpus into ranges.
+     *
+     * @param cpus A set of cpu numbers
+     * @return a cpu list, like <em>0-3,8</em>
+     */
+    public static String formatCpuList(Collection<Integer> cpus) {
+        StringBuilder sb = new StringBuilder();
+        Iterator<Integer> iter = new TreeSet<>(cpus).iterator();
+        if (!iter.hasNext()) {
+            return "";
+        }
+        int start = iter.next();
+        int end = start;
+        while (iter.hasNext()) {
+            int cpu = iter.next();
+            if (cpu == end + 1) {
+                end = cpu;
+                continue;
+            }
+            appendRange(sb, start, end);
+            start = end = cpu;
+        }
+        appendRange(sb, start, end);
+        return sb.toString();
+    }
+
+    private static void appendRange(StringBuilder sb, int start, int end) {
+        if (sb.length() > 0) {
+            sb.append(",");
+        }
+        sb.append(start);
+        if (end > start) {
+            sb.append("-").append(end);
+        }
+    }
+
+    private static String findTaskset() {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            path = "/usr/bin:/bin";
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            Path candidate = Paths.get(dir, "taskset");
+            if (Files.isExecutable(candidate)) {
+                return candidate.toString();
+            }
+        }
+        return null;
+    }
+}
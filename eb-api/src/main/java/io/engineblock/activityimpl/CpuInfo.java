@@ -78,6 +78,55 @@ public class CpuInfo {
                     .count();
         }
 
+        /**
+         * Get the logical CPUs of each physical core, so that hardware threads which share
+         * a core can be kept together.
+         *
+         * @return a cpu list for each physical core, like <em>0,8</em>, in order of the first cpu
+         */
+        public List<String> getCoreCpuLists() {
+            Map<String, List<String>> cpusByCore = new LinkedHashMap<>();
+            for (Map<String, String> cpu : details) {
+                String processor = cpu.get("processor");
+                if (processor == null) {
+                    continue;
+                }
+                String coreKey = cpu.getOrDefault("physical id", "0") + ":" + cpu.getOrDefault("core id", processor);
+                cpusByCore.computeIfAbsent(coreKey, k -> new ArrayList<>()).add(processor);
+            }
+            List<String> cpuLists = new ArrayList<>();
+            for (List<String> cpus : cpusByCore.values()) {
+                cpuLists.add(String.join(",", cpus));
+            }
+            return cpuLists;
+        }
+
+        /**
+         * Get the logical CPUs of a NUMA node. This is read from sysfs when possible. Otherwise
+         * each socket is taken to be one node.
+         *
+         * @param node The NUMA node number
+         * @return a sorted set of cpu numbers, empty if the node is not known
+         */
+        public SortedSet<Integer> getNodeCpus(int node) {
+            Path nodeCpuList = Path.of("/sys/devices/system/node/node" + node + "/cpulist");
+            if (Files.exists(nodeCpuList)) {
+                try {
+                    return CpuAffinity.parseCpuList(Files.readString(nodeCpuList, StandardCharsets.UTF_8));
+                } catch (Exception e) {
+                    logger.warn("Unable to read " + nodeCpuList + ": " + e.getMessage());
+                }
+            }
+            SortedSet<Integer> cpus = new TreeSet<>();
+            for (Map<String, String> cpu : details) {
+                String processor = cpu.get("processor");
+                if (processor != null && String.valueOf(node).equals(cpu.getOrDefault("physical id", "0"))) {
+                    cpus.add(Integer.valueOf(processor));
+                }
+            }
+            return cpus;
+        }
+
         public String getModelName() {
             return details.stream()
                     .map(m -> m.get("model name")).findFirst().orElseThrow();
@@ -0,0 +1,220 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityimpl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The set of CPUs which the threads of an activity may run on, as given by the <em>cpus</em>
+ * and <em>numa</em> activity parameters. When both are given, the activity runs on the CPUs
+ * which are in both. When neither is given, the placement is unrestricted, and threads are left
+ * to the OS scheduler.
+ *
+ * <p>Motor threads may be bound to the whole set, or each to one physical core of it. Helper
+ * threads, like token fillers, are bound to the whole set, so that they stay on the same
+ * socket as the motors they serve.</p>
+ */
+public class CpuPlacement {
+    private final static Logger logger = LoggerFactory.getLogger(CpuPlacement.class);
+
+    private final String alias;
+    private final SortedSet<Integer> cpus;
+    private final List<String> coreCpuLists;
+
+    private CpuPlacement(String alias, SortedSet<Integer> cpus, List<String> coreCpuLists) {
+        this.alias = alias;
+        this.cpus = cpus;
+        this.coreCpuLists = coreCpuLists;
+    }
+
+    /**
+     * @param activityDef The activity to check
+     * @return true if the activity has a <em>cpus</em> or <em>numa</em> parameter
+     */
+    public static boolean isRequested(ActivityDef activityDef) {
+        ParameterMap params = activityDef.getParams();
+        return params.getOptionalString("cpus").isPresent() || params.getOptionalString("numa").isPresent();
+    }
+
+    public static CpuPlacement forActivity(ActivityDef activityDef) {
+        ParameterMap params = activityDef.getParams();
+        Optional<String> cpusParam = params.getOptionalString("cpus");
+        Optional<String> numaParam = params.getOptionalString("numa");
+        Optional<CpuInfo.ProcDetails> procDetails = CpuInfo.getProcDetails();
+
+        SortedSet<Integer> cpus = null;
+        if (cpusParam.isPresent()) {
+            cpus = CpuAffinity.parseCpuList(cpusParam.get());
+        }
+        if (numaParam.isPresent()) {
+            CpuInfo.ProcDetails details = procDetails.orElseThrow(
+                    () -> new RuntimeException("Unable to read cpu topology for numa=" + numaParam.get()));
+            SortedSet<Integer> nodeCpus = new TreeSet<>();
+            for (Integer node : CpuAffinity.parseCpuList(numaParam.get())) {
+                SortedSet<Integer> cpusOfNode = details.getNodeCpus(node);
+                if (cpusOfNode.isEmpty()) {
+                    throw new RuntimeException("numa node " + node + " was not found for activity " + activityDef.getAlias());
+                }
+                nodeCpus.addAll(cpusOfNode);
+            }
+            if (cpus == null) {
+                cpus = nodeCpus;
+            } else {
+                cpus.retainAll(nodeCpus);
+            }
+        }
+        if (cpus == null) {
+            return new CpuPlacement(activityDef.getAlias(), null, procDetails
+                    .map(CpuInfo.ProcDetails::getCoreCpuLists).orElse(List.of()));
+        }
+        if (cpus.isEmpty()) {
+            throw new RuntimeException("No cpus are left for activity " + activityDef.getAlias() + " with "
+                    + cpusParam.map(c -> "cpus=" + c + " ").orElse("")
+                    + numaParam.map(n -> "numa=" + n).orElse(""));
+        }
+
+        List<String> coreCpuLists = new ArrayList<>();
+        if (procDetails.isPresent()) {
+            for (String coreCpuList : procDetails.get().getCoreCpuLists()) {
+                SortedSet<Integer> coreCpus = CpuAffinity.parseCpuList(coreCpuList);
+                coreCpus.retainAll(cpus);
+                if (!coreCpus.isEmpty()) {
+                    coreCpuLists.add(CpuAffinity.formatCpuList(coreCpus));
+                }
+            }
+        } else {
+            cpus.forEach(cpu -> coreCpuLists.add(String.valueOf(cpu)));
+        }
+        return new CpuPlacement(activityDef.getAlias(), cpus, coreCpuLists);
+    }
+
+    /**
+     * Divide the CPUs of this system into contiguous partitions of whole cores, for workloads which
+     * should not compete for CPUs. When there are fewer cores than partitions, partitions share cores.
+     *
+     * @param partitions the number of partitions
+     * @return a cpu list for each partition
+     */
+    public static List<String> partition(int partitions) {
+        List<String> cores = CpuInfo.getProcDetails().map(CpuInfo.ProcDetails::getCoreCpuLists).orElse(List.of());
+        if (cores.isEmpty()) {
+            List<String> cpus = new ArrayList<>();
+            for (int cpu = 0; cpu < Runtime.getRuntime().availableProcessors(); cpu++) {
+                cpus.add(String.valueOf(cpu));
+            }
+            cores = cpus;
+        }
+        List<String> partitionCpuLists = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            SortedSet<Integer> cpus = new TreeSet<>();
+            int from = (partition * cores.size()) / partitions;
+            int to = Math.max(from + 1, ((partition + 1) * cores.size()) / partitions);
+            for (int core = from; core < to; core++) {
+                cpus.addAll(CpuAffinity.parseCpuList(cores.get(core % cores.size())));
+            }
+            partitionCpuLists.add(CpuAffinity.formatCpuList(cpus));
+        }
+        return partitionCpuLists;
+    }
+
+    /**
+     * @return true if the activity was limited to a set of CPUs
+     */
+    public boolean isRestricted() {
+        return cpus != null;
+    }
+
+    /**
+     * @return the cpu list of this placement, or null if it is not restricted
+     */
+    public String getCpuList() {
+        return cpus == null ? null : CpuAffinity.formatCpuList(cpus);
+    }
+
+    /**
+     * @return a cpu list for each physical core which is usable by this placement
+     */
+    public List<String> getCoreCpuLists() {
+        return coreCpuLists;
+    }
+
+    /**
+     * Bind the calling thread to all CPUs of this placement. This does nothing when
+     * the placement is not restricted.
+     */
+    public void bindCurrentThread() {
+        if (isRestricted()) {
+            CpuAffinity.pinCurrentThread(getCpuList());
+        }
+    }
+
+    /**
+     * Wrap a thread factory so that each new thread binds itself to all CPUs of this placement
+     * before running its task. The factory is returned as is when the placement is not restricted.
+     *
+     * @param threadFactory The thread factory to wrap
+     * @return a thread factory
+     */
+    public ThreadFactory bindAll(ThreadFactory threadFactory) {
+        if (!isRestricted()) {
+            return threadFactory;
+        }
+        String cpuList = getCpuList();
+        return r -> threadFactory.newThread(() -> {
+            CpuAffinity.pinCurrentThread(cpuList);
+            r.run();
+        });
+    }
+
+    /**
+     * Wrap a thread factory so that each new thread binds itself to one physical core of this
+     * placement before running its task. Cores are assigned round-robin in order of creation.
+     *
+     * @param threadFactory The thread factory to wrap
+     * @return a thread factory
+     */
+    public ThreadFactory bindPerCore(ThreadFactory threadFactory) {
+        if (coreCpuLists.isEmpty()) {
+            throw new RuntimeException("Unable to bind threads per core for activity " + alias
+                    + ", since the cpu topology is not known.");
+        }
+        AtomicInteger threadIndexer = new AtomicInteger(0);
+        return r -> {
+            String cpuList = coreCpuLists.get(threadIndexer.getAndIncrement() % coreCpuLists.size());
+            return threadFactory.newThread(() -> {
+                CpuAffinity.pinCurrentThread(cpuList);
+                r.run();
+            });
+        };
+    }
+
+    @Override
+    public String toString() {
+        if (!isRestricted()) {
+            return "activity " + alias + " is not bound to cpus";
+        }
+        return "activity " + alias + " is bound to cpus " + getCpuList()
+                + " on " + coreCpuLists.size() + " cores " + coreCpuLists;
+    }
+}
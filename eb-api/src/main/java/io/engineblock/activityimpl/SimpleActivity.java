@@ -2,6 +2,8 @@ package io.engineblock.activityimpl;
 
 import com.codahale.metrics.Timer;
 import io.engineblock.activityapi.core.*;
+import io.engineblock.activityapi.core.ops.fluent.AdaptiveConcurrency;
+import io.engineblock.activityapi.core.ops.fluent.AsyncSpec;
 import io.engineblock.activityapi.cyclelog.filters.IntPredicateDispenser;
 import io.engineblock.activityapi.input.InputDispenser;
 import io.engineblock.activityapi.output.OutputDispenser;
@@ -9,6 +11,8 @@ import io.engineblock.activityapi.planning.OpSequence;
 import io.engineblock.activityapi.ratelimits.RateLimiter;
 import io.engineblock.activityapi.ratelimits.RateLimiters;
 import io.engineblock.activityapi.ratelimits.RateSpec;
+import io.engineblock.activityapi.retries.OpRetries;
+import io.engineblock.activityapi.retries.RetrySpec;
 import io.engineblock.metrics.ActivityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +41,9 @@ public class SimpleActivity implements Activity {
     private RateLimiter phaseLimiter;
     private ActivityController activityController;
     private ActivityInstrumentation activityInstrumentation;
+    private AdaptiveConcurrency adaptiveConcurrency;
+    private Warmup warmup;
+    private OpRetries retries;
 
     public SimpleActivity(ActivityDef activityDef) {
         this.activityDef = activityDef;
@@ -235,6 +242,54 @@ public class SimpleActivity implements Activity {
                 .map(RateSpec::new)
                 .ifPresent(spec -> phaseLimiter = RateLimiters.createOrUpdate(this.getActivityDef(), "phases", phaseLimiter, spec));
 
+        Optional<AsyncSpec> asyncSpec = AsyncSpec.forActivity(activityDef).filter(AsyncSpec::isAdaptive);
+        if (asyncSpec.isPresent()) {
+            if (adaptiveConcurrency == null) {
+                adaptiveConcurrency = new AdaptiveConcurrency(this, asyncSpec.get());
+            } else {
+                adaptiveConcurrency.apply(asyncSpec.get());
+            }
+        } else if (adaptiveConcurrency != null) {
+            adaptiveConcurrency.close();
+            adaptiveConcurrency = null;
+        }
+
+        Optional<WarmupSpec> warmupSpec = WarmupSpec.forActivity(activityDef);
+        if (warmupSpec.isPresent()) {
+            if (warmup == null) {
+                warmup = new Warmup(this, warmupSpec.get());
+            } else if (!warmup.getSpec().equals(warmupSpec.get())) {
+                warmup.apply(warmupSpec.get());
+            }
+        }
+
+        Optional<RetrySpec> retrySpec = RetrySpec.forActivity(activityDef);
+        if (retrySpec.isPresent()) {
+            if (retries == null) {
+                retries = new OpRetries(this, retrySpec.get());
+            } else if (!retries.getSpec().equals(retrySpec.get())) {
+                retries.apply(retrySpec.get());
+            }
+        } else if (retries != null) {
+            retries.close();
+            closeables.remove(retries);
+            retries = null;
+        }
+    }
+
+    @Override
+    public synchronized AdaptiveConcurrency getAdaptiveConcurrencyOrNull() {
+        return adaptiveConcurrency;
+    }
+
+    @Override
+    public synchronized Warmup getWarmupOrNull() {
+        return warmup;
+    }
+
+    @Override
+    public synchronized OpRetries getRetriesOrNull() {
+        return retries;
     }
 
     /**
@@ -246,7 +301,7 @@ public class SimpleActivity implements Activity {
     public void setDefaultsFromOpSequence(OpSequence seq) {
         Optional<String> strideOpt = getParams().getOptionalString("stride");
         if (strideOpt.isEmpty()) {
-            String stride = String.valueOf(seq.getSequence().length);
+            String stride = String.valueOf(seq.getLength());
             logger.info("defaulting stride to " + stride + " (the sequence length)");
             getParams().set("stride", stride);
         }
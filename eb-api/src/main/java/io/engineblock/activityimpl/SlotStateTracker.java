@@ -18,6 +18,7 @@
 package io.engineblock.activityimpl;
 
 import io.engineblock.activityapi.core.RunState;
+import io.engineblock.activityapi.core.SlotStateListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +32,7 @@ public class SlotStateTracker {
     private final AtomicReference<RunState> slotState = new AtomicReference<>(RunState.Uninitialized);
     private final static Logger logger = LoggerFactory.getLogger(SlotStateTracker.class);
     private final long slotId;
+    private volatile SlotStateListener listener;
 
     public SlotStateTracker(long slotId) {
         this.slotId = slotId;
@@ -40,6 +42,23 @@ public class SlotStateTracker {
         return slotState.get();
     }
 
+    /**
+     * Set a listener which is notified after each state transition of this slot.
+     * @param listener a {@link SlotStateListener}, or null to remove it
+     */
+    public void setListener(SlotStateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Remove the listener, without racing a concurrent transition.
+     * @return the state of the slot when the listener was removed
+     */
+    public synchronized RunState detachListener() {
+        this.listener = null;
+        return slotState.get();
+    }
+
     /**
      * This is how you share the current slot state most directly, but it has a caveat. By sharing the
      * slot state in this way, you allow external changes. You should only use this method to share slot
@@ -65,6 +84,10 @@ public class SlotStateTracker {
             logger.trace("retrying transition from:" + from + " to:" + to);
         }
         logger.trace("TRANSITION[" + slotId + "]: " + from + " ==> " + to);
+        SlotStateListener listener = this.listener;
+        if (listener != null) {
+            listener.onSlotStateChange(slotId, from, to);
+        }
 
     }
 
@@ -39,4 +39,9 @@ public class CoreActionDispenser implements ActionDispenser {
     public Action getAction(int slot) {
         return new CoreAction(activity.getActivityDef(), slot);
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -30,7 +30,7 @@ public class CoreInputDispenser implements InputDispenser, ActivitiesAware {
 
     private Activity activity;
     private Map<String, Activity> activities;
-    private Input input;
+    private volatile Input input;
 
     public CoreInputDispenser(Activity activity) {
         this.activity = activity;
@@ -39,12 +39,16 @@ public class CoreInputDispenser implements InputDispenser, ActivitiesAware {
     @Override
     public Input getInput(long slot) {
         if (this.input == null) {
-            this.input = createInput(slot);
+            synchronized (this) {
+                if (this.input == null) {
+                    this.input = createInput(slot);
+                }
+            }
         }
         return input;
     }
 
-    private synchronized Input createInput(long slot) {
+    private Input createInput(long slot) {
         SimpleConfig conf = new SimpleConfig(activity, "input");
         String inputType = conf.getString("type").orElse("targetrate");
         InputType inputTypeImpl = InputType.FINDER.getOrThrow(inputType);
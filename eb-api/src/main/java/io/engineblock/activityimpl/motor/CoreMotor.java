@@ -31,6 +31,9 @@ import io.engineblock.activityapi.output.Output;
 import io.engineblock.activityapi.ratelimits.RateLimiter;
 import io.engineblock.activityimpl.ActivityDef;
 import io.engineblock.activityimpl.SlotStateTracker;
+import io.engineblock.metrics.SlotMetrics;
+import io.engineblock.metrics.jfr.OpTrackerBlockedEvent;
+import io.engineblock.metrics.jfr.StrideEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,6 +83,9 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
 
     private OpTracker<D> opTracker;
     private Counter optrackerBlockCounter;
+    private SlotMetrics.Slot slotMetrics;
+    private int jfrSample = 1;
+    private long strideCount = 0L;
 
 
     /**
@@ -197,6 +203,8 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
             stridesServiceTimer = activity.getInstrumentation().getOrCreateStridesServiceTimer();
             stridesResponseTimer = activity.getInstrumentation().getStridesResponseTimerOrNull();
             optrackerBlockCounter = activity.getInstrumentation().getOrCreateOpTrackerBlockedCounter();
+            SlotMetrics activitySlotMetrics = activity.getInstrumentation().getSlotMetricsOrNull();
+            slotMetrics = activitySlotMetrics != null ? activitySlotMetrics.forSlot(slotId) : null;
 
 
             inputTimer = activity.getInstrumentation().getOrCreateInputTimer();
@@ -274,6 +282,7 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                             stride,
                             output,
                             outputreader);
+                    strideTracker.setStrideEvent(beginStrideEvent(cycleSegment.peekNextCycle(), strideDelay));
                     strideTracker.start();
 
                     long strideStart = System.nanoTime();
@@ -303,14 +312,29 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                             op.setWaitTime(cycleDelay);
 
                             synchronized (opTracker) {
+                                OpTrackerBlockedEvent blockedEvent = null;
                                 while (opTracker.isFull()) {
+                                    if (blockedEvent == null) {
+                                        blockedEvent = new OpTrackerBlockedEvent();
+                                        blockedEvent.begin();
+                                    }
                                     try {
                                         logger.trace("Blocking for enqueue with (" + opTracker.getPendingOps() + "/" + opTracker.getMaxPendingOps() + ") queued ops");
                                         optrackerBlockCounter.inc();
+                                        if (slotMetrics != null) {
+                                            slotMetrics.incBlocked();
+                                        }
                                         opTracker.wait(10000);
                                     } catch (InterruptedException ignored) {
                                     }
                                 }
+                                if (blockedEvent != null && blockedEvent.shouldCommit()) {
+                                    blockedEvent.activity = activity.getAlias();
+                                    blockedEvent.slot = slotId;
+                                    blockedEvent.cycle = cyclenum;
+                                    blockedEvent.maxPendingOps = opTracker.getMaxPendingOps();
+                                    blockedEvent.commit();
+                                }
                             }
 
                             async.enqueue(op);
@@ -379,6 +403,7 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                         strideDelay = strideRateLimiter.maybeWaitForOp();
                     }
 
+                    StrideEvent strideEvent = beginStrideEvent(cycleSegment.peekNextCycle(), strideDelay);
                     long strideStart = System.nanoTime();
                     try {
 
@@ -432,6 +457,9 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                             } finally {
                                 long cycleEnd = System.nanoTime();
                                 cyclesTimer.update((cycleEnd - cycleStart) + cycleDelay, TimeUnit.NANOSECONDS);
+                                if (slotMetrics != null) {
+                                    slotMetrics.addCycle(cycleEnd - cycleStart, cycleDelay);
+                                }
                             }
                             segBuffer.append(cyclenum, result);
                         }
@@ -439,6 +467,9 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
                     } finally {
                         long strideEnd = System.nanoTime();
                         stridesServiceTimer.update((strideEnd - strideStart) + strideDelay, TimeUnit.NANOSECONDS);
+                        if (strideEvent != null) {
+                            strideEvent.commit();
+                        }
                     }
 
                     if (output != null) {
@@ -483,12 +514,25 @@ public class CoreMotor<D> implements ActivityDefObserver, Motor<D>, Stoppable {
         }
 
         this.stride = activityDef.getParams().getOptionalInteger("stride").orElse(1);
+        this.jfrSample = activityDef.getParams().getOptionalInteger("jfrsample").orElse(1);
         strideRateLimiter = activity.getStrideLimiter();
         cycleRateLimiter = activity.getCycleLimiter();
         phaseRateLimiter = activity.getPhaseLimiter();
 
     }
 
+    /**
+     * Begin a JFR stride event for one of every <em>jfrsample</em> strides, if stride
+     * events are being recorded.
+     * @return a started stride event, or null if this stride is not instrumented
+     */
+    private StrideEvent beginStrideEvent(long firstCycle, long strideDelay) {
+        if (jfrSample <= 0 || (strideCount++ % jfrSample) != 0) {
+            return null;
+        }
+        return StrideEvent.beginIfEnabled(activity.getAlias(), slotId, firstCycle, stride, strideDelay);
+    }
+
     @Override
     public synchronized void requestStop() {
         if (slotState.get() == Running) {
@@ -50,13 +50,26 @@ public class CoreMotorDispenser<D> implements MotorDispenser<D> {
     @Override
     public Motor<D> getMotor(ActivityDef activityDef, int slotId) {
         Action action = actionDispenser.getAction(slotId);
-        Input input = inputDispenser.getInput(slotId);
+        Input input;
         Output output = null;
-        if (outputDispenser !=null) {
-            output = outputDispenser.getOutput(slotId);
+        // inputs and outputs are usually shared between slots, so they are always resolved one at a time
+        synchronized (this) {
+            input = inputDispenser.getInput(slotId);
+            if (outputDispenser != null) {
+                output = outputDispenser.getOutput(slotId);
+            }
         }
         IntPredicate resultFilter = null;
         Motor<D> am = new CoreMotor<>(activity, slotId, input, action, output);
         return am;
     }
+
+    /**
+     * Motors may be built concurrently when the action dispenser allows it. Inputs and outputs
+     * are resolved under this dispenser's lock, so their dispensers need not be thread safe.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return actionDispenser.isThreadSafe();
+    }
 }
@@ -24,6 +24,7 @@ import io.engineblock.activityapi.cyclelog.buffers.op_output.StrideOutputConsume
 import io.engineblock.activityapi.cyclelog.buffers.results.CycleResult;
 import io.engineblock.activityapi.cyclelog.buffers.results.CycleResultsSegment;
 import io.engineblock.activityapi.output.Output;
+import io.engineblock.metrics.jfr.StrideEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,7 @@ public class StrideTracker<D> extends Buffer<CompletedOp<D>> implements OpEvents
     private final OpImpl<Void> strideOp;
     private final Output output;
     private final StrideOutputConsumer<D> outputReader;
+    private StrideEvent strideEvent;
 
     public StrideTracker(
             Timer strideServiceTimer,
@@ -61,6 +63,14 @@ public class StrideTracker<D> extends Buffer<CompletedOp<D>> implements OpEvents
         this.outputReader = outputReader;
     }
 
+    /**
+     * Attach a started JFR stride event, to be committed when this stride is complete.
+     * @param strideEvent a started {@link StrideEvent}, or null
+     */
+    public void setStrideEvent(StrideEvent strideEvent) {
+        this.strideEvent = strideEvent;
+    }
+
     /**
      * Each strideOp opTracker must be started before any ops that it tracks
      *
@@ -100,6 +110,9 @@ public class StrideTracker<D> extends Buffer<CompletedOp<D>> implements OpEvents
         if (strideResponseTimer!=null) {
             strideResponseTimer.update(strideOp.getResponseTimeNanos(),TimeUnit.NANOSECONDS);
         }
+        if (strideEvent != null) {
+            strideEvent.commit();
+        }
 
         if (output != null) {
             output.onCycleResultSegment(this);
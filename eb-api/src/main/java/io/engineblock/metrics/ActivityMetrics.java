@@ -26,17 +26,23 @@ import org.slf4j.LoggerFactory;
 
 import javax.script.ScriptContext;
 import java.io.File;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 public class ActivityMetrics {
 
     private final static Logger logger = LoggerFactory.getLogger(ActivityMetrics.class);
-    private static MetricRegistry registry;
+    private static volatile MetricRegistry registry;
+    // An index of metrics registered through this class, so that lookups do not copy the registry.
+    // Metrics in a scoped registry are indexed by their name in the shared registry.
+    private final static ConcurrentHashMap<String, Metric> metricIndex = new ConcurrentHashMap<>();
+    private final static ConcurrentHashMap<String, MetricRegistry> scopedRegistries = new ConcurrentHashMap<>();
 
     public static MetricFilter METRIC_FILTER = (name, metric) -> {
         return true;
@@ -47,45 +53,54 @@ public class ActivityMetrics {
     }
 
     /**
-     * Register a named metric for an activity, synchronized on the activity
+     * Register a named metric for an activity. Only one metric is created for a given name,
+     * even if multiple threads attempt to register it at the same time.
      *
      * @param activityDef    The activity def that the metric will be for
-     * @param name           The full metric name
+     * @param name           The metric name, relative to the activity alias
      * @param metricProvider A function to actually create the metric if needed
-     * @return a Metric, or null if the metric for the name was already present
+     * @return the registered Metric, which may have been registered already
      */
-    @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
     private static Metric register(ActivityDef activityDef, String name, MetricProvider metricProvider) {
+        String scope = activityDef.getMetricsScope();
         String fullMetricName = activityDef.getAlias() + "." + name;
-        Metric metric = get().getMetrics().get(fullMetricName);
-        if (metric == null) {
-            synchronized (activityDef) {
-                metric = get().getMetrics().get(fullMetricName);
-                if (metric == null) {
-                    metric = metricProvider.getMetric();
-                    return get().register(fullMetricName, metric);
-                }
-            }
+        String indexedName = scope.isEmpty() ? fullMetricName : scope + "." + fullMetricName;
+        Metric metric = metricIndex.get(indexedName);
+        if (metric != null) {
+            return metric;
         }
-        return metric;
+        MetricRegistry metricRegistry = getMetricRegistry(scope);
+        return metricIndex.computeIfAbsent(indexedName, n -> registerNew(metricRegistry, fullMetricName, metricProvider));
     }
 
     private static Metric register(ScriptContext context, String name, MetricProvider metricProvider) {
-        Metric metric = get().getMetrics().get(name);
-        if (metric == null) {
-            synchronized (context) {
-                metric = get().getMetrics().get(name);
-                if (metric == null) {
-                    metric = metricProvider.getMetric();
-                    Metric registered = get().register(name, metric);
-                    logger.info("registered scripting metric: " + name);
-                    return registered;
-                }
-            }
+        Metric metric = metricIndex.get(name);
+        if (metric != null) {
+            return metric;
         }
-        return metric;
+        return metricIndex.computeIfAbsent(name, n -> {
+            Metric registered = registerNew(get(), n, metricProvider);
+            logger.info("registered scripting metric: " + n);
+            return registered;
+        });
+    }
 
+    /**
+     * Add a new metric to the registry, which notifies any registry listeners. If the name was registered
+     * directly on the registry, and not through this class, then the extant metric is used instead.
+     */
+    private static Metric registerNew(MetricRegistry metricRegistry, String fullMetricName, MetricProvider metricProvider) {
+        try {
+            return metricRegistry.register(fullMetricName, metricProvider.getMetric());
+        } catch (IllegalArgumentException e) {
+            Metric extant = metricRegistry.getMetrics().get(fullMetricName);
+            if (extant == null) {
+                throw e;
+            }
+            return extant;
+        }
     }
+
     /**
      * <p>Create a timer associated with an activity.</p>
      * <p>This method ensures that if multiple threads attempt to create the same-named metric on a given activity,
@@ -96,7 +111,7 @@ public class ActivityMetrics {
      * @return the timer, perhaps a different one if it has already been registered
      */
     public static Timer timer(ActivityDef activityDef, String name) {
-        String fullMetricName = activityDef.getAlias() + "." + name;
+        String fullMetricName = qualifiedName(activityDef, name);
         Timer registeredTimer = (Timer) register(activityDef, name, () ->
                 new NicerTimer(fullMetricName, new DeltaHdrHistogramReservoir(fullMetricName, 4)));
         return registeredTimer;
@@ -112,7 +127,7 @@ public class ActivityMetrics {
      * @return the histogram, perhaps a different one if it has already been registered
      */
     public static Histogram histogram(ActivityDef activityDef, String name) {
-        String fullMetricName = activityDef.getAlias() + "." + name;
+        String fullMetricName = qualifiedName(activityDef, name);
         return (Histogram) register(activityDef, name, () ->
                 new NicerHistogram(fullMetricName, new DeltaHdrHistogramReservoir(fullMetricName, 4)));
     }
@@ -143,13 +158,23 @@ public class ActivityMetrics {
         return (Meter) register(activityDef, name, Meter::new);
     }
 
+    /**
+     * @return the metric name as seen in the shared registry, which is used to name histogram logs
+     */
+    private static String qualifiedName(ActivityDef activityDef, String name) {
+        String scope = activityDef.getMetricsScope();
+        return (scope.isEmpty() ? "" : scope + ".") + activityDef.getAlias() + "." + name;
+    }
+
     private static MetricRegistry get() {
         if (registry != null) {
             return registry;
         }
         synchronized (ActivityMetrics.class) {
             if (registry == null) {
-                registry = lookupRegistry();
+                MetricRegistry lookedUp = lookupRegistry();
+                lookedUp.addListener(new MetricIndexRemover(""));
+                registry = lookedUp;
             }
         }
         return registry;
@@ -187,6 +212,27 @@ public class ActivityMetrics {
         return get();
     }
 
+    /**
+     * Get the registry for a metrics scope. Each scope has its own registry, in which metrics are named
+     * just as in the shared registry. A scoped registry is also mounted into the shared registry with the
+     * scope as a name prefix, so that reporters on the shared registry see the metrics of all scopes.
+     *
+     * @param scope The name of a metrics scope, or an empty string for the shared registry
+     * @return the registry for the scope
+     */
+    public static MetricRegistry getMetricRegistry(String scope) {
+        if (scope == null || scope.isEmpty()) {
+            return get();
+        }
+        return scopedRegistries.computeIfAbsent(scope, s -> {
+            MetricRegistry scoped = new MetricRegistry();
+            scoped.addListener(new MetricIndexRemover(s + "."));
+            new MetricsRegistryMount(get(), scoped, s + ".");
+            logger.debug("created metrics scope " + s);
+            return scoped;
+        });
+    }
+
     /**
      * Add a histogram interval logger to matching metrics in this JVM instance.
      * @param sessionName The name for the session to be annotated in the histogram log
@@ -209,6 +255,25 @@ public class ActivityMetrics {
         metricsCloseables.add(histoIntervalLogger);
     }
 
+    /**
+     * Add a histogram interval logger to matching metrics in this JVM instance, which writes to a stream
+     * instead of a file. The histograms are written in the same format as with {@link #addHistoLogger}.
+     * @param sessionName The name for the session to be annotated in the histogram log
+     * @param pattern A regular expression pattern to filter out metric names for logging
+     * @param stream A stream to log the histogram data to, which is closed along with the metrics
+     * @param interval How long to wait between writing each interval histogram
+     */
+    public static void addHistoStream(String sessionName, String pattern, OutputStream stream, String interval) {
+        Pattern compiledPattern = Pattern.compile(pattern);
+        long intervalMillis = Unit.msFor(interval).orElseThrow(()->new RuntimeException("Unable to parse interval spec:'" + interval + "'"));
+
+        HistoIntervalLogger histoIntervalLogger =
+                new HistoIntervalLogger(sessionName, new PrintStream(stream, true), compiledPattern, intervalMillis);
+        logger.debug("attaching " + histoIntervalLogger + " to the metrics registry.");
+        get().addListener(histoIntervalLogger);
+        metricsCloseables.add(histoIntervalLogger);
+    }
+
     /**
      * Add a histogram stats logger to matching metrics in this JVM instance.
      * @param sessionName The name for the session to be annotated in the histogram log
@@ -261,6 +326,7 @@ public class ActivityMetrics {
      * @param showChart whether to chart metrics on console
      */
     public static void closeMetrics(boolean showChart) {
+        HistogramHub.getInstance().flush();
         logger.trace("Closing all registered metrics closable objects.");
         for (MetricsCloseable metricsCloseable : metricsCloseables) {
             logger.trace("closing metrics closeable: " + metricsCloseable);
@@ -292,8 +358,46 @@ public class ActivityMetrics {
     }
 
     public static void removeActivityMetrics(ActivityDef activityDef) {
-        get().getMetrics().keySet().stream().filter(s -> s.startsWith(activityDef.getAlias()+"."))
-                .forEach(get()::remove);
+        MetricRegistry metricRegistry = getMetricRegistry(activityDef.getMetricsScope());
+        metricRegistry.getMetrics().keySet().stream().filter(s -> s.startsWith(activityDef.getAlias()+"."))
+                .forEach(metricRegistry::remove);
+    }
+
+    /**
+     * Keeps the metric index consistent with the registry when metrics are removed, by
+     * {@link #removeActivityMetrics(ActivityDef)} or by any other caller.
+     */
+    private static class MetricIndexRemover extends MetricRegistryListener.Base {
+        private final String prefix;
+
+        MetricIndexRemover(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void onGaugeRemoved(String name) {
+            metricIndex.remove(prefix + name);
+        }
+
+        @Override
+        public void onCounterRemoved(String name) {
+            metricIndex.remove(prefix + name);
+        }
+
+        @Override
+        public void onHistogramRemoved(String name) {
+            metricIndex.remove(prefix + name);
+        }
+
+        @Override
+        public void onMeterRemoved(String name) {
+            metricIndex.remove(prefix + name);
+        }
+
+        @Override
+        public void onTimerRemoved(String name) {
+            metricIndex.remove(prefix + name);
+        }
     }
 
 }
@@ -15,56 +15,84 @@
  * /
  */
 
+
 package io.engineblock.metrics;
 
 import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.Snapshot;
 import org.HdrHistogram.Histogram;
-import org.HdrHistogram.HistogramLogWriter;
 import org.HdrHistogram.Recorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- * A custom wrapping of snapshotting logic on the HdrHistogram. This histogram will always report the last histogram
- * since it was most recently asked for with the getDeltaSnapshot(...) method.
- * This provides local snapshot timing, but with a consistent view for reporting channels about what those snapshots
- * most recently looked like.
+ * A custom wrapping of snapshotting logic on the HdrHistogram. The recorder of this reservoir is only ever
+ * drained by the {@link HistogramHub}, which calls {@link #tick()} once per interval. Each tick
+ * produces one interval histogram, which is then shared with every consumer of the reservoir:
  *
- * <p>This implementation also supports attaching a single log writer. If a log writer is attached, each
- * time an interval is snapshotted internally, the data will also be written to an hdr log via the writer.</p>
+ * <ul>
+ *     <li>{@link HdrHistogramWindow}s, which aggregate the intervals into windows of any length.</li>
+ *     <li>The cumulative histogram, which holds all data since the reservoir was created.</li>
+ * </ul>
  *
+ * <p>No consumer can reset the reservoir, so reporters, loggers and scripts all see the same data,
+ * no matter who reads first. Histograms which are handed out by this reservoir are never modified
+ * after they are published, and must not be modified by callers.</p>
  */
 public final class DeltaHdrHistogramReservoir implements Reservoir {
     private final static Logger logger = LoggerFactory.getLogger(DeltaHdrHistogramReservoir.class);
 
     private final Recorder recorder;
-    private Histogram lastHistogram;
+    private final int significantDigits;
+    private final String metricName;
+    private final long startTime = System.currentTimeMillis();
+
+    private final Map<Long, HdrHistogramWindow> windows = new ConcurrentHashMap<>();
+    private final Histogram cumulativeHistogram;
 
-    private Histogram intervalHistogram;
-    private long intervalHistogramEndTime = System.currentTimeMillis();
-    private String metricName;
-    private HistogramLogWriter writer;
+    private volatile Histogram lastHistogram;
+    private long intervalHistogramEndTime = startTime;
+
+    // drained by updateCumulative() but not yet published as part of an interval
+    private Histogram pendingInterval;
+    private long cumulativeEndTime = startTime;
+    private long cumulativeUpdates = 0L;
+
+    private Histogram cumulativeSnapshot;
+    private long cumulativeSnapshotUpdate = -1L;
 
     /**
      * Create a reservoir with a default recorder. This recorder should be suitable for most usage.
+     * The reservoir is registered with the {@link HistogramHub} so that its intervals are taken
+     * on the same clock as all others.
      *
      * @param name the name to give to the reservoir, for logging purposes
      * @param significantDigits how many significant digits to track in the reservoir
      */
     public DeltaHdrHistogramReservoir(String name, int significantDigits) {
+        this(name, significantDigits, HistogramHub.getInstance());
+    }
+
+    /**
+     * Create a reservoir which is ticked by the given hub.
+     * @param name the name to give to the reservoir, for logging purposes
+     * @param significantDigits how many significant digits to track in the reservoir
+     * @param hub the hub which ticks this reservoir, or null if it will be ticked directly
+     */
+    DeltaHdrHistogramReservoir(String name, int significantDigits, HistogramHub hub) {
         this.metricName = name;
+        this.significantDigits = significantDigits;
         this.recorder = new Recorder(significantDigits);
+        this.cumulativeHistogram = new Histogram(significantDigits);
+        this.cumulativeHistogram.setStartTimeStamp(startTime);
+        this.lastHistogram = emptyHistogram(startTime, startTime);
 
-        /*
-         * Start by flipping the recorder's interval histogram.
-         * - it starts our counting at zero. Arguably this might be a bad thing if you wanted to feed in
-         *   a recorder that already had some measurements? But that seems crazy.
-         * - intervalHistogram can be nonnull.
-         * - it lets us figure out the number of significant digits to use in runningTotals.
-         */
-        intervalHistogram = recorder.getIntervalHistogram();
-        lastHistogram = new Histogram(intervalHistogram.getNumberOfSignificantValueDigits());
+        if (hub != null) {
+            hub.register(this);
+        }
     }
 
     @Override
@@ -79,64 +107,129 @@ public final class DeltaHdrHistogramReservoir implements Reservoir {
     }
 
     /**
-     * @return the data accumulated since the reservoir was created, or since the last call to this method
+     * This does not modify the reservoir in any way. The window which is used is chosen by
+     * {@link HistogramHub#getReportingWindowMillis()}. When it is zero, the cumulative data for
+     * the whole lifetime of the reservoir is used.
+     *
+     * @return the most recent reporting window of data
      */
     @Override
     public Snapshot getSnapshot() {
-        lastHistogram = getNextHdrHistogram();
-        return new DeltaHistogramSnapshot(lastHistogram);
+        long reportingWindowMillis = HistogramHub.getInstance().getReportingWindowMillis();
+        if (reportingWindowMillis <= 0L) {
+            return new DeltaHistogramSnapshot(getCumulativeHistogram());
+        }
+        return new DeltaHistogramSnapshot(getWindow(reportingWindowMillis).getLastHistogram());
     }
 
-    public Histogram getNextHdrHistogram() {
-        return getDataSinceLastSnapshotAndUpdate();
-    }
+    /**
+     * Drain the recorder into a new interval histogram, and publish that interval to the cumulative
+     * histogram and to all windows. This should only be called by the {@link HistogramHub}.
+     *
+     * @return the interval histogram for the interval which just ended
+     */
+    synchronized Histogram tick() {
+        Histogram interval = recorder.getIntervalHistogram();
+        long intervalHistogramStartTime = intervalHistogramEndTime;
+        intervalHistogramEndTime = System.currentTimeMillis();
 
+        cumulativeHistogram.add(interval);
+        cumulativeHistogram.setEndTimeStamp(intervalHistogramEndTime);
+        cumulativeEndTime = intervalHistogramEndTime;
+        cumulativeUpdates++;
+
+        if (pendingInterval != null) {
+            pendingInterval.add(interval);
+            interval = pendingInterval;
+            pendingInterval = null;
+        }
+        interval.setTag(metricName);
+        interval.setStartTimeStamp(intervalHistogramStartTime);
+        interval.setEndTimeStamp(intervalHistogramEndTime);
+        lastHistogram = interval;
+
+        for (HdrHistogramWindow window : windows.values()) {
+            window.onInterval(interval);
+        }
+        return interval;
+    }
 
     /**
-     * @return last histogram snapshot that was provided by {@link #getSnapshot()}
+     * Drain the recorder into the cumulative histogram, without ending the current interval. The drained
+     * values are held back and published with the next tick, so windows still see every value once, on
+     * the regular clock. This should only be called by the {@link HistogramHub}.
      */
-    public Snapshot getLastSnapshot() {
-        return new DeltaHistogramSnapshot(lastHistogram);
+    synchronized void updateCumulative() {
+        Histogram drained = recorder.getIntervalHistogram();
+        cumulativeEndTime = System.currentTimeMillis();
+        cumulativeHistogram.add(drained);
+        cumulativeHistogram.setEndTimeStamp(cumulativeEndTime);
+        cumulativeUpdates++;
+
+        if (pendingInterval == null) {
+            pendingInterval = drained;
+        } else {
+            pendingInterval.add(drained);
+        }
     }
 
     /**
-     * @return a copy of the accumulated state since the reservoir last had a snapshot
+     * Publish any partially accumulated windows. This is used at the end of a run, after the last tick.
      */
-    private synchronized Histogram getDataSinceLastSnapshotAndUpdate() {
-        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
-        long intervalHistogramStartTime = intervalHistogramEndTime;
-        intervalHistogramEndTime = System.currentTimeMillis();
-
-        intervalHistogram.setTag(metricName);
-        intervalHistogram.setStartTimeStamp(intervalHistogramStartTime);
-        intervalHistogram.setEndTimeStamp(intervalHistogramEndTime);
+    synchronized void flushWindows() {
+        for (HdrHistogramWindow window : windows.values()) {
+            window.flush();
+        }
+    }
 
-        lastHistogram = intervalHistogram.copy();
-        lastHistogram.setTag(metricName);
+    /**
+     * Get the shared window of the given length for this reservoir, creating it if needed. All callers
+     * which ask for the same length share the same window, so the data for a window is only aggregated once.
+     * A new window will only see intervals which end after it is created.
+     *
+     * @param windowMillis The length of the window in milliseconds
+     * @return a shared {@link HdrHistogramWindow}
+     */
+    public HdrHistogramWindow getWindow(long windowMillis) {
+        return windows.computeIfAbsent(windowMillis, w -> new HdrHistogramWindow(metricName, w, emptyHistogram(startTime, startTime)));
+    }
 
-        if (writer!=null) {
-            writer.outputIntervalHistogram(lastHistogram);
+    /**
+     * @return a read-only histogram of all data since this reservoir was created, up to the last tick
+     * or {@link HistogramHub#updateCumulative()}
+     */
+    public synchronized Histogram getCumulativeHistogram() {
+        if (cumulativeSnapshotUpdate != cumulativeUpdates) {
+            cumulativeSnapshot = cumulativeHistogram.copy();
+            cumulativeSnapshot.setTag(metricName);
+            cumulativeSnapshot.setStartTimeStamp(startTime);
+            cumulativeSnapshot.setEndTimeStamp(cumulativeEndTime);
+            cumulativeSnapshotUpdate = cumulativeUpdates;
         }
-        return lastHistogram;
+        return cumulativeSnapshot;
     }
 
     /**
-     * Write the last results via the log writer.
-     * @param writer the log writer to use
+     * @return the read-only interval histogram from the last tick
      */
-    public void write(HistogramLogWriter writer) {
-        writer.outputIntervalHistogram(lastHistogram);
+    public Histogram getLastHistogram() {
+        return lastHistogram;
     }
 
-    public DeltaHdrHistogramReservoir copySettings() {
-        return new DeltaHdrHistogramReservoir(this.metricName, intervalHistogram.getNumberOfSignificantValueDigits());
+    public String getMetricName() {
+        return metricName;
     }
 
-    public void attachLogWriter(HistogramLogWriter logWriter) {
-        this.writer = logWriter;
+    private Histogram emptyHistogram(long startTime, long endTime) {
+        Histogram empty = new Histogram(significantDigits);
+        empty.setTag(metricName);
+        empty.setStartTimeStamp(startTime);
+        empty.setEndTimeStamp(endTime);
+        return empty;
     }
 
-    public Histogram getLastHistogram() {
-        return lastHistogram;
+    @Override
+    public String toString() {
+        return "DeltaHdrHistogramReservoir:" + metricName;
     }
 }
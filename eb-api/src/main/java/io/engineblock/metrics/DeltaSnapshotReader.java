@@ -15,24 +15,55 @@
  * /
  */
 
+
 package io.engineblock.metrics;
 
+import org.HdrHistogram.Histogram;
+
+/**
+ * A private view of the data in a {@link DeltaHdrHistogramReservoir}. Each reader sees the data which
+ * was recorded since its own last read, regardless of any other readers. This is done by taking the
+ * difference between two cumulative histograms, so the reservoir is never reset by a reader.
+ */
 public class DeltaSnapshotReader {
 
-    private final DeltaSnapshotter deltaSnapshotter;
+    private final DeltaHdrHistogramReservoir reservoir;
     private long defaultInterval=0L;
+    private Histogram lastCumulative;
+    private ConvenientSnapshot lastSnapshot;
+    private long cacheExpiry = 0L;
 
-    public DeltaSnapshotReader(DeltaSnapshotter nicerHistogram) {
-        this.deltaSnapshotter = nicerHistogram;
+    public DeltaSnapshotReader(DeltaHdrHistogramReservoir reservoir) {
+        this.reservoir = reservoir;
+        this.lastCumulative = reservoir.getCumulativeHistogram();
     }
 
-    public ConvenientSnapshot getDeltaSnapshot(long cacheTimeMillis) {
+    /**
+     * @param cacheTimeMillis how long to return the same snapshot from this reader before computing a new one
+     * @return the data since the last read by this reader
+     */
+    public synchronized ConvenientSnapshot getDeltaSnapshot(long cacheTimeMillis) {
         defaultInterval = cacheTimeMillis;
-        return deltaSnapshotter.getDeltaSnapshot(cacheTimeMillis);
+        long now = System.currentTimeMillis();
+        if (lastSnapshot != null && now < cacheExpiry) {
+            return lastSnapshot;
+        }
+
+        Histogram cumulative = reservoir.getCumulativeHistogram();
+        Histogram delta = cumulative.copy();
+        delta.subtract(lastCumulative);
+        delta.setTag(cumulative.getTag());
+        delta.setStartTimeStamp(lastCumulative.getEndTimeStamp());
+        delta.setEndTimeStamp(cumulative.getEndTimeStamp());
+        lastCumulative = cumulative;
+
+        lastSnapshot = new ConvenientSnapshot(new DeltaHistogramSnapshot(delta));
+        cacheExpiry = now + cacheTimeMillis;
+        return lastSnapshot;
     }
 
     public ConvenientSnapshot getDeltaSnapshot() {
-        return deltaSnapshotter.getDeltaSnapshot(defaultInterval);
+        return getDeltaSnapshot(defaultInterval);
     }
 
 }
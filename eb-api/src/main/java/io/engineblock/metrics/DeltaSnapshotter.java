@@ -15,9 +15,19 @@
  * /
  */
 
+
 package io.engineblock.metrics;
 
 public interface DeltaSnapshotter {
+
+    /**
+     * @return a new reader which sees the data recorded since its own last read
+     */
     DeltaSnapshotReader getDeltaReader();
-    ConvenientSnapshot getDeltaSnapshot(long cacheTimeMillis);
+
+    /**
+     * @param windowMillis the length of the shared window to read
+     * @return the most recently completed window of the given length
+     */
+    ConvenientSnapshot getDeltaSnapshot(long windowMillis);
 }
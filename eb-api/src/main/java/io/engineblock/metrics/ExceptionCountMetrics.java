@@ -36,12 +36,10 @@ public class ExceptionCountMetrics {
     public void count(Throwable e) {
         Counter c = counters.get(e.getClass());
         if (c == null) {
-            synchronized (counters) {
-                c = counters.computeIfAbsent(
-                        e.getClass(),
-                        k -> ActivityMetrics.counter(activityDef, "errorcounts." + e.getClass().getSimpleName())
-                );
-            }
+            c = counters.computeIfAbsent(
+                    e.getClass(),
+                    k -> ActivityMetrics.counter(activityDef, "errorcounts." + e.getClass().getSimpleName())
+            );
         }
         c.inc();
     }
@@ -38,12 +38,10 @@ public class ExceptionHistoMetrics {
     public void update(Throwable e, long magnitude) {
         Histogram h = counters.get(e.getClass());
         if (h == null) {
-            synchronized (counters) {
-                h = counters.computeIfAbsent(
-                        e.getClass(),
-                        k -> ActivityMetrics.histogram(activityDef, "errorhistos." + e.getClass().getSimpleName())
-                );
-            }
+            h = counters.computeIfAbsent(
+                    e.getClass(),
+                    k -> ActivityMetrics.histogram(activityDef, "errorhistos." + e.getClass().getSimpleName())
+            );
         }
         h.update(magnitude);
     }
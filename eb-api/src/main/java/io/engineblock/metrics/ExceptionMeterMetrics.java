@@ -36,12 +36,10 @@ public class ExceptionMeterMetrics {
     public void count(Exception e) {
         Meter c = meters.get(e.getClass());
         if (c == null) {
-            synchronized (meters) {
-                c = meters.computeIfAbsent(
-                        e.getClass(),
-                        k -> ActivityMetrics.meter(activityDef, "exceptions." + e.getClass().getSimpleName())
-                );
-            }
+            c = meters.computeIfAbsent(
+                    e.getClass(),
+                    k -> ActivityMetrics.meter(activityDef, "exceptions." + e.getClass().getSimpleName())
+            );
         }
         c.mark();
     }
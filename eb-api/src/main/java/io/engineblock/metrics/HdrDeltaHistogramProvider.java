@@ -15,16 +15,18 @@
  * /
  */
 
-package io.engineblock.metrics;
 
-import org.HdrHistogram.Histogram;
+package io.engineblock.metrics;
 
+/**
+ * A metric which records into a {@link DeltaHdrHistogramReservoir}. Consumers of interval data
+ * should subscribe to a window of the reservoir rather than resetting it.
+ */
 public interface HdrDeltaHistogramProvider {
 
     /**
-     * Create a new interval histogram from the current data, then reset the histogram reservoir.
-     * @return the new interval histogram
+     * @return the reservoir which holds the interval and cumulative histograms for this metric
      */
-    Histogram getNextHdrDeltaHistogram();
+    DeltaHdrHistogramReservoir getDeltaReservoir();
 
 }
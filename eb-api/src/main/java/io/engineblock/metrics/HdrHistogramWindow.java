@@ -0,0 +1,117 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * <p>An aggregation window over the interval histograms of a {@link DeltaHdrHistogramReservoir}.
+ * A window is shared by all consumers which want the same window length, so intervals
+ * are aggregated once per window length, not once per consumer.</p>
+ *
+ * <p>When a window is not longer than a single interval, the interval histogram is published
+ * as-is, without any copying. Otherwise, intervals are added together until the window is full.</p>
+ *
+ * <p>Listeners are called on the thread which ticks the reservoir, each time a window is completed.
+ * The published histograms are read-only, and may be shared with other consumers.</p>
+ */
+public class HdrHistogramWindow {
+
+    private final String metricName;
+    private final long windowMillis;
+    private final List<Consumer<Histogram>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Histogram lastHistogram;
+    private Histogram accumulator;
+    private boolean accumulatorIsShared;
+
+    HdrHistogramWindow(String metricName, long windowMillis, Histogram initialHistogram) {
+        this.metricName = metricName;
+        this.windowMillis = windowMillis;
+        this.lastHistogram = initialHistogram;
+    }
+
+    synchronized void onInterval(Histogram interval) {
+        if (accumulator == null) {
+            accumulator = interval;
+            accumulatorIsShared = true;
+        } else {
+            if (accumulatorIsShared) {
+                long startTime = accumulator.getStartTimeStamp();
+                accumulator = accumulator.copy();
+                accumulator.setTag(metricName);
+                accumulator.setStartTimeStamp(startTime);
+                accumulatorIsShared = false;
+            }
+            accumulator.add(interval);
+            accumulator.setEndTimeStamp(interval.getEndTimeStamp());
+        }
+
+        // Allow for some jitter in the tick timing, so that windows line up with whole intervals.
+        long slack = (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 2;
+        if (accumulator.getEndTimeStamp() - accumulator.getStartTimeStamp() + slack >= windowMillis) {
+            publish();
+        }
+    }
+
+    /**
+     * Publish the partially accumulated window, if there is any data in it.
+     */
+    synchronized void flush() {
+        if (accumulator != null && accumulator.getTotalCount() > 0) {
+            publish();
+        }
+    }
+
+    private void publish() {
+        lastHistogram = accumulator;
+        accumulator = null;
+        for (Consumer<Histogram> listener : listeners) {
+            listener.accept(lastHistogram);
+        }
+    }
+
+    /**
+     * @return the read-only histogram for the most recently completed window
+     */
+    public Histogram getLastHistogram() {
+        return lastHistogram;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void addListener(Consumer<Histogram> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Histogram> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public String toString() {
+        return "HdrHistogramWindow:" + metricName + ":" + windowMillis + "ms";
+    }
+}
@@ -17,7 +17,7 @@
 
 package io.engineblock.metrics;
 
-import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
 import org.HdrHistogram.HistogramLogWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,15 +27,17 @@ import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
- * HistoIntervalLogger runs a separate thread to snapshotAndWrite encoded histograms on a regular interval.
+ * HistoIntervalLogger writes encoded histograms to a logfile on a regular interval.
  * It listens to the metrics registry for any new metrics that match the pattern. Any metrics
- * which both match the pattern and which are {@link EncodableHistogram}s are written the configured
- * logfile at the configured interval.
+ * which both match the pattern and which are {@link HdrDeltaHistogramProvider}s are written to the configured
+ * logfile at the configured interval. The intervals are taken from a shared {@link HdrHistogramWindow} of
+ * each metric, so logging does not take any data away from other consumers.
  */
-public class HistoIntervalLogger extends  CapabilityHook<HdrDeltaHistogramAttachment> implements Runnable, MetricsCloseable  {
+public class HistoIntervalLogger extends  CapabilityHook<HdrDeltaHistogramProvider> implements MetricsCloseable  {
     private final static Logger logger = LoggerFactory.getLogger(HistoIntervalLogger.class);
 
     private final String sessionName;
@@ -52,8 +54,7 @@ public class HistoIntervalLogger extends  CapabilityHook<HdrDeltaHistogramAttach
     private Pattern pattern;
 
     private List<WriterTarget> targets = new CopyOnWriteArrayList<>();
-    private PeriodicRunnable<HistoIntervalLogger> executor;
-    private long lastRunTime;
+    private boolean closed = false;
 
     public HistoIntervalLogger(String sessionName, File file, Pattern pattern, long intervalLength) {
         this.sessionName = sessionName;
@@ -63,6 +64,18 @@ public class HistoIntervalLogger extends  CapabilityHook<HdrDeltaHistogramAttach
         startLogging();
     }
 
+    /**
+     * Log histograms to a stream instead of a file, such as a socket to another process. The stream
+     * is closed along with this logger.
+     */
+    public HistoIntervalLogger(String sessionName, PrintStream logStream, Pattern pattern, long intervalLength) {
+        this.sessionName = sessionName;
+        this.logStream = logStream;
+        this.pattern = pattern;
+        this.intervalLength = intervalLength;
+        startLogging();
+    }
+
     public boolean matches(String metricName) {
         return pattern.matcher(metricName).matches();
     }
@@ -75,7 +88,9 @@ public class HistoIntervalLogger extends  CapabilityHook<HdrDeltaHistogramAttach
      */
     public void startLogging() {
         try {
-            logStream = new PrintStream(logfile);
+            if (logStream == null) {
+                logStream = new PrintStream(logfile);
+            }
             writer = new HistogramLogWriter(logStream);
             writer.outputComment("logging histograms for session " + sessionName);
             writer.outputLogFormatVersion();
@@ -86,14 +101,11 @@ public class HistoIntervalLogger extends  CapabilityHook<HdrDeltaHistogramAttach
         } catch (FileNotFoundException e) {
             throw new RuntimeException("Error while starting histogram log writer", e);
         }
-
-        this.executor = new PeriodicRunnable<HistoIntervalLogger>(this.getInterval(),this);
-        executor.startDaemonThread();
     }
 
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("HistoLogger:" + this.pattern + ":" + this.logfile.getPath() + ":" + this.intervalLength);
+        sb.append("HistoLogger:" + this.pattern + ":" + (logfile != null ? logfile.getPath() : "stream") + ":" + this.intervalLength);
         return sb.toString();
     }
 
@@ -102,66 +114,66 @@ public class HistoIntervalLogger extends  CapabilityHook<HdrDeltaHistogramAttach
     }
 
     @Override
-    public synchronized void onCapableAdded(String name, HdrDeltaHistogramAttachment chainedHistogram) {
+    public synchronized void onCapableAdded(String name, HdrDeltaHistogramProvider provider) {
         if (pattern.matcher(name).matches()) {
-            this.targets.add(new WriterTarget(name,chainedHistogram.attachHdrDeltaHistogram()));
+            HdrHistogramWindow window = provider.getDeltaReservoir().getWindow(intervalLength);
+            WriterTarget target = new WriterTarget(name, window, this::writeInterval);
+            window.addListener(target.listener);
+            this.targets.add(target);
         }
     }
 
     @Override
-    public synchronized void onCapableRemoved(String name, HdrDeltaHistogramAttachment capable) {
-        this.targets.remove(new WriterTarget(name,null));
+    public synchronized void onCapableRemoved(String name, HdrDeltaHistogramProvider capable) {
+        for (WriterTarget target : targets) {
+            if (target.name.equals(name)) {
+                target.window.removeListener(target.listener);
+                targets.remove(target);
+            }
+        }
     }
 
     @Override
-    protected Class<HdrDeltaHistogramAttachment> getCapabilityClass() {
-        return HdrDeltaHistogramAttachment.class;
+    protected Class<HdrDeltaHistogramProvider> getCapabilityClass() {
+        return HdrDeltaHistogramProvider.class;
     }
 
-    @Override
-    public void run() {
-        for (WriterTarget target : targets) {
-            writer.outputIntervalHistogram(target.histoProvider.getNextHdrDeltaHistogram());
+    private synchronized void writeInterval(Histogram histogram) {
+        if (!closed) {
+            writer.outputIntervalHistogram(histogram);
         }
-        lastRunTime = System.currentTimeMillis();
     }
 
+    /**
+     * Any partial intervals should be flushed by the {@link HistogramHub} before this is called.
+     */
     @Override
-    public void closeMetrics() {
-        executor.close();
-        long potentialWriteTime = System.currentTimeMillis();
-        if (lastRunTime +1000 < potentialWriteTime) {
-            logger.debug("Writing last partial histo log:" + this);
-            run();
-        } else {
-            logger.debug("Not writing last partial histo log <1s:" + this);
+    public synchronized void closeMetrics() {
+        for (WriterTarget target : targets) {
+            target.window.removeListener(target.listener);
         }
+        closed = true;
         logStream.close();
     }
 
     @Override
     public void chart() {
+        if (logfile == null) {
+            return;
+        }
         HistoLogChartGenerator.generateChartFromHistoLog(this);
     }
 
-    private static class WriterTarget implements Comparable<WriterTarget> {
+    private static class WriterTarget {
 
         public String name;
-        public HdrDeltaHistogramProvider histoProvider;
+        public HdrHistogramWindow window;
+        public Consumer<Histogram> listener;
 
-        public WriterTarget(String name, HdrDeltaHistogramProvider attach) {
+        public WriterTarget(String name, HdrHistogramWindow window, Consumer<Histogram> listener) {
             this.name = name;
-            this.histoProvider = attach;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            return name.equals(((WriterTarget)obj).name);
-        }
-
-        @Override
-        public int compareTo(WriterTarget obj) {
-            return name.compareTo(obj.name);
+            this.window = window;
+            this.listener = listener;
         }
     }
 
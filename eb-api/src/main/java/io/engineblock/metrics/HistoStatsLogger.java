@@ -17,7 +17,6 @@
 
 package io.engineblock.metrics;
 
-import org.HdrHistogram.EncodableHistogram;
 import org.HdrHistogram.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,16 +25,18 @@ import java.io.File;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
- * HistoIntervalLogger runs a separate thread to snapshotAndWrite encoded histograms on a regular interval.
+ * HistoStatsLogger writes summary statistics of histograms to a CSV logfile on a regular interval.
  * It listens to the metrics registry for any new metrics that match the pattern. Any metrics
- * which both match the pattern and which are {@link EncodableHistogram}s are written the configured
- * logfile at the configured interval.
+ * which both match the pattern and which are {@link HdrDeltaHistogramProvider}s are written to the configured
+ * logfile at the configured interval. The intervals are taken from a shared {@link HdrHistogramWindow} of
+ * each metric, so logging does not take any data away from other consumers.
  */
-public class HistoStatsLogger extends CapabilityHook<HdrDeltaHistogramAttachment>
-        implements Runnable, MetricsCloseable  {
+public class HistoStatsLogger extends CapabilityHook<HdrDeltaHistogramProvider>
+        implements MetricsCloseable  {
     private final static Logger logger = LoggerFactory.getLogger(HistoStatsLogger.class);
 
     private final String sessionName;
@@ -47,8 +48,7 @@ public class HistoStatsLogger extends CapabilityHook<HdrDeltaHistogramAttachment
     private Pattern pattern;
 
     private List<WriterTarget> targets = new CopyOnWriteArrayList<>();
-    private PeriodicRunnable<HistoStatsLogger> executor;
-    private long lastRunTime=0L;
+    private boolean closed = false;
 
     public HistoStatsLogger(String sessionName, File file, Pattern pattern, long intervalLength, TimeUnit timeUnit) {
         this.sessionName = sessionName;
@@ -78,9 +78,6 @@ public class HistoStatsLogger extends CapabilityHook<HdrDeltaHistogramAttachment
         writer.outputTimeUnit(timeUnit);
         writer.setBaseTime(currentTimeMillis);
         writer.outputLegend();
-
-        this.executor = new PeriodicRunnable<HistoStatsLogger>(this.getInterval(), this);
-        executor.startDaemonThread();
     }
 
     public String toString() {
@@ -94,40 +91,45 @@ public class HistoStatsLogger extends CapabilityHook<HdrDeltaHistogramAttachment
     }
 
     @Override
-    public void onCapableAdded(String name, HdrDeltaHistogramAttachment chainedHistogram) {
+    public synchronized void onCapableAdded(String name, HdrDeltaHistogramProvider provider) {
         if (pattern.matcher(name).matches()) {
-            this.targets.add(new WriterTarget(name, chainedHistogram.attachHdrDeltaHistogram()));
+            HdrHistogramWindow window = provider.getDeltaReservoir().getWindow(intervalLength);
+            WriterTarget target = new WriterTarget(name, window, this::writeInterval);
+            window.addListener(target.listener);
+            this.targets.add(target);
         }
     }
 
     @Override
-    public void onCapableRemoved(String name, HdrDeltaHistogramAttachment capable) {
-        this.targets.remove(new WriterTarget(name,null));
+    public synchronized void onCapableRemoved(String name, HdrDeltaHistogramProvider capable) {
+        for (WriterTarget target : targets) {
+            if (target.name.equals(name)) {
+                target.window.removeListener(target.listener);
+                targets.remove(target);
+            }
+        }
     }
 
     @Override
-    protected Class<HdrDeltaHistogramAttachment> getCapabilityClass() {
-        return HdrDeltaHistogramAttachment.class;
+    protected Class<HdrDeltaHistogramProvider> getCapabilityClass() {
+        return HdrDeltaHistogramProvider.class;
     }
 
-    @Override
-    public void run() {
-        for (WriterTarget target : this.targets) {
-            Histogram nextHdrHistogram = target.histoProvider.getNextHdrDeltaHistogram();
-            writer.writeInterval(nextHdrHistogram);
+    private synchronized void writeInterval(Histogram histogram) {
+        if (!closed) {
+            writer.writeInterval(histogram);
         }
-        this.lastRunTime = System.currentTimeMillis();
     }
 
+    /**
+     * Any partial intervals should be flushed by the {@link HistogramHub} before this is called.
+     */
     @Override
-    public void closeMetrics() {
-        long now = System.currentTimeMillis();
-        if (lastRunTime+1000<now) {
-            logger.debug("Writing last partial interval: " + this);
-            run();
-        } else {
-            logger.debug("Not writing last partial interval <1s: " + this);
+    public synchronized void closeMetrics() {
+        for (WriterTarget target : targets) {
+            target.window.removeListener(target.listener);
         }
+        closed = true;
     }
 
     @Override
@@ -135,24 +137,16 @@ public class HistoStatsLogger extends CapabilityHook<HdrDeltaHistogramAttachment
        // nothing-to-do we only chart HistoIntervals not HistoStats
     }
 
-    private static class WriterTarget implements Comparable<WriterTarget> {
+    private static class WriterTarget {
 
         public String name;
-        public HdrDeltaHistogramProvider histoProvider;
+        public HdrHistogramWindow window;
+        public Consumer<Histogram> listener;
 
-        public WriterTarget(String name, HdrDeltaHistogramProvider attach) {
+        public WriterTarget(String name, HdrHistogramWindow window, Consumer<Histogram> listener) {
             this.name = name;
-            this.histoProvider = attach;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            return name.equals(((WriterTarget)obj).name);
-        }
-
-        @Override
-        public int compareTo(WriterTarget obj) {
-            return name.compareTo(obj.name);
+            this.window = window;
+            this.listener = listener;
         }
     }
 }
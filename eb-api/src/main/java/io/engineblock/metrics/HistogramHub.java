@@ -0,0 +1,189 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * <p>The histogram hub is the single clock for all {@link DeltaHdrHistogramReservoir}s in this runtime.
+ * On each tick, every registered reservoir drains its recorder exactly once, and publishes the
+ * resulting interval to its windows and to its cumulative histogram.</p>
+ *
+ * <p>Consumers of histogram data never reset a reservoir. Instead, they either listen to a shared
+ * {@link HdrHistogramWindow} of the length they need, or use a {@link DeltaSnapshotReader},
+ * which computes deltas between cumulative histograms. Reservoirs are only weakly held by the hub,
+ * so that they are released along with their metrics.</p>
+ */
+public class HistogramHub implements Runnable {
+    private final static Logger logger = LoggerFactory.getLogger(HistogramHub.class);
+
+    public final static long DEFAULT_TICK_MILLIS = 1000L;
+    private static HistogramHub instance;
+
+    private final Set<DeltaHdrHistogramReservoir> reservoirs = Collections.newSetFromMap(new WeakHashMap<>());
+    private final long tickMillis;
+    private final List<Runnable> tickListeners = new CopyOnWriteArrayList<>();
+    private volatile long reportingWindowMillis = 0L;
+    private final Set<Long> reportingWindows = new CopyOnWriteArraySet<>();
+    private final ThreadLocal<Long> reportWindowMillis = new ThreadLocal<>();
+    private PeriodicRunnable<HistogramHub> ticker;
+
+    private HistogramHub(long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    public synchronized static HistogramHub getInstance() {
+        if (instance == null) {
+            instance = new HistogramHub(DEFAULT_TICK_MILLIS);
+            instance.ticker = new PeriodicRunnable<>(instance.tickMillis, instance).startDaemonThread();
+        }
+        return instance;
+    }
+
+    /**
+     * Add a reservoir to be ticked by this hub. Any reporting windows are created on the reservoir
+     * immediately, so that the first report covers a whole window.
+     * @param reservoir the reservoir to tick
+     */
+    public void register(DeltaHdrHistogramReservoir reservoir) {
+        synchronized (reservoirs) {
+            reservoirs.add(reservoir);
+        }
+        for (Long windowMillis : reportingWindows) {
+            reservoir.getWindow(windowMillis);
+        }
+    }
+
+    private List<DeltaHdrHistogramReservoir> getReservoirs() {
+        synchronized (reservoirs) {
+            return new ArrayList<>(reservoirs);
+        }
+    }
+
+    @Override
+    public void run() {
+        for (DeltaHdrHistogramReservoir reservoir : getReservoirs()) {
+            reservoir.tick();
+        }
+        for (Runnable tickListener : tickListeners) {
+            tickListener.run();
+        }
+    }
+
+    /**
+     * Add a listener which is called after each tick, once all reservoirs have published their
+     * intervals. Listeners are called on the ticking thread, so they should return quickly.
+     * @param tickListener the listener to call
+     */
+    public void addTickListener(Runnable tickListener) {
+        tickListeners.add(tickListener);
+    }
+
+    public void removeTickListener(Runnable tickListener) {
+        tickListeners.remove(tickListener);
+    }
+
+    /**
+     * Bring the cumulative histogram of every reservoir up to date, without ticking. No interval ends,
+     * no window advances, and tick listeners are not called, so this may be used at any time by readers
+     * which need cumulative data which is current, such as summaries at the end of a scenario.
+     */
+    public void updateCumulative() {
+        for (DeltaHdrHistogramReservoir reservoir : getReservoirs()) {
+            reservoir.updateCumulative();
+        }
+    }
+
+    /**
+     * Take a final interval from all reservoirs, and publish any partial windows. This should be called
+     * at the end of a run, so that no recorded data is left unreported.
+     */
+    public void flush() {
+        logger.debug("flushing all histogram reservoirs");
+        for (DeltaHdrHistogramReservoir reservoir : getReservoirs()) {
+            reservoir.tick();
+            reservoir.flushWindows();
+        }
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * @return the window length which is used for {@link com.codahale.metrics.Reservoir#getSnapshot()}
+     * on the calling thread, or 0 to report cumulative data
+     */
+    public long getReportingWindowMillis() {
+        Long windowMillis = reportWindowMillis.get();
+        return windowMillis != null ? windowMillis : reportingWindowMillis;
+    }
+
+    /**
+     * Set the default window length which is seen by callers of {@link com.codahale.metrics.Reservoir#getSnapshot()},
+     * such as scripts, when they are not running a report with {@link #report(long, Runnable)}.
+     * @param reportingWindowMillis the window length, or 0 to report cumulative data
+     */
+    public void setReportingWindowMillis(long reportingWindowMillis) {
+        addReportingWindow(reportingWindowMillis);
+        this.reportingWindowMillis = reportingWindowMillis;
+    }
+
+    /**
+     * Create a window of the given length on all reservoirs, including those which are registered later.
+     * @param windowMillis the window length, or 0 for none
+     */
+    public void addReportingWindow(long windowMillis) {
+        if (windowMillis > 0L && reportingWindows.add(windowMillis)) {
+            for (DeltaHdrHistogramReservoir reservoir : getReservoirs()) {
+                reservoir.getWindow(windowMillis);
+            }
+        }
+    }
+
+    /**
+     * Run a report on the calling thread, with its own window length. Each reporter should use a window
+     * which matches its own reporting interval, so that each reported value covers one whole window.
+     * @param windowMillis the window length for this report, or 0 to report cumulative data
+     * @param report the report to run
+     */
+    public void report(long windowMillis, Runnable report) {
+        addReportingWindow(windowMillis);
+        reportWindowMillis.set(windowMillis);
+        try {
+            report.run();
+        } finally {
+            reportWindowMillis.remove();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramHub:" + tickMillis + "ms";
+    }
+}
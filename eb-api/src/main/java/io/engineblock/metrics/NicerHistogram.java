@@ -23,11 +23,9 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 
-public class NicerHistogram extends Histogram implements DeltaSnapshotter, HdrDeltaHistogramAttachment, HistogramAttachment {
+public class NicerHistogram extends Histogram implements DeltaSnapshotter, HdrDeltaHistogramProvider, HistogramAttachment {
 
     private final DeltaHdrHistogramReservoir hdrDeltaReservoir;
-    private long cacheExpiryMillis = 0L;
-    private long cacheTimeMillis = 0L;
     private String metricName;
     private List<Histogram> mirrors;
 
@@ -39,39 +37,23 @@ public class NicerHistogram extends Histogram implements DeltaSnapshotter, HdrDe
 
     @Override
     public DeltaSnapshotReader getDeltaReader() {
-        return new DeltaSnapshotReader(this);
+        return new DeltaSnapshotReader(hdrDeltaReservoir);
     }
 
     /**
-     * Only return a new snapshot form current reservoir data if the cached one has expired.
+     * This does not reset the reservoir. See {@link DeltaHdrHistogramReservoir#getSnapshot()}.
      *
-     * @return a new delta snapshot, or the cached one
+     * @return a snapshot of the current reporting window
      */
     @Override
     public ConvenientSnapshot getSnapshot() {
-        if (System.currentTimeMillis() < cacheExpiryMillis) {
-            return new ConvenientSnapshot(hdrDeltaReservoir.getLastSnapshot());
-        } else {
-            return new ConvenientSnapshot(hdrDeltaReservoir.getSnapshot());
-        }
-    }
-
-    public ConvenientSnapshot getDeltaSnapshot(long cacheTimeMillis) {
-        this.cacheTimeMillis = cacheTimeMillis;
-        cacheExpiryMillis = System.currentTimeMillis() + this.cacheTimeMillis;
-        ConvenientSnapshot convenientSnapshot = new ConvenientSnapshot(hdrDeltaReservoir.getSnapshot());
-        return convenientSnapshot;
+        return new ConvenientSnapshot(hdrDeltaReservoir.getSnapshot());
     }
 
     @Override
-    public synchronized NicerHistogram attachHdrDeltaHistogram() {
-        if (mirrors == null) {
-            mirrors = new CopyOnWriteArrayList<>();
-        }
-        DeltaHdrHistogramReservoir mirrorReservoir = this.hdrDeltaReservoir.copySettings();
-        NicerHistogram mirror = new NicerHistogram("mirror-" + this.metricName, mirrorReservoir);
-        mirrors.add(mirror);
-        return mirror;
+    public ConvenientSnapshot getDeltaSnapshot(long windowMillis) {
+        org.HdrHistogram.Histogram windowed = hdrDeltaReservoir.getWindow(windowMillis).getLastHistogram();
+        return new ConvenientSnapshot(new DeltaHistogramSnapshot(windowed));
     }
 
     @Override
@@ -94,8 +76,8 @@ public class NicerHistogram extends Histogram implements DeltaSnapshotter, HdrDe
     }
 
     @Override
-    public org.HdrHistogram.Histogram getNextHdrDeltaHistogram() {
-        return hdrDeltaReservoir.getNextHdrHistogram();
+    public DeltaHdrHistogramReservoir getDeltaReservoir() {
+        return hdrDeltaReservoir;
     }
 
 }
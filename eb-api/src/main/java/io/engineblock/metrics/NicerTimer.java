@@ -24,11 +24,9 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
-public class NicerTimer extends Timer implements DeltaSnapshotter, HdrDeltaHistogramAttachment, TimerAttachment {
+public class NicerTimer extends Timer implements DeltaSnapshotter, HdrDeltaHistogramProvider, TimerAttachment {
     private final String metricName;
     private DeltaHdrHistogramReservoir deltaHdrHistogramReservoir;
-    private long cacheExpiry = 0L;
-    private ConvenientSnapshot lastSnapshot;
     private List<Timer> mirrors;
 
     public NicerTimer(String metricName, DeltaHdrHistogramReservoir deltaHdrHistogramReservoir) {
@@ -39,33 +37,19 @@ public class NicerTimer extends Timer implements DeltaSnapshotter, HdrDeltaHisto
 
     @Override
     public ConvenientSnapshot getSnapshot() {
-        if (System.currentTimeMillis() >= cacheExpiry) {
-            return new ConvenientSnapshot(deltaHdrHistogramReservoir.getSnapshot());
-        } else {
-            return new ConvenientSnapshot(deltaHdrHistogramReservoir.getLastSnapshot());
-        }
+        return new ConvenientSnapshot(deltaHdrHistogramReservoir.getSnapshot());
     }
 
     public DeltaSnapshotReader getDeltaReader() {
-        return new DeltaSnapshotReader(this);
+        return new DeltaSnapshotReader(deltaHdrHistogramReservoir);
     }
 
     @Override
-    public ConvenientSnapshot getDeltaSnapshot(long cacheTimeMillis) {
-        this.cacheExpiry = System.currentTimeMillis() + cacheTimeMillis;
-        return new ConvenientSnapshot(deltaHdrHistogramReservoir.getSnapshot());
+    public ConvenientSnapshot getDeltaSnapshot(long windowMillis) {
+        Histogram windowed = deltaHdrHistogramReservoir.getWindow(windowMillis).getLastHistogram();
+        return new ConvenientSnapshot(new DeltaHistogramSnapshot(windowed));
     }
 
-    @Override
-    public synchronized NicerTimer attachHdrDeltaHistogram() {
-        if (mirrors==null) {
-            mirrors = new CopyOnWriteArrayList<>();
-        }
-        DeltaHdrHistogramReservoir sameConfigReservoir = this.deltaHdrHistogramReservoir.copySettings();
-        NicerTimer mirror = new NicerTimer(this.metricName, sameConfigReservoir);
-        mirrors.add(mirror);
-        return mirror;
-    }
     @Override
     public Timer attachTimer(Timer timer) {
         if (mirrors==null) {
@@ -75,10 +59,9 @@ public class NicerTimer extends Timer implements DeltaSnapshotter, HdrDeltaHisto
         return timer;
     }
 
-
     @Override
-    public Histogram getNextHdrDeltaHistogram() {
-        return this.deltaHdrHistogramReservoir.getNextHdrHistogram();
+    public DeltaHdrHistogramReservoir getDeltaReservoir() {
+        return deltaHdrHistogramReservoir;
     }
 
     @Override
@@ -0,0 +1,288 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics;
+
+import com.codahale.metrics.Gauge;
+import io.engineblock.activityimpl.ActivityDef;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * <p>Per-slot counters for an activity, so that imbalance between motor slots can be seen.
+ * This is an opt-in dimension of activity instrumentation, enabled with the <em>slotmetrics</em>
+ * activity parameter. The activity-level metrics are still recorded as usual.</p>
+ *
+ * <p>All values are kept in primitive arrays, with each slot padded to its own cache line.
+ * Slots are allocated in fixed pages which are never moved, so the number of slots can grow
+ * while motors hold references to their {@link Slot}.</p>
+ *
+ * <p>When created for an activity, summary gauges roll the slot values up to min and max values,
+ * so the number of registered metrics does not grow with the number of threads. Numeric gauges
+ * for single slots, named like <em>slots.&lt;slot&gt;.cycles</em>, are only registered for the
+ * slots listed in the <em>slotgauges</em> activity parameter. The whole breakdown is available
+ * as a table from {@link #getBreakdown()}.</p>
+ */
+public class SlotMetrics {
+
+    private final static int CYCLES = 0;
+    private final static int SERVICE_NANOS = 1;
+    private final static int WAIT_NANOS = 2;
+    private final static int PENDING_OPS = 3;
+    private final static int BLOCKED = 4;
+
+    // 8 longs per slot == 64 bytes, to keep slots on separate cache lines
+    private final static int STRIDE = 8;
+    private final static int PAGE_SLOTS = 64;
+
+    private final String name;
+    private final ActivityDef activityDef;
+    private final Set<Integer> gaugedSlots;
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+    private volatile int slotCount = 0;
+
+    public SlotMetrics(String name) {
+        this(name, null);
+    }
+
+    private SlotMetrics(String name, ActivityDef activityDef) {
+        this.name = name;
+        this.activityDef = activityDef;
+        this.gaugedSlots = activityDef == null ? Set.of() :
+                activityDef.getParams().getOptionalString("slotgauges").map(SlotMetrics::parseSlots).orElse(Set.of());
+    }
+
+    private static Set<Integer> parseSlots(String slotList) {
+        Set<Integer> slots = new HashSet<>();
+        for (String slot : slotList.split(",")) {
+            try {
+                slots.add(Integer.valueOf(slot.trim()));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid slot '" + slot + "' in slotgauges '" + slotList + "'", e);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Create slot metrics for an activity, and register summary gauges for them.
+     * Gauges for the slots listed in <em>slotgauges</em> are registered as each slot is first used.
+     * @param activityDef The activity which owns the slots
+     * @return a new SlotMetrics
+     */
+    public static SlotMetrics forActivity(ActivityDef activityDef) {
+        SlotMetrics slotMetrics = new SlotMetrics(activityDef.getAlias(), activityDef);
+        ActivityMetrics.gauge(activityDef, "slots.cycles_min", slotMetrics.rollupGauge(CYCLES, Math::min));
+        ActivityMetrics.gauge(activityDef, "slots.cycles_max", slotMetrics.rollupGauge(CYCLES, Math::max));
+        ActivityMetrics.gauge(activityDef, "slots.waittime_max", slotMetrics.rollupGauge(WAIT_NANOS, Math::max));
+        ActivityMetrics.gauge(activityDef, "slots.pending_ops_max", slotMetrics.rollupGauge(PENDING_OPS, Math::max));
+        ActivityMetrics.gauge(activityDef, "slots.blocked_max", slotMetrics.rollupGauge(BLOCKED, Math::max));
+        ActivityMetrics.gauge(activityDef, "slots.servicetime_mean_max", slotMetrics.meanServiceTimeMaxGauge());
+        return slotMetrics;
+    }
+
+    /**
+     * Get the counters for a slot, allocating space for it if needed.
+     * @param slotId the motor slot
+     * @return a {@link Slot} which updates the values for that slot
+     */
+    public Slot forSlot(long slotId) {
+        int slot = (int) slotId;
+        AtomicLongArray page = ensurePage(slot / PAGE_SLOTS);
+        synchronized (this) {
+            if (slot >= slotCount) {
+                slotCount = slot + 1;
+            }
+        }
+        if (gaugedSlots.contains(slot)) {
+            registerSlotGauges(slot);
+        }
+        return new Slot(page, (slot % PAGE_SLOTS) * STRIDE);
+    }
+
+    private void registerSlotGauges(int slot) {
+        String prefix = "slots." + slot + ".";
+        ActivityMetrics.gauge(activityDef, prefix + "cycles", () -> getCycles(slot));
+        ActivityMetrics.gauge(activityDef, prefix + "servicetime_mean", () -> getMeanServiceTimeNanos(slot));
+        ActivityMetrics.gauge(activityDef, prefix + "waittime", () -> getWaitTimeNanos(slot));
+        ActivityMetrics.gauge(activityDef, prefix + "pending_ops", () -> getPendingOps(slot));
+        ActivityMetrics.gauge(activityDef, prefix + "blocked", () -> getBlocked(slot));
+    }
+
+    private AtomicLongArray ensurePage(int pageIndex) {
+        AtomicLongArray[] current = pages;
+        if (pageIndex < current.length) {
+            return current[pageIndex];
+        }
+        synchronized (this) {
+            if (pageIndex >= pages.length) {
+                AtomicLongArray[] grown = Arrays.copyOf(pages, pageIndex + 1);
+                for (int i = pages.length; i < grown.length; i++) {
+                    grown[i] = new AtomicLongArray(PAGE_SLOTS * STRIDE);
+                }
+                pages = grown;
+            }
+            return pages[pageIndex];
+        }
+    }
+
+    private long get(int slot, int field) {
+        AtomicLongArray[] current = pages;
+        int pageIndex = slot / PAGE_SLOTS;
+        if (pageIndex >= current.length) {
+            return 0L;
+        }
+        return current[pageIndex].get((slot % PAGE_SLOTS) * STRIDE + field);
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public long getCycles(int slot) {
+        return get(slot, CYCLES);
+    }
+
+    public long getServiceTimeNanos(int slot) {
+        return get(slot, SERVICE_NANOS);
+    }
+
+    public long getWaitTimeNanos(int slot) {
+        return get(slot, WAIT_NANOS);
+    }
+
+    public long getPendingOps(int slot) {
+        return get(slot, PENDING_OPS);
+    }
+
+    public long getBlocked(int slot) {
+        return get(slot, BLOCKED);
+    }
+
+    /**
+     * @param slot the motor slot
+     * @return the mean service time per cycle for the slot, in nanoseconds
+     */
+    public double getMeanServiceTimeNanos(int slot) {
+        long cycles = getCycles(slot);
+        return cycles == 0 ? 0.0d : (double) getServiceTimeNanos(slot) / cycles;
+    }
+
+    public long[] getCyclesArray() {
+        return toArray(CYCLES);
+    }
+
+    public long[] getWaitTimeNanosArray() {
+        return toArray(WAIT_NANOS);
+    }
+
+    public long[] getPendingOpsArray() {
+        return toArray(PENDING_OPS);
+    }
+
+    public long[] getBlockedArray() {
+        return toArray(BLOCKED);
+    }
+
+    private long[] toArray(int field) {
+        int count = slotCount;
+        long[] values = new long[count];
+        for (int slot = 0; slot < count; slot++) {
+            values[slot] = get(slot, field);
+        }
+        return values;
+    }
+
+    private long rollup(int field, LongBinaryOperator op) {
+        int count = slotCount;
+        if (count == 0) {
+            return 0L;
+        }
+        long value = get(0, field);
+        for (int slot = 1; slot < count; slot++) {
+            value = op.applyAsLong(value, get(slot, field));
+        }
+        return value;
+    }
+
+    private Gauge<Long> rollupGauge(int field, LongBinaryOperator op) {
+        return () -> rollup(field, op);
+    }
+
+    private Gauge<Double> meanServiceTimeMaxGauge() {
+        return () -> {
+            double max = 0.0d;
+            for (int slot = 0; slot < slotCount; slot++) {
+                max = Math.max(max, getMeanServiceTimeNanos(slot));
+            }
+            return max;
+        };
+    }
+
+    /**
+     * @return a table with one row per slot, for printing from scripts or diagnostics
+     */
+    public String getBreakdown() {
+        StringBuilder sb = new StringBuilder("slots[" + name + "]\n");
+        sb.append(String.format("%6s %12s %14s %16s %8s %8s%n",
+                "slot", "cycles", "svc_mean_ns", "wait_ns", "pending", "blocked"));
+        for (int slot = 0; slot < slotCount; slot++) {
+            sb.append(String.format("%6d %12d %14.0f %16d %8d %8d%n",
+                    slot, getCycles(slot), getMeanServiceTimeNanos(slot), getWaitTimeNanos(slot),
+                    getPendingOps(slot), getBlocked(slot)));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getBreakdown();
+    }
+
+    /**
+     * The counters for a single slot. Motors and op trackers should hold on to this rather than
+     * looking it up for each cycle.
+     */
+    public final static class Slot {
+        private final AtomicLongArray page;
+        private final int base;
+
+        private Slot(AtomicLongArray page, int base) {
+            this.page = page;
+            this.base = base;
+        }
+
+        public void addCycle(long serviceNanos, long waitNanos) {
+            page.incrementAndGet(base + CYCLES);
+            page.addAndGet(base + SERVICE_NANOS, serviceNanos);
+            page.addAndGet(base + WAIT_NANOS, waitNanos);
+        }
+
+        public void setPendingOps(long pendingOps) {
+            page.lazySet(base + PENDING_OPS, pendingOps);
+        }
+
+        public void incBlocked() {
+            page.incrementAndGet(base + BLOCKED);
+        }
+    }
+}
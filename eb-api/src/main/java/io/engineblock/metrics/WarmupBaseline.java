@@ -0,0 +1,107 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import org.HdrHistogram.Histogram;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>The state of the metrics of an activity at the end of its warmup. Reservoirs and counters are
+ * never reset at the warmup boundary, since other readers depend on them. Instead, results which
+ * should exclude the warmup subtract this baseline from the final values.</p>
+ *
+ * <p>Histogram baselines are copies of the cumulative histograms, which are taken just after a
+ * {@link HistogramHub} tick, so that they line up with the interval histograms.</p>
+ */
+public class WarmupBaseline {
+
+    private final String alias;
+    private final long boundaryMillis;
+    private final Map<String, Histogram> histograms = new HashMap<>();
+    private final Map<String, Long> counts = new HashMap<>();
+
+    private WarmupBaseline(String alias, long boundaryMillis) {
+        this.alias = alias;
+        this.boundaryMillis = boundaryMillis;
+    }
+
+    /**
+     * Capture the current state of all metrics of an activity.
+     *
+     * @param alias    The activity alias, which is the prefix of all its metric names
+     * @param registry The registry which holds the activity metrics
+     * @return a WarmupBaseline
+     */
+    public static WarmupBaseline capture(String alias, MetricRegistry registry) {
+        WarmupBaseline baseline = new WarmupBaseline(alias, System.currentTimeMillis());
+        String prefix = alias + ".";
+        for (Map.Entry<String, Metric> entry : registry.getMetrics().entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            String name = entry.getKey().substring(prefix.length());
+            Metric metric = entry.getValue();
+            if (metric instanceof HdrDeltaHistogramProvider) {
+                baseline.histograms.put(name, ((HdrDeltaHistogramProvider) metric).getDeltaReservoir().getCumulativeHistogram());
+            }
+            if (metric instanceof Counting) {
+                baseline.counts.put(name, ((Counting) metric).getCount());
+            }
+        }
+        return baseline;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return when the warmup ended, which is the start of the measured part of the run
+     */
+    public long getBoundaryMillis() {
+        return boundaryMillis;
+    }
+
+    /**
+     * @param name The metric name, relative to the activity alias
+     * @return the cumulative histogram at the warmup boundary, or null if the metric did not exist
+     */
+    public Histogram getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * @param name The metric name, relative to the activity alias
+     * @return the count of a timer, histogram, counter or meter at the warmup boundary, or 0
+     */
+    public long getCount(String name) {
+        return counts.getOrDefault(name, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupBaseline{" + alias + " at " + boundaryMillis + ", " + histograms.size() + " histograms, "
+                + counts.size() + " counts}";
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for a change to activity parameters while the activity is running,
+ * covering the time it took for the activity and its motors to adjust to it.
+ */
+@Name(ActivityParamsChangeEvent.NAME)
+@Label("Activity Params Change")
+@Category({"EngineBlock", "Activity"})
+@Description("Activity parameters were changed and applied")
+@StackTrace(false)
+public class ActivityParamsChangeEvent extends Event {
+
+    public final static String NAME = "io.engineblock.ActivityParamsChange";
+
+    @Label("Activity")
+    public String activity;
+
+    @Label("Parameters")
+    public String params;
+
+}
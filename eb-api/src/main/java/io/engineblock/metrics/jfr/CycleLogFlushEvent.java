@@ -0,0 +1,46 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for an extent of cycle results being written to a cycle log.
+ */
+@Name(CycleLogFlushEvent.NAME)
+@Label("Cycle Log Flush")
+@Category({"EngineBlock", "Cycle Log"})
+@Description("An extent of RLE cycle results written to a cycle log file")
+@StackTrace(false)
+public class CycleLogFlushEvent extends Event {
+
+    public final static String NAME = "io.engineblock.CycleLogFlush";
+
+    @Label("File")
+    public String file;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+}
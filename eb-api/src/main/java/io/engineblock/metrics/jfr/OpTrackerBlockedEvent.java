@@ -0,0 +1,49 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for a motor which could not submit another async op because its op
+ * tracker already had the maximum number of pending ops.
+ */
+@Name(OpTrackerBlockedEvent.NAME)
+@Label("Op Tracker Blocked")
+@Category({"EngineBlock", "Motor"})
+@Description("A motor blocked on async op backpressure")
+@Threshold("10 ms")
+@StackTrace(false)
+public class OpTrackerBlockedEvent extends Event {
+
+    public final static String NAME = "io.engineblock.OpTrackerBlocked";
+
+    @Label("Activity")
+    public String activity;
+
+    @Label("Slot")
+    public long slot;
+
+    @Label("Cycle")
+    public long cycle;
+
+    @Label("Max Pending Ops")
+    public int maxPendingOps;
+
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for a caller which had to block in a token pool until enough
+ * tokens were available. Callers which do not block do not create this event.
+ */
+@Name(RateLimiterWaitEvent.NAME)
+@Label("Rate Limiter Wait")
+@Category({"EngineBlock", "Rate Limiter"})
+@Description("A blocking wait for rate limiter tokens")
+@Threshold("10 ms")
+@StackTrace(false)
+public class RateLimiterWaitEvent extends Event {
+
+    public final static String NAME = "io.engineblock.RateLimiterWait";
+
+    @Label("Rate")
+    @Description("The configured rate, in ops per second")
+    public double rate;
+
+    @Label("Tokens Needed")
+    @Timespan(Timespan.NANOSECONDS)
+    public long tokensNeeded;
+
+    @Label("Active Pool")
+    @Description("The active pool size when the wait started")
+    @Timespan(Timespan.NANOSECONDS)
+    public long activePool;
+
+    @Label("Waiting Pool")
+    @Description("The waiting pool size when the wait started")
+    @Timespan(Timespan.NANOSECONDS)
+    public long waitingPool;
+
+}
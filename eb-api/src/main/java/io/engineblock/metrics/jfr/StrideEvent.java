@@ -0,0 +1,75 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event which covers a whole stride, from the time the motor started it until the
+ * last op in the stride was completed. For async activities, this event is begun by the
+ * motor and committed by the stride tracker when the stride is full.
+ *
+ * <p>Strides are frequent, so this event has a threshold by default, and motors only
+ * instrument one of every <em>jfrsample</em> strides.</p>
+ */
+@Name(StrideEvent.NAME)
+@Label("Stride")
+@Category({"EngineBlock", "Motor"})
+@Description("A stride of cycles, from start to completion")
+@Threshold("20 ms")
+@StackTrace(false)
+public class StrideEvent extends Event {
+
+    public final static String NAME = "io.engineblock.Stride";
+
+    @Label("Activity")
+    public String activity;
+
+    @Label("Slot")
+    public long slot;
+
+    @Label("First Cycle")
+    public long firstCycle;
+
+    @Label("Stride")
+    public int stride;
+
+    @Label("Wait Time")
+    @Description("The time this stride spent waiting on the strides rate limiter")
+    @Timespan(Timespan.NANOSECONDS)
+    public long waitTime;
+
+    /**
+     * Create and begin a stride event, only if stride events are enabled in a recording.
+     * @return a started event, or null if stride events are not being recorded
+     */
+    public static StrideEvent beginIfEnabled(String activity, long slot, long firstCycle, int stride, long waitTime) {
+        StrideEvent event = new StrideEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.activity = activity;
+        event.slot = slot;
+        event.firstCycle = firstCycle;
+        event.stride = stride;
+        event.waitTime = waitTime;
+        event.begin();
+        return event;
+    }
+}
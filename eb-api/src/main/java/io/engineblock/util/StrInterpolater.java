@@ -52,10 +52,42 @@ public class StrInterpolater implements Function<String, String> {
         return substitutor.replace(substitutor2.replace(s));
     }
 
+    /**
+     * Apply this interpolater, and record each key which was looked up, with the value it
+     * resolved to. The result only depends on the input and these values, so another interpolater
+     * which {@link #resolvesTo(Map)} the same values gives the same result for the same input.
+     *
+     * @param s       The text to interpolate
+     * @param lookups A map to record the lookups in
+     * @return the interpolated text
+     */
+    public synchronized String apply(String s, Map<String, String> lookups) {
+        multimap.recorder = lookups;
+        try {
+            return apply(s);
+        } finally {
+            multimap.recorder = null;
+        }
+    }
+
+    /**
+     * @param lookups keys and values, as recorded by {@link #apply(String, Map)}
+     * @return true if each key resolves to the same value with this interpolater
+     */
+    public boolean resolvesTo(Map<String, String> lookups) {
+        for (Map.Entry<String, String> lookup : lookups.entrySet()) {
+            if (!lookup.getValue().equals(multimap.resolve(lookup.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static class MultiMap extends StrLookup<String> {
 
         private List<Map<String, String>> maps = new ArrayList<>();
         private String warnPrefix = "UNSET";
+        private Map<String, String> recorder;
 
         public void add(Map<String,String> addedMap) {
             maps.add(addedMap);
@@ -63,6 +95,14 @@ public class StrInterpolater implements Function<String, String> {
 
         @Override
         public String lookup(String key) {
+            String value = resolve(key);
+            if (recorder != null) {
+                recorder.put(key, value);
+            }
+            return value;
+        }
+
+        private String resolve(String key) {
             String defval=null;
 
             String[] parts = key.split("[:,]", 2);
@@ -0,0 +1,98 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.util;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <p>An inverted index of the tags of a list of {@link Tagged} items, which selects the same items
+ * as {@link TagFilter#matchesTagged(Tagged)} would, without testing each item in turn.</p>
+ *
+ * <p>For each tag name, the index keeps the set of items which have that tag, and for each distinct
+ * value of it, the set of items which have that value, as bitsets over the item positions. A filter
+ * is then the intersection of one set for each of its names. A filter value without regex
+ * characters is looked up directly. Any other filter value is matched once against each distinct
+ * value of the tag, instead of once against each item.</p>
+ *
+ * @param <T> The type of the tagged items
+ */
+public class TagIndex<T extends Tagged> {
+
+    private final static Pattern REGEX_CHARS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+    private final List<T> items;
+    private final Map<String, BitSet> names = new HashMap<>();
+    private final Map<String, Map<String, BitSet>> values = new HashMap<>();
+
+    public TagIndex(List<T> items) {
+        this.items = items;
+        for (int position = 0; position < items.size(); position++) {
+            for (Map.Entry<String, String> tag : items.get(position).getTags().entrySet()) {
+                names.computeIfAbsent(tag.getKey(), n -> new BitSet()).set(position);
+                if (tag.getValue() != null) {
+                    values.computeIfAbsent(tag.getKey(), n -> new HashMap<>())
+                            .computeIfAbsent(tag.getValue(), v -> new BitSet())
+                            .set(position);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param tagFilter The filter to apply
+     * @return the matching items, in their original order
+     */
+    public List<T> select(TagFilter tagFilter) {
+        BitSet selected = new BitSet(items.size());
+        selected.set(0, items.size());
+        for (Map.Entry<String, String> filter : tagFilter.getMap().entrySet()) {
+            selected.and(matching(filter.getKey(), filter.getValue()));
+            if (selected.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        List<T> matched = new ArrayList<>(selected.cardinality());
+        for (int position = selected.nextSetBit(0); position >= 0; position = selected.nextSetBit(position + 1)) {
+            matched.add(items.get(position));
+        }
+        return matched;
+    }
+
+    private BitSet matching(String name, String filterValue) {
+        if (filterValue == null) {
+            return names.getOrDefault(name, new BitSet());
+        }
+        Map<String, BitSet> tagValues = values.getOrDefault(name, Collections.emptyMap());
+        if (!REGEX_CHARS.matcher(filterValue).find()) {
+            return tagValues.getOrDefault(filterValue, new BitSet());
+        }
+        Pattern filterPattern = Pattern.compile("^" + filterValue + "$");
+        BitSet matched = new BitSet();
+        for (Map.Entry<String, BitSet> tagValue : tagValues.entrySet()) {
+            if (filterPattern.matcher(tagValue.getKey()).matches()) {
+                matched.or(tagValue.getValue());
+            }
+        }
+        return matched;
+    }
+
+    public int size() {
+        return items.size();
+    }
+}
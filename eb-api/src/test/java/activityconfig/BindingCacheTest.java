@@ -0,0 +1,113 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package activityconfig;
+
+import io.virtdata.core.VirtData;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class BindingCacheTest {
+
+    public void testCacheSpecs() {
+        assertThat(BindingCache.isCached("cache(100): NumberNameToString()")).isTrue();
+        assertThat(BindingCache.isCached("cache(10K):Identity(); ToString()")).isTrue();
+        assertThat(BindingCache.isCached("NumberNameToString()")).isFalse();
+    }
+
+    public void testSameValuesBeforeAndAfterFilling() {
+        BindingCache cache = new BindingCache("NumberNameToString()", 5, VirtData.getMapper("NumberNameToString()"));
+        assertThat(cache.getFilled()).isEqualTo(0);
+        String before = cache.get(7L);
+        cache.fill();
+        assertThat(cache.getFilled()).isEqualTo(5);
+        assertThat(cache.get(7L)).isEqualTo(before);
+        assertThat(cache.get(7L)).isEqualTo("two");
+        assertThat(cache.get(5L)).isEqualTo("zero");
+    }
+
+    public void testValuesAcrossChunks() {
+        int size = BindingCache.CHUNK_SIZE + 3;
+        BindingCache cache = new BindingCache("Identity()", size, VirtData.getMapper("Identity()"));
+        cache.fill();
+        assertThat(cache.get(BindingCache.CHUNK_SIZE - 1)).isEqualTo(String.valueOf(BindingCache.CHUNK_SIZE - 1));
+        assertThat(cache.get(BindingCache.CHUNK_SIZE)).isEqualTo(String.valueOf(BindingCache.CHUNK_SIZE));
+        assertThat(cache.get(size + 2L)).isEqualTo("2");
+    }
+
+    public void testCachedBindingInTemplate() {
+        Map<String, String> bindings = new HashMap<>();
+        bindings.put("name", "cache(10): NumberNameToString()");
+        CompiledTemplate template = CompiledTemplate.compile("name={name}", bindings);
+        assertThat(template.bind(3L)).isEqualTo("name=three");
+        assertThat(template.bind(13L)).isEqualTo("name=three");
+        template.close();
+    }
+
+    public void testCloseDropsBuffers() {
+        BindingCache cache = new BindingCache("NumberNameToString()", 5, VirtData.getMapper("NumberNameToString()"));
+        cache.fill();
+        cache.close();
+        assertThat(cache.isClosed()).isTrue();
+        assertThat(cache.getFilled()).isEqualTo(0);
+        assertThat(cache.get(7L)).isEqualTo("two");
+        cache.fill();
+        assertThat(cache.getFilled()).isEqualTo(0);
+    }
+
+    public void testLastReleaseClosesSharedCache() {
+        String spec = "cache(11): NumberNameToString()";
+        BindingCache first = BindingCache.forSpec(spec, VirtData::getMapper).orElseThrow();
+        BindingCache second = BindingCache.forSpec(spec, VirtData::getMapper).orElseThrow();
+        assertThat(second).isSameAs(first);
+
+        first.release();
+        assertThat(first.isClosed()).isFalse();
+        second.release();
+        assertThat(first.isClosed()).isTrue();
+
+        BindingCache third = BindingCache.forSpec(spec, VirtData::getMapper).orElseThrow();
+        assertThat(third).isNotSameAs(first);
+        third.release();
+    }
+
+    public void testClosingTemplatesReleasesCaches() {
+        Map<String, String> bindings = new HashMap<>();
+        bindings.put("name", "cache(20): NumberNameToString()");
+        CompiledTemplate template = CompiledTemplate.compile("name={name}", bindings);
+        CompiledTemplate other = CompiledTemplate.compile("other={name}", bindings);
+        BindingCache cache = BindingCache.forSpec("cache(20): NumberNameToString()", VirtData::getMapper).orElseThrow();
+        cache.release();
+
+        template.close();
+        template.close();
+        assertThat(cache.isClosed()).isFalse();
+        other.close();
+        assertThat(cache.isClosed()).isTrue();
+        assertThat(other.bind(3L)).isEqualTo("other=three");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testInvalidSize() {
+        new BindingCache("Identity()", 0, VirtData.getMapper("Identity()"));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package activityconfig;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class CompiledTemplateTest {
+
+    private static Map<String, String> bindings() {
+        Map<String, String> bindings = new HashMap<>();
+        bindings.put("alpha", "Identity()");
+        bindings.put("beta", "NumberNameToString()");
+        return bindings;
+    }
+
+    public void testRenderLiteralsAndSlots() {
+        CompiledTemplate template = CompiledTemplate.compile("alpha={alpha} beta={beta}\n", bindings());
+        assertThat(template.getAnchors()).containsExactly("alpha", "beta");
+        assertThat(template.bind(3L)).isEqualTo("alpha=3 beta=three\n");
+        assertThat(template.render(4L).toString()).isEqualTo("alpha=4 beta=four\n");
+    }
+
+    public void testRepeatedAnchors() {
+        CompiledTemplate template = CompiledTemplate.compile("{alpha}-{alpha}-{beta}", bindings());
+        assertThat(template.getAnchors()).containsExactly("alpha", "alpha", "beta");
+        assertThat(template.bind(2L)).isEqualTo("2-2-two");
+    }
+
+    public void testOtherTextIsLiteral() {
+        CompiledTemplate template = CompiledTemplate.compile("{\n \"a\":\"{alpha}\"\n}/path?beta={beta}", bindings());
+        assertThat(template.getAnchors()).containsExactly("alpha", "beta");
+        assertThat(template.bind(1L)).isEqualTo("{\n \"a\":\"1\"\n}/path?beta=one");
+    }
+
+    public void testRenderReusesThreadBuffer() {
+        CompiledTemplate template = CompiledTemplate.compile("{alpha}", bindings());
+        StringBuilder first = template.render(1L);
+        StringBuilder second = template.render(22L);
+        assertThat(second).isSameAs(first);
+        assertThat(second.toString()).isEqualTo("22");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testMissingBinding() {
+        CompiledTemplate.compile("{alpha} {gamma}", bindings());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package activityconfig;
+
+import activityconfig.yaml.StmtDef;
+import activityconfig.yaml.StmtsDocList;
+import io.engineblock.util.StrInterpolater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class WorkloadCacheTest {
+    private final static Logger logger = LoggerFactory.getLogger(WorkloadCacheTest.class);
+
+    public void testSameWorkloadIsShared() {
+        StmtsDocList first = StatementsLoader.load(logger, "testdocs/bindings.yaml");
+        StmtsDocList second = StatementsLoader.load(logger, "testdocs/bindings.yaml");
+        assertThat(second).isSameAs(first);
+        assertThat(second.getStmts("")).isSameAs(first.getStmts(""));
+        StmtDef stmtDef = first.getStmts().get(0);
+        assertThat(stmtDef.getParsed()).isSameAs(stmtDef.getParsed());
+    }
+
+    public void testTemplateValuesAreKeys() {
+        StmtsDocList ks1 = StatementsLoader.load(logger, "testdocs/templated.yaml",
+                interpolater("alias", "one"));
+        StmtsDocList ks1again = StatementsLoader.load(logger, "testdocs/templated.yaml",
+                interpolater("alias", "two"));
+        StmtsDocList ks2 = StatementsLoader.load(logger, "testdocs/templated.yaml",
+                interpolater("keyspace", "ks2"));
+        StmtsDocList tbl2 = StatementsLoader.load(logger, "testdocs/templated.yaml",
+                interpolater("table", "tbl2"));
+
+        assertThat(ks1again).isSameAs(ks1);
+        assertThat(ks1.getStmts().get(0).getStmt()).isEqualTo("select * from ks1.tbl1 where a={alpha}");
+        assertThat(ks2).isNotSameAs(ks1);
+        assertThat(ks2.getStmts().get(0).getStmt()).isEqualTo("select * from ks2.tbl1 where a={alpha}");
+        assertThat(tbl2.getStmts().get(0).getStmt()).isEqualTo("select * from ks1.tbl2 where a={alpha}");
+    }
+
+    public void testOtherTransformersAreNotCached() {
+        StmtsDocList first = StatementsLoader.load(logger, "testdocs/bindings.yaml", s -> s);
+        StmtsDocList second = StatementsLoader.load(logger, "testdocs/bindings.yaml", s -> s);
+        assertThat(second).isNotSameAs(first);
+    }
+
+    private static StrInterpolater interpolater(String key, String value) {
+        Map<String, String> params = new HashMap<>();
+        params.put(key, value);
+        return new StrInterpolater(params);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package activityconfig;
+
+import activityconfig.yaml.StmtDef;
+import activityconfig.yaml.StmtsDocList;
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.util.StrInterpolater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * This measures the startup cost of loading one large workload for many activities, with and
+ * without the {@link WorkloadCache}. It is not enabled by default.
+ */
+@Test(singleThreaded = true, enabled = false)
+public class WorkloadLoadingPerfTest {
+    private final static Logger logger = LoggerFactory.getLogger(WorkloadLoadingPerfTest.class);
+
+    private final static int BLOCKS = 100;
+    private final static int STMTS_PER_BLOCK = 100;
+    private final static int ACTIVITIES = 50;
+
+    @Test(enabled = false)
+    public void testLoadManyActivities() throws IOException {
+        File workload = writeWorkload();
+
+        long uncachedNanos = 0L;
+        for (int activity = 0; activity < ACTIVITIES; activity++) {
+            WorkloadCache.clear();
+            long started = System.nanoTime();
+            loadFor(workload, activity);
+            uncachedNanos += System.nanoTime() - started;
+        }
+
+        WorkloadCache.clear();
+        long cachedNanos = 0L;
+        for (int activity = 0; activity < ACTIVITIES; activity++) {
+            long started = System.nanoTime();
+            loadFor(workload, activity);
+            cachedNanos += System.nanoTime() - started;
+        }
+
+        System.out.format("%d statements, %d activities: uncached=%.1fms cached=%.1fms%n",
+                BLOCKS * STMTS_PER_BLOCK, ACTIVITIES, uncachedNanos / 1_000_000.0D, cachedNanos / 1_000_000.0D);
+    }
+
+    private void loadFor(File workload, int activity) {
+        ActivityDef activityDef = ActivityDef.parseActivityDef("alias=activity" + activity + ";threads=" + activity);
+        StmtsDocList stmtsDocList = StatementsLoader.load(logger, workload.getPath(), new StrInterpolater(activityDef));
+        stmtsDocList.getStmts("block:block" + (activity % BLOCKS)).forEach(StmtDef::getParsed);
+    }
+
+    private File writeWorkload() throws IOException {
+        File workload = File.createTempFile("workload-perf-", ".yaml");
+        workload.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(workload)) {
+            writer.println("bindings:");
+            writer.println(" id: Identity()");
+            writer.println(" name: NumberNameToString()");
+            writer.println("blocks:");
+            for (int block = 0; block < BLOCKS; block++) {
+                writer.println(" - name: block" + block);
+                writer.println("   tags:");
+                writer.println("    block: block" + block);
+                writer.println("   statements:");
+                for (int stmt = 0; stmt < STMTS_PER_BLOCK; stmt++) {
+                    writer.println("    - stmt" + stmt + ": \"insert into <<keyspace:ks>>.t" + stmt
+                            + " (id, name) values ({id}, {name})\"");
+                }
+            }
+        }
+        return workload;
+    }
+}
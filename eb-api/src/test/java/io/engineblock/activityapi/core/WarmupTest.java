@@ -0,0 +1,71 @@
+package io.engineblock.activityapi.core;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class WarmupTest {
+
+    @Test
+    public void testCycleSpecs() {
+        WarmupSpec spec = new WarmupSpec("100000");
+        assertThat(spec.getMode()).isEqualTo(WarmupSpec.Mode.cycles);
+        assertThat(spec.getCycles()).isEqualTo(100000L);
+        assertThat(new WarmupSpec("10K").getCycles()).isEqualTo(10000L);
+        assertThat(new WarmupSpec("2M").getCycles()).isEqualTo(2000000L);
+    }
+
+    @Test
+    public void testDurationSpecs() {
+        WarmupSpec spec = new WarmupSpec("30s");
+        assertThat(spec.getMode()).isEqualTo(WarmupSpec.Mode.duration);
+        assertThat(spec.getMillis()).isEqualTo(30000L);
+        assertThat(new WarmupSpec("500ms").getMillis()).isEqualTo(500L);
+        assertThat(new WarmupSpec("2minutes").getMillis()).isEqualTo(120000L);
+    }
+
+    @Test
+    public void testAutoSpecs() {
+        WarmupSpec spec = new WarmupSpec("auto");
+        assertThat(spec.getMode()).isEqualTo(WarmupSpec.Mode.auto);
+        assertThat(spec.getTolerance()).isEqualTo(WarmupSpec.DEFAULT_TOLERANCE);
+        assertThat(spec.getChecks()).isEqualTo(WarmupSpec.DEFAULT_CHECKS);
+        assertThat(spec.getMillis()).isEqualTo(WarmupSpec.DEFAULT_MAX_MILLIS);
+
+        WarmupSpec tuned = new WarmupSpec("auto:tolerance=5%,checks=10,max=90s");
+        assertThat(tuned.getTolerance()).isEqualTo(0.05D);
+        assertThat(tuned.getChecks()).isEqualTo(10);
+        assertThat(tuned.getMillis()).isEqualTo(90000L);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testInvalidSpec() {
+        new WarmupSpec("auto:checks=0");
+    }
+
+    @Test
+    public void testSteadyState() {
+        Warmup.SteadyState steadyState = new Warmup.SteadyState(new WarmupSpec("auto:tolerance=10%,checks=3"));
+
+        // falling service times are not stable
+        assertThat(steadyState.observe(1000L, 5000L, 20000L, 0L, 1000L)).isFalse();
+        assertThat(steadyState.observe(1000L, 3000L, 12000L, 0L, 1000L)).isFalse();
+        assertThat(steadyState.getStreak()).isEqualTo(0);
+
+        // stable service times, but the JIT compiler is still busy
+        assertThat(steadyState.observe(1000L, 3100L, 12500L, 200L, 1000L)).isFalse();
+        assertThat(steadyState.getStreak()).isEqualTo(0);
+
+        // sparse intervals are not judged
+        assertThat(steadyState.observe(10L, 9000L, 90000L, 0L, 1000L)).isFalse();
+
+        assertThat(steadyState.observe(1000L, 3000L, 12000L, 0L, 1000L)).isFalse();
+        assertThat(steadyState.observe(1000L, 3050L, 12200L, 10L, 1000L)).isFalse();
+        assertThat(steadyState.observe(1000L, 2950L, 11900L, -1L, 1000L)).isTrue();
+
+        // a spike starts over
+        assertThat(steadyState.observe(1000L, 6000L, 50000L, 0L, 1000L)).isFalse();
+        assertThat(steadyState.getStreak()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,61 @@
+package io.engineblock.activityapi.core.ops.fluent;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class AdaptiveConcurrencyTest {
+
+    @Test
+    public void testFixedSpec() {
+        AsyncSpec spec = new AsyncSpec("200");
+        assertThat(spec.isAdaptive()).isFalse();
+        assertThat(spec.getOps()).isEqualTo(200);
+    }
+
+    @Test
+    public void testAdaptiveSpec() {
+        AsyncSpec spec = new AsyncSpec("auto:p99<20ms,max=500,interval=500ms");
+        assertThat(spec.isAdaptive()).isTrue();
+        assertThat(spec.getPercentile()).isEqualTo(0.99D);
+        assertThat(spec.getTargetNanos()).isEqualTo(20_000_000L);
+        assertThat(spec.getMaxOps()).isEqualTo(500);
+        assertThat(spec.getMinOps(10)).isEqualTo(10);
+        assertThat(spec.getIntervalMillis()).isEqualTo(500L);
+
+        assertThat(new AsyncSpec("auto:p999<5ms").getPercentile()).isEqualTo(0.999D);
+        assertThat(new AsyncSpec("auto:p99.9<5ms").getPercentile()).isEqualTo(0.999D);
+        assertThat(new AsyncSpec("auto").getTargetNanos()).isEqualTo(100_000_000L);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testInvalidSpec() {
+        new AsyncSpec("auto:p99>20ms");
+    }
+
+    @Test
+    public void testNextLimit() {
+        AsyncSpec spec = new AsyncSpec("auto:p99<20ms,max=100");
+
+        // grow multiplicatively until the first cut, then additively by one op per thread
+        assertThat(AdaptiveConcurrency.nextLimit(10, 5_000_000L, true, true, spec, 2)).isEqualTo(15);
+        assertThat(AdaptiveConcurrency.nextLimit(10, 5_000_000L, true, false, spec, 2)).isEqualTo(12);
+        assertThat(AdaptiveConcurrency.nextLimit(90, 5_000_000L, true, true, spec, 2)).isEqualTo(100);
+
+        // hold when the limit was not reached
+        assertThat(AdaptiveConcurrency.nextLimit(10, 5_000_000L, false, false, spec, 2)).isEqualTo(10);
+
+        // cut when over the target, but not below one op per thread
+        assertThat(AdaptiveConcurrency.nextLimit(50, 30_000_000L, true, false, spec, 2)).isEqualTo(45);
+        assertThat(AdaptiveConcurrency.nextLimit(5, 30_000_000L, true, false, spec, 2)).isEqualTo(4);
+        assertThat(AdaptiveConcurrency.nextLimit(2, 30_000_000L, true, false, spec, 2)).isEqualTo(2);
+    }
+
+    @Test
+    public void testShares() {
+        assertThat(AdaptiveConcurrency.shareFor(10, 3, 0)).isEqualTo(4);
+        assertThat(AdaptiveConcurrency.shareFor(10, 3, 1)).isEqualTo(3);
+        assertThat(AdaptiveConcurrency.shareFor(2, 4, 3)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.cyclelog.buffers.op_output;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class StrideSequencerTest {
+
+    @Test
+    public void testOutOfOrderTasksRunInOrder() {
+        StrideSequencer sequencer = new StrideSequencer(234L, 1L, 16, true);
+        List<String> ran = new ArrayList<>();
+        sequencer.submit(249L, 253L, () -> ran.add("249-253"));
+        sequencer.submit(247L, 249L, () -> ran.add("247-249"));
+        assertThat(ran).isEmpty();
+        assertThat(sequencer.getPending()).isEqualTo(2L);
+
+        sequencer.submit(234L, 247L, () -> ran.add("234-247"));
+        assertThat(ran).containsExactly("234-247", "247-249", "249-253");
+        assertThat(sequencer.getNext()).isEqualTo(253L);
+        assertThat(sequencer.getPending()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testTasksBeyondTheRingAreParked() {
+        StrideSequencer sequencer = new StrideSequencer(0L, 10L, 4, true);
+        List<Long> ran = new ArrayList<>();
+        for (long start = 90L; start > 0L; start -= 10L) {
+            long taskStart = start;
+            sequencer.submit(start, start + 10L, () -> ran.add(taskStart));
+        }
+        assertThat(ran).isEmpty();
+        sequencer.submit(0L, 10L, () -> ran.add(0L));
+        assertThat(ran).containsExactly(0L, 10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L, 90L);
+        assertThat(sequencer.getNext()).isEqualTo(100L);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testDuplicateRange() {
+        StrideSequencer sequencer = new StrideSequencer(0L, 10L, 4, true);
+        sequencer.submit(10L, 20L, () -> {});
+        sequencer.submit(10L, 20L, () -> {});
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testRangeAlreadyPassed() {
+        StrideSequencer sequencer = new StrideSequencer(0L, 10L, 4, true);
+        sequencer.submit(0L, 10L, () -> {});
+        sequencer.submit(0L, 10L, () -> {});
+    }
+
+    @Test
+    public void testDuplicateWhileOriginalRuns() throws Exception {
+        StrideSequencer sequencer = new StrideSequencer(0L, 10L, 4, true);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread drainer = new Thread(() -> sequencer.submit(0L, 10L, () -> {
+            running.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        drainer.start();
+        assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // the original has been taken from its slot, so the duplicate must not be parked there
+        RuntimeException duplicateError = null;
+        try {
+            sequencer.submit(0L, 10L, () -> {});
+        } catch (RuntimeException e) {
+            duplicateError = e;
+        }
+        release.countDown();
+        drainer.join(10000L);
+
+        assertThat(duplicateError).isNotNull();
+        assertThat(sequencer.awaitCompletion(1000L)).isTrue();
+        assertThat(sequencer.getNext()).isEqualTo(10L);
+    }
+
+    @Test
+    public void testConcurrentDuplicatesRunOnce() throws Exception {
+        int threads = 4;
+        int strides = 20000;
+        StrideSequencer sequencer = new StrideSequencer(0L, 1L, 16, true);
+        AtomicIntegerArray runs = new AtomicIntegerArray(strides);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // every thread submits every range, so all but one submission of each range is a duplicate
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < strides; i++) {
+                    int index = i;
+                    try {
+                        sequencer.submit(i, i + 1L, () -> runs.incrementAndGet(index));
+                    } catch (RuntimeException ignored) {
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(sequencer.awaitCompletion(10000L)).isTrue();
+        assertThat(sequencer.getNext()).isEqualTo((long) strides);
+        for (int i = 0; i < strides; i++) {
+            assertThat(runs.get(i)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testFatalErrorStopsTasks() {
+        StrideSequencer sequencer = new StrideSequencer(0L, 1L, 4, true);
+        List<Long> ran = new ArrayList<>();
+        sequencer.submit(1L, 2L, () -> ran.add(1L));
+        sequencer.submit(0L, 1L, () -> {
+            throw new RuntimeException("stride output error");
+        });
+        assertThat(ran).isEmpty();
+        assertThat(sequencer.getFatalError()).isNotNull();
+        assertThat(sequencer.awaitCompletion(10L)).isFalse();
+    }
+
+    @Test
+    public void testNonFatalErrorContinues() {
+        StrideSequencer sequencer = new StrideSequencer(0L, 1L, 4, false);
+        List<Long> ran = new ArrayList<>();
+        sequencer.submit(1L, 2L, () -> ran.add(1L));
+        sequencer.submit(0L, 1L, () -> {
+            throw new RuntimeException("stride output error");
+        });
+        assertThat(ran).containsExactly(1L);
+        assertThat(sequencer.getFatalError()).isNull();
+    }
+
+    @Test
+    public void testConcurrentSubmitters() throws Exception {
+        int threads = 8;
+        int stridesPerThread = 20000;
+        long stride = 10L;
+        StrideSequencer sequencer = new StrideSequencer(0L, stride, 64, true);
+        List<Long> ran = new CopyOnWriteArrayList<>();
+        long[] last = {-stride};
+        boolean[] ordered = {true};
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // each thread takes every nth stride, so they arrive out of order across threads
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            new Thread(() -> {
+                for (int i = 0; i < stridesPerThread; i++) {
+                    long start = (i * (long) threads + offset) * stride;
+                    sequencer.submit(start, start + stride, () -> {
+                        if (start != last[0] + stride) {
+                            ordered[0] = false;
+                        }
+                        last[0] = start;
+                        if (start % 100000L == 0L) {
+                            ran.add(start);
+                        }
+                    });
+                }
+                done.countDown();
+            }).start();
+        }
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(sequencer.awaitCompletion(10000L)).isTrue();
+        assertThat(ordered[0]).isTrue();
+        assertThat(sequencer.getNext()).isEqualTo(threads * stridesPerThread * stride);
+        List<Long> sorted = new ArrayList<>(ran);
+        Collections.sort(sorted);
+        assertThat(ran).isEqualTo(sorted);
+    }
+}
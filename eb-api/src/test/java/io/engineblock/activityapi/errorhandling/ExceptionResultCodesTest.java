@@ -0,0 +1,63 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+package io.engineblock.activityapi.errorhandling;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.security.InvalidParameterException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class ExceptionResultCodesTest {
+
+    @Test
+    public void testCodesFollowClassHierarchy() {
+        ExceptionResultCodes codes = new ExceptionResultCodes(1)
+                .setCode(2, IOException.class)
+                .setCode(3, SocketTimeoutException.class);
+        assertThat(codes.codeFor(new SocketTimeoutException())).isEqualTo(3);
+        assertThat(codes.codeFor(new IOException())).isEqualTo(2);
+        assertThat(codes.codeFor(new InvalidParameterException())).isEqualTo(1);
+        assertThat(codes.codeFor(new UncheckedIOException(new IOException()))).isEqualTo(1);
+    }
+
+    @Test
+    public void testChangedCodesAreResolvedAgain() {
+        ExceptionResultCodes codes = new ExceptionResultCodes(1);
+        assertThat(codes.codeFor(new SocketTimeoutException())).isEqualTo(1);
+        codes.setCode(2, IOException.class);
+        assertThat(codes.codeFor(new SocketTimeoutException())).isEqualTo(2);
+        codes.setDefaultCode(4);
+        assertThat(codes.codeFor(new InvalidParameterException())).isEqualTo(4);
+    }
+
+    @Test
+    public void testCodeHandler() {
+        HashedErrorHandler<Throwable, Integer> handler = new HashedErrorHandler<>();
+        handler.setDefaultHandler(CycleErrorHandlers.code(new ExceptionResultCodes(5)));
+        assertThat(handler.handleError(1L, new IOException(), null)).isEqualTo(5);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ".*between 0 and 127.*")
+    public void testInvalidCode() {
+        new ExceptionResultCodes(128);
+    }
+}
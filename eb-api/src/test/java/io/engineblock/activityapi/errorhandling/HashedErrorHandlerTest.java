@@ -140,4 +140,32 @@ public class HashedErrorHandlerTest {
         handler.resetAllClassHandlers();
         assertThat(handler.getHandlers()).hasSize(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testChangedHandlersAreResolvedAgain() {
+        List<CycleErrorHandler.Triple> first = new ArrayList<>();
+        List<CycleErrorHandler.Triple> second = new ArrayList<>();
+        handler.setHandlerForClasses(CycleErrorHandlers.store(first, true), IndexOutOfBoundsException.class);
+        handler.handleError(1L, new ArrayIndexOutOfBoundsException("one"));
+        handler.setHandlerForClasses(CycleErrorHandlers.store(second, true), ArrayIndexOutOfBoundsException.class);
+        handler.handleError(2L, new ArrayIndexOutOfBoundsException("two"));
+        handler.resetAllClassHandlers();
+        handler.setDefaultHandler(CycleErrorHandlers.store(first, false));
+        handler.handleError(3L, new ArrayIndexOutOfBoundsException("three"));
+        assertThat(first).hasSize(2);
+        assertThat(first.get(1).result).isEqualTo(false);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).cycle).isEqualTo(2L);
+    }
+
+    @Test
+    public void testErrorCounts() {
+        handler.setDefaultHandler(CycleErrorHandlers.store(new ArrayList<>(), true));
+        for (int i = 0; i < 5; i++) {
+            handler.handleError(i, new IndexOutOfBoundsException("index"));
+        }
+        handler.handleError(5L, new InvalidParameterException("invalid"));
+        assertThat(handler.getErrorCounts().get(IndexOutOfBoundsException.class)).isEqualTo(5L);
+        assertThat(handler.getErrorCounts().get(InvalidParameterException.class)).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+package io.engineblock.activityapi.errorhandling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.security.InvalidParameterException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class RateLimitedErrorLoggerTest {
+    private final static Logger logger = LoggerFactory.getLogger(RateLimitedErrorLoggerTest.class);
+
+    @Test
+    public void testErrorsAreLimitedByClass() {
+        RateLimitedErrorLogger errorLogger = new RateLimitedErrorLogger(logger, 60000L);
+        assertThat(errorLogger.log(1L, new IOException("first"), "first")).isTrue();
+        assertThat(errorLogger.log(2L, new IOException("second"), "second")).isFalse();
+        assertThat(errorLogger.log(3L, new IOException("third"), "third")).isFalse();
+        assertThat(errorLogger.log(4L, new InvalidParameterException("other"), "other")).isTrue();
+        assertThat(errorLogger.getSuppressed()).isEqualTo(2L);
+        errorLogger.flush();
+        assertThat(errorLogger.getSuppressed()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testErrorsAreLoggedAfterInterval() throws InterruptedException {
+        RateLimitedErrorLogger errorLogger = new RateLimitedErrorLogger(logger, 10L);
+        assertThat(errorLogger.log(1L, new IOException("first"), "first")).isTrue();
+        assertThat(errorLogger.log(2L, new IOException("second"), "second")).isFalse();
+        Thread.sleep(20L);
+        assertThat(errorLogger.log(3L, new IOException("third"), "third")).isTrue();
+        assertThat(errorLogger.getSuppressed()).isEqualTo(0L);
+    }
+}
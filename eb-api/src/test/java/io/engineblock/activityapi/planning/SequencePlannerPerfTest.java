@@ -0,0 +1,61 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.planning;
+
+import org.testng.annotations.Test;
+
+/**
+ * These tests measure how long it takes to plan a sequence, and how fast ops can be taken from it,
+ * for each sequencer type and for plans of different sizes. They are not enabled by default. If you
+ * are changing the planning code, use these to compare the expanded and compact forms.
+ */
+@Test(singleThreaded = true, enabled = false)
+public class SequencePlannerPerfTest {
+
+    private final static String[] PLANS = {
+            "A:1,B:1,C:1,D:1",
+            "A:8,B:4,C:2,D:1,E:1",
+            "A:1,B:999999",
+            "A:300,B:500,C:700,D:11",
+            "A:100000,B:200000,C:300001"
+    };
+
+    private final static long GETS = 100_000_000L;
+
+    @Test(enabled = false)
+    public void testPlanAndGet() {
+        for (SequencerType type : SequencerType.values()) {
+            for (String plan : PLANS) {
+                long initStart = System.nanoTime();
+                OpSequence<String> seq = SequencePlannerTest.plan(type, plan, SequencePlanner.EXPANSION_LIMIT);
+                long initNanos = System.nanoTime() - initStart;
+
+                long sum = 0L;
+                long getStart = System.nanoTime();
+                for (long cycle = 0; cycle < GETS; cycle++) {
+                    sum += seq.get(cycle).length();
+                }
+                long getNanos = System.nanoTime() - getStart;
+
+                System.out.format("%-8s %-28s %-16s init=%8.3fms get=%6.2fns/op (%d)%n",
+                        type, plan, seq.getClass().getSimpleName(), initNanos / 1_000_000.0D,
+                        (double) getNanos / GETS, sum);
+            }
+        }
+    }
+}
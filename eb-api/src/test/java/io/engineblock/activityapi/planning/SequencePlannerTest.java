@@ -0,0 +1,110 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.activityapi.planning;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class SequencePlannerTest {
+
+    @Test
+    public void testBucketExamples() {
+        assertThat(summary(SequencerType.bucket, "A:4,B:3,C:2,D:1")).isEqualTo("ABCDABCABA");
+        assertThat(summary(SequencerType.bucket, "A:1,B:2,C:3,D:4")).isEqualTo("ABCDBCDCDD");
+        assertThat(summary(SequencerType.bucket, "L:4,M:1")).isEqualTo("LMLLL");
+    }
+
+    @Test
+    public void testIntervalExamples() {
+        assertThat(summary(SequencerType.interval, "A:8,B:4,C:2,D:1")).isEqualTo("ABCDAABAABCAABA");
+        assertThat(summary(SequencerType.interval, "O:4,I:5")).isEqualTo("OIIOIOIOI");
+        assertThat(summary(SequencerType.interval, "O:4,I:4")).isEqualTo("OIOIOIOI");
+    }
+
+    @Test
+    public void testConcatExamples() {
+        assertThat(summary(SequencerType.concat, "A:2,B:3,C:1")).isEqualTo("AABBBC");
+    }
+
+    @Test
+    public void testCompactFormsKeepOrder() {
+        String[] plans = {"A:1,B:999", "A:5,B:5,C:1", "A:97,B:3,C:40,D:0", "A:12,B:18,C:30", "A:1,B:1,C:1"};
+        for (SequencerType type : SequencerType.values()) {
+            for (String plan : plans) {
+                OpSequence<String> expanded = plan(type, plan, SequencePlanner.EXPANSION_LIMIT);
+                OpSequence<String> compact = plan(type, plan, 0);
+                assertThat(compact.getLength()).isEqualTo(expanded.getLength());
+                assertThat(compact.getSequence()).isEqualTo(expanded.getSequence());
+                for (long cycle = 0; cycle < expanded.getLength() * 2; cycle++) {
+                    assertThat(compact.get(cycle)).isEqualTo(expanded.get(cycle));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargeRatiosAreCompact() {
+        for (SequencerType type : SequencerType.values()) {
+            OpSequence<String> seq = plan(type, "A:1,B:999999", SequencePlanner.EXPANSION_LIMIT);
+            assertThat(seq).isNotInstanceOf(ArrayOpSequence.class);
+            assertThat(seq.getLength()).isEqualTo(1000000L);
+            assertThat(seq.get(0L)).isEqualTo("A");
+            assertThat(seq.get(1L)).isEqualTo("B");
+            assertThat(seq.get(999999L)).isEqualTo("B");
+            assertThat(seq.get(1000000L)).isEqualTo("A");
+        }
+    }
+
+    @Test
+    public void testIntervalRepeatsReducedPlan() {
+        OpSequence<String> seq = plan(SequencerType.interval, "A:3000,B:6000", SequencePlanner.EXPANSION_LIMIT);
+        assertThat(seq.getLength()).isEqualTo(9000L);
+        assertThat(seq.getSequence()).hasSize(9000);
+        assertThat(LongStream.range(0, 6).mapToObj(seq::get).collect(Collectors.joining())).isEqualTo("ABBABB");
+    }
+
+    @Test
+    public void testTransformKeepsOrder() {
+        OpSequence<String> seq = plan(SequencerType.bucket, "A:4,B:3,C:2,D:1", SequencePlanner.EXPANSION_LIMIT);
+        OpSequence<String> lower = seq.transform(String::toLowerCase);
+        assertThat(lower.getSequence()).isEqualTo(seq.getSequence());
+        assertThat(lower.get(13L)).isEqualTo("d");
+    }
+
+    private static String summary(SequencerType type, String plan) {
+        OpSequence<String> seq = plan(type, plan, SequencePlanner.EXPANSION_LIMIT);
+        return LongStream.range(0, seq.getLength()).mapToObj(seq::get).collect(Collectors.joining());
+    }
+
+    static OpSequence<String> plan(SequencerType type, String plan, int expansionLimit) {
+        SequencePlanner<String> planner = new SequencePlanner<>(type, expansionLimit);
+        List<String> elems = Arrays.asList(plan.split(","));
+        for (String elem : elems) {
+            String[] words = elem.split(":", 2);
+            planner.addOp(words[0], Long.parseLong(words[1]));
+        }
+        return planner.resolve();
+    }
+}
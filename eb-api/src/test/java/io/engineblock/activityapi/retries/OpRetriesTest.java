@@ -0,0 +1,146 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+package io.engineblock.activityapi.retries;
+
+import com.codahale.metrics.Counter;
+import io.engineblock.activityapi.core.ops.fluent.opfacets.EventedOpImpl;
+import io.engineblock.activityapi.core.ops.fluent.opfacets.FailedOp;
+import io.engineblock.activityapi.core.ops.fluent.opfacets.OpEvents;
+import io.engineblock.activityapi.core.ops.fluent.opfacets.SkippedOp;
+import io.engineblock.activityapi.core.ops.fluent.opfacets.StartedOp;
+import io.engineblock.activityapi.core.ops.fluent.opfacets.SucceededOp;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class OpRetriesTest {
+
+    @Test
+    public void testDelaysBackOff() {
+        OpRetries retries = new OpRetries("test", new RetrySpec("10:base=10ms,max=100ms,budget=none"),
+                TimerWheel.getInstance(), new Counter(), 1, e -> {});
+        for (int tries = 1; tries < 10; tries++) {
+            long nominal = Math.min(100_000_000L, 10_000_000L << (tries - 1));
+            long delay = retries.delayNanos(tries);
+            assertThat(delay).isBetween(nominal / 2, nominal);
+        }
+        assertThat(retries.delayNanos(10)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void testBudgetLimitsRetries() {
+        Counter denied = new Counter();
+        OpRetries retries = new OpRetries("test", new RetrySpec("3:base=0ms,budget=50%"),
+                TimerWheel.getInstance(), denied, 1, e -> {});
+        for (long i = 0; i < RetryBudget.MIN_RETRIES; i++) {
+            assertThat(retries.delayNanos(1)).isEqualTo(0L);
+        }
+        assertThat(retries.delayNanos(1)).isEqualTo(-1L);
+        assertThat(denied.getCount()).isEqualTo(1L);
+
+        retries.countTry();
+        retries.countTry();
+        assertThat(retries.delayNanos(1)).isEqualTo(0L);
+        assertThat(retries.delayNanos(1)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void testRetryResubmitsLater() throws InterruptedException {
+        OpRetries retries = new OpRetries("test", new RetrySpec("3:base=20ms,budget=none"),
+                TimerWheel.getInstance(), new Counter(), 1, e -> {});
+        RetryEvents events = new RetryEvents();
+        StartedOp<String> op = new EventedOpImpl<String>(events).start();
+        CountDownLatch resubmitted = new CountDownLatch(1);
+        long startedAt = System.nanoTime();
+
+        assertThat(retries.retry(op, retried -> resubmitted.countDown())).isTrue();
+        assertThat(resubmitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(10_000_000L);
+        assertThat(op.getTries()).isEqualTo(2);
+        assertThat(events.retries.get()).isEqualTo(1);
+
+        op.retry();
+        assertThat(retries.retry(op, retried -> {})).isFalse();
+    }
+
+    @Test
+    public void testResubmitRunsOffTheWheelThread() throws InterruptedException {
+        OpRetries retries = new OpRetries("offwheel", new RetrySpec("3:base=1ms,budget=none"),
+                TimerWheel.getInstance(), new Counter(), 1, e -> {});
+        StartedOp<String> op = new EventedOpImpl<String>(new RetryEvents()).start();
+        CountDownLatch resubmitted = new CountDownLatch(1);
+        AtomicReference<String> resubmitThread = new AtomicReference<>();
+
+        retries.retry(op, retried -> {
+            resubmitThread.set(Thread.currentThread().getName());
+            resubmitted.countDown();
+        });
+        assertThat(resubmitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(resubmitThread.get()).startsWith("retries-offwheel-");
+        retries.close();
+    }
+
+    @Test
+    public void testResubmitErrorsGoToErrorHandler() throws InterruptedException {
+        AtomicReference<Throwable> handled = new AtomicReference<>();
+        CountDownLatch failed = new CountDownLatch(1);
+        OpRetries retries = new OpRetries("errors", new RetrySpec("3:base=1ms,budget=none"),
+                TimerWheel.getInstance(), new Counter(), 1, e -> {
+            handled.set(e);
+            failed.countDown();
+        });
+        StartedOp<String> op = new EventedOpImpl<String>(new RetryEvents()).start();
+
+        retries.retry(op, retried -> {
+            throw new RuntimeException("still failing");
+        });
+        assertThat(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled.get().getMessage()).isEqualTo("still failing");
+        retries.close();
+    }
+
+    private static class RetryEvents implements OpEvents<String> {
+        private final AtomicInteger retries = new AtomicInteger();
+
+        @Override
+        public void onOpStarted(StartedOp<String> op) {
+        }
+
+        @Override
+        public void onOpSuccess(SucceededOp<String> op) {
+        }
+
+        @Override
+        public void onOpSkipped(SkippedOp<String> op) {
+        }
+
+        @Override
+        public void onOpFailure(FailedOp<String> op) {
+        }
+
+        @Override
+        public void onOpRetry(StartedOp<String> op) {
+            retries.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+package io.engineblock.activityapi.retries;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class RetrySpecTest {
+
+    @Test
+    public void testTriesOnly() {
+        RetrySpec spec = new RetrySpec("3");
+        assertThat(spec.getMaxTries()).isEqualTo(3);
+        assertThat(spec.getBaseNanos()).isEqualTo(RetrySpec.DEFAULT_BASE_NANOS);
+        assertThat(spec.getMaxNanos()).isEqualTo(RetrySpec.DEFAULT_MAX_NANOS);
+        assertThat(spec.getBudget()).isEqualTo(RetrySpec.DEFAULT_BUDGET);
+    }
+
+    @Test
+    public void testOptions() {
+        RetrySpec spec = new RetrySpec("5:base=50ms,max=2s,budget=10%");
+        assertThat(spec.getMaxTries()).isEqualTo(5);
+        assertThat(spec.getBaseNanos()).isEqualTo(50_000_000L);
+        assertThat(spec.getMaxNanos()).isEqualTo(2_000_000_000L);
+        assertThat(spec.getBudget()).isEqualTo(0.1D);
+        assertThat(new RetrySpec("2:budget=none").getBudget()).isEqualTo(Double.POSITIVE_INFINITY);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testMaxBelowBase() {
+        new RetrySpec("3:base=2s,max=1s");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ".*Unknown option.*")
+    public void testUnknownOption() {
+        new RetrySpec("3:delay=1s");
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+package io.engineblock.activityapi.retries;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class TimerWheelTest {
+
+    @Test
+    public void testTasksRunInDeadlineOrder() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(1_000_000L, 8);
+        List<Integer> ran = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        long startedAt = System.nanoTime();
+        long[] ranAfter = new long[4];
+        int[] delaysMs = {30, 5, 20, 12};
+        for (int i = 0; i < delaysMs.length; i++) {
+            int task = i;
+            wheel.schedule(delaysMs[i] * 1_000_000L, () -> {
+                ranAfter[task] = System.nanoTime() - startedAt;
+                ran.add(task);
+                done.countDown();
+            });
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ran).containsExactly(1, 3, 2, 0);
+        for (int i = 0; i < delaysMs.length; i++) {
+            assertThat(ranAfter[i]).isGreaterThanOrEqualTo(delaysMs[i] * 1_000_000L);
+        }
+        assertThat(wheel.getPending()).isEqualTo(0);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testBucketsMustBePowerOfTwo() {
+        new TimerWheel(1_000_000L, 10);
+    }
+}
@@ -0,0 +1,47 @@
+package io.engineblock.activityimpl;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class ActivityPartitionTest {
+
+    @Test
+    public void testPartitionsCoverTheRange() {
+        long covered = 0L;
+        long next = 10L;
+        for (int i = 0; i < 3; i++) {
+            long[] range = ActivityPartition.rangeFor(10L, 110L, 1L, i, 3);
+            assertThat(range[0]).isEqualTo(next);
+            covered += range[1] - range[0];
+            next = range[1];
+        }
+        assertThat(next).isEqualTo(110L);
+        assertThat(covered).isEqualTo(100L);
+        assertThat(ActivityPartition.rangeFor(10L, 110L, 1L, 0, 3)).containsExactly(10L, 44L);
+        assertThat(ActivityPartition.rangeFor(10L, 110L, 1L, 2, 3)).containsExactly(77L, 110L);
+    }
+
+    @Test
+    public void testPartitionsAlignToStride() {
+        assertThat(ActivityPartition.rangeFor(0L, 100L, 10L, 0, 3)).containsExactly(0L, 40L);
+        assertThat(ActivityPartition.rangeFor(0L, 100L, 10L, 1, 3)).containsExactly(40L, 70L);
+        assertThat(ActivityPartition.rangeFor(0L, 100L, 10L, 2, 3)).containsExactly(70L, 100L);
+    }
+
+    @Test
+    public void testApply() {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=test;cycles=1M;cyclerate=10000,1.2;threads=4");
+        ActivityPartition.parse("1/4").apply(def);
+        assertThat(def.getStartCycle()).isEqualTo(250000L);
+        assertThat(def.getEndCycle()).isEqualTo(500000L);
+        assertThat(def.getParams().getOptionalString("cyclerate")).contains("2500.000,1.2");
+        assertThat(def.getThreads()).isEqualTo(4);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testInvalidPartition() {
+        ActivityPartition.parse("4/4");
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.activityimpl;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class CpuAffinityTest {
+
+    @Test
+    public void testParseCpuList() {
+        assertThat(CpuAffinity.parseCpuList("0-3,8,10-11")).containsExactly(0, 1, 2, 3, 8, 10, 11);
+        assertThat(CpuAffinity.parseCpuList("5\n")).containsExactly(5);
+        assertThat(CpuAffinity.parseCpuList("")).isEmpty();
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testParseInvalidRange() {
+        CpuAffinity.parseCpuList("4-2");
+    }
+
+    @Test
+    public void testFormatCpuList() {
+        assertThat(CpuAffinity.formatCpuList(List.of(11, 0, 1, 2, 3, 8, 10))).isEqualTo("0-3,8,10-11");
+        assertThat(CpuAffinity.formatCpuList(List.of(7))).isEqualTo("7");
+        assertThat(CpuAffinity.formatCpuList(List.of())).isEqualTo("");
+    }
+
+}
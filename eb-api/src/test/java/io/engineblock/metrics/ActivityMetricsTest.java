@@ -17,8 +17,11 @@
 
 package io.engineblock.metrics;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.engineblock.activityimpl.ActivityDef;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -55,4 +58,22 @@ public class ActivityMetricsTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testRegistrationIsIndexed() {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=indexedmetrics");
+        Timer t1 = ActivityMetrics.timer(def, "atimer");
+        Timer t2 = ActivityMetrics.timer(def, "atimer");
+        assertThat(t2).isSameAs(t1);
+        assertThat(ActivityMetrics.getMetricRegistry().getMetrics()).containsKey("indexedmetrics.atimer");
+
+        Counter c1 = ActivityMetrics.counter(def, "acounter");
+        ActivityMetrics.removeActivityMetrics(def);
+        assertThat(ActivityMetrics.getMetricRegistry().getMetrics()).doesNotContainKey("indexedmetrics.acounter");
+
+        Counter c2 = ActivityMetrics.counter(def, "acounter");
+        assertThat(c2).isNotSameAs(c1);
+        assertThat(ActivityMetrics.getMetricRegistry().getMetrics()).containsKey("indexedmetrics.acounter");
+        ActivityMetrics.removeActivityMetrics(def);
+    }
+
+}
@@ -1,8 +1,14 @@
 package io.engineblock.metrics;
 
 import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @Test
 public class DeltaHdrHistogramReservoirTest {
 
@@ -40,6 +46,101 @@ public class DeltaHdrHistogramReservoirTest {
 //        assertThat(i2end).isLessThanOrEqualTo(afterLastLoggedValue);
 //    }
 
+    @Test
+    public void testSnapshotsDoNotDrainReservoir() {
+        DeltaHdrHistogramReservoir dhhr = new DeltaHdrHistogramReservoir("multiconsumer", 4, null);
+        DeltaSnapshotReader reader1 = new DeltaSnapshotReader(dhhr);
+        DeltaSnapshotReader reader2 = new DeltaSnapshotReader(dhhr);
+
+        dhhr.update(10L);
+        dhhr.update(20L);
+        dhhr.tick();
+
+        assertThat(dhhr.getLastHistogram().getTotalCount()).isEqualTo(2);
+        assertThat(reader1.getDeltaSnapshot().size()).isEqualTo(2);
+        assertThat(reader2.getDeltaSnapshot().size()).isEqualTo(2);
+        assertThat(dhhr.getLastHistogram().getTotalCount()).isEqualTo(2);
+
+        dhhr.update(30L);
+        dhhr.tick();
+        assertThat(reader1.getDeltaSnapshot().size()).isEqualTo(1);
+        assertThat(dhhr.getCumulativeHistogram().getTotalCount()).isEqualTo(3);
+        assertThat(reader2.getDeltaSnapshot().getMax()).isEqualTo(30L);
+    }
+
+    @Test
+    public void testSharedWindows() {
+        DeltaHdrHistogramReservoir dhhr = new DeltaHdrHistogramReservoir("windows", 4, null);
+        HdrHistogramWindow shortWindow = dhhr.getWindow(1L);
+        HdrHistogramWindow longWindow = dhhr.getWindow(60000L);
+        assertThat(dhhr.getWindow(1L)).isSameAs(shortWindow);
+
+        List<Histogram> published = new ArrayList<>();
+        shortWindow.addListener(published::add);
+
+        dhhr.update(5L);
+        delay(5);
+        Histogram interval = dhhr.tick();
+        assertThat(published).hasSize(1);
+        assertThat(published.get(0)).isSameAs(interval);
+
+        dhhr.update(6L);
+        delay(5);
+        dhhr.tick();
+        assertThat(published).hasSize(2);
+        assertThat(longWindow.getLastHistogram().getTotalCount()).isEqualTo(0);
+
+        dhhr.flushWindows();
+        assertThat(longWindow.getLastHistogram().getTotalCount()).isEqualTo(2);
+        assertThat(interval.getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUpdateCumulativeDoesNotEndInterval() {
+        DeltaHdrHistogramReservoir dhhr = new DeltaHdrHistogramReservoir("updatecumulative", 4, null);
+        List<Histogram> published = new ArrayList<>();
+        dhhr.getWindow(1L).addListener(published::add);
+
+        dhhr.update(10L);
+        dhhr.updateCumulative();
+        assertThat(dhhr.getCumulativeHistogram().getTotalCount()).isEqualTo(1);
+        assertThat(dhhr.getLastHistogram().getTotalCount()).isEqualTo(0);
+        assertThat(published).isEmpty();
+
+        dhhr.update(20L);
+        delay(5);
+        dhhr.tick();
+        assertThat(published).hasSize(1);
+        assertThat(dhhr.getLastHistogram().getTotalCount()).isEqualTo(2);
+        assertThat(dhhr.getCumulativeHistogram().getTotalCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEachReportHasItsOwnWindow() {
+        DeltaHdrHistogramReservoir dhhr = new DeltaHdrHistogramReservoir("reportwindows", 4, null);
+        dhhr.getWindow(1L);
+        dhhr.update(5L);
+        delay(5);
+        dhhr.tick();
+        dhhr.update(6L);
+        dhhr.update(7L);
+        delay(5);
+        dhhr.tick();
+
+        List<Integer> sizes = new ArrayList<>();
+        HistogramHub hub = HistogramHub.getInstance();
+        hub.report(1L, () -> sizes.add(dhhr.getSnapshot().size()));
+        hub.report(0L, () -> sizes.add(dhhr.getSnapshot().size()));
+        assertThat(sizes).containsExactly(2, 3);
+    }
+
+    private void delay(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
     private void writeAndSnapshot(DeltaHdrHistogramReservoir dhhr, int interDelay, long[] longs) {
         for (long aLong : longs) {
             dhhr.update(aLong);
@@ -25,38 +25,45 @@ public class NicerHistogramTest {
 
     @Test
     public void testNicerHistogramValues() {
-        NicerHistogram nh = new NicerHistogram("testhisto",new DeltaHdrHistogramReservoir("testhisto",4));
+        DeltaHdrHistogramReservoir reservoir = new DeltaHdrHistogramReservoir("testhisto", 4, null);
+        NicerHistogram nh = new NicerHistogram("testhisto", reservoir);
+        DeltaSnapshotReader reader = nh.getDeltaReader();
+
         for (int i = 1; i <= 100; i++) {
             nh.update(i);
         }
-        ConvenientSnapshot snapshot = nh.getSnapshot();
-        assertThat(snapshot.getMax()).isEqualTo(100);
+        reservoir.tick();
+        ConvenientSnapshot snapshot = nh.getDeltaReader().getDeltaSnapshot();
+        assertThat(snapshot.getMax()).isEqualTo(0);
+
+        ConvenientSnapshot deltaSnapshot0 = reader.getDeltaSnapshot();
+        assertThat(deltaSnapshot0.getMax()).isEqualTo(100);
 
-        nh.getDeltaSnapshot(500); // Just to reset
         for (int i=1; i<= 200; i++ ) {
             nh.update(i);
         }
-        ConvenientSnapshot deltaSnapshot1 = nh.getDeltaSnapshot(500);
+        reservoir.tick();
+        ConvenientSnapshot deltaSnapshot1 = reader.getDeltaSnapshot(500);
         assertThat(deltaSnapshot1.getMax()).isEqualTo(200);
+        assertThat(deltaSnapshot1.size()).isEqualTo(200);
 
-        ConvenientSnapshot cachedSnapshot = nh.getSnapshot();
-        assertThat(cachedSnapshot.getMax()).isEqualTo(200);
         for (int i=1; i<= 300; i++ ) {
             nh.update(i);
         }
-        ConvenientSnapshot stillCachedSnapshot = nh.getSnapshot();
-        assertThat(stillCachedSnapshot.getMax()).isEqualTo(200);
+        reservoir.tick();
+        ConvenientSnapshot cachedSnapshot = reader.getDeltaSnapshot();
+        assertThat(cachedSnapshot.getMax()).isEqualTo(200);
 
         try {
             Thread.sleep(501);
         } catch (InterruptedException ignored) {
         }
 
-        ConvenientSnapshot notCachedAnyMoreSnapshot = nh.getSnapshot();
-        notCachedAnyMoreSnapshot.getMax();
+        ConvenientSnapshot notCachedAnyMoreSnapshot = reader.getDeltaSnapshot();
         assertThat(notCachedAnyMoreSnapshot.getMax()).isEqualTo(300);
+        assertThat(notCachedAnyMoreSnapshot.size()).isEqualTo(300);
 
-
+        assertThat(reservoir.getCumulativeHistogram().getTotalCount()).isEqualTo(600);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package io.engineblock.metrics;
+
+import com.codahale.metrics.Gauge;
+import io.engineblock.activityimpl.ActivityDef;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class SlotMetricsTest {
+
+    @Test
+    public void testPerSlotAccumulation() {
+        SlotMetrics sm = new SlotMetrics("test");
+        SlotMetrics.Slot s0 = sm.forSlot(0);
+        SlotMetrics.Slot s70 = sm.forSlot(70);
+
+        s0.addCycle(100L, 10L);
+        s0.addCycle(300L, 30L);
+        s70.addCycle(50L, 5L);
+        s70.setPendingOps(7L);
+        s70.incBlocked();
+
+        assertThat(sm.getSlotCount()).isEqualTo(71);
+        assertThat(sm.getCycles(0)).isEqualTo(2L);
+        assertThat(sm.getServiceTimeNanos(0)).isEqualTo(400L);
+        assertThat(sm.getWaitTimeNanos(0)).isEqualTo(40L);
+        assertThat(sm.getMeanServiceTimeNanos(0)).isEqualTo(200.0d);
+        assertThat(sm.getCycles(70)).isEqualTo(1L);
+        assertThat(sm.getPendingOps(70)).isEqualTo(7L);
+        assertThat(sm.getBlocked(70)).isEqualTo(1L);
+        assertThat(sm.getCycles(35)).isEqualTo(0L);
+    }
+
+    @Test
+    public void testNumericGaugesForConfiguredSlots() {
+        ActivityDef def = ActivityDef.parseActivityDef("alias=slotgauges;slotgauges=3");
+        SlotMetrics sm = SlotMetrics.forActivity(def);
+        sm.forSlot(0).addCycle(100L, 10L);
+        sm.forSlot(3).addCycle(200L, 20L);
+
+        Map<String, Gauge> gauges = ActivityMetrics.getMetricRegistry().getGauges();
+        assertThat(gauges.containsKey("slotgauges.slots.0.cycles")).isFalse();
+        assertThat(gauges.get("slotgauges.slots.3.cycles").getValue()).isEqualTo(1L);
+        assertThat(gauges.get("slotgauges.slots.3.waittime").getValue()).isEqualTo(20L);
+        assertThat(gauges.get("slotgauges.slots.3.servicetime_mean").getValue()).isEqualTo(200.0d);
+        assertThat(gauges.get("slotgauges.slots.cycles_max").getValue()).isEqualTo(1L);
+        assertThat(gauges.containsKey("slotgauges.slots.breakdown")).isFalse();
+        assertThat(sm.getBreakdown()).contains("slots[slotgauges]");
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.metrics;
+
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.testutils.Perf;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * These tests measure the cost of metric registration and lookup, as seen when starting
+ * activities with many threads. They are not enabled by default.
+ */
+@Test(singleThreaded = true, enabled = false)
+public class TestActivityMetricsPerf {
+
+    private final static int ACTIVITIES = 100;
+    private final static int METRICS_PER_ACTIVITY = 100;
+
+    // 10_000 new timers, then 10_000 lookups of extant timers, from 1 thread
+    public void testRegister10kMetrics_1thread() throws Exception {
+        Perf perf = registerAndLookup("1thread", 1);
+        System.out.println(perf);
+    }
+
+    // 10_000 new timers, then 10_000 lookups of extant timers per thread, from 64 threads
+    public void testRegister10kMetrics_64threads() throws Exception {
+        Perf perf = registerAndLookup("64threads", 64);
+        System.out.println(perf);
+    }
+
+    private Perf registerAndLookup(String name, int threads) throws Exception {
+        List<ActivityDef> defs = new ArrayList<>();
+        for (int i = 0; i < ACTIVITIES; i++) {
+            defs.add(ActivityDef.parseActivityDef("alias=perf" + name + i));
+        }
+
+        Perf perf = new Perf("metrics registration, " + threads + " threads");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        long start = System.nanoTime();
+        runAll(executor, threads, defs);
+        long end = System.nanoTime();
+        perf.add("register " + (ACTIVITIES * METRICS_PER_ACTIVITY) + " metrics", start, end,
+                ACTIVITIES * METRICS_PER_ACTIVITY);
+
+        start = System.nanoTime();
+        runAll(executor, threads, defs);
+        end = System.nanoTime();
+        perf.add("lookup extant metrics", start, end, (long) ACTIVITIES * METRICS_PER_ACTIVITY * threads);
+
+        executor.shutdown();
+        defs.forEach(ActivityMetrics::removeActivityMetrics);
+        return perf;
+    }
+
+    private void runAll(ExecutorService executor, int threads, List<ActivityDef> defs) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (ActivityDef def : defs) {
+                    for (int m = 0; m < METRICS_PER_ACTIVITY; m++) {
+                        ActivityMetrics.timer(def, "timer" + m);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.util;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class TagIndexTest {
+
+    private final static List<Tagged> items = Arrays.asList(
+            tagged("name", "one", "phase", "main"),
+            tagged("name", "two", "phase", "rampup"),
+            tagged("name", "three", "phase", "main", "type", "read"),
+            tagged("name", "four", "type", null),
+            tagged("name", "five-oh-five", "phase", "main", "type", "write"),
+            tagged()
+    );
+
+    @Test
+    public void testExactValues() {
+        TagIndex<Tagged> index = new TagIndex<>(items);
+        assertThat(names(index.select(new TagFilter("phase=main")))).containsExactly("one", "three", "five-oh-five");
+        assertThat(names(index.select(new TagFilter("phase=main,type:read")))).containsExactly("three");
+        assertThat(names(index.select(new TagFilter("phase=missing")))).isEmpty();
+        assertThat(names(index.select(new TagFilter("missing=main")))).isEmpty();
+    }
+
+    @Test
+    public void testNamesOnly() {
+        TagIndex<Tagged> index = new TagIndex<>(items);
+        assertThat(names(index.select(new TagFilter("type")))).containsExactly("three", "four", "five-oh-five");
+        assertThat(index.select(new TagFilter(""))).hasSize(items.size());
+    }
+
+    @Test
+    public void testPatternValues() {
+        TagIndex<Tagged> index = new TagIndex<>(items);
+        assertThat(names(index.select(new TagFilter("name='five-oh.*five'")))).containsExactly("five-oh-five");
+        assertThat(names(index.select(new TagFilter("name=t.* phase=main")))).containsExactly("three");
+        assertThat(names(index.select(new TagFilter("type=.*")))).containsExactly("three", "five-oh-five");
+    }
+
+    @Test
+    public void testSameAsTagFilter() {
+        String[] specs = {"", "name", "type", "type=read", "phase=main type", "name=f.*", "name=one|two",
+                "phase=ramp", "name='.*e' phase=main", "type=", "nothing"};
+        TagIndex<Tagged> index = new TagIndex<>(items);
+        for (String spec : specs) {
+            TagFilter tagFilter = new TagFilter(spec);
+            List<Tagged> expected = items.stream().filter(tagFilter::matchesTagged).collect(Collectors.toList());
+            assertThat(index.select(tagFilter)).as(spec).isEqualTo(expected);
+        }
+    }
+
+    private static List<String> names(List<Tagged> tagged) {
+        return tagged.stream().map(t -> t.getTags().get("name")).collect(Collectors.toList());
+    }
+
+    private static Tagged tagged(String... namesAndValues) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            tags.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return () -> tags;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * One case of a {@link BenchMatrix}, which is run as a diag activity. The name of the case is
+ * derived from its axis values, and is the prefix of the activity alias, so results from different
+ * runs can be matched up by name.
+ */
+public class BenchCase {
+
+    private final Map<String, String> params;
+    private final String name;
+
+    public BenchCase(Map<String, String> params) {
+        this.params = new LinkedHashMap<>(params);
+        this.name = params.entrySet().stream()
+                .map(e -> e.getKey() + e.getValue().replaceAll("[^A-Za-z0-9]", ""))
+                .collect(Collectors.joining("_"));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAlias(int repeat) {
+        return name + "_r" + repeat;
+    }
+
+    public Map<String, String> getParams() {
+        return Collections.unmodifiableMap(params);
+    }
+
+    public boolean isOn(String axis) {
+        String value = params.get(axis);
+        return value != null && !value.equals(BenchMatrix.OFF);
+    }
+
+    /**
+     * @param repeat The repeat of this case, which is added to the alias so that each repeat has its own metrics
+     * @param cycles The cycles of the activity
+     * @param warmup The warmup of the activity, or null for none
+     * @param outDir The directory for cycle logs
+     * @return an activity def for this case
+     */
+    public String getActivityDef(int repeat, String cycles, String warmup, Path outDir) {
+        String alias = getAlias(repeat);
+        StringBuilder sb = new StringBuilder();
+        sb.append("type=diag;alias=").append(alias).append(";");
+        sb.append("cycles=").append(cycles).append(";");
+        sb.append("threads=").append(params.getOrDefault(BenchMatrix.THREADS, "1")).append(";");
+        sb.append("stride=").append(params.getOrDefault(BenchMatrix.STRIDE, "1")).append(";");
+        if (isOn(BenchMatrix.ASYNC)) {
+            sb.append("async=").append(params.get(BenchMatrix.ASYNC)).append(";");
+        }
+        if (isOn(BenchMatrix.RATE)) {
+            sb.append("cyclerate=").append(params.get(BenchMatrix.RATE)).append(";");
+        }
+        if (isOn(BenchMatrix.CYCLELOG)) {
+            sb.append("output=type:cyclelog,file:").append(outDir.resolve(alias)).append(";");
+        }
+        if (warmup != null) {
+            sb.append("warmup=").append(warmup).append(";");
+        }
+        // keep diag from logging during the measurement
+        sb.append("interval=0;modulo=").append(Long.MAX_VALUE).append(";");
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * <p>Compares two self-benchmark result files, and flags the results which regressed by more than a
+ * threshold. Results are matched by name. The change of each result is relative to the baseline, and
+ * is positive when the result improved, in the direction of its unit.</p>
+ *
+ * <p>A change is only flagged when it is larger than the threshold and also larger than the spread
+ * of the repeats in either run, so that noisy results are not reported as regressions.</p>
+ *
+ * <pre>
+ *     BenchCompare baseline.json current.json [threshold=5%]
+ * </pre>
+ *
+ * <p>The exit status is 1 if any result regressed, 2 for usage errors, and 0 otherwise.</p>
+ */
+public class BenchCompare {
+
+    public final static double DEFAULT_THRESHOLD = 0.05d;
+
+    private final double threshold;
+
+    public BenchCompare(double threshold) {
+        if (threshold < 0.0d) {
+            throw new RuntimeException("The regression threshold must not be negative, not " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: BenchCompare <baseline.json> <current.json> [threshold=5%]");
+            System.exit(2);
+        }
+        BenchCompare compare;
+        BenchResults baseline;
+        BenchResults current;
+        try {
+            compare = new BenchCompare(args.length == 3 ? parseThreshold(args[2]) : DEFAULT_THRESHOLD);
+            baseline = BenchResults.read(Paths.get(args[0]));
+            current = BenchResults.read(Paths.get(args[1]));
+        } catch (RuntimeException e) {
+            System.err.println("BenchCompare: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        List<Delta> deltas = compare.compare(baseline, current);
+        System.out.print(compare.format(baseline, current, deltas));
+        boolean regressed = deltas.stream().anyMatch(Delta::isRegression);
+        System.exit(regressed ? 1 : 0);
+    }
+
+    /**
+     * @param spec A threshold like 5% or 0.05, optionally prefixed with threshold=
+     * @return the threshold as a fraction
+     */
+    static double parseThreshold(String spec) {
+        String value = spec.startsWith("threshold=") ? spec.substring("threshold=".length()) : spec;
+        try {
+            if (value.endsWith("%")) {
+                return Double.parseDouble(value.substring(0, value.length() - 1)) / 100.0d;
+            }
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Unable to parse threshold '" + spec + "', it must be like 5% or 0.05");
+        }
+    }
+
+    /**
+     * @param baseline The earlier results
+     * @param current  The later results
+     * @return a delta for each result in either run, in the order of the baseline, then any new results
+     */
+    public List<Delta> compare(BenchResults baseline, BenchResults current) {
+        List<Delta> deltas = new ArrayList<>();
+        for (BenchResult before : baseline.getResults()) {
+            deltas.add(new Delta(before, current.getResult(before.getName()).orElse(null), threshold));
+        }
+        for (BenchResult after : current.getResults()) {
+            if (!baseline.getResult(after.getName()).isPresent()) {
+                deltas.add(new Delta(null, after, threshold));
+            }
+        }
+        return deltas;
+    }
+
+    public String format(BenchResults baseline, BenchResults current, List<Delta> deltas) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("baseline: ").append(baseline.getEnvironment()).append("\n");
+        sb.append("current:  ").append(current.getEnvironment()).append("\n");
+        sb.append(String.format(Locale.ROOT, "threshold: %.1f%%%n", threshold * 100.0d));
+        sb.append(String.format(Locale.ROOT, "%-72s %16s %16s %9s  %s%n", "name", "baseline", "current", "change", "status"));
+        for (Delta delta : deltas) {
+            sb.append(String.format(Locale.ROOT, "%-72s %16s %16s %9s  %s%n",
+                    delta.getName(),
+                    delta.before != null ? BenchResults.number(delta.before.getValue()) : "-",
+                    delta.after != null ? BenchResults.number(delta.after.getValue()) : "-",
+                    delta.isMatched() ? String.format(Locale.ROOT, "%+.1f%%", delta.getChange() * 100.0d) : "-",
+                    delta.getStatus()));
+        }
+        long regressions = deltas.stream().filter(Delta::isRegression).count();
+        sb.append(regressions).append(" regression").append(regressions == 1 ? "" : "s").append("\n");
+        return sb.toString();
+    }
+
+    /**
+     * The change of one result between two runs.
+     */
+    public static class Delta {
+        private final BenchResult before;
+        private final BenchResult after;
+        private final double threshold;
+
+        Delta(BenchResult before, BenchResult after, double threshold) {
+            this.before = before;
+            this.after = after;
+            this.threshold = threshold;
+        }
+
+        public String getName() {
+            return before != null ? before.getName() : after.getName();
+        }
+
+        public Optional<BenchResult> getBefore() {
+            return Optional.ofNullable(before);
+        }
+
+        public Optional<BenchResult> getAfter() {
+            return Optional.ofNullable(after);
+        }
+
+        public boolean isMatched() {
+            return before != null && after != null && before.getValue() != 0.0d
+                    && !Double.isNaN(before.getValue()) && !Double.isNaN(after.getValue());
+        }
+
+        /**
+         * @return the relative change from the baseline, which is positive for an improvement, or NaN if unmatched
+         */
+        public double getChange() {
+            if (!isMatched()) {
+                return Double.NaN;
+            }
+            double change = (after.getValue() - before.getValue()) / Math.abs(before.getValue());
+            return before.isHigherBetter() ? change : -change;
+        }
+
+        private double getNoise() {
+            return Math.max(before.getSpread(), after.getSpread());
+        }
+
+        public boolean isRegression() {
+            return isMatched() && -getChange() > threshold && -getChange() > getNoise();
+        }
+
+        public boolean isImprovement() {
+            return isMatched() && getChange() > threshold && getChange() > getNoise();
+        }
+
+        public String getStatus() {
+            if (before == null) {
+                return "new";
+            }
+            if (after == null) {
+                return "missing";
+            }
+            if (!isMatched()) {
+                return "n/a";
+            }
+            if (isRegression()) {
+                return "REGRESSION";
+            }
+            if (isImprovement()) {
+                return "improved";
+            }
+            return "ok";
+        }
+
+        @Override
+        public String toString() {
+            return getName() + ": " + getStatus();
+        }
+    }
+}
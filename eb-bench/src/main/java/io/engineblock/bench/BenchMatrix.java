@@ -0,0 +1,119 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <p>The cases of a scenario benchmark, as the cross product of a set of axes. Each axis has a name
+ * and a list of values, where <em>off</em> disables the feature the axis is for. The axes are:</p>
+ * <ul>
+ * <li>async - off for sync actions, or the number of async ops per thread</li>
+ * <li>stride - the stride of the activity</li>
+ * <li>threads - the number of threads</li>
+ * <li>rate - off, or a cycle rate, which should be above what the activity can reach so that
+ * the rate limiter is exercised without limiting</li>
+ * <li>cyclelog - on to write a cycle log as the activity output</li>
+ * <li>histolog - on to log interval histograms for the activity</li>
+ * </ul>
+ *
+ * <p>Axis values are given like <em>threads=1,4,16</em>. Axes which are not given keep their defaults.</p>
+ */
+public class BenchMatrix {
+
+    public final static String ASYNC = "async";
+    public final static String STRIDE = "stride";
+    public final static String THREADS = "threads";
+    public final static String RATE = "rate";
+    public final static String CYCLELOG = "cyclelog";
+    public final static String HISTOLOG = "histolog";
+
+    public final static String OFF = "off";
+    public final static String ON = "on";
+
+    private final Map<String, List<String>> axes = new LinkedHashMap<>();
+
+    public BenchMatrix() {
+        axes.put(ASYNC, Arrays.asList(OFF, "100"));
+        axes.put(STRIDE, Arrays.asList("1", "100"));
+        axes.put(THREADS, Arrays.asList("1", "4"));
+        axes.put(RATE, Arrays.asList(OFF, "50M"));
+        axes.put(CYCLELOG, Arrays.asList(OFF, ON));
+        axes.put(HISTOLOG, Arrays.asList(OFF, ON));
+    }
+
+    /**
+     * Set the values of an axis.
+     *
+     * @param axisSpec An axis and its values, like <em>threads=1,4,16</em>
+     * @return this BenchMatrix, for method chaining
+     */
+    public BenchMatrix setAxis(String axisSpec) {
+        String[] parts = axisSpec.split("=", 2);
+        if (parts.length != 2 || parts[1].trim().isEmpty()) {
+            throw new RuntimeException("Unable to parse axis '" + axisSpec + "', it must be like threads=1,4,16");
+        }
+        String axis = parts[0].trim();
+        if (!axes.containsKey(axis)) {
+            throw new RuntimeException("Unknown axis '" + axis + "', it must be one of " + axes.keySet());
+        }
+        List<String> values = Arrays.stream(parts[1].split(","))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .collect(Collectors.toList());
+        axes.put(axis, values);
+        return this;
+    }
+
+    public Map<String, List<String>> getAxes() {
+        return Collections.unmodifiableMap(axes);
+    }
+
+    /**
+     * @return all combinations of the axis values, varying the last axis fastest
+     */
+    public List<BenchCase> getCases() {
+        List<Map<String, String>> combinations = new ArrayList<>();
+        combinations.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<String>> axis : axes.entrySet()) {
+            List<Map<String, String>> extended = new ArrayList<>();
+            for (Map<String, String> combination : combinations) {
+                for (String value : axis.getValue()) {
+                    Map<String, String> next = new LinkedHashMap<>(combination);
+                    next.put(axis.getKey(), value);
+                    extended.add(next);
+                }
+            }
+            combinations = extended;
+        }
+        return combinations.stream().map(BenchCase::new).collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return axes.entrySet().stream()
+                .map(e -> e.getKey() + "=" + String.join(",", e.getValue()))
+                .collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One measured value of a self-benchmark, which is either the throughput of a scenario case or the
+ * score of a JMH benchmark. Results are matched between runs by name, and compared by value, in the
+ * direction given by {@link #isHigherBetter()}.
+ */
+public class BenchResult {
+
+    public final static String SCENARIO = "scenario";
+    public final static String JMH = "jmh";
+
+    private final String name;
+    private final String kind;
+    private final String unit;
+    private final boolean higherBetter;
+    private final double value;
+    private final double min;
+    private final double max;
+    private final Map<String, String> params = new LinkedHashMap<>();
+    private final Map<String, Double> details = new LinkedHashMap<>();
+
+    /**
+     * @param name         The name of the case or benchmark
+     * @param kind         {@link #SCENARIO} or {@link #JMH}
+     * @param unit         The unit of the value, like cycles/s or ns/op
+     * @param higherBetter true if a higher value is an improvement
+     * @param value        The measured value, which is the median of all repeats
+     * @param min          The lowest value of all repeats
+     * @param max          The highest value of all repeats
+     */
+    public BenchResult(String name, String kind, String unit, boolean higherBetter, double value, double min, double max) {
+        this.name = name;
+        this.kind = kind;
+        this.unit = unit;
+        this.higherBetter = higherBetter;
+        this.value = value;
+        this.min = min;
+        this.max = max;
+    }
+
+    public BenchResult withParams(Map<String, String> params) {
+        this.params.putAll(params);
+        return this;
+    }
+
+    public BenchResult withDetail(String detail, double value) {
+        this.details.put(detail, value);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public boolean isHigherBetter() {
+        return higherBetter;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public Map<String, String> getParams() {
+        return Collections.unmodifiableMap(params);
+    }
+
+    public Map<String, Double> getDetails() {
+        return Collections.unmodifiableMap(details);
+    }
+
+    /**
+     * @return the spread of all repeats, relative to the value
+     */
+    public double getSpread() {
+        return value != 0.0d ? (max - min) / Math.abs(value) : 0.0d;
+    }
+
+    void appendJson(StringBuilder sb, String indent) {
+        String in = indent + "  ";
+        sb.append("{\n");
+        sb.append(in).append("\"name\": ").append(BenchResults.quote(name)).append(",\n");
+        sb.append(in).append("\"kind\": ").append(BenchResults.quote(kind)).append(",\n");
+        sb.append(in).append("\"unit\": ").append(BenchResults.quote(unit)).append(",\n");
+        sb.append(in).append("\"higher_is_better\": ").append(higherBetter).append(",\n");
+        sb.append(in).append("\"value\": ").append(BenchResults.number(value)).append(",\n");
+        sb.append(in).append("\"min\": ").append(BenchResults.number(min)).append(",\n");
+        sb.append(in).append("\"max\": ").append(BenchResults.number(max)).append(",\n");
+        sb.append(in).append("\"params\": {");
+        String sep = "";
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            sb.append(sep).append(BenchResults.quote(param.getKey())).append(": ").append(BenchResults.quote(param.getValue()));
+            sep = ", ";
+        }
+        sb.append("},\n");
+        sb.append(in).append("\"details\": {");
+        sep = "";
+        for (Map.Entry<String, Double> detail : details.entrySet()) {
+            sb.append(sep).append(BenchResults.quote(detail.getKey())).append(": ").append(BenchResults.number(detail.getValue()));
+            sep = ", ";
+        }
+        sb.append("}\n");
+        sb.append(indent).append("}");
+    }
+
+    @SuppressWarnings("unchecked")
+    static BenchResult fromMap(Map<String, Object> map) {
+        BenchResult result = new BenchResult(
+                String.valueOf(map.get("name")),
+                String.valueOf(map.get("kind")),
+                String.valueOf(map.get("unit")),
+                Boolean.TRUE.equals(map.get("higher_is_better")),
+                BenchResults.toDouble(map.get("value")),
+                BenchResults.toDouble(map.get("min")),
+                BenchResults.toDouble(map.get("max")));
+        Object params = map.get("params");
+        if (params instanceof Map) {
+            ((Map<String, Object>) params).forEach((k, v) -> result.params.put(k, String.valueOf(v)));
+        }
+        Object details = map.get("details");
+        if (details instanceof Map) {
+            ((Map<String, Object>) details).forEach((k, v) -> result.details.put(k, BenchResults.toDouble(v)));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + BenchResults.number(value) + " " + unit;
+    }
+}
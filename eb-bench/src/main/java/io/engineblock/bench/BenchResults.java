@@ -0,0 +1,184 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p>The results of one self-benchmark run, along with where it was run, as a JSON document.
+ * Result files are meant to be kept, so that engine overhead can be compared release over release
+ * with {@link BenchCompare}.</p>
+ *
+ * <p>Result files are read with the YAML parser, since JSON documents are also YAML documents.</p>
+ */
+public class BenchResults {
+
+    public final static int FORMAT_VERSION = 1;
+
+    private final Map<String, String> environment = new LinkedHashMap<>();
+    private final List<BenchResult> results = new ArrayList<>();
+
+    public BenchResults() {
+    }
+
+    /**
+     * @param label A label for the run, like a version or a branch name, or null for the engine version
+     * @return results which describe the current JVM and host, without any values yet
+     */
+    public static BenchResults forCurrentHost(String label) {
+        BenchResults benchResults = new BenchResults();
+        Package enginePackage = io.engineblock.core.ScenarioController.class.getPackage();
+        String version = enginePackage != null ? enginePackage.getImplementationVersion() : null;
+        String engineVersion = version != null ? version : "unknown";
+        benchResults.putEnvironment("label", label != null ? label : engineVersion);
+        benchResults.putEnvironment("engine_version", engineVersion);
+        benchResults.putEnvironment("started_at_millis", String.valueOf(System.currentTimeMillis()));
+        benchResults.putEnvironment("java_version", System.getProperty("java.version"));
+        benchResults.putEnvironment("java_vm", System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"));
+        benchResults.putEnvironment("os", System.getProperty("os.name") + " " + System.getProperty("os.version")
+                + " " + System.getProperty("os.arch"));
+        benchResults.putEnvironment("cores", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        return benchResults;
+    }
+
+    public BenchResults putEnvironment(String key, String value) {
+        environment.put(key, String.valueOf(value));
+        return this;
+    }
+
+    public BenchResults add(BenchResult result) {
+        results.add(result);
+        return this;
+    }
+
+    public Map<String, String> getEnvironment() {
+        return Collections.unmodifiableMap(environment);
+    }
+
+    public List<BenchResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    public Optional<BenchResult> getResult(String name) {
+        return results.stream().filter(r -> r.getName().equals(name)).findFirst();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"format_version\": ").append(FORMAT_VERSION).append(",\n");
+        sb.append("  \"environment\": {");
+        String sep = "\n    ";
+        for (Map.Entry<String, String> entry : environment.entrySet()) {
+            sb.append(sep).append(quote(entry.getKey())).append(": ").append(quote(entry.getValue()));
+            sep = ",\n    ";
+        }
+        sb.append(environment.isEmpty() ? "},\n" : "\n  },\n");
+        sb.append("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append(i == 0 ? "\n    " : ",\n    ");
+            results.get(i).appendJson(sb, "    ");
+        }
+        sb.append(results.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * @param path The file to write the results to
+     * @return the path
+     */
+    public Path write(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write benchmark results to " + path + ": " + e, e);
+        }
+        return path;
+    }
+
+    public static BenchResults read(Path path) {
+        try {
+            return parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read benchmark results from " + path + ": " + e, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static BenchResults parse(String json) {
+        Object document = new Yaml().load(json);
+        if (!(document instanceof Map)) {
+            throw new RuntimeException("Benchmark results must be a JSON object");
+        }
+        Map<String, Object> map = (Map<String, Object>) document;
+        Object formatVersion = map.get("format_version");
+        if (formatVersion == null || ((Number) formatVersion).intValue() != FORMAT_VERSION) {
+            throw new RuntimeException("Unsupported benchmark results format version " + formatVersion
+                    + ", expected " + FORMAT_VERSION);
+        }
+        BenchResults benchResults = new BenchResults();
+        Object environment = map.get("environment");
+        if (environment instanceof Map) {
+            ((Map<String, Object>) environment).forEach((k, v) -> benchResults.putEnvironment(k, String.valueOf(v)));
+        }
+        Object results = map.get("results");
+        if (results instanceof List) {
+            for (Object result : (List<Object>) results) {
+                benchResults.add(BenchResult.fromMap((Map<String, Object>) result));
+            }
+        }
+        return benchResults;
+    }
+
+    /**
+     * Quote a JSON string. Slashes are left as they are, since the YAML parser does not accept
+     * the optional JSON escape for them.
+     */
+    static String quote(String value) {
+        return "\"" + StringEscapeUtils.escapeJson(value).replace("\\/", "/") + "\"";
+    }
+
+    static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "null";
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import io.engineblock.core.ActivitySummary;
+import io.engineblock.core.ScenarioResult;
+import io.engineblock.core.ShutdownManager;
+import io.engineblock.metrics.ActivityMetrics;
+import io.engineblock.script.Scenario;
+import io.engineblock.script.ScenariosExecutor;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * <p>Runs the engine self-benchmarks, and writes the results to a JSON file. Each case of the
+ * {@link BenchMatrix} is run as its own scenario with a diag activity, and its throughput is taken
+ * from the {@link ActivitySummary}, excluding the warmup. Then the {@link EngineHotPaths} JMH
+ * benchmarks are run.</p>
+ *
+ * <p>All options are given as <em>name=value</em>:</p>
+ * <ul>
+ * <li>out - the result file (default: logs/bench/engine-bench.json)</li>
+ * <li>label - a label for the run, like a version (default: the engine version)</li>
+ * <li>cycles - the cycles of each case (default: 2M)</li>
+ * <li>warmup - the warmup of each case, as for the warmup activity param (default: 500K)</li>
+ * <li>repeat - how many times to run each case, the median is reported (default: 3)</li>
+ * <li>jmh - false to skip the JMH benchmarks (default: true)</li>
+ * <li>any axis of the {@link BenchMatrix}, like threads=1,4,16</li>
+ * </ul>
+ */
+public class EngineBench {
+    private final static Logger logger = LoggerFactory.getLogger(EngineBench.class);
+
+    private final static String SESSION = "engine-bench";
+
+    private final BenchMatrix matrix = new BenchMatrix();
+    private Path out = Paths.get("logs", "bench", "engine-bench.json");
+    private String label;
+    private String cycles = "2M";
+    private String warmup = "500K";
+    private int repeat = 3;
+    private boolean jmh = true;
+
+    public static void main(String[] args) {
+        int exitCode = 0;
+        try {
+            EngineBench engineBench = new EngineBench().configure(args);
+            BenchResults results = engineBench.run();
+            Path written = results.write(engineBench.out);
+            logger.info("wrote " + results.getResults().size() + " benchmark results to " + written);
+        } catch (Exception e) {
+            logger.error("engine benchmark failed: " + e.getMessage(), e);
+            exitCode = 2;
+        }
+        ActivityMetrics.closeMetrics(false);
+        ShutdownManager.shutdown();
+        System.exit(exitCode);
+    }
+
+    public EngineBench configure(String... args) {
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new RuntimeException("Unable to parse option '" + arg + "', options must be like name=value");
+            }
+            switch (parts[0]) {
+                case "out":
+                    out = Paths.get(parts[1]);
+                    break;
+                case "label":
+                    label = parts[1];
+                    break;
+                case "cycles":
+                    cycles = parts[1];
+                    break;
+                case "warmup":
+                    warmup = parts[1].equals(BenchMatrix.OFF) ? null : parts[1];
+                    break;
+                case "repeat":
+                    repeat = Integer.parseInt(parts[1]);
+                    if (repeat < 1) {
+                        throw new RuntimeException("repeat must be at least 1, not " + repeat);
+                    }
+                    break;
+                case "jmh":
+                    jmh = Boolean.parseBoolean(parts[1]);
+                    break;
+                default:
+                    matrix.setAxis(arg);
+            }
+        }
+        return this;
+    }
+
+    public BenchResults run() {
+        BenchResults results = BenchResults.forCurrentHost(label);
+        results.putEnvironment("matrix", matrix.toString());
+        results.putEnvironment("cycles", cycles);
+        results.putEnvironment("warmup", String.valueOf(warmup));
+        results.putEnvironment("repeat", String.valueOf(repeat));
+
+        Path outDir = out.toAbsolutePath().getParent();
+        ActivityMetrics.addHistoLogger(SESSION, ".*" + BenchMatrix.HISTOLOG + BenchMatrix.ON + ".*",
+                outDir.resolve(SESSION + ".hdr").toString(), "1s");
+
+        for (BenchCase benchCase : matrix.getCases()) {
+            results.add(runCase(benchCase, outDir));
+        }
+        if (jmh) {
+            for (RunResult runResult : runHotPaths(outDir)) {
+                results.add(toResult(runResult));
+            }
+        }
+        return results;
+    }
+
+    private BenchResult runCase(BenchCase benchCase, Path outDir) {
+        double[] rates = new double[repeat];
+        double[] p50s = new double[repeat];
+        double[] p99s = new double[repeat];
+        long errors = 0L;
+        for (int i = 0; i < repeat; i++) {
+            String activityDef = benchCase.getActivityDef(i, cycles, warmup, outDir);
+            logger.info("running " + benchCase + " (" + (i + 1) + "/" + repeat + "): " + activityDef);
+
+            Scenario scenario = new Scenario(SESSION + "_" + benchCase.getAlias(i), "disabled");
+            scenario.addScriptText("scenario.run(\"" + activityDef + "\");\n");
+            ScenariosExecutor executor = new ScenariosExecutor(SESSION + "_" + benchCase.getAlias(i), 1);
+            executor.execute(scenario);
+            ScenarioResult result = executor.awaitAllResults().getOne();
+            result.getException().ifPresent(e -> {
+                throw new RuntimeException("case " + benchCase + " failed: " + e.getMessage(), e);
+            });
+
+            ActivitySummary summary = result.getActivitySummary(benchCase.getAlias(i)).orElseThrow(
+                    () -> new RuntimeException("No activity summary for " + benchCase));
+            rates[i] = summary.getCyclesPerSecond();
+            ActivitySummary.HistogramSummary servicetime = summary.getTimers().get(ActivitySummary.CYCLES_TIMER);
+            p50s[i] = servicetime != null ? servicetime.getValueAtPercentile(50.0d) : Double.NaN;
+            p99s[i] = servicetime != null ? servicetime.getValueAtPercentile(99.0d) : Double.NaN;
+            errors += summary.getErrorCount();
+            logger.info(benchCase + " (" + (i + 1) + "/" + repeat + "): " + BenchResults.number(rates[i]) + " cycles/s");
+        }
+        return new BenchResult(benchCase.getName(), BenchResult.SCENARIO, "cycles/s", true,
+                median(rates), Arrays.stream(rates).min().orElse(0.0d), Arrays.stream(rates).max().orElse(0.0d))
+                .withParams(benchCase.getParams())
+                .withDetail("p50_nanos", median(p50s))
+                .withDetail("p99_nanos", median(p99s))
+                .withDetail("errors", errors);
+    }
+
+    private Collection<RunResult> runHotPaths(Path outDir) {
+        try {
+            String logfile = outDir.resolve("jmh_" + EngineHotPaths.class.getSimpleName() + ".log").toString();
+            Options options = new OptionsBuilder()
+                    .include(EngineHotPaths.class.getName() + ".*")
+                    .output(logfile)
+                    .build();
+            logger.info("running JMH benchmarks of engine hot paths, for about two minutes; details in " + logfile);
+            return new Runner(options).run();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to run JMH benchmarks: " + e.getMessage(), e);
+        }
+    }
+
+    private static BenchResult toResult(RunResult runResult) {
+        String benchmark = runResult.getParams().getBenchmark();
+        String name = "jmh." + benchmark.substring(benchmark.lastIndexOf('.') + 1);
+        Statistics statistics = runResult.getPrimaryResult().getStatistics();
+        boolean higherBetter = runResult.getParams().getMode() == Mode.Throughput;
+        return new BenchResult(name, BenchResult.JMH, runResult.getPrimaryResult().getScoreUnit(), higherBetter,
+                runResult.getPrimaryResult().getScore(), statistics.getMin(), statistics.getMax())
+                .withParams(Collections.singletonMap("threads", String.valueOf(runResult.getParams().getThreads())))
+                .withDetail("score_error", runResult.getPrimaryResult().getScoreError());
+    }
+
+    static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0d;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import com.codahale.metrics.Timer;
+import io.engineblock.activityapi.ratelimits.RateLimiter;
+import io.engineblock.activityapi.ratelimits.RateLimiters;
+import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.metrics.ActivityMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the per-cycle work that the engine does around every op, apart from
+ * the activity itself. These are run by {@link EngineBench} along with the scenario cases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, timeUnit = TimeUnit.SECONDS, time = 2)
+@Measurement(iterations = 5, timeUnit = TimeUnit.SECONDS, time = 2)
+@Fork(1)
+public class EngineHotPaths {
+
+    private RateLimiter rateLimiter;
+    private Timer timer;
+    private long value;
+
+    @Setup
+    public void setup() {
+        ActivityDef activityDef = ActivityDef.parseActivityDef("alias=hotpaths;type=diag");
+        // far above what one thread can reach, so that only the bookkeeping is measured
+        rateLimiter = RateLimiters.create(activityDef, "bench", "1000000000");
+        timer = ActivityMetrics.timer(activityDef, "bench");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long rateLimiterAcquire() {
+        return rateLimiter.maybeWaitForOp();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void timerUpdate() {
+        value = (value + 7919L) & 0xFFFFL;
+        timer.update(1000L + value, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void timerUpdateContended() {
+        timer.update(1000L, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class BenchCompareTest {
+
+    private static BenchResult scenario(String name, double value, double min, double max) {
+        return new BenchResult(name, BenchResult.SCENARIO, "cycles/s", true, value, min, max);
+    }
+
+    private static BenchResult jmh(String name, double value) {
+        return new BenchResult(name, BenchResult.JMH, "ns/op", false, value, value, value);
+    }
+
+    @Test
+    public void testJsonRoundTrip() {
+        BenchResults results = BenchResults.forCurrentHost("test \"label\" with/slash");
+        results.add(scenario("asyncoff_stride1", 1234567.891d, 1200000.0d, 1250000.0d)
+                .withParams(Collections.singletonMap("stride", "1"))
+                .withDetail("p99_nanos", 2048.0d));
+        results.add(jmh("jmh.timerUpdate", 42.5d));
+
+        BenchResults read = BenchResults.parse(results.toJson());
+        assertThat(read.getEnvironment().get("label")).isEqualTo("test \"label\" with/slash");
+        assertThat(read.getResults()).hasSize(2);
+        BenchResult first = read.getResult("asyncoff_stride1").get();
+        assertThat(first.getValue()).isEqualTo(1234567.891d);
+        assertThat(first.getMin()).isEqualTo(1200000.0d);
+        assertThat(first.isHigherBetter()).isTrue();
+        assertThat(first.getParams().get("stride")).isEqualTo("1");
+        assertThat(first.getDetails().get("p99_nanos")).isEqualTo(2048.0d);
+        BenchResult second = read.getResult("jmh.timerUpdate").get();
+        assertThat(second.isHigherBetter()).isFalse();
+        assertThat(second.getUnit()).isEqualTo("ns/op");
+    }
+
+    @Test
+    public void testRegressions() {
+        BenchResults baseline = new BenchResults()
+                .add(scenario("slower", 1000.0d, 990.0d, 1010.0d))
+                .add(scenario("faster", 1000.0d, 990.0d, 1010.0d))
+                .add(scenario("same", 1000.0d, 990.0d, 1010.0d))
+                .add(jmh("jmh.slower", 10.0d))
+                .add(scenario("removed", 1000.0d, 1000.0d, 1000.0d));
+        BenchResults current = new BenchResults()
+                .add(scenario("slower", 900.0d, 890.0d, 910.0d))
+                .add(scenario("faster", 1200.0d, 1190.0d, 1210.0d))
+                .add(scenario("same", 980.0d, 970.0d, 990.0d))
+                .add(jmh("jmh.slower", 12.0d))
+                .add(scenario("added", 1000.0d, 1000.0d, 1000.0d));
+
+        List<BenchCompare.Delta> deltas = new BenchCompare(0.05d).compare(baseline, current);
+        assertThat(deltas).hasSize(6);
+        assertThat(deltas.get(0).isRegression()).isTrue();
+        assertThat(deltas.get(0).getChange()).isEqualTo(-0.1d);
+        assertThat(deltas.get(1).isImprovement()).isTrue();
+        assertThat(deltas.get(2).getStatus()).isEqualTo("ok");
+        assertThat(deltas.get(3).isRegression()).isTrue();
+        assertThat(deltas.get(4).getStatus()).isEqualTo("missing");
+        assertThat(deltas.get(5).getStatus()).isEqualTo("new");
+    }
+
+    @Test
+    public void testNoisyResultsAreNotRegressions() {
+        BenchResults baseline = new BenchResults().add(scenario("noisy", 1000.0d, 700.0d, 1300.0d));
+        BenchResults current = new BenchResults().add(scenario("noisy", 900.0d, 800.0d, 1000.0d));
+        List<BenchCompare.Delta> deltas = new BenchCompare(0.05d).compare(baseline, current);
+        assertThat(deltas.get(0).isRegression()).isFalse();
+        assertThat(deltas.get(0).getStatus()).isEqualTo("ok");
+    }
+
+    @Test
+    public void testThresholds() {
+        assertThat(BenchCompare.parseThreshold("5%")).isEqualTo(0.05d);
+        assertThat(BenchCompare.parseThreshold("threshold=10%")).isEqualTo(0.1d);
+        assertThat(BenchCompare.parseThreshold("0.02")).isEqualTo(0.02d);
+    }
+}
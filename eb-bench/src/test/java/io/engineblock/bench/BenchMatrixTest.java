@@ -0,0 +1,91 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.bench;
+
+import org.testng.annotations.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class BenchMatrixTest {
+
+    @Test
+    public void testDefaultMatrix() {
+        List<BenchCase> cases = new BenchMatrix().getCases();
+        assertThat(cases).hasSize(64);
+        assertThat(cases.get(0).getName()).isEqualTo("asyncoff_stride1_threads1_rateoff_cyclelogoff_histologoff");
+        assertThat(cases.get(1).getName()).isEqualTo("asyncoff_stride1_threads1_rateoff_cyclelogoff_histologon");
+        assertThat(cases.get(63).getName()).isEqualTo("async100_stride100_threads4_rate50M_cyclelogon_histologon");
+    }
+
+    @Test
+    public void testAxisOverrides() {
+        BenchMatrix matrix = new BenchMatrix()
+                .setAxis("async=off")
+                .setAxis("stride=1")
+                .setAxis("threads=1, 8, 32")
+                .setAxis("rate=off")
+                .setAxis("cyclelog=off")
+                .setAxis("histolog=off");
+        List<BenchCase> cases = matrix.getCases();
+        assertThat(cases).hasSize(3);
+        assertThat(cases.get(2).getParams().get(BenchMatrix.THREADS)).isEqualTo("32");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testUnknownAxis() {
+        new BenchMatrix().setAxis("cores=1,2");
+    }
+
+    @Test
+    public void testActivityDef() {
+        BenchMatrix matrix = new BenchMatrix()
+                .setAxis("async=100")
+                .setAxis("stride=10")
+                .setAxis("threads=4")
+                .setAxis("rate=1M")
+                .setAxis("cyclelog=on")
+                .setAxis("histolog=off");
+        BenchCase benchCase = matrix.getCases().get(0);
+        String def = benchCase.getActivityDef(2, "1M", "100K", Paths.get("bench"));
+        assertThat(def).contains("alias=" + benchCase.getName() + "_r2;");
+        assertThat(def).contains("cycles=1M;");
+        assertThat(def).contains("threads=4;");
+        assertThat(def).contains("stride=10;");
+        assertThat(def).contains("async=100;");
+        assertThat(def).contains("cyclerate=1M;");
+        assertThat(def).contains("output=type:cyclelog,file:" + Paths.get("bench", benchCase.getName() + "_r2") + ";");
+        assertThat(def).contains("warmup=100K;");
+
+        BenchCase plain = new BenchMatrix().getCases().get(0);
+        String plainDef = plain.getActivityDef(0, "1M", null, Paths.get("bench"));
+        assertThat(plainDef).doesNotContain("async=");
+        assertThat(plainDef).doesNotContain("cyclerate=");
+        assertThat(plainDef).doesNotContain("output=");
+        assertThat(plainDef).doesNotContain("warmup=");
+    }
+
+    @Test
+    public void testMedian() {
+        assertThat(EngineBench.median(new double[]{3.0d, 1.0d, 2.0d})).isEqualTo(2.0d);
+        assertThat(EngineBench.median(new double[]{4.0d, 1.0d, 2.0d, 3.0d})).isEqualTo(2.5d);
+    }
+}
@@ -0,0 +1,344 @@
+package io.engineblock.cli;
+
+import io.engineblock.metrics.ActivityMetrics;
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.apache.commons.text.StringEscapeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Runs a session across several worker processes on this machine, for loads which are too large
+ * for one JVM. Each worker is started with the same command line, along with a partition of the form
+ * <em>index/count</em>. Each worker runs only its share of the cycles of each activity, at its share
+ * of the cycle rate. See {@link io.engineblock.activityimpl.ActivityPartition}.</p>
+ *
+ * <p>Workers connect back to the coordinator over a loopback socket, and stream all of their interval
+ * histograms to it in the HDR histogram log format. The coordinator merges the intervals by metric
+ * name as they arrive. It logs a merged view at each reporting interval, writes the merged intervals
+ * to <em>session.merged.hdr</em>, and writes a merged full-run summary to
+ * <em>session.coordinator.summary.json</em> once all workers are done.</p>
+ */
+public class Coordinator {
+    private final static Logger logger = LoggerFactory.getLogger(Coordinator.class);
+
+    public final static String STREAM_INTERVAL = "1s";
+    private final static int CONNECT_TIMEOUT_MILLIS = 60000;
+    private final static String VIEW_METRIC_SUFFIX = "cycles.servicetime";
+
+    private final static double[] PERCENTILES = {50.0d, 75.0d, 90.0d, 95.0d, 98.0d, 99.0d, 99.9d, 99.99d};
+    private final static String[] PERCENTILE_NAMES = {"p50", "p75", "p90", "p95", "p98", "p99", "p999", "p9999"};
+
+    private final String sessionName;
+    private final int workers;
+    private final List<String> workerArgs;
+    private final Path logDir;
+    private final long viewIntervalMillis;
+    private final Map<String, Histogram> intervals = new TreeMap<>();
+    private final Map<String, Histogram> cumulatives = new TreeMap<>();
+    private final List<Process> processes = new ArrayList<>();
+    private HistogramLogWriter mergedLog;
+    private long lastViewMillis;
+
+    /**
+     * @param sessionName        The session name, which names the workers and the merged logs
+     * @param workers            The number of worker processes
+     * @param args               The command line of this process, which is passed on to the workers
+     * @param logsDirectory      The directory for worker output and merged results
+     * @param viewIntervalMillis How often to print the merged view
+     */
+    public Coordinator(String sessionName, int workers, String[] args, String logsDirectory, long viewIntervalMillis) {
+        if (workers < 1) {
+            throw new RuntimeException("A coordinator needs at least one worker, not " + workers);
+        }
+        this.sessionName = sessionName;
+        this.workers = workers;
+        this.workerArgs = workerArgs(args);
+        this.logDir = Paths.get(logsDirectory);
+        this.viewIntervalMillis = viewIntervalMillis;
+    }
+
+    /**
+     * Connect this process to its coordinator, and stream all interval histograms to it until the
+     * metrics are closed. This is called in each worker process.
+     *
+     * @param sessionName The session name of the worker
+     * @param address     The coordinator address, in host:port form
+     */
+    public static void streamTo(String sessionName, String address) {
+        int colonAt = address.lastIndexOf(":");
+        if (colonAt < 0) {
+            throw new RuntimeException("The coordinator address must be in host:port form, not '" + address + "'");
+        }
+        try {
+            Socket socket = new Socket(address.substring(0, colonAt), Integer.parseInt(address.substring(colonAt + 1)));
+            ActivityMetrics.addHistoStream(sessionName, ".*", socket.getOutputStream(), STREAM_INTERVAL);
+            logger.info("streaming histograms to coordinator at " + address);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to connect to coordinator at " + address + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Start the workers, merge their histograms until they are all done, and write the merged results.
+     * @return 0 if all workers succeeded, or 2 otherwise
+     */
+    public int run() {
+        long startedAtMillis = System.currentTimeMillis();
+        Thread stopper = new Thread(this::destroyWorkers, "coordinator-shutdown");
+        Runtime.getRuntime().addShutdownHook(stopper);
+        ScheduledExecutorService viewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "coordinator-view");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            Files.createDirectories(logDir);
+            mergedLog = startMergedLog(startedAtMillis);
+            String address = server.getInetAddress().getHostAddress() + ":" + server.getLocalPort();
+            logger.info("coordinating " + workers + " workers for session " + sessionName + " at " + address);
+
+            for (int index = 0; index < workers; index++) {
+                processes.add(launch(index, address));
+            }
+
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            List<Thread> readers = new ArrayList<>();
+            for (int connection = 0; connection < workers; connection++) {
+                Socket socket = server.accept();
+                Thread reader = new Thread(() -> read(socket), "coordinator-reader-" + connection);
+                reader.setDaemon(true);
+                reader.start();
+                readers.add(reader);
+            }
+            lastViewMillis = System.currentTimeMillis();
+            viewer.scheduleAtFixedRate(this::view, viewIntervalMillis, viewIntervalMillis, TimeUnit.MILLISECONDS);
+
+            int[] exitCodes = new int[workers];
+            for (int index = 0; index < workers; index++) {
+                exitCodes[index] = processes.get(index).waitFor();
+                if (exitCodes[index] != 0) {
+                    logger.error("worker " + index + "/" + workers + " exited with " + exitCodes[index]
+                            + ", see " + workerOutput(index));
+                }
+            }
+            for (Thread reader : readers) {
+                reader.join(CONNECT_TIMEOUT_MILLIS);
+            }
+            viewer.shutdown();
+            view();
+
+            Path summaryPath = logDir.resolve((sessionName + ".coordinator.summary.json").replaceAll("\\s", "_"));
+            Files.write(summaryPath, getSummaryJson(startedAtMillis, System.currentTimeMillis(), exitCodes)
+                    .getBytes(StandardCharsets.UTF_8));
+            logger.info("wrote merged summary to " + summaryPath);
+
+            return Arrays.stream(exitCodes).allMatch(code -> code == 0) ? 0 : 2;
+        } catch (SocketTimeoutException e) {
+            logger.error("not all workers connected within " + CONNECT_TIMEOUT_MILLIS + "ms, see the worker output in " + logDir);
+            destroyWorkers();
+            return 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            destroyWorkers();
+            return 2;
+        } catch (IOException e) {
+            throw new RuntimeException("Error while coordinating workers: " + e.getMessage(), e);
+        } finally {
+            viewer.shutdownNow();
+            if (mergedLog != null) {
+                mergedLog.close();
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(stopper);
+            } catch (IllegalStateException ignored) {
+                // already shutting down
+            }
+        }
+    }
+
+    /**
+     * Remove the coordinator options from a command line, so that it can be given to workers.
+     */
+    static List<String> workerArgs(String[] args) {
+        List<String> workerArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--workers") || args[i].equals("--session-name")) {
+                i++;
+                continue;
+            }
+            workerArgs.add(args[i]);
+        }
+        return workerArgs;
+    }
+
+    private String workerSessionName(int index) {
+        return sessionName + "-worker" + index;
+    }
+
+    private File workerOutput(int index) {
+        return logDir.resolve(workerSessionName(index).replaceAll("\\s", "_") + ".out").toFile();
+    }
+
+    private Process launch(int index, String address) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!jvmArg.startsWith("-agentlib:jdwp")) {
+                command.add(jvmArg);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(EBCLI.class.getName());
+        command.addAll(workerArgs);
+        command.addAll(Arrays.asList(
+                "--session-name", workerSessionName(index),
+                "--worker", index + "/" + workers,
+                "--coordinator", address));
+
+        logger.debug("starting worker " + index + "/" + workers + ": " + String.join(" ", command));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(workerOutput(index))
+                .start();
+    }
+
+    private void destroyWorkers() {
+        for (Process process : processes) {
+            if (process.isAlive()) {
+                process.destroy();
+            }
+        }
+    }
+
+    private HistogramLogWriter startMergedLog(long startedAtMillis) throws IOException {
+        File mergedFile = logDir.resolve((sessionName + ".merged.hdr").replaceAll("\\s", "_")).toFile();
+        HistogramLogWriter writer = new HistogramLogWriter(new PrintStream(mergedFile));
+        writer.outputComment("merged histograms of " + workers + " workers for session " + sessionName);
+        writer.outputLogFormatVersion();
+        writer.outputStartTime(startedAtMillis);
+        writer.setBaseTime(startedAtMillis);
+        writer.outputLegend();
+        return writer;
+    }
+
+    private void read(Socket socket) {
+        try (Socket closing = socket; InputStream stream = closing.getInputStream()) {
+            HistogramLogReader reader = new HistogramLogReader(stream);
+            EncodableHistogram histogram;
+            while ((histogram = reader.nextIntervalHistogram()) != null) {
+                if (histogram instanceof Histogram) {
+                    merge((Histogram) histogram);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("error while reading worker histograms from " + socket.getRemoteSocketAddress() + ": " + e);
+        }
+    }
+
+    /**
+     * Add an interval histogram from a worker to the current interval and the full run of its metric.
+     */
+    synchronized void merge(Histogram histogram) {
+        String tag = histogram.getTag() != null ? histogram.getTag() : "untagged";
+        intervals.computeIfAbsent(tag, t -> new Histogram(4)).add(histogram);
+        cumulatives.computeIfAbsent(tag, t -> new Histogram(4)).add(histogram);
+    }
+
+    /**
+     * Log the merged intervals of all metrics since the last view, and log the cycle service times.
+     */
+    synchronized void view() {
+        long now = System.currentTimeMillis();
+        long elapsedMillis = Math.max(1L, now - lastViewMillis);
+        for (Map.Entry<String, Histogram> entry : intervals.entrySet()) {
+            Histogram interval = entry.getValue();
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            interval.setTag(entry.getKey());
+            interval.setStartTimeStamp(lastViewMillis);
+            interval.setEndTimeStamp(now);
+            if (mergedLog != null) {
+                mergedLog.outputIntervalHistogram(interval);
+            }
+            if (entry.getKey().endsWith(VIEW_METRIC_SUFFIX)) {
+                logger.info(String.format(Locale.ROOT,
+                        "%s: %,.1f ops/s p50=%.3fms p99=%.3fms max=%.3fms (%d workers)",
+                        entry.getKey(),
+                        interval.getTotalCount() * 1000.0d / elapsedMillis,
+                        interval.getValueAtPercentile(50.0d) / 1_000_000.0d,
+                        interval.getValueAtPercentile(99.0d) / 1_000_000.0d,
+                        interval.getMaxValue() / 1_000_000.0d,
+                        workers));
+            }
+            interval.reset();
+        }
+        lastViewMillis = now;
+    }
+
+    /**
+     * @return a JSON document with the merged full-run distribution of each metric
+     */
+    synchronized String getSummaryJson(long startedAtMillis, long stoppedAtMillis, int[] exitCodes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"session\": ").append(quote(sessionName)).append(",\n");
+        sb.append("  \"workers\": ").append(workers).append(",\n");
+        sb.append("  \"worker_exit_codes\": ").append(Arrays.toString(exitCodes)).append(",\n");
+        sb.append("  \"started_at_millis\": ").append(startedAtMillis).append(",\n");
+        sb.append("  \"stopped_at_millis\": ").append(stoppedAtMillis).append(",\n");
+        sb.append("  \"duration_millis\": ").append(stoppedAtMillis - startedAtMillis).append(",\n");
+        sb.append("  \"histograms\": {");
+        Iterator<Map.Entry<String, Histogram>> iter = cumulatives.entrySet().iterator();
+        sb.append(iter.hasNext() ? "\n" : "");
+        while (iter.hasNext()) {
+            Map.Entry<String, Histogram> entry = iter.next();
+            Histogram histogram = entry.getValue();
+            sb.append("    ").append(quote(entry.getKey())).append(": {\"count\": ").append(histogram.getTotalCount())
+                    .append(", \"min\": ").append(histogram.getMinValue())
+                    .append(", \"mean\": ").append(String.format(Locale.ROOT, "%.3f", histogram.getMean()));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                sb.append(", \"").append(PERCENTILE_NAMES[i]).append("\": ")
+                        .append(histogram.getValueAtPercentile(PERCENTILES[i]));
+            }
+            sb.append(", \"max\": ").append(histogram.getMaxValue()).append("}");
+            sb.append(iter.hasNext() ? ",\n" : "\n  ");
+        }
+        sb.append("}\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static String quote(String value) {
+        return "\"" + StringEscapeUtils.escapeJson(value) + "\"";
+    }
+}
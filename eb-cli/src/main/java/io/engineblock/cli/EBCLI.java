@@ -5,6 +5,7 @@ import io.engineblock.activityapi.cyclelog.outputs.cyclelog.CycleLogDumperUtilit
 import io.engineblock.activityapi.cyclelog.outputs.cyclelog.CycleLogImporterUtility;
 import io.engineblock.activityapi.input.InputType;
 import io.engineblock.activityapi.output.OutputType;
+import io.engineblock.activityimpl.ActivityPartition;
 import io.engineblock.core.MarkdownDocInfo;
 import io.engineblock.core.ScenarioLogger;
 import io.engineblock.core.ScenariosResults;
@@ -114,6 +115,14 @@ public class EBCLI {
             System.exit(0);
         }
 
+        if (options.getWorkers() > 0 && options.getWorkerPartition() == null) {
+            ConsoleLogging.enableConsoleLogging(options.wantsConsoleLogLevel(), options.getConsoleLoggingPattern());
+            String sessionName = new SessionNamer().format(options.getSessionName());
+            Coordinator coordinator = new Coordinator(sessionName, options.getWorkers(), args,
+                    options.getLogsDirectory(), options.getReportInterval() * 1000L);
+            System.exit(coordinator.run());
+        }
+
         String reportGraphiteTo = options.wantsReportGraphiteTo();
         if (options.wantsDockerMetrics()){
             logger.info("Docker metrics is enabled. Docker must be installed for this to work");
@@ -160,6 +169,9 @@ public class EBCLI {
             }
         }
 
+        if (options.getCoordinator() != null) {
+            Coordinator.streamTo(sessionName, options.getCoordinator());
+        }
         for (EBCLIOptions.LoggerConfig histoLogger : options.getHistoLoggerConfigs()) {
             ActivityMetrics.addHistoLogger(sessionName, histoLogger.pattern, histoLogger.file, histoLogger.interval);
         }
@@ -196,6 +208,15 @@ public class EBCLI {
             logger.info("Charting disabled");
         }
 
+        if (options.wantsJfrRecording()) {
+            logger.info("JFR recording enabled with configuration '" + options.getJfrConfig() + "'");
+            scenario.enableJfrRecording(options.getJfrConfig());
+        }
+
+        scenario.setScriptEngine(options.getScriptEngine());
+        if (options.getWorkerPartition() != null) {
+            scenario.setActivityPartition(ActivityPartition.parse(options.getWorkerPartition()));
+        }
         scenario.addScenarioScriptParams(scriptData.getScriptParams());
         scenario.addScriptText(scriptData.getScriptTextIgnoringParams());
         ScenarioLogger sl = new ScenarioLogger(scenario)
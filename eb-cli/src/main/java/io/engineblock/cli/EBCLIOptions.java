@@ -66,6 +66,12 @@ public class EBCLIOptions {
     private final static String LOG_LEVEL_OVERRIDE = "--log-level-override";
     private final static String ENABLE_CHART = "--enable-chart";
     private final static String DOCKER_METRICS = "--docker-metrics";
+    private final static String JFR = "--jfr";
+    private final static String JFR_CONFIG = "--jfr-config";
+    private final static String SCRIPT_ENGINE = "--script-engine";
+    private final static String WORKERS = "--workers";
+    private final static String WORKER = "--worker";
+    private final static String COORDINATOR = "--coordinator";
 
     private static final Set<String> reserved_words = new HashSet<String>() {{
         addAll(
@@ -107,6 +113,11 @@ public class EBCLIOptions {
     private Map<String,Level> logLevelsOverrides = new HashMap<>();
     private boolean enableChart = false;
     private boolean dockerMetrics = false;
+    private String jfrConfig = null;
+    private String scriptEngine = "auto";
+    private int workers = 0;
+    private String workerPartition = null;
+    private String coordinator = null;
 
     EBCLIOptions(String[] args) {
         parse(args);
@@ -224,6 +235,30 @@ public class EBCLIOptions {
                     arglist.removeFirst();
                     dockerMetrics = true;
                     break;
+                case JFR:
+                    arglist.removeFirst();
+                    jfrConfig = (jfrConfig == null) ? "default" : jfrConfig;
+                    break;
+                case JFR_CONFIG:
+                    arglist.removeFirst();
+                    jfrConfig = readWordOrThrow(arglist, "a JFR configuration name or .jfc file");
+                    break;
+                case SCRIPT_ENGINE:
+                    arglist.removeFirst();
+                    scriptEngine = readWordOrThrow(arglist, "a script engine name, like nashorn or graal.js");
+                    break;
+                case WORKERS:
+                    arglist.removeFirst();
+                    workers = Integer.parseInt(readWordOrThrow(arglist, "a number of worker processes"));
+                    break;
+                case WORKER:
+                    arglist.removeFirst();
+                    workerPartition = readWordOrThrow(arglist, "a worker partition, like 0/4");
+                    break;
+                case COORDINATOR:
+                    arglist.removeFirst();
+                    coordinator = readWordOrThrow(arglist, "a coordinator address, like localhost:9000");
+                    break;
                 case HELP:
                 case "-h":
                 case "help":
@@ -393,6 +428,39 @@ public class EBCLIOptions {
         return dockerMetrics;
     }
 
+    public boolean wantsJfrRecording() {
+        return jfrConfig != null;
+    }
+
+    public String getJfrConfig() {
+        return jfrConfig;
+    }
+
+    public String getScriptEngine() {
+        return scriptEngine;
+    }
+
+    /**
+     * @return the number of worker processes to split activities across, or 0 to run them in this process
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return the partition of each activity which this worker process runs, or null if this is not a worker
+     */
+    public String getWorkerPartition() {
+        return workerPartition;
+    }
+
+    /**
+     * @return the host:port of the coordinator which this worker streams its histograms to, or null
+     */
+    public String getCoordinator() {
+        return coordinator;
+    }
+
     public int getReportInterval() {
         return reportInterval;
     }
@@ -0,0 +1,50 @@
+package io.engineblock.cli;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class CoordinatorTest {
+
+    @Test
+    public void testWorkerArgsDropCoordinatorOptions() {
+        assertThat(Coordinator.workerArgs(new String[]{
+                "run", "type=diag", "cycles=1M", "--workers", "4", "--session-name", "big", "-v"}))
+                .containsExactly("run", "type=diag", "cycles=1M", "-v");
+    }
+
+    @Test
+    public void testMergedSummary() {
+        Coordinator coordinator = new Coordinator("mergetest", 2, new String[0], "logs", 1000L);
+        for (int worker = 0; worker < 2; worker++) {
+            Histogram interval = new Histogram(4);
+            for (int i = 1; i <= 100; i++) {
+                interval.recordValue(worker * 100 + i);
+            }
+            interval.setTag("test.cycles.servicetime");
+            coordinator.merge(interval);
+        }
+        coordinator.view();
+
+        String json = coordinator.getSummaryJson(1000L, 2000L, new int[]{0, 0});
+        assertThat(json).contains("\"test.cycles.servicetime\": {\"count\": 200, \"min\": 1");
+        assertThat(json).contains("\"p50\": 100");
+        assertThat(json).contains("\"max\": 200}");
+        assertThat(json).contains("\"worker_exit_codes\": [0, 0]");
+    }
+
+    @Test
+    public void testSummaryEscapesNames() {
+        Coordinator coordinator = new Coordinator("quote\"test", 1, new String[0], "logs", 1000L);
+        Histogram interval = new Histogram(4);
+        interval.recordValue(10L);
+        interval.setTag("odd\"name\\.cycles.servicetime");
+        coordinator.merge(interval);
+
+        String json = coordinator.getSummaryJson(1000L, 2000L, new int[]{0});
+        assertThat(json).contains("\"session\": \"quote\\\"test\"");
+        assertThat(json).contains("\"odd\\\"name\\\\.cycles.servicetime\": {\"count\": 1");
+    }
+}
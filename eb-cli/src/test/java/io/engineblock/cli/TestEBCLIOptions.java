@@ -187,4 +187,14 @@ public class TestEBCLIOptions {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldParseWorkerOptions() {
+        EBCLIOptions coordinator = new EBCLIOptions(new String[]{"run", "type=diag", "--workers", "4"});
+        assertThat(coordinator.getWorkers()).isEqualTo(4);
+        assertThat(coordinator.getWorkerPartition()).isNull();
+
+        EBCLIOptions worker = new EBCLIOptions(new String[]{"run", "type=diag", "--worker", "1/4", "--coordinator", "127.0.0.1:9000"});
+        assertThat(worker.getWorkerPartition()).isEqualTo("1/4");
+        assertThat(worker.getCoordinator()).isEqualTo("127.0.0.1:9000");
+    }
+}
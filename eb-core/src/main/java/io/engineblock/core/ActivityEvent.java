@@ -0,0 +1,43 @@
+/*
+*   Copyright 2015 jshook
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+package io.engineblock.core;
+
+/**
+ * The lifecycle events of an activity, in the order they occur. Each event is published once
+ * each time the activity is started.
+ */
+public enum ActivityEvent {
+    /**
+     * The activity was initialized, and its motors are about to be started.
+     */
+    Started,
+    /**
+     * All motors of the activity are running.
+     */
+    Running,
+    /**
+     * The warmup of the activity is complete, so results from here on are measured. This follows
+     * Running directly if the activity has no warmup parameter.
+     */
+    WarmedUp,
+    /**
+     * A motor finished because its input had no more cycles.
+     */
+    InputExhausted,
+    /**
+     * All motors of the activity have finished or been stopped.
+     */
+    Finished
+}
@@ -0,0 +1,98 @@
+/*
+*   Copyright 2015 jshook
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*   limitations under the License.
+*/
+package io.engineblock.core;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Publishes the {@link ActivityEvent}s of one activity. Each event has a future, which is completed
+ * with the alias of the activity when the event occurs. If the activity stops with an error, the
+ * {@link ActivityEvent#Finished} future is completed exceptionally.</p>
+ *
+ * <p>When an activity is started again after it finished, {@link #reset()} replaces the futures, so
+ * that waiters see the events of the new run.</p>
+ */
+public class ActivityEvents {
+
+    private final String alias;
+    private final List<BiConsumer<String, ActivityEvent>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Map<ActivityEvent, CompletableFuture<String>> futures = newFutures();
+
+    public ActivityEvents(String alias) {
+        this.alias = alias;
+    }
+
+    private static Map<ActivityEvent, CompletableFuture<String>> newFutures() {
+        Map<ActivityEvent, CompletableFuture<String>> futures = new EnumMap<>(ActivityEvent.class);
+        for (ActivityEvent event : ActivityEvent.values()) {
+            futures.put(event, new CompletableFuture<>());
+        }
+        return futures;
+    }
+
+    /**
+     * @param event an activity event
+     * @return a future which is completed when the event occurs in the current run of the activity
+     */
+    public CompletableFuture<String> on(ActivityEvent event) {
+        return futures.get(event);
+    }
+
+    /**
+     * Add a listener which is called each time an event is published, on the thread which published it.
+     * @param listener a consumer of the activity alias and the event
+     */
+    public void addListener(BiConsumer<String, ActivityEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BiConsumer<String, ActivityEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publish an event, if it was not already published in this run.
+     * @param event the event which occurred
+     */
+    public void publish(ActivityEvent event) {
+        if (futures.get(event).complete(alias)) {
+            listeners.forEach(l -> l.accept(alias, event));
+        }
+    }
+
+    /**
+     * Publish {@link ActivityEvent#Finished} for an activity which stopped with an error.
+     * @param error the error which stopped the activity
+     */
+    public void publishError(Throwable error) {
+        if (futures.get(ActivityEvent.Finished).completeExceptionally(error)) {
+            listeners.forEach(l -> l.accept(alias, ActivityEvent.Finished));
+        }
+    }
+
+    /**
+     * Start a new run, if the previous run finished. Events of a run which is still in progress are kept.
+     */
+    public synchronized void reset() {
+        if (futures.get(ActivityEvent.Finished).isDone()) {
+            futures = newFutures();
+        }
+    }
+}
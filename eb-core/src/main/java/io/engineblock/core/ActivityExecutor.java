@@ -14,12 +14,17 @@
 */
 package io.engineblock.core;
 
+import com.codahale.metrics.Timer;
 import io.engineblock.activityapi.core.*;
 import io.engineblock.activityapi.input.Input;
 import io.engineblock.activityimpl.ActivityDef;
+import io.engineblock.activityimpl.CpuAffinity;
+import io.engineblock.activityimpl.CpuPlacement;
 import io.engineblock.activityimpl.ParameterMap;
 import io.engineblock.activityimpl.SlotStateTracker;
 import io.engineblock.activityimpl.input.ProgressCapable;
+import io.engineblock.metrics.ActivityMetrics;
+import io.engineblock.metrics.jfr.ActivityParamsChangeEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,10 +32,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -52,29 +61,79 @@ import java.util.stream.Collectors;
 
 public class ActivityExecutor implements ActivityController, ParameterMap.Listener, ProgressMeter {
     private static final Logger logger = LoggerFactory.getLogger(ActivityExecutor.class);
-    private final List<Motor<?>> motors = new ArrayList<>();
+    // copy-on-write, since motor state listeners read it from motor threads
+    private final List<Motor<?>> motors = new CopyOnWriteArrayList<>();
     private final Activity activity;
     private final ActivityDef activityDef;
     private ExecutorService executorService;
     private RuntimeException stoppingException;
+    private volatile long startedAtMillis;
+    private volatile long stoppedAtMillis;
 
     private final static int waitTime=10000;
 
+    // Motors with at least this many slots to create are constructed in parallel, if the dispenser allows it
+    private final static int parallelMotorThreshold = 16;
+    private final static int maxMotorBuilders = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    // Notified on every motor state transition, so that waiting for motor states is event-driven.
+    // Waits are still bounded by the poll time in case a transition is missed.
+    private final Object motorStateSignal = new Object();
+    // The number of attached motors which are Finished or Stopped, so that completion is checked in constant time
+    private final AtomicInteger doneMotors = new AtomicInteger();
+    private final SlotStateListener motorStateListener = (slotId, from, to) -> {
+        if (!isDone(from) && isDone(to)) {
+            doneMotors.incrementAndGet();
+        } else if (isDone(from) && !isDone(to)) {
+            doneMotors.decrementAndGet();
+        }
+        synchronized (motorStateSignal) {
+            motorStateSignal.notifyAll();
+        }
+        onMotorStateChange(to);
+    };
+    private Timer motorStartTimer;
+    private final ActivityEvents events;
+
 //    private RunState intendedState = RunState.Uninitialized;
 
     public ActivityExecutor(Activity activity) {
         this.activity = activity;
         this.activityDef = activity.getActivityDef();
-        executorService = new ThreadPoolExecutor(
-                0, Integer.MAX_VALUE,
-                0L, TimeUnit.SECONDS,
-                new SynchronousQueue<>(),
-                new IndexedThreadFactory(activity.getAlias(), new ActivityExceptionHandler(this))
-        );
+        this.events = new ActivityEvents(activity.getAlias());
+        executorService = createExecutorService(activity);
         activity.getActivityDef().getParams().addListener(this);
         activity.setActivityController(this);
     }
 
+    /**
+     * Create the executor service for motors, according to the <em>executor</em> activity
+     * parameter. If the named strategy is not available here, the platform executor is used instead.
+     */
+    private ExecutorService createExecutorService(Activity activity) {
+        String executorName = activity.getActivityDef().getParams()
+                .getOptionalString("executor").orElse(MotorExecutorType.DEFAULT);
+        MotorExecutorType executorType = MotorExecutorType.FINDER.get(executorName)
+                .orElseGet(() -> executorName.equals(MotorExecutorType.DEFAULT) ?
+                        new PlatformMotorExecutorType() : MotorExecutorType.FINDER.getOrThrow(executorName));
+        if (!executorType.isAvailable()) {
+            logger.warn("Motor executor '" + executorName + "' is not available for activity '"
+                    + activity.getAlias() + "', using '" + MotorExecutorType.DEFAULT + "' instead.");
+            executorType = new PlatformMotorExecutorType();
+        }
+        logger.debug("using motor executor '" + executorType.getName() + "' for activity '" + activity.getAlias() + "'");
+        if (CpuPlacement.isRequested(activity.getActivityDef())) {
+            CpuPlacement placement = CpuPlacement.forActivity(activity.getActivityDef());
+            if (CpuAffinity.isSupported()) {
+                logger.info(placement.toString());
+            } else {
+                logger.warn("The cpus and numa parameters of activity '" + activity.getAlias()
+                        + "' are ignored, since cpu affinity is not supported here.");
+            }
+        }
+        return executorType.getExecutorService(activity, new ActivityExceptionHandler(this));
+    }
+
 
     // TODO: Doc how uninitialized activities do not propagate parameter map changes and how
     // TODO: this is different from preventing modification to uninitialized activities
@@ -89,6 +148,10 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
      */
     public synchronized void startActivity() {
         logger.info("starting activity " + activity.getAlias() + " for cycles " + activity.getCycleSummary());
+        if (startedAtMillis == 0L) {
+            startedAtMillis = System.currentTimeMillis();
+        }
+        events.reset();
         try {
             activity.setRunState(RunState.Starting);
             activity.initActivity();
@@ -97,10 +160,63 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
             this.stoppingException = new RuntimeException("Error initializing activity '" +
                     activity.getAlias() +"': " + e.getMessage(),e);
             logger.error("error initializing activity '" + activity.getAlias() + "': " + stoppingException);
+            events.publishError(stoppingException);
             throw stoppingException;
         }
+        events.publish(ActivityEvent.Started);
         adjustToActivityDef(activity.getActivityDef());
         activity.setRunState(RunState.Running);
+        events.publish(ActivityEvent.Running);
+        startWarmup();
+    }
+
+    /**
+     * Publish the end of the warmup when it is found, or right away if there is no warmup.
+     */
+    private void startWarmup() {
+        Warmup warmup = activity.getWarmupOrNull();
+        if (warmup == null) {
+            events.publish(ActivityEvent.WarmedUp);
+            return;
+        }
+        warmup.onComplete(baseline -> events.publish(ActivityEvent.WarmedUp));
+        warmup.start();
+    }
+
+    /**
+     * Publish the events which follow from a motor state change. This is called on the motor thread.
+     * @param to the new state of the motor
+     */
+    private void onMotorStateChange(RunState to) {
+        if (to == RunState.Finished) {
+            events.publish(ActivityEvent.InputExhausted);
+        }
+        if ((to == RunState.Finished || to == RunState.Stopped) && areAllMotorsDone()) {
+            publishFinished();
+        }
+    }
+
+    private boolean areAllMotorsDone() {
+        return doneMotors.get() >= motors.size();
+    }
+
+    private static boolean isDone(RunState state) {
+        return state == RunState.Finished || state == RunState.Stopped;
+    }
+
+    private void publishFinished() {
+        if (stoppingException != null) {
+            events.publishError(stoppingException);
+        } else {
+            events.publish(ActivityEvent.Finished);
+        }
+    }
+
+    /**
+     * @return the lifecycle events of this activity
+     */
+    public ActivityEvents getEvents() {
+        return events;
     }
 
     /**
@@ -111,6 +227,7 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
         logger.info("stopping activity in progress: " + this.getActivityDef().getAlias());
         motors.forEach(Motor::requestStop);
         motors.forEach(m -> awaitRequiredMotorState(m, 30000, 50, RunState.Stopped, RunState.Finished));
+        markStopped();
         activity.shutdownActivity();
         activity.closeAutoCloseables();
         logger.info("stopped: " + this.getActivityDef().getAlias() + " with " + motors.size() + " slots");
@@ -134,6 +251,7 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
 
         logger.info("stopping activity forcibly " + activity.getAlias());
         List<Runnable> runnables = executorService.shutdownNow();
+        markStopped();
 
         activity.shutdownActivity();
         activity.closeAutoCloseables();
@@ -158,6 +276,7 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
             wasStopped = false;
             logger.warn("while waiting termination of activity " + activity.getAlias() + ", " + ie.getMessage());
         } finally {
+            markStopped();
             activity.shutdownActivity();
             activity.closeAutoCloseables();
         }
@@ -168,6 +287,29 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
         return wasStopped;
     }
 
+    private void markStopped() {
+        if (stoppedAtMillis == 0L) {
+            stoppedAtMillis = System.currentTimeMillis();
+        }
+        if (executorService.isTerminated() || areAllMotorsDone()) {
+            publishFinished();
+        }
+    }
+
+    /**
+     * @return the time this activity was first started, or 0 if it was never started
+     */
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    /**
+     * @return the time this activity was stopped, or 0 if it is still running
+     */
+    public long getStoppedAtMillis() {
+        return stoppedAtMillis;
+    }
+
 
     /**
      * Listens for changes to parameter maps, maps them to the activity instance, and notifies
@@ -175,6 +317,8 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
      */
     @Override
     public synchronized void handleParameterMapUpdate(ParameterMap parameterMap) {
+        ActivityParamsChangeEvent changeEvent = new ActivityParamsChangeEvent();
+        changeEvent.begin();
 
         if (activity instanceof ActivityDefObserver) {
             ((ActivityDefObserver)activity).onActivityDefUpdate(activityDef);
@@ -193,6 +337,12 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
 //                    .filter(m -> m.getSlotStateTracker().getSlotState() != RunState.Starting)
                     .forEach(m -> ((ActivityDefObserver) m).onActivityDefUpdate(activityDef));
         }
+
+        if (changeEvent.shouldCommit()) {
+            changeEvent.activity = activityDef.getAlias();
+            changeEvent.params = parameterMap.toString();
+            changeEvent.commit();
+        }
     }
 
     public ActivityDef getActivityDef() {
@@ -204,7 +354,7 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
     }
 
     public boolean awaitFinish(int timeout) {
-        boolean awaited = awaitAllRequiredMotorState(timeout, 50, RunState.Finished, RunState.Stopped);
+        boolean awaited = motors.isEmpty() || awaitEvent(ActivityEvent.Finished, timeout);
         if (awaited) {
             awaited = awaitCompletion(timeout);
         }
@@ -214,6 +364,27 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
         return awaited;
     }
 
+    /**
+     * Wait for an event in the current run of this activity.
+     * @param event the event to wait for
+     * @param timeoutMillis the longest time to wait
+     * @return true, if the event occurred before the timeout
+     */
+    public boolean awaitEvent(ActivityEvent event, long timeoutMillis) {
+        try {
+            events.on(event).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // the error is rethrown by the caller as the stopping exception
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     public String toString() {
         return getClass().getSimpleName() + "~" + activityDef.getAlias();
     }
@@ -231,30 +402,99 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
      */
     private synchronized void adjustToActivityDef(ActivityDef activityDef) {
         logger.trace(">-pre-adjust->" + getSlotStatus());
+        long adjustStartedAt = System.nanoTime();
+        boolean addingMotors = motors.size() < activityDef.getThreads();
 
         // Stop and remove extra motor slots
         while (motors.size() > activityDef.getThreads()) {
             Motor motor = motors.get(motors.size() - 1);
             logger.trace("Stopping cycle motor thread:" + motor);
+            if (isDone(motor.getSlotStateTracker().detachListener())) {
+                doneMotors.decrementAndGet();
+            }
             motor.requestStop();
             motors.remove(motors.size() - 1);
         }
 
         // Create motor slots
-        while (motors.size() < activityDef.getThreads()) {
-
-            Motor motor = activity.getMotorDispenserDelegate().getMotor(activityDef, motors.size());
-            logger.trace("Starting cycle motor thread:" + motor);
-            motors.add(motor);
+        if (motors.size() < activityDef.getThreads()) {
+            for (Motor<?> motor : createMotors(activityDef, motors.size(), activityDef.getThreads())) {
+                logger.trace("Starting cycle motor thread:" + motor);
+                motor.getSlotStateTracker().setListener(motorStateListener);
+                motors.add(motor);
+            }
         }
 
         adjustToIntendedActivityState();
         awaitActivityAndMotorStateAlignment();
 
+        if (addingMotors && (activity.getRunState() == RunState.Starting || activity.getRunState() == RunState.Running)) {
+            long nanosToRunning = System.nanoTime() - adjustStartedAt;
+            getMotorStartTimer().update(nanosToRunning, TimeUnit.NANOSECONDS);
+            logger.debug(activityDef.getAlias() + " has " + motors.size() + " motors running after "
+                    + TimeUnit.NANOSECONDS.toMillis(nanosToRunning) + "ms");
+        }
+
         logger.trace(">post-adjust->" + getSlotStatus());
 
     }
 
+    /**
+     * Create motors for the given slot range. The first motor is created alone, so that shared
+     * components like inputs are initialized once. When there are many slots and the motor dispenser
+     * is {@link MotorDispenser#isThreadSafe() thread safe}, the rest are created in parallel on a
+     * small pool of builder threads, since motor construction can include expensive setup in actions.
+     *
+     * @param activityDef the activityDef for this activity instance
+     * @param fromSlot    the first slot to create, inclusive
+     * @param toSlot      the last slot to create, exclusive
+     * @return a list of motors, in slot order
+     */
+    private List<Motor<?>> createMotors(ActivityDef activityDef, int fromSlot, int toSlot) {
+        MotorDispenser<?> dispenser = activity.getMotorDispenserDelegate();
+        List<Motor<?>> created = new ArrayList<>(toSlot - fromSlot);
+        created.add(dispenser.getMotor(activityDef, fromSlot));
+        if ((toSlot - fromSlot) < parallelMotorThreshold || !dispenser.isThreadSafe()) {
+            for (int slot = fromSlot + 1; slot < toSlot; slot++) {
+                created.add(dispenser.getMotor(activityDef, slot));
+            }
+            return created;
+        }
+
+        ExecutorService builders = Executors.newFixedThreadPool(
+                Math.min(maxMotorBuilders, toSlot - fromSlot - 1),
+                new IndexedThreadFactory(activity.getAlias() + "-motorbuilder", new ActivityExceptionHandler(this))
+        );
+        try {
+            List<Future<? extends Motor<?>>> futures = new ArrayList<>(toSlot - fromSlot - 1);
+            for (int slot = fromSlot + 1; slot < toSlot; slot++) {
+                int motorSlot = slot;
+                futures.add(builders.submit(() -> dispenser.getMotor(activityDef, motorSlot)));
+            }
+            for (Future<? extends Motor<?>> future : futures) {
+                created.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while creating motors for activity '" + activity.getAlias() + "'", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            builders.shutdownNow();
+        }
+        return created;
+    }
+
+    private Timer getMotorStartTimer() {
+        if (motorStartTimer == null) {
+            motorStartTimer = ActivityMetrics.timer(activityDef, "motors.starttime");
+        }
+        return motorStartTimer;
+    }
+
     private void adjustToIntendedActivityState() {
         logger.trace("ADJUSTING to INTENDED " + activity.getRunState());
         switch (activity.getRunState()) {
@@ -324,55 +564,55 @@ public class ActivityExecutor implements ActivityController, ParameterMap.Listen
                     return true;
                 }
             }
-            try {
-                Thread.sleep(pollTime);
-            } catch (InterruptedException ignored) {
-            }
+            awaitMotorStateChange(m, pollTime, runState);
         }
         logger.trace(activityDef.getAlias() + "/Motor[" + m.getSlotId() + "] is now in state " + m.getSlotStateTracker().getSlotState());
         return false;
     }
 
 
-    private boolean awaitAllRequiredMotorState(int waitTime, int pollTime, RunState... awaitingState) {
+    private boolean awaitAnyRequiredMotorState(int waitTime, int pollTime, RunState... awaitingState) {
         long startedAt = System.currentTimeMillis();
-        boolean awaited = false;
-        while (!awaited && (System.currentTimeMillis() < (startedAt + waitTime))) {
-            awaited=true;
+        while (System.currentTimeMillis() < (startedAt + waitTime)) {
             for (Motor motor : motors) {
-                awaited = awaitMotorState(motor, waitTime, pollTime, awaitingState);
-                if (!awaited) {
-                    logger.trace("failed awaiting motor " + motor.getSlotId() + " for state in " +
-                        Arrays.asList(awaitingState));
-                    break;
+                for (RunState state : awaitingState) {
+                    if (motor.getSlotStateTracker().getSlotState() == state) {
+                        logger.trace("at least one 'any' of " + activityDef.getAlias() + "/Motor[" + motor.getSlotId() + "] is now in state " + motor.getSlotStateTracker().getSlotState());
+                        return true;
+                    }
                 }
             }
+            awaitMotorStateChange(null, pollTime, awaitingState);
         }
-        return awaited;
+        logger.trace("none of " + activityDef.getAlias() + "/Motor [" + motors.size() + "] is in states in " + Arrays.asList(awaitingState));
+        return false;
     }
 
 
-    private boolean awaitAnyRequiredMotorState(int waitTime, int pollTime, RunState... awaitingState) {
-        long startedAt = System.currentTimeMillis();
-        while (System.currentTimeMillis() < (startedAt + waitTime)) {
-            for (Motor motor : motors) {
-                for (RunState state : awaitingState) {
+    /**
+     * Wait until any motor changes state, or the poll time passes. The state is checked again
+     * while holding the signal monitor, so that a transition just before the wait is not missed.
+     *
+     * @param m        the motor being waited on, or null to wait for any motor
+     * @param pollTime the longest time to wait, in milliseconds
+     * @param runState the states which end the wait
+     */
+    private void awaitMotorStateChange(Motor m, int pollTime, RunState... runState) {
+        synchronized (motorStateSignal) {
+            for (Motor<?> motor : (m == null ? motors : List.<Motor<?>>of(m))) {
+                for (RunState state : runState) {
                     if (motor.getSlotStateTracker().getSlotState() == state) {
-                        logger.trace("at least one 'any' of " + activityDef.getAlias() + "/Motor[" + motor.getSlotId() + "] is now in state " + motor.getSlotStateTracker().getSlotState());
-                        return true;
+                        return;
                     }
                 }
             }
             try {
-                Thread.sleep(pollTime);
+                motorStateSignal.wait(pollTime);
             } catch (InterruptedException ignored) {
             }
         }
-        logger.trace("none of " + activityDef.getAlias() + "/Motor [" + motors.size() + "] is in states in " + Arrays.asList(awaitingState));
-        return false;
     }
 
-
     /**
      * Await a required thread (aka motor/slot) entering a specific SlotState
      *
@@ -0,0 +1,365 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.core;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import io.engineblock.metrics.HdrDeltaHistogramProvider;
+import io.engineblock.metrics.WarmupBaseline;
+import org.HdrHistogram.Histogram;
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A structured end-of-run summary of the metrics for one activity. Latency percentiles are
+ * computed from the cumulative HDR histogram of each timer and histogram, which merges all
+ * intervals of the run, rather than from the last reporting window.
+ *
+ * <p>If the activity had a warmup which completed, everything up to the {@link WarmupBaseline} is
+ * subtracted, and the summary starts at the warmup boundary.</p>
+ *
+ * <p>Latency values are in nanoseconds, as recorded.</p>
+ */
+public class ActivitySummary {
+
+    public final static String CYCLES_TIMER = "cycles.servicetime";
+    private final static String ERROR_COUNTS_PREFIX = "errorcounts.";
+    private final static String EXCEPTIONS_PREFIX = "exceptions.";
+
+    private final static double[] PERCENTILES = {50.0d, 75.0d, 90.0d, 95.0d, 98.0d, 99.0d, 99.9d, 99.99d};
+    private final static String[] PERCENTILE_NAMES = {"p50", "p75", "p90", "p95", "p98", "p99", "p999", "p9999"};
+
+    private final String alias;
+    private final long startedAtMillis;
+    private final long stoppedAtMillis;
+    private final Map<String, HistogramSummary> timers = new TreeMap<>();
+    private final Map<String, HistogramSummary> histograms = new TreeMap<>();
+    private final Map<String, Long> counters = new TreeMap<>();
+    private final Map<String, Long> meters = new TreeMap<>();
+    private final Map<String, Long> errors = new TreeMap<>();
+    private long warmupMillis;
+    private long warmupCycles;
+
+    public ActivitySummary(String alias, long startedAtMillis, long stoppedAtMillis) {
+        this.alias = alias;
+        this.startedAtMillis = startedAtMillis;
+        this.stoppedAtMillis = stoppedAtMillis;
+    }
+
+    /**
+     * Summarize the metrics of an activity from the metrics registry.
+     *
+     * @param alias           The activity alias, which is the prefix of all its metric names
+     * @param startedAtMillis When the activity was started
+     * @param stoppedAtMillis When the activity was stopped
+     * @param registry        The registry which holds the activity metrics
+     * @return an ActivitySummary
+     */
+    public static ActivitySummary fromRegistry(
+            String alias, long startedAtMillis, long stoppedAtMillis, MetricRegistry registry) {
+        return fromRegistry(alias, startedAtMillis, stoppedAtMillis, registry, null);
+    }
+
+    /**
+     * Summarize the metrics of an activity from the metrics registry, excluding its warmup.
+     *
+     * @param alias           The activity alias, which is the prefix of all its metric names
+     * @param startedAtMillis When the activity was started
+     * @param stoppedAtMillis When the activity was stopped
+     * @param registry        The registry which holds the activity metrics
+     * @param baseline        The metrics at the end of the warmup, or null to summarize the whole run
+     * @return an ActivitySummary
+     */
+    public static ActivitySummary fromRegistry(
+            String alias, long startedAtMillis, long stoppedAtMillis, MetricRegistry registry, WarmupBaseline baseline) {
+        long measuredFromMillis = baseline != null ? baseline.getBoundaryMillis() : startedAtMillis;
+        ActivitySummary summary = new ActivitySummary(alias, measuredFromMillis, stoppedAtMillis);
+        if (baseline != null) {
+            summary.warmupMillis = Math.max(0L, baseline.getBoundaryMillis() - startedAtMillis);
+            summary.warmupCycles = baseline.getCount(CYCLES_TIMER);
+        }
+        String prefix = alias + ".";
+        Map<String, Long> exceptionMeters = new TreeMap<>();
+
+        for (Map.Entry<String, Metric> entry : registry.getMetrics().entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            String name = entry.getKey().substring(prefix.length());
+            Metric metric = entry.getValue();
+
+            Histogram warmupHistogram = baseline != null ? baseline.getHistogram(name) : null;
+            long warmupCount = baseline != null ? baseline.getCount(name) : 0L;
+
+            if (metric instanceof Timer) {
+                summary.timers.put(name, HistogramSummary.of(metric, ((Timer) metric).getCount() - warmupCount, warmupHistogram));
+            } else if (metric instanceof com.codahale.metrics.Histogram) {
+                summary.histograms.put(name, HistogramSummary.of(
+                        metric, ((com.codahale.metrics.Histogram) metric).getCount() - warmupCount, warmupHistogram));
+            } else if (metric instanceof Counter) {
+                long count = ((Counter) metric).getCount() - warmupCount;
+                summary.counters.put(name, count);
+                if (name.startsWith(ERROR_COUNTS_PREFIX)) {
+                    summary.errors.merge(name.substring(ERROR_COUNTS_PREFIX.length()), count, Long::sum);
+                }
+            } else if (metric instanceof Meter) {
+                long count = ((Meter) metric).getCount() - warmupCount;
+                summary.meters.put(name, count);
+                if (name.startsWith(EXCEPTIONS_PREFIX)) {
+                    exceptionMeters.put(name.substring(EXCEPTIONS_PREFIX.length()), count);
+                }
+            }
+        }
+        // the same error is usually both counted and metered, so meters only fill in missing counts
+        exceptionMeters.forEach(summary.errors::putIfAbsent);
+        return summary;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public long getDurationMillis() {
+        return Math.max(0L, stoppedAtMillis - startedAtMillis);
+    }
+
+    public long getCycles() {
+        HistogramSummary cycles = timers.get(CYCLES_TIMER);
+        return cycles != null ? cycles.count : 0L;
+    }
+
+    public double getCyclesPerSecond() {
+        long durationMillis = getDurationMillis();
+        return durationMillis > 0 ? (getCycles() * 1000.0d) / durationMillis : 0.0d;
+    }
+
+    /**
+     * @return how long the warmup took, or 0 if the whole run was summarized
+     */
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+
+    /**
+     * @return how many cycles were excluded as warmup
+     */
+    public long getWarmupCycles() {
+        return warmupCycles;
+    }
+
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Map<String, HistogramSummary> getTimers() {
+        return Collections.unmodifiableMap(timers);
+    }
+
+    public Map<String, Long> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Render this summary as a JSON object.
+     * @param sb     The buffer to append to
+     * @param indent The indentation of the object
+     */
+    public void appendJson(StringBuilder sb, String indent) {
+        String in = indent + "  ";
+        sb.append("{\n");
+        sb.append(in).append("\"alias\": ").append(quote(alias)).append(",\n");
+        sb.append(in).append("\"started_at_millis\": ").append(startedAtMillis).append(",\n");
+        sb.append(in).append("\"stopped_at_millis\": ").append(stoppedAtMillis).append(",\n");
+        sb.append(in).append("\"duration_millis\": ").append(getDurationMillis()).append(",\n");
+        sb.append(in).append("\"cycles\": ").append(getCycles()).append(",\n");
+        sb.append(in).append("\"cycles_per_second\": ").append(number(getCyclesPerSecond())).append(",\n");
+        sb.append(in).append("\"warmup_millis\": ").append(warmupMillis).append(",\n");
+        sb.append(in).append("\"warmup_cycles\": ").append(warmupCycles).append(",\n");
+        sb.append(in).append("\"errors\": ").append(getErrorCount()).append(",\n");
+        sb.append(in).append("\"error_counts\": ");
+        appendCounts(sb, errors, in);
+        sb.append(",\n");
+        sb.append(in).append("\"timers\": ");
+        appendHistograms(sb, timers, in);
+        sb.append(",\n");
+        sb.append(in).append("\"histograms\": ");
+        appendHistograms(sb, histograms, in);
+        sb.append(",\n");
+        sb.append(in).append("\"counters\": ");
+        appendCounts(sb, counters, in);
+        sb.append(",\n");
+        sb.append(in).append("\"meters\": ");
+        appendCounts(sb, meters, in);
+        sb.append("\n").append(indent).append("}");
+    }
+
+    private static void appendCounts(StringBuilder sb, Map<String, Long> counts, String indent) {
+        if (counts.isEmpty()) {
+            sb.append("{}");
+            return;
+        }
+        String in = indent + "  ";
+        sb.append("{\n");
+        Iterator<Map.Entry<String, Long>> iter = counts.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, Long> entry = iter.next();
+            sb.append(in).append(quote(entry.getKey())).append(": ").append(entry.getValue());
+            sb.append(iter.hasNext() ? ",\n" : "\n");
+        }
+        sb.append(indent).append("}");
+    }
+
+    private static void appendHistograms(StringBuilder sb, Map<String, HistogramSummary> summaries, String indent) {
+        if (summaries.isEmpty()) {
+            sb.append("{}");
+            return;
+        }
+        String in = indent + "  ";
+        sb.append("{\n");
+        Iterator<Map.Entry<String, HistogramSummary>> iter = summaries.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, HistogramSummary> entry = iter.next();
+            sb.append(in).append(quote(entry.getKey())).append(": ");
+            entry.getValue().appendJson(sb);
+            sb.append(iter.hasNext() ? ",\n" : "\n");
+        }
+        sb.append(indent).append("}");
+    }
+
+    static String quote(String value) {
+        return "\"" + StringEscapeUtils.escapeJson(value) + "\"";
+    }
+
+    static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "null";
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * The full-run distribution of a timer or histogram.
+     */
+    public final static class HistogramSummary {
+        private final long count;
+        private final boolean merged;
+        private final long min;
+        private final long max;
+        private final double mean;
+        private final long[] percentiles = new long[PERCENTILES.length];
+
+        private HistogramSummary(long count, boolean merged, long min, long max, double mean) {
+            this.count = count;
+            this.merged = merged;
+            this.min = min;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        static HistogramSummary of(Metric metric, long count) {
+            return of(metric, count, null);
+        }
+
+        /**
+         * @param metric  A timer or histogram
+         * @param count   The number of values to report
+         * @param warmup  The cumulative histogram at the end of the warmup, which is subtracted, or null
+         */
+        static HistogramSummary of(Metric metric, long count, Histogram warmup) {
+            if (metric instanceof HdrDeltaHistogramProvider) {
+                Histogram cumulative = ((HdrDeltaHistogramProvider) metric).getDeltaReservoir().getCumulativeHistogram();
+                if (warmup != null) {
+                    // the cumulative histogram is shared, so subtract from a copy
+                    cumulative = cumulative.copy();
+                    cumulative.subtract(warmup);
+                }
+                boolean empty = cumulative.getTotalCount() == 0;
+                HistogramSummary summary = new HistogramSummary(
+                        count, true,
+                        empty ? 0L : cumulative.getMinValue(),
+                        empty ? 0L : cumulative.getMaxValue(),
+                        empty ? 0.0d : cumulative.getMean());
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    summary.percentiles[i] = empty ? 0L : cumulative.getValueAtPercentile(PERCENTILES[i]);
+                }
+                return summary;
+            }
+
+            Snapshot snapshot = ((Sampling) metric).getSnapshot();
+            HistogramSummary summary = new HistogramSummary(
+                    count, false, snapshot.getMin(), snapshot.getMax(), snapshot.getMean());
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                summary.percentiles[i] = (long) snapshot.getValue(PERCENTILES[i] / 100.0d);
+            }
+            return summary;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * @param percentile a percentile from 0.0 to 100.0, which must be one of the summarized percentiles
+         * @return the value at the percentile
+         */
+        public long getValueAtPercentile(double percentile) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                if (PERCENTILES[i] == percentile) {
+                    return percentiles[i];
+                }
+            }
+            throw new RuntimeException("Percentile " + percentile + " is not summarized. Use one of "
+                    + Arrays.toString(PERCENTILES));
+        }
+
+        void appendJson(StringBuilder sb) {
+            sb.append("{\"count\": ").append(count)
+                    .append(", \"full_run\": ").append(merged)
+                    .append(", \"min\": ").append(min)
+                    .append(", \"mean\": ").append(number(mean));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                sb.append(", \"").append(PERCENTILE_NAMES[i]).append("\": ").append(percentiles[i]);
+            }
+            sb.append(", \"max\": ").append(max).append("}");
+        }
+    }
+}
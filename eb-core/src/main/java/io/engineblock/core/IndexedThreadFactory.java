@@ -30,6 +30,7 @@ public class IndexedThreadFactory implements ThreadFactory {
     private final Thread.UncaughtExceptionHandler uncaughtExceptionHandler;
     private String name = Thread.currentThread().getName() + "-factory";
     private AtomicInteger threadIndexer = new AtomicInteger(0);
+    private boolean threadGroupPerThread = false;
 
     public IndexedThreadFactory(String name, Thread.UncaughtExceptionHandler exceptionHandler) {
         this.name = name;
@@ -46,6 +47,11 @@ public class IndexedThreadFactory implements ThreadFactory {
             this.threadIndex = threadIndex;
         }
 
+        public IndexedThread(ThreadGroup threadGroup, int threadIndex, Runnable r) {
+            super(threadGroup, r);
+            this.threadIndex = threadIndex;
+        }
+
         public int getThreadIndex() {
             return threadIndex;
         }
@@ -59,13 +65,27 @@ public class IndexedThreadFactory implements ThreadFactory {
         }
     }
 
+    /**
+     * Put each new thread in a thread group of its own, named like the thread. Threads which are
+     * started from that thread are then in the same group, which allows their work to be told apart.
+     *
+     * @return this factory
+     */
+    public IndexedThreadFactory withThreadGroupPerThread() {
+        this.threadGroupPerThread = true;
+        return this;
+    }
+
     @Override
     public IndexedThread newThread(Runnable r) {
 
         int threadIndex = threadIndexer.incrementAndGet();
+        String threadName = name + String.format(":%03d", threadIndex);
 
-        IndexedThread thread = new IndexedThread(threadIndex, r);
-        thread.setName(name + String.format(":%03d", threadIndex));
+        IndexedThread thread = threadGroupPerThread
+                ? new IndexedThread(new ThreadGroup(threadName), threadIndex, r)
+                : new IndexedThread(threadIndex, r);
+        thread.setName(threadName);
         thread.setMetricName(thread.getName().split(":")[0].split("/")[0]);
         if (uncaughtExceptionHandler!=null) {
             thread.setUncaughtExceptionHandler(uncaughtExceptionHandler);
@@ -0,0 +1,62 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.core;
+
+import io.engineblock.activityapi.core.Activity;
+import io.engineblock.activityapi.core.MotorExecutorType;
+import io.engineblock.activityimpl.CpuAffinity;
+import io.engineblock.activityimpl.CpuInfo;
+import io.engineblock.activityimpl.CpuPlacement;
+import io.virtdata.annotations.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each motor on its own platform thread, and binds each thread to the hardware threads of
+ * one physical core, assigned round-robin by thread index. This keeps a motor's working set in one
+ * core's caches. The cores are limited by the <em>cpus</em> and <em>numa</em> activity parameters,
+ * see {@link CpuPlacement}. Only available on Linux, see {@link CpuAffinity}.
+ */
+@Service(MotorExecutorType.class)
+public class PinnedMotorExecutorType implements MotorExecutorType {
+
+    @Override
+    public String getName() {
+        return "pinned";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return CpuAffinity.isSupported() && CpuInfo.getProcDetails().isPresent();
+    }
+
+    @Override
+    public ExecutorService getExecutorService(Activity activity, Thread.UncaughtExceptionHandler exceptionHandler) {
+        CpuPlacement placement = CpuPlacement.forActivity(activity.getActivityDef());
+        return new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE,
+                0L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                placement.bindPerCore(new IndexedThreadFactory(activity.getAlias(), exceptionHandler))
+        );
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.core;
+
+import io.engineblock.activityapi.core.Activity;
+import io.engineblock.activityapi.core.MotorExecutorType;
+import io.engineblock.activityimpl.CpuPlacement;
+import io.virtdata.annotations.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each motor on its own platform thread, named after the activity alias and motor index.
+ * When the activity has a <em>cpus</em> or <em>numa</em> parameter, each thread is bound to those
+ * CPUs, see {@link CpuPlacement}. This is the default motor executor.
+ */
+@Service(MotorExecutorType.class)
+public class PlatformMotorExecutorType implements MotorExecutorType {
+
+    @Override
+    public String getName() {
+        return "platform";
+    }
+
+    @Override
+    public ExecutorService getExecutorService(Activity activity, Thread.UncaughtExceptionHandler exceptionHandler) {
+        ThreadFactory threadFactory = new IndexedThreadFactory(activity.getAlias(), exceptionHandler);
+        if (CpuPlacement.isRequested(activity.getActivityDef())) {
+            threadFactory = CpuPlacement.forActivity(activity.getActivityDef()).bindAll(threadFactory);
+        }
+        return new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE,
+                0L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                threadFactory
+        );
+    }
+}
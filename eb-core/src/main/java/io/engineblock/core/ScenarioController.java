@@ -17,15 +17,20 @@ package io.engineblock.core;
 import io.engineblock.activityapi.core.Activity;
 import io.engineblock.activityapi.core.ActivityType;
 import io.engineblock.activityapi.core.ProgressMeter;
+import io.engineblock.activityimpl.ActivityPartition;
 import io.engineblock.activityimpl.ActivityDef;
 import io.engineblock.activityimpl.ParameterMap;
 import io.engineblock.metrics.ActivityMetrics;
+import io.engineblock.metrics.HistogramHub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.InvalidParameterException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +41,35 @@ public class ScenarioController {
     private static final Logger logger = LoggerFactory.getLogger(ScenarioController.class);
 
     private final Map<String, ActivityExecutor> activityExecutors = new ConcurrentHashMap<>();
+    private final String metricsScope;
+    private final Map<String, String> activityDefaults;
+    private volatile ActivityPartition activityPartition;
+
+    // Signaled on every activity event and every histogram tick, to wake up awaitCondition
+    private final Object conditionSignal = new Object();
+    private long conditionGeneration = 0L;
+
+    public ScenarioController() {
+        this("", Map.of());
+    }
+
+    /**
+     * @param metricsScope     the metrics scope for all activities in this scenario, or an empty string
+     *                         for the shared metrics registry
+     * @param activityDefaults parameters which are given to each activity that does not set them itself
+     */
+    public ScenarioController(String metricsScope, Map<String, String> activityDefaults) {
+        this.metricsScope = metricsScope;
+        this.activityDefaults = new HashMap<>(activityDefaults);
+    }
+
+    /**
+     * Run only a partition of each activity which is started after this, as one of several workers.
+     * @param activityPartition the partition of each activity to run, or null to run whole activities
+     */
+    public void setActivityPartition(ActivityPartition activityPartition) {
+        this.activityPartition = activityPartition;
+    }
 
     /**
      * Start an activity, given the activity definition for it. The activity will be known in the scenario
@@ -227,9 +261,19 @@ public class ScenarioController {
             ActivityExecutor executor = activityExecutors.get(activityDef.getAlias());
 
             if (executor == null && createIfMissing) {
+                activityDef.setMetricsScope(metricsScope);
+                activityDefaults.forEach((param, value) -> {
+                    if (!activityDef.getParams().containsKey(param)) {
+                        activityDef.getParams().set(param, value);
+                    }
+                });
+                if (activityPartition != null) {
+                    activityPartition.apply(activityDef);
+                }
                 String activityTypeName = activityDef.getParams().getOptionalString("type").orElse("diag");
                 ActivityType activityType = ActivityType.FINDER.getOrThrow(activityTypeName);
                 executor = new ActivityExecutor(activityType.getAssembledActivity(activityDef,getActivityMap()));
+                executor.getEvents().addListener((alias, event) -> signalConditions());
                 activityExecutors.put(activityDef.getAlias(), executor);
             }
             return executor;
@@ -341,6 +385,129 @@ public class ScenarioController {
         return activityExecutor.awaitFinish(Integer.MAX_VALUE);
     }
 
+    /**
+     * Get a future for an event of an activity, which is completed with the activity alias when
+     * the event occurs. The names of events are those of {@link ActivityEvent}, in any case.
+     *
+     * @param alias     The name of an activity that is already known to the scenario
+     * @param eventName started, running, inputexhausted, or finished
+     * @return a future for the event
+     */
+    public CompletableFuture<String> onEvent(String alias, String eventName) {
+        return getActivityExecutor(alias).getEvents().on(eventOf(eventName));
+    }
+
+    /**
+     * Wait for an event of an activity, without stopping the activity.
+     *
+     * @param alias         The name of an activity that is already known to the scenario
+     * @param eventName     started, running, inputexhausted, or finished
+     * @param timeoutMillis The longest time to wait
+     * @return true, if the event occurred before the timeout
+     */
+    public boolean awaitEvent(String alias, String eventName, long timeoutMillis) {
+        return getActivityExecutor(alias).awaitEvent(eventOf(eventName), timeoutMillis);
+    }
+
+    /**
+     * Wait until any of the named activities is finished. This does not stop the other activities.
+     *
+     * @param aliases The names of activities that are known to the scenario, or none for all activities
+     * @return the alias of the first activity which finished
+     * @throws RuntimeException if that activity stopped with an error
+     */
+    public String awaitAny(String... aliases) {
+        CompletableFuture<?>[] finished = aliasesOrAll(aliases).stream()
+                .map(a -> getActivityExecutor(a).getEvents().on(ActivityEvent.Finished))
+                .toArray(CompletableFuture<?>[]::new);
+        if (finished.length == 0) {
+            throw new RuntimeException("There are no activities to await.");
+        }
+        try {
+            return String.valueOf(CompletableFuture.anyOf(finished).get());
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error while awaiting any of " + Arrays.toString(aliases) + ": " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Wait until all of the named activities are finished, as with {@link #awaitActivity(String)}.
+     *
+     * @param aliases The names of activities that are known to the scenario, or none for all activities
+     * @return true, if all of the activities finished
+     */
+    public boolean awaitAll(String... aliases) {
+        boolean awaited = true;
+        for (String alias : aliasesOrAll(aliases)) {
+            awaited = awaitActivity(alias) && awaited;
+        }
+        return awaited;
+    }
+
+    /**
+     * <p>Wait until a condition is true, such as a condition on metrics. The condition is checked when
+     * this is called, after each histogram interval, and after each activity event, so it should be cheap.
+     * It is always checked on the calling thread.</p>
+     * <p>For example, scenario.awaitCondition(function() { return metrics.a.cycles.servicetime.count &gt; 1000; }, 60000)</p>
+     *
+     * @param condition     The condition to wait for
+     * @param timeoutMillis The longest time to wait
+     * @return true, if the condition was true before the timeout
+     */
+    public boolean awaitCondition(BooleanSupplier condition, long timeoutMillis) {
+        Runnable tickListener = this::signalConditions;
+        HistogramHub.getInstance().addTickListener(tickListener);
+        long deadline = System.currentTimeMillis() + Math.min(timeoutMillis, Long.MAX_VALUE / 2);
+        try {
+            while (true) {
+                long generation;
+                synchronized (conditionSignal) {
+                    generation = conditionGeneration;
+                }
+                if (condition.getAsBoolean()) {
+                    return true;
+                }
+                synchronized (conditionSignal) {
+                    while (generation == conditionGeneration) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0L) {
+                            return false;
+                        }
+                        conditionSignal.wait(remaining);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            HistogramHub.getInstance().removeTickListener(tickListener);
+        }
+    }
+
+    private void signalConditions() {
+        synchronized (conditionSignal) {
+            conditionGeneration++;
+            conditionSignal.notifyAll();
+        }
+    }
+
+    private Collection<String> aliasesOrAll(String... aliases) {
+        return (aliases == null || aliases.length == 0) ? new ArrayList<>(getAliases()) : Arrays.asList(aliases);
+    }
+
+    private static ActivityEvent eventOf(String eventName) {
+        for (ActivityEvent event : ActivityEvent.values()) {
+            if (event.name().equalsIgnoreCase(eventName)) {
+                return event;
+            }
+        }
+        throw new RuntimeException("Unknown activity event '" + eventName + "', use one of " + Arrays.toString(ActivityEvent.values()));
+    }
+
     /**
      * @return an unmodifyable String to executor map of all activities known to this scenario
      */
@@ -352,6 +519,13 @@ public class ScenarioController {
         ActivityMetrics.reportTo(System.out);
     }
 
+    /**
+     * @return the metrics scope of the activities in this scenario, or an empty string for the shared scope
+     */
+    public String getMetricsScope() {
+        return metricsScope;
+    }
+
     private Map<String,Activity> getActivityMap() {
         Map<String,Activity> activityMap = new HashMap<String,Activity>();
         for (Map.Entry<String, ActivityExecutor> entry : activityExecutors.entrySet()) {
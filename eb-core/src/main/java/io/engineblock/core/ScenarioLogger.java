@@ -24,6 +24,8 @@ import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.ConsoleAppender;
 import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
 import io.engineblock.script.Scenario;
 import org.slf4j.LoggerFactory;
 
@@ -88,6 +90,10 @@ public class ScenarioLogger {
         fileAppender.setFile(scenarioLog);
         fileAppender.setEncoder(ple);
         fileAppender.setContext(loggerContext);
+        ScenarioThreadFilter threadFilter = new ScenarioThreadFilter(scenario);
+        threadFilter.setContext(loggerContext);
+        threadFilter.start();
+        fileAppender.addFilter(threadFilter);
         System.err.println("Logging to " + scenarioLog);
         fileAppender.start();
 
@@ -166,4 +172,33 @@ public class ScenarioLogger {
     public String getLogDir() {
         return this.loggerDir.toString();
     }
+
+    /**
+     * For an isolated scenario, only accepts log events from the thread group of the scenario, so that
+     * scenarios which run at the same time each log only their own events.
+     */
+    private static class ScenarioThreadFilter extends Filter<ILoggingEvent> {
+        private final Scenario scenario;
+
+        ScenarioThreadFilter(Scenario scenario) {
+            this.scenario = scenario;
+        }
+
+        @Override
+        public FilterReply decide(ILoggingEvent event) {
+            if (!scenario.isIsolated()) {
+                return FilterReply.NEUTRAL;
+            }
+            ThreadGroup scenarioGroup = scenario.getThreadGroup();
+            if (scenarioGroup == null) {
+                return FilterReply.DENY;
+            }
+            for (ThreadGroup group = Thread.currentThread().getThreadGroup(); group != null; group = group.getParent()) {
+                if (group == scenarioGroup) {
+                    return FilterReply.NEUTRAL;
+                }
+            }
+            return FilterReply.DENY;
+        }
+    }
 }
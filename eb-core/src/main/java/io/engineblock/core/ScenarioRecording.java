@@ -0,0 +1,115 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.core;
+
+import io.engineblock.script.Scenario;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A JFR recording which covers the run of one scenario. The recording is written
+ * to the scenario log directory as <em>scenario-name.jfr</em> when it is stopped,
+ * next to the scenario log and any histogram logs.
+ *
+ * <p>The configuration may be the name of a JDK configuration, like <em>default</em>
+ * or <em>profile</em>, or the path to a .jfc file. The engineblock events in
+ * {@link io.engineblock.metrics.jfr} are enabled with their default thresholds
+ * unless the configuration says otherwise.</p>
+ */
+public class ScenarioRecording {
+
+    private final static Logger logger = LoggerFactory.getLogger(ScenarioRecording.class);
+
+    private final Scenario scenario;
+    private File recordingDir = new File("logs");
+    private String configName = "default";
+    private Recording recording;
+    private Path destination;
+
+    public ScenarioRecording(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    public ScenarioRecording setLogDir(String logDir) {
+        this.recordingDir = new File(logDir);
+        return this;
+    }
+
+    public ScenarioRecording setConfiguration(String configName) {
+        this.configName = configName;
+        return this;
+    }
+
+    public synchronized ScenarioRecording start() {
+        if (!recordingDir.exists()) {
+            if (!recordingDir.mkdirs()) {
+                throw new RuntimeException("Unable to create recording directory:" + recordingDir.getPath());
+            }
+        }
+
+        String filename = (scenario.getName() + ".jfr").replaceAll("\\s", "_");
+        destination = Paths.get(recordingDir.getPath(), filename);
+
+        try {
+            recording = new Recording(resolveConfiguration(configName));
+            recording.setName(scenario.getName());
+            recording.setToDisk(true);
+            recording.setDestination(destination);
+            recording.start();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to start JFR recording with configuration '" + configName + "': " + e, e);
+        }
+        logger.info("Started JFR recording for " + scenario.getName() + " with configuration '" + configName + "'");
+        return this;
+    }
+
+    /**
+     * Stop the recording, which writes it to the destination file.
+     */
+    public synchronized void stop() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.stop();
+            logger.info("Wrote JFR recording to " + destination);
+        } catch (Exception e) {
+            logger.error("Error while writing JFR recording to " + destination + ": " + e, e);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static Configuration resolveConfiguration(String configName) throws Exception {
+        Path configPath = Paths.get(configName);
+        if (configName.endsWith(".jfc") || Files.exists(configPath)) {
+            return Configuration.create(configPath);
+        }
+        return Configuration.getConfiguration(configName);
+    }
+
+}
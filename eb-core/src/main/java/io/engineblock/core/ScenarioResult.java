@@ -24,7 +24,12 @@ import io.engineblock.metrics.ActivityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 public class ScenarioResult {
@@ -34,11 +39,29 @@ public class ScenarioResult {
     private Exception exception;
     private String iolog;
     private String report;
+    private String scenarioName;
+    private long startedAtMillis;
+    private long endedAtMillis;
+    private List<ActivitySummary> activitySummaries = new ArrayList<>();
+    private String metricsScope = "";
 
     public ScenarioResult(String iolog) {
         this.iolog = iolog;
     }
 
+    public ScenarioResult(
+            String iolog,
+            String scenarioName,
+            long startedAtMillis,
+            long endedAtMillis,
+            List<ActivitySummary> activitySummaries) {
+        this.iolog = iolog;
+        this.scenarioName = scenarioName;
+        this.startedAtMillis = startedAtMillis;
+        this.endedAtMillis = endedAtMillis;
+        this.activitySummaries.addAll(activitySummaries);
+    }
+
     public ScenarioResult(Exception e) {
         this.iolog = e.getMessage();
         this.exception = e;
@@ -46,7 +69,7 @@ public class ScenarioResult {
 
     public void reportToLog() {
         logger.info("-- BEGIN METRICS DETAIL --");
-        Slf4jReporter reporter = Slf4jReporter.forRegistry(ActivityMetrics.getMetricRegistry())
+        Slf4jReporter reporter = Slf4jReporter.forRegistry(ActivityMetrics.getMetricRegistry(metricsScope))
                 .convertDurationsTo(TimeUnit.MICROSECONDS)
                 .convertRatesTo(TimeUnit.SECONDS)
                 .filter(MetricFilter.ALL)
@@ -58,6 +81,15 @@ public class ScenarioResult {
     }
 
 
+    /**
+     * @param metricsScope the metrics scope of the scenario, for {@link #reportToLog()}
+     * @return this result
+     */
+    public ScenarioResult setMetricsScope(String metricsScope) {
+        this.metricsScope = metricsScope;
+        return this;
+    }
+
     public Optional<Exception> getException() {
         return Optional.ofNullable(exception);
     }
@@ -65,4 +97,54 @@ public class ScenarioResult {
     public String getIOLog() {
         return this.iolog;
     }
+
+    /**
+     * @return the end-of-run summaries for each activity in the scenario
+     */
+    public List<ActivitySummary> getActivitySummaries() {
+        return Collections.unmodifiableList(activitySummaries);
+    }
+
+    public Optional<ActivitySummary> getActivitySummary(String alias) {
+        return activitySummaries.stream().filter(s -> s.getAlias().equals(alias)).findFirst();
+    }
+
+    /**
+     * @return a JSON document with the scenario timing and all activity summaries
+     */
+    public String getSummaryJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"scenario\": ").append(ActivitySummary.quote(String.valueOf(scenarioName))).append(",\n");
+        sb.append("  \"started_at_millis\": ").append(startedAtMillis).append(",\n");
+        sb.append("  \"ended_at_millis\": ").append(endedAtMillis).append(",\n");
+        sb.append("  \"duration_millis\": ").append(Math.max(0L, endedAtMillis - startedAtMillis)).append(",\n");
+        sb.append("  \"error\": ").append(exception != null ? ActivitySummary.quote(String.valueOf(exception.getMessage())) : "null").append(",\n");
+        sb.append("  \"activities\": [");
+        for (int i = 0; i < activitySummaries.size(); i++) {
+            sb.append(i == 0 ? "\n    " : ",\n    ");
+            activitySummaries.get(i).appendJson(sb, "    ");
+        }
+        sb.append(activitySummaries.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Write the summary JSON to <em>scenario-name.summary.json</em> in the given directory.
+     * @param logDir The directory to write to
+     * @return The path of the summary file
+     */
+    public Path writeSummaryJson(String logDir) {
+        String filename = (scenarioName + ".summary.json").replaceAll("\\s", "_");
+        Path summaryPath = Paths.get(logDir, filename);
+        try {
+            Files.createDirectories(summaryPath.toAbsolutePath().getParent());
+            Files.write(summaryPath, getSummaryJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write scenario summary to " + summaryPath + ": " + e, e);
+        }
+        logger.info("wrote scenario summary to " + summaryPath);
+        return summaryPath;
+    }
 }
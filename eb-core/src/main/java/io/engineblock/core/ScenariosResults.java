@@ -22,6 +22,7 @@ import io.engineblock.script.ScenariosExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -66,6 +67,13 @@ public class ScenariosResults {
                 () -> new RuntimeException("Missing result."));
     }
 
+    /**
+     * @return each scenario and its result, in the order the scenarios were submitted
+     */
+    public Map<Scenario, ScenarioResult> getScenarioResultMap() {
+        return Collections.unmodifiableMap(scenarioResultMap);
+    }
+
     public void reportToLog() {
         for (Map.Entry<Scenario, ScenarioResult> entry : this.scenarioResultMap.entrySet()) {
             Scenario scenario = entry.getKey();
@@ -0,0 +1,84 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.core;
+
+import io.engineblock.activityapi.core.Activity;
+import io.engineblock.activityapi.core.MotorExecutorType;
+import io.engineblock.activityimpl.ParameterMap;
+import io.virtdata.annotations.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs each motor on its own virtual thread. This lets an activity use many more motors than
+ * platform threads would allow, which suits async or I/O bound activities with high concurrency.
+ *
+ * <p>Virtual threads are only available on newer JVMs, so they are found by reflection.
+ * Motors which block inside synchronized sections pin their carrier thread, so CPU bound
+ * activities will see no benefit over the platform executor.</p>
+ */
+@Service(MotorExecutorType.class)
+public class VirtualMotorExecutorType implements MotorExecutorType {
+    private final static Logger logger = LoggerFactory.getLogger(VirtualMotorExecutorType.class);
+
+    @Override
+    public String getName() {
+        return "virtual";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        try {
+            Thread.class.getMethod("ofVirtual").invoke(null);
+            return true;
+        } catch (Throwable t) {
+            logger.debug("virtual threads are not available: " + t);
+            return false;
+        }
+    }
+
+    @Override
+    public ExecutorService getExecutorService(Activity activity, Thread.UncaughtExceptionHandler exceptionHandler) {
+        ParameterMap params = activity.getActivityDef().getParams();
+        if (params.getOptionalString("cpus").isPresent() || params.getOptionalString("numa").isPresent()) {
+            logger.warn("The cpus and numa parameters are ignored for virtual motor threads of activity "
+                    + activity.getAlias() + ", since their carrier threads are shared.");
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class)
+                    .invoke(builder, activity.getAlias() + ":", 1L);
+            if (exceptionHandler != null) {
+                builder = builderType.getMethod("uncaughtExceptionHandler", Thread.UncaughtExceptionHandler.class)
+                        .invoke(builder, exceptionHandler);
+            }
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to create virtual thread executor for activity " + activity.getAlias(), e);
+        }
+    }
+}
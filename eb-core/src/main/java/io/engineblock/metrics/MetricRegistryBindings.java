@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRegistryListener {
@@ -31,6 +32,8 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     private final static Logger logger = LoggerFactory.getLogger(MetricRegistryBindings.class);
     private final MetricRegistry registry;
     private MetricMap metricMap = new MetricMap("ROOT");
+    // full metric names, so that scripts which poll metrics in a loop can skip the tree walk
+    private final Map<String, Metric> metricsByName = new ConcurrentHashMap<>();
     private boolean failfast = true;
 
     public MetricRegistryBindings(MetricRegistry registry) {
@@ -50,7 +53,7 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
 
     @Override
     public boolean containsKey(Object key) {
-        return metricMap.map.containsKey(key);
+        return metricMap.map.containsKey(key) || metricsByName.containsKey(String.valueOf(key));
     }
 
     @Override
@@ -61,6 +64,9 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     @Override
     public Object get(Object key) {
         Object got = metricMap.map.get(key);
+        if (got==null) {
+            got = metricsByName.get(String.valueOf(key));
+        }
         if (got==null) {
             throw new RuntimeException("Attempted to get metrics node with name '" + key + "', but it was not found. Perhaps you were looking for one of its children: "
                     + this.keySet().stream().collect(Collectors.joining(",","[","]")));
@@ -87,6 +93,7 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     public void onGaugeAdded(String name, Gauge<?> metric) {
         MetricMap parent = findParentNodeOf(name);
         parent.map.put(nodeNameOf(name), metric);
+        metricsByName.put(name, metric);
     }
 
     private String nodeNameOf(String name) {
@@ -134,6 +141,7 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
 
     @Override
     public void onGaugeRemoved(String name) {
+        metricsByName.remove(name);
         MetricMap parent = findParentNodeOf(name);
         parent.map.remove(nodeNameOf(name));
         cleanEmptyMaps(parent);
@@ -143,11 +151,13 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     public void onCounterAdded(String name, Counter metric) {
         MetricMap parent = findParentNodeOf(name);
         parent.map.put(nodeNameOf(name), metric);
+        metricsByName.put(name, metric);
 
     }
 
     @Override
     public void onCounterRemoved(String name) {
+        metricsByName.remove(name);
         MetricMap parent = findParentNodeOf(name);
         parent.map.remove(nodeNameOf(name));
         cleanEmptyMaps(parent);
@@ -157,11 +167,13 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     public void onHistogramAdded(String name, Histogram metric) {
         MetricMap parent = findParentNodeOf(name);
         parent.map.put(nodeNameOf(name), metric);
+        metricsByName.put(name, metric);
 
     }
 
     @Override
     public void onHistogramRemoved(String name) {
+        metricsByName.remove(name);
         MetricMap parent = findParentNodeOf(name);
         parent.map.remove(nodeNameOf(name));
         cleanEmptyMaps(parent);
@@ -172,11 +184,13 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     public void onMeterAdded(String name, Meter metric) {
         MetricMap parent = findParentNodeOf(name);
         parent.map.put(nodeNameOf(name), metric);
+        metricsByName.put(name, metric);
 
     }
 
     @Override
     public void onMeterRemoved(String name) {
+        metricsByName.remove(name);
         MetricMap parent = findParentNodeOf(name);
         parent.map.remove(nodeNameOf(name));
         cleanEmptyMaps(parent);
@@ -187,11 +201,13 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     public void onTimerAdded(String name, Timer metric) {
         MetricMap parent = findParentNodeOf(name);
         parent.map.put(nodeNameOf(name), metric);
+        metricsByName.put(name, metric);
 
     }
 
     @Override
     public void onTimerRemoved(String name) {
+        metricsByName.remove(name);
         MetricMap parent = findParentNodeOf(name);
         parent.map.remove(nodeNameOf(name));
         cleanEmptyMaps(parent);
@@ -218,7 +234,7 @@ public class MetricRegistryBindings extends ReadOnlyBindings implements MetricRe
     }
 
     private class MetricMap extends ReadOnlyBindings {
-        Map<String, Object> map = new HashMap<String, Object>();
+        Map<String, Object> map = new ConcurrentHashMap<String, Object>();
         MetricMap parent = null;
         public String name;
 
@@ -30,6 +30,10 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class MetricReporters implements Shutdownable {
@@ -38,6 +42,8 @@ public class MetricReporters implements Shutdownable {
 
     private List<PrefixedRegistry> metricRegistries = new ArrayList<>();
     private List<ScheduledReporter> scheduledReporters = new ArrayList<>();
+    private Map<ScheduledReporter, Long> reportingWindows = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reportingExecutor;
 
     private MetricReporters() {
         ShutdownManager.register(this);
@@ -132,19 +138,39 @@ public class MetricReporters implements Shutdownable {
         return this;
     }
 
-    public MetricReporters start(int consoleIntervalSeconds, int remoteIntervalSeconds) {
+    /**
+     * Start all reporters. Each reporter sees histogram data over a window which matches its own interval,
+     * so the console reporter and the remote reporters do not share one window length.
+     * @param consoleIntervalSeconds the interval for console reporters
+     * @param remoteIntervalSeconds the interval for all other reporters, which is also the default window
+     *                              for histogram snapshots outside of reports
+     * @return this MetricReporters
+     */
+    public synchronized MetricReporters start(int consoleIntervalSeconds, int remoteIntervalSeconds) {
+        HistogramHub.getInstance().setReportingWindowMillis(remoteIntervalSeconds * 1000L);
+        if (reportingExecutor == null && !scheduledReporters.isEmpty()) {
+            reportingExecutor = Executors.newScheduledThreadPool(scheduledReporters.size(), r -> {
+                Thread thread = new Thread(r, "metric-reporters");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         for (ScheduledReporter scheduledReporter : scheduledReporters) {
             logger.info("starting reporter: " + scheduledReporter);
-            if (scheduledReporter instanceof ConsoleReporter) {
-                scheduledReporter.start(consoleIntervalSeconds, TimeUnit.SECONDS);
-            } else {
-                scheduledReporter.start(remoteIntervalSeconds, TimeUnit.SECONDS);
-            }
+            int intervalSeconds = (scheduledReporter instanceof ConsoleReporter) ? consoleIntervalSeconds : remoteIntervalSeconds;
+            reportingWindows.put(scheduledReporter, intervalSeconds * 1000L);
+            HistogramHub.getInstance().addReportingWindow(intervalSeconds * 1000L);
+            reportingExecutor.scheduleAtFixedRate(() -> report(scheduledReporter),
+                    intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
         }
         return this;
     }
 
-    public MetricReporters stop() {
+    public synchronized MetricReporters stop() {
+        if (reportingExecutor != null) {
+            reportingExecutor.shutdownNow();
+            reportingExecutor = null;
+        }
         for (ScheduledReporter scheduledReporter : scheduledReporters) {
             logger.info("stopping reporter: " + scheduledReporter);
             scheduledReporter.stop();
@@ -156,16 +182,24 @@ public class MetricReporters implements Shutdownable {
     public MetricReporters report() {
         for (ScheduledReporter scheduledReporter : scheduledReporters) {
             logger.info("flushing reporter data: " + scheduledReporter);
-            scheduledReporter.report();
+            report(scheduledReporter);
         }
         return this;
     }
 
+    private void report(ScheduledReporter scheduledReporter) {
+        try {
+            HistogramHub.getInstance().report(reportingWindows.getOrDefault(scheduledReporter, 0L), scheduledReporter::report);
+        } catch (RuntimeException e) {
+            logger.error("Error while running reporter " + scheduledReporter + ": " + e.getMessage(), e);
+        }
+    }
+
     public void shutdown() {
         for (ScheduledReporter reporter : scheduledReporters) {
-            reporter.report();
-            reporter.stop();
+            report(reporter);
         }
+        stop();
     }
 
     private class PrefixedRegistry {
@@ -16,12 +16,18 @@ package io.engineblock.script;
 
 import ch.qos.logback.classic.Logger;
 import com.codahale.metrics.MetricRegistry;
+import io.engineblock.activityapi.core.Warmup;
 import io.engineblock.activitycore.ProgressIndicator;
+import io.engineblock.activityimpl.ActivityPartition;
+import io.engineblock.core.ActivityExecutor;
+import io.engineblock.core.ActivitySummary;
 import io.engineblock.core.ScenarioController;
 import io.engineblock.core.ScenarioLogger;
+import io.engineblock.core.ScenarioRecording;
 import io.engineblock.core.ScenarioResult;
 import io.engineblock.extensions.ScriptingPluginInfo;
 import io.engineblock.metrics.ActivityMetrics;
+import io.engineblock.metrics.HistogramHub;
 import io.engineblock.metrics.MetricRegistryBindings;
 import io.engineblock.scripting.ScriptEnvBuffer;
 import org.slf4j.LoggerFactory;
@@ -35,6 +41,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -44,9 +51,9 @@ import java.util.stream.Collectors;
 public class Scenario implements Callable<ScenarioResult> {
 
     private static final Logger logger = (Logger) LoggerFactory.getLogger(Scenario.class);
-    private static final ScriptEngineManager engineManager = new ScriptEngineManager();
     private final List<String> scripts = new ArrayList<>();
-    private ScriptEngine scriptEngine;
+    private String scriptEngineName = ScriptRuntime.AUTO;
+    private ScriptRuntime scriptRuntime;
     private ScenarioController scenarioController;
     private ProgressIndicator progressIndicator;
     private String progressInterval = "console:1m";
@@ -55,6 +62,11 @@ public class Scenario implements Callable<ScenarioResult> {
     private ScenarioLogger scenarioLogger;
     private ScriptParams scenarioScriptParams;
     private boolean areChartsEnabled;
+    private String jfrConfiguration;
+    private boolean isolated;
+    private final Map<String, String> activityDefaults = new HashMap<>();
+    private ActivityPartition activityPartition;
+    private volatile ThreadGroup threadGroup;
 
     public Scenario(String name, String progressInterval) {
         this.name = name;
@@ -90,20 +102,24 @@ public class Scenario implements Callable<ScenarioResult> {
 
     private void init() {
 
-        MetricRegistry metricRegistry = ActivityMetrics.getMetricRegistry();
+        MetricRegistry metricRegistry = ActivityMetrics.getMetricRegistry(getMetricsScope());
 
-        scriptEngine = engineManager.getEngineByName("nashorn");
+        if (scriptRuntime == null) {
+            scriptRuntime = ScriptRuntime.shared(scriptEngineName);
+        }
+        scenarioController = new ScenarioController(getMetricsScope(), activityDefaults);
+        scenarioController.setActivityPartition(activityPartition);
         scriptEnv = new ScenarioContext(scenarioController);
-        scriptEngine.setContext(scriptEnv);
-        scenarioController = new ScenarioController();
+        scriptEnv.setBindings(scriptRuntime.newGlobalBindings(), ScriptContext.ENGINE_SCOPE);
         if (!progressInterval.equals("disabled")) {
             progressIndicator = new ProgressIndicator(scenarioController,progressInterval);
         }
 
-        scriptEngine.put("params", scenarioScriptParams);
-        scriptEngine.put("scenario", scenarioController);
-        scriptEngine.put("activities", new ActivityBindings(scenarioController));
-        scriptEngine.put("metrics", new MetricRegistryBindings(metricRegistry));
+        Bindings globals = scriptEnv.getBindings(ScriptContext.ENGINE_SCOPE);
+        globals.put("params", scenarioScriptParams);
+        globals.put("scenario", scenarioController);
+        globals.put("activities", new ActivityBindings(scenarioController));
+        globals.put("metrics", new MetricRegistryBindings(metricRegistry));
 
         for (ScriptingPluginInfo extensionDescriptor : SandboxExtensionFinder.findAll()) {
             if (!extensionDescriptor.isAutoLoading()) {
@@ -120,7 +136,7 @@ public class Scenario implements Callable<ScenarioResult> {
             );
             logger.debug("Adding extension object:  name=" + extensionDescriptor.getBaseVariableName() +
                     " class=" + extensionObject.getClass().getSimpleName());
-            scriptEngine.put(extensionDescriptor.getBaseVariableName(), extensionObject);
+            globals.put(extensionDescriptor.getBaseVariableName(), extensionObject);
         }
 
 
@@ -129,18 +145,10 @@ public class Scenario implements Callable<ScenarioResult> {
     public void run() {
         init();
 
-        logger.info("Running control script for " + getName() + ".");
+        logger.info("Running control script for " + getName() + " with " + scriptRuntime + ".");
         for (String script : scripts) {
             try {
-                Object result = null;
-                if (scriptEngine instanceof Compilable) {
-                    logger.info("Using direct script compilation");
-                    Compilable compilableEngine = (Compilable) scriptEngine;
-                    CompiledScript compiled = compilableEngine.compile(script);
-                    result = compiled.eval();
-                } else {
-                    result = scriptEngine.eval(script);
-                }
+                Object result = scriptRuntime.eval(script, scriptEnv);
                 System.err.flush();
                 System.out.flush();
             } catch (ScriptException e) {
@@ -170,9 +178,50 @@ public class Scenario implements Callable<ScenarioResult> {
     }
 
     public ScenarioResult call() {
-        run();
+        threadGroup = Thread.currentThread().getThreadGroup();
+        long startedAtMillis = System.currentTimeMillis();
+        ScenarioRecording recording = null;
+        if (jfrConfiguration != null) {
+            String logDir = (scenarioLogger != null) ? scenarioLogger.getLogDir() : "logs";
+            recording = new ScenarioRecording(this)
+                    .setLogDir(logDir)
+                    .setConfiguration(jfrConfiguration)
+                    .start();
+        }
+        try {
+            run();
+        } finally {
+            if (recording != null) {
+                recording.stop();
+            }
+        }
+        long endedAtMillis = System.currentTimeMillis();
         String iolog = scriptEnv.getTimedLog();
-        return new ScenarioResult(iolog);
+        ScenarioResult result = new ScenarioResult(iolog, getName(), startedAtMillis, endedAtMillis,
+                summarizeActivities(endedAtMillis)).setMetricsScope(getMetricsScope());
+        try {
+            result.writeSummaryJson(scenarioLogger != null ? scenarioLogger.getLogDir() : "logs");
+        } catch (Exception e) {
+            logger.warn("Unable to write scenario summary: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    private List<ActivitySummary> summarizeActivities(long endedAtMillis) {
+        // bring the cumulative histograms up to date so that they include the whole run
+        HistogramHub.getInstance().updateCumulative();
+        List<ActivitySummary> summaries = new ArrayList<>();
+        for (ActivityExecutor executor : scenarioController.getActivityExecutorMap().values()) {
+            long stoppedAtMillis = executor.getStoppedAtMillis() > 0L ? executor.getStoppedAtMillis() : endedAtMillis;
+            Warmup warmup = executor.getActivity().getWarmupOrNull();
+            summaries.add(ActivitySummary.fromRegistry(
+                    executor.getActivityDef().getAlias(),
+                    executor.getStartedAtMillis(),
+                    stoppedAtMillis,
+                    ActivityMetrics.getMetricRegistry(getMetricsScope()),
+                    warmup != null ? warmup.getBaselineOrNull() : null));
+        }
+        return summaries;
     }
 
     @Override
@@ -219,6 +268,76 @@ public class Scenario implements Callable<ScenarioResult> {
         addScenarioScriptParams(new ScriptParams() {{ putAll(scriptParams);}});
     }
 
+    /**
+     * Isolate this scenario from other scenarios which run at the same time in this process. The activities
+     * of an isolated scenario keep their metrics in a registry of their own, which is named after the scenario,
+     * and its log file only has log lines from its own threads.
+     * @param isolated true, to isolate this scenario
+     */
+    public void setIsolated(boolean isolated) {
+        this.isolated = isolated;
+    }
+
+    public boolean isIsolated() {
+        return isolated;
+    }
+
+    /**
+     * @return the metrics scope of this scenario, which is empty unless the scenario is isolated
+     */
+    public String getMetricsScope() {
+        return isolated ? name.replaceAll("[^\\w-]", "_") : "";
+    }
+
+    /**
+     * Give a parameter to each activity in this scenario which does not set it itself.
+     * @param param The name of an activity parameter
+     * @param value The default value for the parameter
+     */
+    public void addActivityDefault(String param, String value) {
+        activityDefaults.put(param, value);
+    }
+
+    /**
+     * Run only a partition of each activity in this scenario, when it is one of several worker processes.
+     * @param activityPartition The partition of each activity to run
+     */
+    public void setActivityPartition(ActivityPartition activityPartition) {
+        this.activityPartition = activityPartition;
+    }
+
+    /**
+     * @return the thread group which runs this scenario, or null if it has not started. Threads which
+     * are started by the scenario are in this group as well.
+     */
+    public ThreadGroup getThreadGroup() {
+        return threadGroup;
+    }
+
+    /**
+     * Run the scripts of this scenario on the shared runtime for the named script engine.
+     * @param scriptEngineName The name of a script engine, like <em>nashorn</em> or <em>graal.js</em>, or <em>auto</em>
+     */
+    public void setScriptEngine(String scriptEngineName) {
+        this.scriptEngineName = scriptEngineName;
+    }
+
+    /**
+     * Run the scripts of this scenario on the given runtime, instead of the shared runtime.
+     * @param scriptRuntime A {@link ScriptRuntime}
+     */
+    public void setScriptRuntime(ScriptRuntime scriptRuntime) {
+        this.scriptRuntime = scriptRuntime;
+    }
+
+    /**
+     * Record this scenario with JFR, into the scenario log directory.
+     * @param jfrConfiguration The name of a JFR configuration, or the path to a .jfc file
+     */
+    public void enableJfrRecording(String jfrConfiguration) {
+        this.jfrConfiguration = jfrConfiguration;
+    }
+
     public void enableCharting() {
         MetricRegistry metricRegistry = ActivityMetrics.getMetricRegistry();
     }
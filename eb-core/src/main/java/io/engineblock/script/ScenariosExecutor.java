@@ -17,6 +17,7 @@
 
 package io.engineblock.script;
 
+import io.engineblock.activityimpl.CpuPlacement;
 import io.engineblock.core.IndexedThreadFactory;
 import io.engineblock.core.ScenarioResult;
 import io.engineblock.core.ScenarioLogger;
@@ -24,6 +25,7 @@ import io.engineblock.core.ScenariosResults;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.security.InvalidParameterException;
 import java.util.*;
 import java.util.concurrent.*;
@@ -35,23 +37,70 @@ public class ScenariosExecutor {
     private LinkedHashMap<String, SubmittedScenario> submitted = new LinkedHashMap<>();
 
     private final ExecutorService executor;
+    private final int threads;
     private String name;
     private RuntimeException stoppingException;
+    private List<String> cpuPartitions;
+    private BlockingQueue<String> freeCpuPartitions;
 
     public ScenariosExecutor(String name) {
         this(name, 1);
     }
 
+    /**
+     * Create an executor for scenarios. With more than one thread, scenarios run at the same time,
+     * and each one is isolated with {@link Scenario#setIsolated(boolean)}, so that it has its own metrics
+     * registry, log file contents, and log directory.
+     *
+     * @param name    The name of this executor
+     * @param threads How many scenarios may run at the same time
+     */
     public ScenariosExecutor(String name, int threads) {
-        executor = new ThreadPoolExecutor(1, 1,
+        if (threads < 1) {
+            throw new InvalidParameterException("threads must be at least 1, not " + threads);
+        }
+        IndexedThreadFactory threadFactory = new IndexedThreadFactory("scenarios", new ScenarioExceptionHandler(this));
+        if (threads > 1) {
+            threadFactory.withThreadGroupPerThread();
+        }
+        executor = new ThreadPoolExecutor(threads, threads,
                 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<>(),
-                new IndexedThreadFactory("scenarios", new ScenarioExceptionHandler(this)));
+                threadFactory);
+        this.threads = threads;
         this.name = name;
     }
 
+    /**
+     * Set how concurrent scenarios share CPUs. With <em>shared</em>, which is the default, all scenarios
+     * may use all CPUs. With <em>partitioned</em>, the cores of the system are divided evenly between the
+     * threads of this executor, and each scenario gives its activities the <em>cpus</em> of one partition,
+     * unless they set <em>cpus</em> themselves. A scenario takes a free partition when it starts running,
+     * and gives it back when it ends, so no two running scenarios have the same partition.
+     *
+     * @param cpuBudget shared or partitioned
+     * @return this executor
+     */
+    public synchronized ScenariosExecutor setCpuBudget(String cpuBudget) {
+        if (cpuBudget.equals("shared")) {
+            cpuPartitions = null;
+            freeCpuPartitions = null;
+        } else if (cpuBudget.equals("partitioned")) {
+            cpuPartitions = CpuPlacement.partition(threads);
+            freeCpuPartitions = new LinkedBlockingQueue<>(cpuPartitions);
+            logger.info("partitioned cpus for " + threads + " concurrent scenarios: " + cpuPartitions);
+        } else {
+            throw new InvalidParameterException("cpu budget must be shared or partitioned, not " + cpuBudget);
+        }
+        return this;
+    }
+
     public synchronized void execute(Scenario scenario) {
-        execute(scenario, new ScenarioLogger(scenario).setLogDir("logs").setMaxLogs(0));
+        String logDir = (threads > 1) ? "logs" + File.separator + scenario.getName().replaceAll("\\s", "_") : "logs";
+        if (threads > 1) {
+            scenario.setIsolated(true);
+        }
+        execute(scenario, new ScenarioLogger(scenario).setLogDir(logDir).setMaxLogs(0));
     }
 
     public synchronized void execute(Scenario scenario, ScenarioLogger scenarioLogger) {
@@ -59,11 +108,44 @@ public class ScenariosExecutor {
         if (submitted.get(scenario.getName()) != null) {
             throw new RuntimeException("Scenario " + scenario.getName() + " is already defined. Remove it first to reuse the name.");
         }
-        Future<ScenarioResult> future = executor.submit(scenario);
+        if (threads > 1) {
+            scenario.setIsolated(true);
+        }
+        if (scenario.isIsolated()) {
+            for (SubmittedScenario other : submitted.values()) {
+                if (other.getScenario().isIsolated()
+                        && other.getScenario().getMetricsScope().equals(scenario.getMetricsScope())) {
+                    throw new RuntimeException("Scenario " + scenario.getName() + " would share the metrics scope '"
+                            + scenario.getMetricsScope() + "' with scenario " + other.getName()
+                            + ". Use names which differ in more than punctuation.");
+                }
+            }
+        }
+        Callable<ScenarioResult> task = scenario;
+        if (freeCpuPartitions != null) {
+            task = withCpuPartition(scenario, freeCpuPartitions);
+        }
+        Future<ScenarioResult> future = executor.submit(task);
         SubmittedScenario s = new SubmittedScenario(scenario, future);
         submitted.put(s.getName(), s);
     }
 
+    /**
+     * Bind a cpu partition to the scenario on the thread which runs it. There are as many partitions as
+     * threads, so a partition is always free when a scenario starts.
+     */
+    private static Callable<ScenarioResult> withCpuPartition(Scenario scenario, BlockingQueue<String> freeCpuPartitions) {
+        return () -> {
+            String cpus = freeCpuPartitions.take();
+            try {
+                scenario.addActivityDefault("cpus", cpus);
+                return scenario.call();
+            } finally {
+                freeCpuPartitions.add(cpus);
+            }
+        };
+    }
+
     @Override
     public String toString() {
         return super.toString();
@@ -0,0 +1,213 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.script;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * <p>A script runtime wraps one JSR-223 script engine for scenario scripts.</p>
+ *
+ * <p>A <em>shared</em> runtime keeps one engine for the life of the process, and gives each scenario its
+ * own global scope with {@link #newGlobalBindings()}. Scripts are compiled once and kept in a cache
+ * which is keyed by the engine and a SHA-256 hash of the script text, so repeated scenarios and repeated
+ * scripts skip both engine startup and compilation. An <em>isolated</em> runtime creates a new engine
+ * and compiles every script, as scenarios always did before.</p>
+ *
+ * <p>The engine named <em>auto</em> is graal.js when it is on the classpath, and otherwise nashorn.</p>
+ *
+ * <p>Only nashorn runtimes are shared. Scenarios may run at the same time, and a graal.js context and the
+ * scripts compiled in it can only be used by one thread at a time, so asking for a shared graal.js
+ * runtime gives an isolated one instead.</p>
+ */
+public class ScriptRuntime {
+
+    private final static Logger logger = LoggerFactory.getLogger(ScriptRuntime.class);
+
+    public final static String AUTO = "auto";
+    private final static String[] PREFERRED_ENGINES = {"graal.js", "nashorn"};
+    final static int MAX_CACHED_SCRIPTS = 256;
+
+    private final static ScriptEngineManager engineManager = new ScriptEngineManager();
+    private final static Map<String, ScriptRuntime> sharedRuntimes = new ConcurrentHashMap<>();
+
+    private final String engineName;
+    private final ScriptEngine engine;
+    private final boolean shared;
+    private final Map<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    private ScriptRuntime(String engineName, boolean shared) {
+        this.engineName = engineName;
+        this.shared = shared;
+        this.engine = createEngine(engineName);
+    }
+
+    /**
+     * @param engineName The name of a script engine, or <em>auto</em>
+     * @return the runtime for this engine which is shared by all scenarios, or a new isolated runtime
+     * if the engine is graal.js
+     */
+    public static ScriptRuntime shared(String engineName) {
+        String resolved = resolveEngineName(engineName);
+        if (resolved.startsWith("graal")) {
+            logger.debug("script engine " + resolved + " is single-threaded, using an isolated runtime");
+            return isolated(resolved);
+        }
+        return sharedRuntimes.computeIfAbsent(resolved, n -> new ScriptRuntime(n, true));
+    }
+
+    /**
+     * @param engineName The name of a script engine, or <em>auto</em>
+     * @return a new runtime with its own engine and no compiled script cache
+     */
+    public static ScriptRuntime isolated(String engineName) {
+        return new ScriptRuntime(resolveEngineName(engineName), false);
+    }
+
+    public static String resolveEngineName(String engineName) {
+        if (!AUTO.equals(engineName)) {
+            return engineName;
+        }
+        for (String preferred : PREFERRED_ENGINES) {
+            if (engineManager.getEngineByName(preferred) != null) {
+                return preferred;
+            }
+        }
+        throw new RuntimeException("No javascript engine is available. Tried " + String.join(",", PREFERRED_ENGINES));
+    }
+
+    private static ScriptEngine createEngine(String engineName) {
+        ScriptEngine engine = engineManager.getEngineByName(engineName);
+        if (engine == null) {
+            throw new RuntimeException("Unable to find script engine '" + engineName + "'");
+        }
+        allowHostAccess(engineName, engine.getBindings(ScriptContext.ENGINE_SCOPE));
+        logger.debug("created script engine " + engineName);
+        return engine;
+    }
+
+    /**
+     * Create a new global scope for one scenario. Globals which are defined by the scripts of one
+     * scenario are not visible to any other scenario, even on a shared runtime.
+     *
+     * @return bindings to be used as the {@link ScriptContext#ENGINE_SCOPE} of a scenario
+     */
+    public Bindings newGlobalBindings() {
+        Bindings bindings = engine.createBindings();
+        allowHostAccess(engineName, bindings);
+        return bindings;
+    }
+
+    /**
+     * Scenario scripts call into the scenario controller, the metrics and the extensions directly,
+     * which graal.js only allows when it is asked to.
+     */
+    private static void allowHostAccess(String engineName, Bindings bindings) {
+        if (engineName.startsWith("graal")) {
+            bindings.put("polyglot.js.allowHostAccess", true);
+            bindings.put("polyglot.js.allowHostClassLookup", (Predicate<String>) s -> true);
+            bindings.put("polyglot.js.nashorn-compat", true);
+        }
+    }
+
+    /**
+     * Evaluate a script in the given context. On a shared runtime, the compiled form of the script is
+     * reused if the same script text has been compiled before.
+     *
+     * @param script  The script text
+     * @param context The scenario context, with bindings from {@link #newGlobalBindings()}
+     * @return the result of the script
+     * @throws ScriptException if the script can not be compiled or fails
+     */
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        if (!(engine instanceof Compilable)) {
+            return engine.eval(script, context);
+        }
+        return compile(script).eval(context);
+    }
+
+    private CompiledScript compile(String script) throws ScriptException {
+        if (!shared) {
+            return ((Compilable) engine).compile(script);
+        }
+        String key = hashOf(script);
+        CompiledScript compiled = compiledScripts.get(key);
+        if (compiled != null) {
+            cacheHits.incrementAndGet();
+            return compiled;
+        }
+        cacheMisses.incrementAndGet();
+        compiled = ((Compilable) engine).compile(script);
+        if (compiledScripts.size() >= MAX_CACHED_SCRIPTS) {
+            logger.debug("clearing " + compiledScripts.size() + " compiled scripts for " + engineName);
+            compiledScripts.clear();
+        }
+        compiledScripts.put(key, compiled);
+        return compiled;
+    }
+
+    private static String hashOf(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public String getEngineName() {
+        return engineName;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public int getCachedScriptCount() {
+        return compiledScripts.size();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    @Override
+    public String toString() {
+        return engineName + (shared ? " (shared, " + compiledScripts.size() + " cached scripts)" : " (isolated)");
+    }
+}
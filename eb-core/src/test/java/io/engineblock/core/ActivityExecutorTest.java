@@ -12,11 +12,15 @@ import io.engineblock.activityimpl.input.CoreInputDispenser;
 import io.engineblock.activityimpl.input.AtomicInput;
 import io.engineblock.activityimpl.motor.CoreMotor;
 import io.engineblock.activityimpl.motor.CoreMotorDispenser;
+import io.engineblock.metrics.ActivityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -97,6 +101,121 @@ public class ActivityExecutorTest {
 
     }
 
+    @Test
+    public void testManyMotorsStartQuickly() {
+        ActivityDef ad = ActivityDef.parseActivityDef("type=diag;alias=manymotors;cycles=1M;");
+        Activity a = new SimpleActivity(ad);
+        InputDispenser idisp = new CoreInputDispenser(a);
+        ActionDispenser adisp = new CoreActionDispenser(a);
+        OutputDispenser tdisp = CoreServices.getOutputDispenser(a).orElse(null);
+        MotorDispenser<?> mdisp = new CoreMotorDispenser(a, idisp, adisp, tdisp);
+        a.setActionDispenserDelegate(adisp);
+        a.setInputDispenserDelegate(idisp);
+        a.setMotorDispenserDelegate(mdisp);
+
+        ActivityExecutor ae = new ActivityExecutor(a);
+        ad.setThreads(200);
+        long startedAt = System.currentTimeMillis();
+        ae.startActivity();
+        long startMillis = System.currentTimeMillis() - startedAt;
+        ae.forceStopExecutor(1000);
+
+        assertThat(ActivityMetrics.timer(ad, "motors.starttime").getCount()).isEqualTo(1);
+        assertThat(startMillis).isLessThan(5000);
+    }
+
+    @Test
+    public void testThreadSafeDispenserCreatesMotorsInParallel() {
+        ActivityDef ad = ActivityDef.parseActivityDef("type=diag;alias=parallelmotors;cycles=1M;");
+        RecordingMotorDispenser mdisp = new RecordingMotorDispenser(ad, true);
+        Activity a = new SimpleActivity(ad);
+        a.setMotorDispenserDelegate(mdisp);
+
+        ActivityExecutor ae = new ActivityExecutor(a);
+        ad.setThreads(32);
+        String callingThread = Thread.currentThread().getName();
+        ae.startActivity();
+        ae.forceStopExecutor(1000);
+
+        assertThat(mdisp.builtBy).hasSize(32);
+        assertThat(mdisp.builtBy.get(0)).isEqualTo(callingThread);
+        for (int slot = 1; slot < 32; slot++) {
+            assertThat(mdisp.builtBy.get(slot)).contains("parallelmotors-motorbuilder");
+        }
+    }
+
+    @Test
+    public void testCoreMotorDispenserCreatesMotorsInParallel() {
+        ActivityDef ad = ActivityDef.parseActivityDef("type=diag;alias=coreparallelmotors;cycles=1M;");
+        Activity a = new SimpleActivity(ad);
+        Map<Integer, String> builtBy = new ConcurrentHashMap<>();
+        InputDispenser idisp = new CoreInputDispenser(a);
+        ActionDispenser adisp = new CoreActionDispenser(a) {
+            @Override
+            public Action getAction(int slot) {
+                builtBy.put(slot, Thread.currentThread().getName());
+                return super.getAction(slot);
+            }
+        };
+        OutputDispenser tdisp = CoreServices.getOutputDispenser(a).orElse(null);
+        MotorDispenser<?> mdisp = new CoreMotorDispenser(a, idisp, adisp, tdisp);
+        a.setActionDispenserDelegate(adisp);
+        a.setInputDispenserDelegate(idisp);
+        a.setMotorDispenserDelegate(mdisp);
+
+        assertThat(mdisp.isThreadSafe()).isTrue();
+
+        ActivityExecutor ae = new ActivityExecutor(a);
+        ad.setThreads(32);
+        ae.startActivity();
+        ae.forceStopExecutor(1000);
+
+        assertThat(builtBy).hasSize(32);
+        assertThat(builtBy.values().stream().filter(t -> t.contains("coreparallelmotors-motorbuilder")).count())
+                .isEqualTo(31);
+        assertThat(idisp.getInput(31)).isSameAs(idisp.getInput(0));
+    }
+
+    @Test
+    public void testUnsafeDispenserCreatesMotorsSequentially() {
+        ActivityDef ad = ActivityDef.parseActivityDef("type=diag;alias=sequentialmotors;cycles=1M;");
+        RecordingMotorDispenser mdisp = new RecordingMotorDispenser(ad, false);
+        Activity a = new SimpleActivity(ad);
+        a.setMotorDispenserDelegate(mdisp);
+
+        ActivityExecutor ae = new ActivityExecutor(a);
+        ad.setThreads(32);
+        String callingThread = Thread.currentThread().getName();
+        ae.startActivity();
+        ae.forceStopExecutor(1000);
+
+        assertThat(mdisp.builtBy).hasSize(32);
+        assertThat(new HashSet<>(mdisp.builtBy.values())).containsExactly(callingThread);
+    }
+
+    @Test
+    public void testLifecycleEvents() {
+        ActivityDef ad = ActivityDef.parseActivityDef("type=diag;alias=lifecycle;cycles=1000;");
+        Activity a = new SimpleActivity(ad);
+        InputDispenser idisp = new CoreInputDispenser(a);
+        ActionDispenser adisp = new CoreActionDispenser(a);
+        OutputDispenser tdisp = CoreServices.getOutputDispenser(a).orElse(null);
+        MotorDispenser<?> mdisp = new CoreMotorDispenser(a, idisp, adisp, tdisp);
+        a.setActionDispenserDelegate(adisp);
+        a.setInputDispenserDelegate(idisp);
+        a.setMotorDispenserDelegate(mdisp);
+
+        ActivityExecutor ae = new ActivityExecutor(a);
+        ad.setThreads(2);
+        ae.startActivity();
+        assertThat(ae.getEvents().on(ActivityEvent.Started)).isDone();
+        assertThat(ae.getEvents().on(ActivityEvent.Running)).isDone();
+
+        assertThat(ae.awaitFinish(10000)).isTrue();
+        assertThat(ae.getEvents().on(ActivityEvent.InputExhausted)).isCompletedWithValue("lifecycle");
+        assertThat(ae.getEvents().on(ActivityEvent.Finished)).isCompletedWithValue("lifecycle");
+    }
+
     private MotorDispenser getActivityMotorFactory(final ActivityDef ad, Action lc, final Input ls) {
         MotorDispenser<?> cmf = new MotorDispenser() {
             @Override
@@ -110,6 +229,35 @@ public class ActivityExecutorTest {
         return cmf;
     }
 
+    private static class RecordingMotorDispenser implements MotorDispenser<Object> {
+        private final Map<Integer, String> builtBy = new ConcurrentHashMap<>();
+        private final Input input;
+        private final boolean threadSafe;
+
+        private RecordingMotorDispenser(ActivityDef activityDef, boolean threadSafe) {
+            this.input = new AtomicInput(activityDef);
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public Motor<Object> getMotor(ActivityDef activityDef, int slotId) {
+            builtBy.put(slotId, Thread.currentThread().getName());
+            Motor<Object> motor = new CoreMotor<>(new SimpleActivity(activityDef), slotId, input);
+            motor.setAction(new SyncAction() {
+                @Override
+                public int runCycle(long value) {
+                    return 0;
+                }
+            });
+            return motor;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+    }
+
     private SyncAction motorActionDelay(final long delay) {
         SyncAction consumer = new SyncAction() {
             @Override
@@ -0,0 +1,98 @@
+package io.engineblock.core;
+
+import com.codahale.metrics.MetricRegistry;
+import io.engineblock.metrics.DeltaHdrHistogramReservoir;
+import io.engineblock.metrics.HistogramHub;
+import io.engineblock.metrics.NicerTimer;
+import io.engineblock.metrics.WarmupBaseline;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class ActivitySummaryTest {
+
+    @Test
+    public void testSummaryUsesFullRunHistogram() {
+        MetricRegistry registry = new MetricRegistry();
+        NicerTimer timer = new NicerTimer("summarytest.cycles.servicetime",
+                new DeltaHdrHistogramReservoir("summarytest.cycles.servicetime", 4));
+        registry.register("summarytest.cycles.servicetime", timer);
+        registry.counter("summarytest.errorcounts.TimeoutException").inc(3);
+        registry.counter("othertest.errorcounts.TimeoutException").inc(5);
+
+        for (int i = 1; i <= 100; i++) {
+            timer.update(i, TimeUnit.NANOSECONDS);
+        }
+        HistogramHub.getInstance().run();
+        for (int i = 101; i <= 200; i++) {
+            timer.update(i, TimeUnit.NANOSECONDS);
+        }
+        HistogramHub.getInstance().run();
+
+        ActivitySummary summary = ActivitySummary.fromRegistry("summarytest", 1000L, 3000L, registry);
+        assertThat(summary.getCycles()).isEqualTo(200L);
+        assertThat(summary.getCyclesPerSecond()).isEqualTo(100.0d);
+        assertThat(summary.getErrorCount()).isEqualTo(3L);
+
+        ActivitySummary.HistogramSummary cycles = summary.getTimers().get(ActivitySummary.CYCLES_TIMER);
+        assertThat(cycles.getMin()).isEqualTo(1L);
+        assertThat(cycles.getMax()).isEqualTo(200L);
+        assertThat(cycles.getValueAtPercentile(50.0d)).isEqualTo(100L);
+
+        StringBuilder sb = new StringBuilder();
+        summary.appendJson(sb, "");
+        assertThat(sb.toString()).contains("\"cycles\": 200");
+        assertThat(sb.toString()).contains("\"TimeoutException\": 3");
+    }
+
+    @Test
+    public void testSummaryExcludesWarmup() {
+        MetricRegistry registry = new MetricRegistry();
+        NicerTimer timer = new NicerTimer("warmuptest.cycles.servicetime",
+                new DeltaHdrHistogramReservoir("warmuptest.cycles.servicetime", 4));
+        registry.register("warmuptest.cycles.servicetime", timer);
+        registry.counter("warmuptest.errorcounts.TimeoutException").inc(3);
+
+        for (int i = 0; i < 100; i++) {
+            timer.update(1000L, TimeUnit.NANOSECONDS);
+        }
+        HistogramHub.getInstance().run();
+        WarmupBaseline baseline = WarmupBaseline.capture("warmuptest", registry);
+
+        registry.counter("warmuptest.errorcounts.TimeoutException").inc(2);
+        for (int i = 1; i <= 100; i++) {
+            timer.update(i, TimeUnit.NANOSECONDS);
+        }
+        HistogramHub.getInstance().run();
+
+        long startedAt = baseline.getBoundaryMillis() - 5000L;
+        ActivitySummary summary = ActivitySummary.fromRegistry(
+                "warmuptest", startedAt, baseline.getBoundaryMillis() + 1000L, registry, baseline);
+        assertThat(summary.getCycles()).isEqualTo(100L);
+        assertThat(summary.getWarmupCycles()).isEqualTo(100L);
+        assertThat(summary.getWarmupMillis()).isEqualTo(5000L);
+        assertThat(summary.getDurationMillis()).isEqualTo(1000L);
+        assertThat(summary.getErrorCount()).isEqualTo(2L);
+
+        ActivitySummary.HistogramSummary cycles = summary.getTimers().get(ActivitySummary.CYCLES_TIMER);
+        assertThat(cycles.getMax()).isEqualTo(100L);
+        assertThat(cycles.getValueAtPercentile(50.0d)).isEqualTo(50L);
+    }
+
+    @Test
+    public void testErrorsCountedOnceWhenMeteredToo() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("errortest.errorcounts.TimeoutException").inc();
+        registry.meter("errortest.exceptions.TimeoutException").mark();
+        registry.meter("errortest.exceptions.ClosedChannelException").mark(2);
+
+        ActivitySummary summary = ActivitySummary.fromRegistry("errortest", 1000L, 2000L, registry);
+        assertThat(summary.getErrors()).containsEntry("TimeoutException", 1L);
+        assertThat(summary.getErrors()).containsEntry("ClosedChannelException", 2L);
+        assertThat(summary.getErrorCount()).isEqualTo(3L);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.script;
+
+import com.codahale.metrics.MetricRegistry;
+import io.engineblock.metrics.MetricRegistryBindings;
+import org.testng.annotations.Test;
+
+import javax.script.ScriptContext;
+import javax.script.SimpleScriptContext;
+
+/**
+ * Compares a new script engine per scenario, which is how scenarios used to run, with a shared
+ * {@link ScriptRuntime}. This is here for experimentation, without requiring it to be included in builds.
+ */
+@Test
+public class ScriptRuntimeBenchmark {
+
+    private final static String SETUP_SCRIPT = "var total=0;\n"
+            + "function addUp(n) { for (var i=0; i<n; i++) { total+=i; } return total; }\n"
+            + "addUp(1000);\n";
+
+    private final static String POLLING_SCRIPT = "var sum=0;\n"
+            + "for (var i=0; i<100000; i++) { sum+=metrics.bench.cycles.ops.count; }\n"
+            + "sum;\n";
+
+    private final static String FLAT_POLLING_SCRIPT = "var sum=0;\n"
+            + "for (var i=0; i<100000; i++) { sum+=metrics['bench.cycles.ops'].count; }\n"
+            + "sum;\n";
+
+    @Test(enabled = false)
+    public void testStartupTime() throws Exception {
+        int scenarios = 20;
+
+        long isolatedStart = System.nanoTime();
+        for (int i = 0; i < scenarios; i++) {
+            ScriptRuntime runtime = ScriptRuntime.isolated(ScriptRuntime.AUTO);
+            runtime.eval(SETUP_SCRIPT, newContext(runtime));
+        }
+        long isolatedNanos = System.nanoTime() - isolatedStart;
+
+        long sharedStart = System.nanoTime();
+        for (int i = 0; i < scenarios; i++) {
+            ScriptRuntime runtime = ScriptRuntime.shared(ScriptRuntime.AUTO);
+            runtime.eval(SETUP_SCRIPT, newContext(runtime));
+        }
+        long sharedNanos = System.nanoTime() - sharedStart;
+
+        System.out.println(String.format("startup of %d scenarios: isolated %.1fms/scenario, shared %.1fms/scenario (%s)",
+                scenarios, isolatedNanos / 1_000_000.0D / scenarios, sharedNanos / 1_000_000.0D / scenarios,
+                ScriptRuntime.shared(ScriptRuntime.AUTO)));
+    }
+
+    @Test(enabled = false)
+    public void testMetricsPollingLoop() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("bench.cycles.ops").inc(3);
+
+        ScriptRuntime isolated = ScriptRuntime.isolated(ScriptRuntime.AUTO);
+        ScriptRuntime shared = ScriptRuntime.shared(ScriptRuntime.AUTO);
+
+        for (int round = 0; round < 3; round++) {
+            long treeNanos = timeScript(isolated, registry, POLLING_SCRIPT);
+            long sharedTreeNanos = timeScript(shared, registry, POLLING_SCRIPT);
+            long sharedFlatNanos = timeScript(shared, registry, FLAT_POLLING_SCRIPT);
+            System.out.println(String.format("100000 metric reads: isolated %.1fms, shared %.1fms, shared by full name %.1fms",
+                    treeNanos / 1_000_000.0D, sharedTreeNanos / 1_000_000.0D, sharedFlatNanos / 1_000_000.0D));
+        }
+    }
+
+    private long timeScript(ScriptRuntime runtime, MetricRegistry registry, String script) throws Exception {
+        ScriptContext context = newContext(runtime);
+        context.getBindings(ScriptContext.ENGINE_SCOPE).put("metrics", new MetricRegistryBindings(registry));
+        long start = System.nanoTime();
+        runtime.eval(script, context);
+        return System.nanoTime() - start;
+    }
+
+    private ScriptContext newContext(ScriptRuntime runtime) {
+        ScriptContext context = new SimpleScriptContext();
+        context.setBindings(runtime.newGlobalBindings(), ScriptContext.ENGINE_SCOPE);
+        return context;
+    }
+
+}
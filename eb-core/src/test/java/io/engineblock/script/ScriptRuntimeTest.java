@@ -0,0 +1,91 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.script;
+
+import org.testng.annotations.Test;
+
+import javax.script.ScriptContext;
+import javax.script.SimpleScriptContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test
+public class ScriptRuntimeTest {
+
+    // The shared runtime lives for the whole process, so scripts are made unique to each test run
+    private final static String RUN = String.valueOf(System.nanoTime());
+
+    @Test
+    public void testCacheHitOnSameScript() throws Exception {
+        ScriptRuntime runtime = ScriptRuntime.shared("nashorn");
+        String script = "var cached = 1; // " + RUN;
+        long hits = runtime.getCacheHits();
+        long misses = runtime.getCacheMisses();
+
+        runtime.eval(script, newContext(runtime));
+        assertThat(runtime.getCacheMisses()).isEqualTo(misses + 1);
+        assertThat(runtime.getCacheHits()).isEqualTo(hits);
+
+        runtime.eval(script, newContext(runtime));
+        assertThat(runtime.getCacheMisses()).isEqualTo(misses + 1);
+        assertThat(runtime.getCacheHits()).isEqualTo(hits + 1);
+
+        runtime.eval("var notcached = 2; // " + RUN, newContext(runtime));
+        assertThat(runtime.getCacheMisses()).isEqualTo(misses + 2);
+        assertThat(runtime.getCacheHits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void testCacheClearsWhenFull() throws Exception {
+        ScriptRuntime runtime = ScriptRuntime.shared("nashorn");
+        int toFill = ScriptRuntime.MAX_CACHED_SCRIPTS - runtime.getCachedScriptCount();
+        for (int i = 0; i < toFill; i++) {
+            runtime.eval("var filler = " + i + "; // " + RUN, newContext(runtime));
+        }
+        assertThat(runtime.getCachedScriptCount()).isEqualTo(ScriptRuntime.MAX_CACHED_SCRIPTS);
+
+        runtime.eval("var overflow = 1; // " + RUN, newContext(runtime));
+        assertThat(runtime.getCachedScriptCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGlobalsAreNotShared() throws Exception {
+        ScriptRuntime runtime = ScriptRuntime.shared("nashorn");
+        runtime.eval("var leaked = 'first';", newContext(runtime));
+        Object leaked = runtime.eval("typeof leaked;", newContext(runtime));
+        assertThat(leaked).isEqualTo("undefined");
+    }
+
+    @Test
+    public void testIsolatedRuntimeDoesNotCache() throws Exception {
+        ScriptRuntime runtime = ScriptRuntime.isolated("nashorn");
+        String script = "var uncached = 1;";
+        runtime.eval(script, newContext(runtime));
+        runtime.eval(script, newContext(runtime));
+        assertThat(runtime.isShared()).isFalse();
+        assertThat(runtime.getCachedScriptCount()).isEqualTo(0);
+        assertThat(runtime.getCacheHits()).isEqualTo(0L);
+    }
+
+    private ScriptContext newContext(ScriptRuntime runtime) {
+        ScriptContext context = new SimpleScriptContext();
+        context.setBindings(runtime.newGlobalBindings(), ScriptContext.ENGINE_SCOPE);
+        return context;
+    }
+
+}
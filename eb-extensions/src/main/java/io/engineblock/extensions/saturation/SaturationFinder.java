@@ -0,0 +1,338 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.extensions.saturation;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.engineblock.activityimpl.ParameterMap;
+import io.engineblock.metrics.HdrDeltaHistogramProvider;
+import io.engineblock.metrics.HistogramHub;
+import io.engineblock.util.Unit;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import java.util.Optional;
+
+/**
+ * <p>Finds the highest rate which a running activity can sustain. Each step applies a rate to the
+ * cycle rate limiter, waits for it to settle, and then measures the step alone, using the difference
+ * of the cumulative HDR histograms and the rate limiter wait time from the start to the end of the step.
+ * A step is stable when all of these hold:</p>
+ * <ul>
+ * <li>The wait time of the rate limiter grew by less than <em>maxWaitRatio</em> of the step time.</li>
+ * <li>The achieved rate was within <em>maxShortfall</em> of the applied rate.</li>
+ * <li>The latency percentile was under the latency limit, or under <em>maxInflation</em> times
+ * the latency at the minimum rate when no limit is given.</li>
+ * </ul>
+ *
+ * <p>The first step is always at the minimum rate. With <em>binary</em> search, the range is then halved
+ * until it is narrower than the resolution. With <em>fibonacci</em> search, the rate is first raised from the
+ * minimum by Fibonacci multiples until a step is unstable, and then the bracket is halved. The fibonacci
+ * search spends less time far above the saturation point. A step which is clearly unstable is cut off
+ * early.</p>
+ */
+public class SaturationFinder {
+
+    private final Logger logger;
+    private final MetricRegistry metricRegistry;
+    private final ScriptContext scriptContext;
+    private final String alias;
+
+    private double minRate = 100.0D;
+    private double maxRate = 100000.0D;
+    private long stepMillis = 5000L;
+    private long settleMillis = 1000L;
+    private double percentile = 99.0D;
+    private long latencyLimitNanos = 0L;
+    private double maxInflation = 3.0D;
+    private double maxWaitRatio = 0.05D;
+    private double maxShortfall = 0.1D;
+    private double resolution = 0.05D;
+    private int maxSteps = 20;
+    private String search = "binary";
+
+    private final static int CHECKS_PER_STEP = 4;
+    private final static double CUTOFF_FACTOR = 4.0D;
+
+    public SaturationFinder(Logger logger, MetricRegistry metricRegistry, ScriptContext scriptContext, String alias) {
+        this.logger = logger;
+        this.metricRegistry = metricRegistry;
+        this.scriptContext = scriptContext;
+        this.alias = alias;
+    }
+
+    public SaturationFinder setRange(double minRate, double maxRate) {
+        if (minRate <= 0.0D || maxRate <= minRate) {
+            throw new RuntimeException("The rate range must satisfy 0 < min < max, not " + minRate + ".." + maxRate);
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        return this;
+    }
+
+    public SaturationFinder setStepSeconds(double stepSeconds) {
+        this.stepMillis = (long) (stepSeconds * 1000.0D);
+        return this;
+    }
+
+    public SaturationFinder setSettleSeconds(double settleSeconds) {
+        this.settleMillis = (long) (settleSeconds * 1000.0D);
+        return this;
+    }
+
+    /**
+     * @param percentile The latency percentile to check, like 99.0 or 99.9
+     */
+    public SaturationFinder setPercentile(double percentile) {
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * @param latencyLimit The highest acceptable latency percentile, like <em>20ms</em>
+     */
+    public SaturationFinder setLatencyLimit(String latencyLimit) {
+        this.latencyLimitNanos = Unit.nanosecondsFor(latencyLimit).orElseThrow(
+                () -> new RuntimeException("Unable to parse latency limit '" + latencyLimit + "'"));
+        return this;
+    }
+
+    public SaturationFinder setMaxInflation(double maxInflation) {
+        this.maxInflation = maxInflation;
+        return this;
+    }
+
+    public SaturationFinder setMaxWaitRatio(double maxWaitRatio) {
+        this.maxWaitRatio = maxWaitRatio;
+        return this;
+    }
+
+    public SaturationFinder setMaxShortfall(double maxShortfall) {
+        this.maxShortfall = maxShortfall;
+        return this;
+    }
+
+    /**
+     * @param resolution The search stops when the unstable rate is within this fraction of the stable rate
+     */
+    public SaturationFinder setResolution(double resolution) {
+        this.resolution = resolution;
+        return this;
+    }
+
+    public SaturationFinder setMaxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    /**
+     * @param search Either <em>binary</em> or <em>fibonacci</em>
+     */
+    public SaturationFinder setSearch(String search) {
+        if (!search.equals("binary") && !search.equals("fibonacci")) {
+            throw new RuntimeException("Unknown search '" + search + "', use binary or fibonacci");
+        }
+        this.search = search;
+        return this;
+    }
+
+    /**
+     * Run the search. The activity must be running already. When the search is done, the cycle rate
+     * is restored if the activity had one. Otherwise it is left at the highest stable rate.
+     *
+     * @return a {@link SaturationReport}
+     */
+    public SaturationReport find() {
+        ParameterMap params = getParams();
+        Optional<String> originalRate = params.getOptionalString("cyclerate");
+        SaturationReport report = new SaturationReport(alias, getCriteria());
+        logger.info("starting saturation search for " + alias + " with " + getCriteria());
+
+        try {
+            SaturationStep baseline = probe(params, minRate, 0L);
+            report.addStep(baseline);
+            if (!baseline.isStable()) {
+                logger.warn("The minimum rate " + minRate + " for " + alias + " is not stable: " + baseline.getReason());
+                return report;
+            }
+            long limitNanos = latencyLimitNanos > 0L ? latencyLimitNanos
+                    : (long) (Math.max(1L, baseline.getLatencyNanos()) * maxInflation);
+
+            double lo = minRate;
+            double hi = maxRate;
+            if (search.equals("fibonacci")) {
+                long previous = 1L;
+                long current = 2L;
+                while (report.getSteps().size() < maxSteps) {
+                    double rate = Math.min(maxRate, minRate * current);
+                    SaturationStep step = probe(params, rate, limitNanos);
+                    report.addStep(step);
+                    if (!step.isStable()) {
+                        hi = rate;
+                        break;
+                    }
+                    lo = rate;
+                    if (rate >= maxRate) {
+                        break;
+                    }
+                    long next = previous + current;
+                    previous = current;
+                    current = next;
+                }
+            }
+            while (lo < maxRate && (hi - lo) > (lo * resolution) && report.getSteps().size() < maxSteps) {
+                double rate = (lo + hi) / 2.0D;
+                SaturationStep step = probe(params, rate, limitNanos);
+                report.addStep(step);
+                if (step.isStable()) {
+                    lo = rate;
+                } else {
+                    hi = rate;
+                }
+            }
+        } finally {
+            if (originalRate.isPresent()) {
+                params.set("cyclerate", originalRate.get());
+            } else if (report.getHighestStableRate() > 0.0D) {
+                params.set("cyclerate", rateSpec(report.getHighestStableRate()));
+            }
+        }
+
+        logger.info(report.toString());
+        return report;
+    }
+
+    private SaturationStep probe(ParameterMap params, double rate, long limitNanos) {
+        logger.debug("saturation search for " + alias + " trying rate " + rate);
+        params.set("cyclerate", rateSpec(rate));
+        sleep(settleMillis);
+
+        HistogramHub.getInstance().updateCumulative();
+        Histogram startHistogram = getLatencyProvider().getDeltaReservoir().getCumulativeHistogram().copy();
+        long startWait = getWaitTime();
+        long startNanos = System.nanoTime();
+
+        SaturationStep step = null;
+        for (int check = 1; check <= CHECKS_PER_STEP; check++) {
+            sleep(stepMillis / CHECKS_PER_STEP);
+            HistogramHub.getInstance().updateCumulative();
+            Histogram delta = getLatencyProvider().getDeltaReservoir().getCumulativeHistogram().copy();
+            delta.subtract(startHistogram);
+            long elapsedNanos = Math.max(1L, System.nanoTime() - startNanos);
+            step = evaluate(rate, delta, getWaitTime() - startWait, elapsedNanos, limitNanos, check < CHECKS_PER_STEP);
+            if (step.isCutoff()) {
+                break;
+            }
+        }
+        logger.info("saturation step for " + alias + ": " + step);
+        return step;
+    }
+
+    /**
+     * Judge the measurements of a step so far. When this is not the final check, the step is only
+     * judged unstable if it is far outside the limits, and is then marked as cut off.
+     */
+    private SaturationStep evaluate(double rate, Histogram delta, long waitNanos, long elapsedNanos,
+                                    long limitNanos, boolean partial) {
+        double achieved = delta.getTotalCount() * 1_000_000_000.0D / elapsedNanos;
+        long latency = delta.getTotalCount() > 0 ? delta.getValueAtPercentile(percentile) : 0L;
+        double waitRatio = (double) waitNanos / elapsedNanos;
+        double slack = partial ? CUTOFF_FACTOR : 1.0D;
+
+        String reason = "";
+        if (delta.getTotalCount() == 0) {
+            reason = "no ops completed";
+        } else if (waitRatio > maxWaitRatio * slack) {
+            reason = String.format("wait %.4f>%.4f", waitRatio, maxWaitRatio);
+        } else if (!partial && achieved < rate * (1.0D - maxShortfall)) {
+            reason = String.format("achieved %.1f<%.1f", achieved, rate * (1.0D - maxShortfall));
+        } else if (limitNanos > 0L && latency > limitNanos * slack) {
+            reason = String.format("p%s %.3fms>%.3fms", percentileName(), latency / 1_000_000.0D, limitNanos / 1_000_000.0D);
+        }
+
+        if (partial) {
+            boolean cutoff = !reason.isEmpty() && delta.getTotalCount() > 0;
+            return new SaturationStep(rate, achieved, latency, waitRatio, !cutoff, cutoff, reason);
+        }
+        return new SaturationStep(rate, achieved, latency, waitRatio, reason.isEmpty(), false, reason);
+    }
+
+    private String rateSpec(double rate) {
+        return String.format("%.3f,1.1,restart", rate);
+    }
+
+    private String getCriteria() {
+        String latency = latencyLimitNanos > 0L
+                ? String.format("%.3fms", latencyLimitNanos / 1_000_000.0D)
+                : maxInflation + "x baseline";
+        return search + " search over " + minRate + ".." + maxRate + "ops/s, p" + percentileName() + "<" + latency
+                + ", wait<" + maxWaitRatio + ", shortfall<" + maxShortfall + ", resolution=" + resolution;
+    }
+
+    private String percentileName() {
+        String name = String.valueOf(percentile);
+        return name.endsWith(".0") ? name.substring(0, name.length() - 2) : name;
+    }
+
+    private ParameterMap getParams() {
+        Object activities = scriptContext.getAttribute("activities");
+        if (!(activities instanceof Bindings) || !((Bindings) activities).containsKey(alias)) {
+            throw new RuntimeException("There is no activity named '" + alias + "' in this scenario.");
+        }
+        Object params = ((Bindings) activities).get(alias);
+        if (!(params instanceof ParameterMap)) {
+            throw new RuntimeException("Unable to find the parameters of activity '" + alias + "'");
+        }
+        return (ParameterMap) params;
+    }
+
+    /**
+     * Response time is used when it is tracked, since it includes the time that ops are delayed
+     * behind schedule. Otherwise service time is used.
+     */
+    private HdrDeltaHistogramProvider getLatencyProvider() {
+        for (String name : new String[]{alias + ".cycles.responsetime", alias + ".cycles.servicetime", alias + ".cycles"}) {
+            Timer timer = metricRegistry.getTimers().get(name);
+            if (timer instanceof HdrDeltaHistogramProvider) {
+                return (HdrDeltaHistogramProvider) timer;
+            }
+        }
+        throw new RuntimeException("Unable to find an HDR cycle timer for activity '" + alias + "'");
+    }
+
+    private long getWaitTime() {
+        Gauge<?> gauge = metricRegistry.getGauges().get(alias + ".cycles.waittime");
+        if (gauge == null) {
+            return 0L;
+        }
+        Object value = gauge.getValue();
+        return (value instanceof Number) ? ((Number) value).longValue() : 0L;
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during saturation search for " + alias, e);
+        }
+    }
+}
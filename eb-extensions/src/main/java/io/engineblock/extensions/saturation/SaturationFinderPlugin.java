@@ -0,0 +1,45 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.extensions.saturation;
+
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+
+import javax.script.ScriptContext;
+
+public class SaturationFinderPlugin {
+
+    private final Logger logger;
+    private final MetricRegistry metricRegistry;
+    private final ScriptContext scriptContext;
+
+    public SaturationFinderPlugin(Logger logger, MetricRegistry metricRegistry, ScriptContext scriptContext) {
+        this.logger = logger;
+        this.metricRegistry = metricRegistry;
+        this.scriptContext = scriptContext;
+    }
+
+    /**
+     * @param alias The alias of a running activity
+     * @return a new saturation finder for that activity
+     */
+    public SaturationFinder init(String alias) {
+        return new SaturationFinder(logger, metricRegistry, scriptContext, alias);
+    }
+
+}
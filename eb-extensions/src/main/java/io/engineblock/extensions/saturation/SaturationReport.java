@@ -0,0 +1,87 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.extensions.saturation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a saturation search: every step that was taken, and the highest rate which was
+ * found to be stable.
+ */
+public class SaturationReport {
+
+    private final String alias;
+    private final String criteria;
+    private final List<SaturationStep> steps = new ArrayList<>();
+
+    public SaturationReport(String alias, String criteria) {
+        this.alias = alias;
+        this.criteria = criteria;
+    }
+
+    void addStep(SaturationStep step) {
+        steps.add(step);
+    }
+
+    public List<SaturationStep> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * @return the highest stable rate, or 0.0 if no rate was stable
+     */
+    public double getHighestStableRate() {
+        return steps.stream().filter(SaturationStep::isStable)
+                .mapToDouble(SaturationStep::getRate).max().orElse(0.0D);
+    }
+
+    /**
+     * @return the lowest unstable rate, or 0.0 if every rate was stable
+     */
+    public double getLowestUnstableRate() {
+        return steps.stream().filter(s -> !s.isStable())
+                .mapToDouble(SaturationStep::getRate).min().orElse(0.0D);
+    }
+
+    /**
+     * @return the measurements of the highest stable step, or null if no rate was stable
+     */
+    public SaturationStep getHighestStableStep() {
+        return steps.stream().filter(SaturationStep::isStable)
+                .max((a, b) -> Double.compare(a.getRate(), b.getRate())).orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("saturation search for ").append(alias).append(" (").append(criteria).append(")\n");
+        sb.append(String.format("%12s %12s %12s %8s %-8s %s\n", "rate", "achieved", "latency_ms", "wait", "result", "reason"));
+        for (SaturationStep step : steps) {
+            sb.append(step).append("\n");
+        }
+        sb.append(String.format("highest stable rate: %.1f", getHighestStableRate()));
+        double unstable = getLowestUnstableRate();
+        if (unstable > 0.0D) {
+            sb.append(String.format(", lowest unstable rate: %.1f", unstable));
+        }
+        sb.append("\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+package io.engineblock.extensions.saturation;
+
+/**
+ * The measurements taken while an activity was held at one rate.
+ */
+public class SaturationStep {
+
+    private final double rate;
+    private final double achievedRate;
+    private final long latencyNanos;
+    private final double waitRatio;
+    private final boolean stable;
+    private final boolean cutoff;
+    private final String reason;
+
+    public SaturationStep(double rate, double achievedRate, long latencyNanos, double waitRatio,
+                          boolean stable, boolean cutoff, String reason) {
+        this.rate = rate;
+        this.achievedRate = achievedRate;
+        this.latencyNanos = latencyNanos;
+        this.waitRatio = waitRatio;
+        this.stable = stable;
+        this.cutoff = cutoff;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the rate which was applied, in ops per second
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the rate which was measured, in ops per second
+     */
+    public double getAchievedRate() {
+        return achievedRate;
+    }
+
+    /**
+     * @return the latency percentile measured over this step only
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return how much the rate limiter fell behind, as a fraction of the step time
+     */
+    public double getWaitRatio() {
+        return waitRatio;
+    }
+
+    public boolean isStable() {
+        return stable;
+    }
+
+    /**
+     * @return true if this step was ended early, because it was clearly unstable
+     */
+    public boolean isCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * @return why this step was unstable, or an empty string
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%12.1f %12.1f %12.3f %8.4f %-8s %s",
+                rate, achievedRate, latencyNanos / 1_000_000.0D, waitRatio,
+                stable ? "stable" : (cutoff ? "cutoff" : "unstable"), reason);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ *    Copyright 2016 jshook
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ * /
+ */
+
+
+package io.engineblock.script;
+
+import com.sun.net.httpserver.HttpServer;
+import io.engineblock.core.ScenarioResult;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the motor executor strategies for an I/O bound activity, by running
+ * the http activity type against a local server which answers slowly.
+ * This is here for experimentation and is not part of builds.
+ */
+@Test
+public class MotorExecutorIntegrationTests {
+
+    private final static Pattern RATE_PATTERN = Pattern.compile(".*mean cycle rate = (\\d[.\\d]+).*", Pattern.DOTALL);
+
+    @Test(enabled = false)
+    public void testExecutorRates() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ignored) {
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        String port = String.valueOf(server.getAddress().getPort());
+
+        Map<String, Double> rates = new LinkedHashMap<>();
+        try {
+            for (String executor : new String[]{"platform", "virtual", "pinned"}) {
+                ScenarioResult scenarioResult = ScriptIntegrationTests.runScenario(
+                        "http_executors", "executor", executor, "port", port);
+                Matcher m = RATE_PATTERN.matcher(scenarioResult.getIOLog());
+                if (m.matches()) {
+                    rates.put(executor, Double.valueOf(m.group(1)));
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+        rates.forEach((executor, rate) -> System.out.println("executor=" + executor + " mean cycle rate=" + rate));
+    }
+
+}
@@ -130,6 +130,36 @@ public class ScriptIntegrationTests {
         assertThat(p.matcher(scenarioResult.getIOLog()).matches()).isTrue();
     }
 
+    @Test
+    public void testExtensionSaturationFinder() {
+        ScenarioResult scenarioResult = runScenario("saturation_diag");
+        String iolog = scenarioResult.getIOLog();
+        System.out.println("iolog\n" + iolog);
+        Pattern p = Pattern.compile(".*highest stable rate = (\\d[.\\d]+).*", Pattern.DOTALL);
+        Matcher m = p.matcher(iolog);
+        assertThat(m.matches()).isTrue();
+
+        double rate = Double.valueOf(m.group(1));
+        assertThat(rate).isCloseTo(5000.0D, Offset.offset(2500.0D));
+    }
+
+    @Test
+    public void testConcurrentScenariosAreIsolated() {
+        ScenariosExecutor e = new ScenariosExecutor(ScriptIntegrationTests.class.getSimpleName() + ":concurrent", 2);
+        for (String cycles : new String[]{"1000", "3000"}) {
+            Scenario s = new Scenario("concurrent " + cycles);
+            s.addScenarioScriptParams(Map.of("cycles", cycles));
+            s.addScriptText("load('classpath:scripts/sync/concurrent_diag.js');");
+            e.execute(s);
+        }
+        ScenariosResults results = e.awaitAllResults();
+        List<String> iologs = results.getScenarioResultMap().values().stream()
+                .map(ScenarioResult::getIOLog).collect(Collectors.toList());
+        assertThat(iologs).hasSize(2);
+        assertThat(iologs.get(0)).contains("cycles = 1000");
+        assertThat(iologs.get(1)).contains("cycles = 3000");
+    }
+
     @Test
     public void testExtensionCsvLogger() {
         ScenarioResult scenarioResult = runScenario("extension_csvmetrics");
@@ -181,6 +211,14 @@ public class ScriptIntegrationTests {
         scenarioResult.reportToLog();
     }
 
+    @Test
+    public void testAwaitEvents() {
+        ScenarioResult scenarioResult = runScenario("awaitevents");
+        Pattern p = Pattern.compile(".*slow is running.*first finished: fast.*slow reached 1000 cycles: true.*all finished.*",
+                Pattern.DOTALL);
+        assertThat(p.matcher(scenarioResult.getIOLog()).matches()).isTrue();
+    }
+
     @Test
     public void testStartStop() {
         ScenarioResult scenarioResult = runScenario("startstopdiag");
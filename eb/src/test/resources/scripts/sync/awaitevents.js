@@ -0,0 +1,30 @@
+fast = {
+    "alias" : "fast",
+    "type" : "diag",
+    "cycles" : "0..500",
+    "threads" : "1",
+    "targetrate" : "1000"
+};
+slow = {
+    "alias" : "slow",
+    "type" : "diag",
+    "cycles" : "0..3000",
+    "threads" : "1",
+    "targetrate" : "1000"
+};
+
+scenario.start(fast);
+scenario.start(slow);
+scenario.awaitEvent("slow", "running", 10000);
+print("slow is running");
+
+var first = scenario.awaitAny("fast", "slow");
+print("first finished: " + first);
+
+var counted = scenario.awaitCondition(function() {
+    return metrics.slow.cycles.servicetime.count >= 1000;
+}, 30000);
+print("slow reached 1000 cycles: " + counted);
+
+scenario.awaitAll();
+print("all finished");
@@ -0,0 +1,8 @@
+concurrent_diag = params.withOverrides({
+    "alias" : "concurrent_diag",
+    "type" : "diag",
+    "threads" : "2"
+});
+
+scenario.run(concurrent_diag);
+print("cycles = " + metrics.concurrent_diag.cycles.servicetime.count);
@@ -0,0 +1,15 @@
+activitydef = {
+    "alias" : "http_executors",
+    "type" : "http",
+    "yaml" : "http-stub",
+    "host" : "localhost",
+    "port" : params.get("port"),
+    "executor" : params.get("executor"),
+    "threads" : params.withDefaults({"threads" : "200"}).get("threads"),
+    "cycles" : params.withDefaults({"cycles" : "20K"}).get("cycles")
+};
+
+scenario.run(activitydef);
+
+print("executor = " + params.get("executor"));
+print("mean cycle rate = " + metrics.http_executors.cycles.servicetime.meanRate);
@@ -0,0 +1,26 @@
+activitydef = {
+    "alias" : "saturation_diag",
+    "type" : "diag",
+    "cycles" : "0..1000000000",
+    "threads" : "1",
+    "async" : "50",
+    "delayfunc" : "FixedValue(10000000)",
+    "cyclerate" : "1000"
+};
+
+scenario.start(activitydef);
+scenario.waitMillis(1000);
+
+var report = saturation.init("saturation_diag")
+    .setRange(1000, 20000)
+    .setStepSeconds(1)
+    .setSettleSeconds(0.5)
+    .setLatencyLimit("50ms")
+    .setSearch("fibonacci")
+    .setResolution(0.1)
+    .setMaxSteps(10)
+    .find();
+
+print(report);
+print("highest stable rate = " + report.getHighestStableRate());
+scenario.stop(activitydef);